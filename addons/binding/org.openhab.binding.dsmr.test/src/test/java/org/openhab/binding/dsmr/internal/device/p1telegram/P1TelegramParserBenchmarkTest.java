@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dsmr.internal.device.p1telegram;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openhab.binding.dsmr.internal.TelegramReaderUtil;
+import org.openhab.binding.dsmr.internal.device.p1telegram.P1Telegram.TelegramState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark of the {@link P1TelegramParser} over the recorded telegrams of DSMR 2.2 up to 5.0 meters.
+ *
+ * The telegrams are passed to the parser in chunks, like they are read from the serial port. The test asserts that one
+ * parser reading all telegrams after another gives the same result as a new parser for each telegram. The benchmark
+ * is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ */
+public class P1TelegramParserBenchmarkTest {
+
+    private static final String[] TELEGRAMS = { "Landis_Gyr_E350", "Landis_Gyr_ZCF110", "dsmr_40", "dsmr_42",
+            "dsmr_50", "Iskra_AM550", "Sagemcom_XS210" };
+    private static final int CHUNK_SIZE = 64;
+    private static final int WARMUP_ROUNDS = 5000;
+    private static final int ROUNDS = 20000;
+
+    private final Logger logger = LoggerFactory.getLogger(P1TelegramParserBenchmarkTest.class);
+
+    private final List<P1Telegram> received = new ArrayList<>();
+    private final P1TelegramParser parser = new P1TelegramParser(received::add);
+
+    private void parse(byte[] telegram) {
+        for (int offset = 0; offset < telegram.length; offset += CHUNK_SIZE) {
+            parser.parseData(telegram, offset, Math.min(CHUNK_SIZE, telegram.length - offset));
+        }
+    }
+
+    private static int countValues(P1Telegram telegram) {
+        return telegram.getCosemObjects().stream().mapToInt(o -> o.getCosemValues().size()).sum();
+    }
+
+    @Test
+    public void testParsingAllTelegramsWithOneParser() {
+        for (int round = 0; round < 3; round++) {
+            for (String name : TELEGRAMS) {
+                P1Telegram expected = TelegramReaderUtil.readTelegram(name, TelegramState.OK);
+
+                received.clear();
+                parse(TelegramReaderUtil.readRawTelegram(name));
+                assertEquals(name, 1, received.size());
+                P1Telegram telegram = received.get(0);
+                assertEquals(name, TelegramState.OK, telegram.getTelegramState());
+                assertEquals(name, expected.getCosemObjects().size(), telegram.getCosemObjects().size());
+                for (int i = 0; i < expected.getCosemObjects().size(); i++) {
+                    assertEquals(name, expected.getCosemObjects().get(i).getObisIdentifier(),
+                            telegram.getCosemObjects().get(i).getObisIdentifier());
+                    assertEquals(name, expected.getCosemObjects().get(i).getCosemValues(),
+                            telegram.getCosemObjects().get(i).getCosemValues());
+                }
+            }
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkParsing() {
+        byte[][] telegrams = new byte[TELEGRAMS.length][];
+        for (int i = 0; i < TELEGRAMS.length; i++) {
+            telegrams[i] = TelegramReaderUtil.readRawTelegram(TELEGRAMS[i]);
+        }
+
+        for (int i = 0; i < TELEGRAMS.length; i++) {
+            long values = 0;
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                received.clear();
+                parse(telegrams[i]);
+                values += countValues(received.get(0));
+            }
+            long start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                received.clear();
+                parse(telegrams[i]);
+                values += countValues(received.get(0));
+            }
+            long elapsed = System.nanoTime() - start;
+            logger.info("{}: {} bytes, {} us/telegram ({})", TELEGRAMS[i], telegrams[i].length,
+                    String.format("%.1f", (double) elapsed / ROUNDS / 1000), values);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import static org.junit.Assert.assertEquals;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -57,4 +58,19 @@ public class P1TelegramParserTest {
         assertEquals("Expected number of objects", numberOfCosemObjects,
                 telegram.getCosemObjects().stream().mapToInt(o -> o.getCosemValues().size()).sum());
     }
+
+    @Test
+    public void testParsingByteByByte() {
+        AtomicReference<P1Telegram> p1Telegram = new AtomicReference<>(null);
+        byte[] telegram = TelegramReaderUtil.readRawTelegram(telegramName);
+        P1TelegramParser parser = new P1TelegramParser(p1Telegram::set);
+
+        for (int i = 0; i < telegram.length; i++) {
+            parser.parseData(telegram, i, 1);
+        }
+        assertEquals("Expected TelegramState should be as expected", TelegramState.OK,
+                p1Telegram.get().getTelegramState());
+        assertEquals("Expected number of objects", numberOfCosemObjects,
+                p1Telegram.get().getCosemObjects().stream().mapToInt(o -> o.getCosemValues().size()).sum());
+    }
 }
@@ -10,10 +10,9 @@ package org.openhab.binding.dsmr.internal.device.cosem;
 
 import java.text.ParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.smarthome.core.types.State;
 import org.slf4j.Logger;
@@ -23,14 +22,10 @@ import org.slf4j.LoggerFactory;
  * Class for Cosem Object implementation
  *
  * @author M. Volaart - Initial contribution
+ * @author agent - Parse values from the telegram bytes
  */
 public class CosemObject {
 
-    /**
-     * Regular expression for finding CosemValues
-     */
-    private static final Pattern COSEM_VALUES_PATTERN = Pattern.compile("(\\(([^\\(\\)]*)\\))");
-
     private final Logger logger = LoggerFactory.getLogger(CosemObject.class);
 
     /**
@@ -103,22 +98,21 @@ public class CosemObject {
      * already parsed values will still be available. It is up to the caller how
      * to handle a partially parsed message.
      *
-     * @param cosemValueString the List of COSEM String values
+     * @param cosemStringValues the List of COSEM String values, without the enclosing parentheses
      * @throws ParseException if parsing fails
      */
-    public void parseCosemValues(String cosemValueString) throws ParseException {
-        logger.trace("Parsing CosemValue string {}", cosemValueString);
+    public void parseCosemValues(List<String> cosemStringValues) throws ParseException {
+        logger.trace("Parsing CosemValues {}", cosemStringValues);
 
-        Matcher cosemValueMatcher = COSEM_VALUES_PATTERN.matcher(cosemValueString);
-        int nrOfCosemValues = countCosemValues(cosemValueMatcher);
+        int nrOfCosemValues = cosemStringValues.size();
 
         if (type.supportsNrOfValues(nrOfCosemValues)) {
             logger.trace("Received items: {} is supported", nrOfCosemValues);
 
-            int cosemValueItr = 0;
-            while (cosemValueMatcher.find()) {
+            for (int cosemValueItr = 0; cosemValueItr < nrOfCosemValues; cosemValueItr++) {
                 Entry<String, CosemValueDescriptor<?>> valueDescriptorEntry = type.getDescriptor(cosemValueItr);
-                State cosemValue = valueDescriptorEntry.getValue().getStateValue(cosemValueMatcher.group(2));
+                State cosemValue = valueDescriptorEntry.getValue()
+                        .getStateValue(cosemStringValues.get(cosemValueItr));
 
                 if (cosemValue != null) {
                     if (!cosemValues.containsKey(valueDescriptorEntry.getKey())) {
@@ -128,21 +122,9 @@ public class CosemObject {
                                 cosemValue);
                     }
                 }
-                cosemValueItr++;
             }
         } else {
             throw new ParseException(type + " does not support " + nrOfCosemValues + " items", 0);
         }
     }
-
-    private int countCosemValues(Matcher cosemValueMatcher) {
-        int nrOfCosemValues = 0;
-
-        while (cosemValueMatcher.find()) {
-            nrOfCosemValues++;
-        }
-        // We need the matcher again, reset to initial state
-        cosemValueMatcher.reset();
-        return nrOfCosemValues;
-    }
 }
@@ -77,10 +77,10 @@ public class CosemObjectFactory {
      * parsed correctly or no corresponding Cosem Object was found
      *
      * @param obisIdString String containing the OBIS message identifier
-     * @param cosemStringValues String containing Cosem values
+     * @param cosemStringValues List of the Cosem values
      * @return CosemObject or null if parsing failed
      */
-    public CosemObject getCosemObject(String obisIdString, String cosemStringValues) {
+    public CosemObject getCosemObject(String obisIdString, List<String> cosemStringValues) {
         OBISIdentifier obisId;
         OBISIdentifier reducedObisId;
 
@@ -95,13 +95,15 @@ public class CosemObjectFactory {
         logger.trace("Received obisIdString {}, obisId: {}, values: {}", obisIdString, obisId, cosemStringValues);
 
         CosemObject cosemObject = null;
+        CosemObjectType fixedType = obisLookupTableFixed.get(reducedObisId);
+        CosemObjectType dynamicType = fixedType == null ? obisLookupTableDynamic.get(reducedObisId) : null;
 
-        if (obisLookupTableFixed.containsKey(reducedObisId)) {
-            cosemObject = getCosemObjectInternal(obisLookupTableFixed.get(reducedObisId), obisId, cosemStringValues);
+        if (fixedType != null) {
+            cosemObject = getCosemObjectInternal(fixedType, obisId, cosemStringValues);
             logger.trace("Found obisId {} in the fixed lookup table", reducedObisId);
-        } else if (obisLookupTableDynamic.containsKey(reducedObisId)) {
+        } else if (dynamicType != null) {
             logger.trace("Found obisId {} in the dynamic lookup table", reducedObisId);
-            cosemObject = getCosemObjectInternal(obisLookupTableDynamic.get(reducedObisId), obisId, cosemStringValues);
+            cosemObject = getCosemObjectInternal(dynamicType, obisId, cosemStringValues);
         } else {
             for (CosemObjectType obisMsgType : obisWildcardCosemTypeList) {
                 if (obisMsgType.obisId.equalsWildCard(reducedObisId)) {
@@ -133,7 +135,7 @@ public class CosemObjectFactory {
      * @return a CosemObject or null if parsing failed
      */
     private CosemObject getCosemObjectInternal(CosemObjectType cosemObjectType, OBISIdentifier obisIdentifier,
-            String cosemStringValues) {
+            List<String> cosemStringValues) {
         CosemObject obj = new CosemObject(cosemObjectType, obisIdentifier);
 
         try {
@@ -8,9 +8,8 @@
  */
 package org.openhab.binding.dsmr.internal.device.cosem;
 
+import java.math.BigDecimal;
 import java.text.ParseException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
@@ -29,6 +28,7 @@ import org.eclipse.smarthome.core.library.unit.SmartHomeUnits;
  * {@link CosemQuantity} represents a value with a unit.
  *
  * @author Hilbrand Bouwkamp - Initial contribution
+ * @author agent - Parse quantities without regular expressions
  *
  * @param <Q> The {@link Quantity} type of the unit of this class
  */
@@ -43,23 +43,14 @@ class CosemQuantity<Q extends Quantity<Q>> extends CosemValueDescriptor<Quantity
     public static final CosemQuantity<Power> WATT = new CosemQuantity<>(SmartHomeUnits.WATT);
 
     /**
-     * Pattern to convert a cosem value to a value that can be parsed by {@link QuantityType}.
-     * The specification states that the delimiter between the value and the unit is a '*'-character.
-     * We have seen on the Kaifa 0025 meter that both '*' and the '_' character are used.
-     *
-     * On the Kampstrup 162JxC in some CosemValues the separator is missing
-     *
-     * The above quirks are supported
-     *
-     * We also support unit that do not follow the exact case.
+     * Unit of this CosemValue
      */
-    private static final Pattern COSEM_VALUE_WITH_UNIT_PATTERN = Pattern.compile("^([\\d\\.]+)[\\*_]?(.+)$",
-            Pattern.CASE_INSENSITIVE);
+    private final Unit<Q> unit;
 
     /**
-     * Unit of this CosemValue
+     * Symbol of the unit, values with exactly this unit are created without parsing the unit
      */
-    private final Unit<Q> unit;
+    private final String unitSymbol;
 
     /**
      * Creates a new {@link CosemDouble}.
@@ -79,6 +70,7 @@ class CosemQuantity<Q extends Quantity<Q>> extends CosemValueDescriptor<Quantity
     public CosemQuantity(Unit<Q> unit, String channelId) {
         super(channelId);
         this.unit = unit;
+        this.unitSymbol = unit.toString();
     }
 
     /**
@@ -91,31 +83,73 @@ class CosemQuantity<Q extends Quantity<Q>> extends CosemValueDescriptor<Quantity
     @Override
     protected QuantityType<Q> getStateValue(String cosemValue) throws ParseException {
         try {
-            QuantityType<Q> qt = new QuantityType<Q>(prepare(cosemValue));
+            String value = cosemValue.replace("m3", "m³");
+            int numberEnd = numberEnd(value);
 
-            if (!unit.equals(qt.getUnit())) {
-                throw new ParseException("Failed to parse value '" + cosemValue + "' as unit " + unit, 0);
+            if (numberEnd < 0) {
+                return parse(value, cosemValue);
             }
-            return qt;
+            int unitStart = isSeparator(value.charAt(numberEnd)) && numberEnd + 1 < value.length() ? numberEnd + 1
+                    : numberEnd;
+            String unitString = value.substring(unitStart);
+
+            if (unitSymbol.equals(unitString)) {
+                // The unit is known already, only the number needs to be parsed
+                return new QuantityType<Q>(new BigDecimal(value.substring(0, numberEnd)), unit);
+            }
+            return parse(value.substring(0, numberEnd) + ' ' + unitString, cosemValue);
         } catch (IllegalArgumentException nfe) {
             throw new ParseException("Failed to parse value '" + cosemValue + "' as unit " + unit, 0);
         }
     }
 
     /**
-     * Check if COSEM value has a unit, check and parse the value. We assume here numbers (float or integers)
+     * Parses a value with a unit separated by a space and checks the unit.
+     *
+     * @param value the value to parse
+     * @param cosemValue the original value for the error message
+     * @return {@link QuanitytType} on success
+     * @throws ParseException in case unit doesn't match.
+     */
+    private QuantityType<Q> parse(String value, String cosemValue) throws ParseException {
+        QuantityType<Q> qt = new QuantityType<Q>(value);
+
+        if (!unit.equals(qt.getUnit())) {
+            throw new ParseException("Failed to parse value '" + cosemValue + "' as unit " + unit, 0);
+        }
+        return qt;
+    }
+
+    /**
+     * Check if COSEM value has a unit and returns the end of the number. We assume here numbers (float or integers).
      * The specification states that the delimiter between the value and the unit is a '*'-character.
      * We have seen on the Kaifa 0025 meter that both '*' and the '_' character are used.
      *
-     * On the Kampstrup 162JxC in some CosemValues the separator is missing. This
+     * On the Kampstrup 162JxC in some CosemValues the separator is missing.
      *
      * The above quirks are supported
      *
-     * We also support unit that do not follow the exact case.
+     * @param value the value to check
+     * @return the end of the number, or -1 if the value doesn't start with a number followed by at least 1 character
      */
-    private String prepare(String cosemValue) {
-        Matcher matcher = COSEM_VALUE_WITH_UNIT_PATTERN.matcher(cosemValue.replace("m3", "m³"));
+    private static int numberEnd(String value) {
+        int numberEnd = 0;
+
+        while (numberEnd < value.length() && isNumberCharacter(value.charAt(numberEnd))) {
+            numberEnd++;
+        }
+        if (numberEnd == 0 || value.length() < 2) {
+            return -1;
+        }
+        // If there are only digits, the last one is taken as unit (and will fail to parse)
+        return numberEnd == value.length() ? numberEnd - 1 : numberEnd;
+    }
+
+    private static boolean isNumberCharacter(char c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
 
-        return matcher.find() ? matcher.group(1) + ' ' + matcher.group(2) : cosemValue;
+    private static boolean isSeparator(char c) {
+        return c == '*' || c == '_';
     }
 }
@@ -9,27 +9,15 @@
 package org.openhab.binding.dsmr.internal.device.cosem;
 
 import java.text.ParseException;
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Class representing an OBISIdentifier
  *
  * @author M. Volaart - Initial contribution
  * @author Hilbrand Bouwkamp - Fix bug in regex pattern.
+ * @author agent - Parse identifiers from the telegram bytes
  */
 public class OBISIdentifier {
-    /**
-     * String representing a-b:c.d.e.f OBIS ID
-     */
-    private static final String OBISID_REGEX = "((\\d+)\\-)?((\\d+):)?((\\d+)\\.)(\\d+)(\\.(\\d+))?(.(\\d+))?";
-
-    /**
-     * OBIS ID pattern
-     */
-    private static final Pattern OBIS_ID_PATTERN = Pattern.compile(OBISID_REGEX);
-
     /* the six individual group values of the OBIS ID */
     private int groupA;
     private Integer groupB;
@@ -60,41 +48,94 @@ public class OBISIdentifier {
     /**
      * Creates a new {@link OBISIdentifier} of the specified String
      *
+     * The String has the format a-b:c.d.e.f, where a, b, e and f are optional. The separator before f can be any
+     * character. The String is scanned once without a regular expression, as this is done for every received value.
+     *
      * @param obisIDString the OBIS String ID
      * @throws ParseException if obisIDString is not a valid OBIS Identifier
      */
     public OBISIdentifier(String obisIDString) throws ParseException {
-        Matcher m = OBIS_ID_PATTERN.matcher(obisIDString);
+        int length = obisIDString.length();
+        int pos = 0;
+        boolean groupAFound = false;
 
-        if (m.matches()) {
-            // Optional value A
-            if (m.group(2) != null) {
-                this.groupA = Integer.parseInt(m.group(2));
+        // Optional values A and B, required value C
+        while (true) {
+            int end = endOfNumber(obisIDString, pos);
+            if (end == pos || end == length) {
+                throw invalidIdentifier(obisIDString);
             }
+            int value = parseNumber(obisIDString, pos, end);
+            char separator = obisIDString.charAt(end);
+            pos = end + 1;
 
-            // Optional value B
-            if (m.group(4) != null) {
-                this.groupB = Integer.parseInt(m.group(4));
+            if (separator == '-' && !groupAFound && groupB == null) {
+                this.groupA = value;
+                groupAFound = true;
+            } else if (separator == ':' && groupB == null) {
+                this.groupB = value;
+            } else if (separator == '.') {
+                this.groupC = value;
+                break;
+            } else {
+                throw invalidIdentifier(obisIDString);
             }
+        }
 
-            // Required value C & D
-            this.groupC = Integer.parseInt(m.group(6));
-            this.groupD = Integer.parseInt(m.group(7));
+        // Required value D
+        int end = endOfNumber(obisIDString, pos);
+        if (end == pos) {
+            throw invalidIdentifier(obisIDString);
+        }
+        this.groupD = parseNumber(obisIDString, pos, end);
+        pos = end;
 
-            // Optional value E
-            if (m.group(9) != null) {
-                this.groupE = Integer.parseInt(m.group(9));
+        // Optional value E
+        if (pos < length && obisIDString.charAt(pos) == '.') {
+            end = endOfNumber(obisIDString, pos + 1);
+            if (end > pos + 1) {
+                this.groupE = parseNumber(obisIDString, pos + 1, end);
+                pos = end;
             }
+        }
 
-            // Optional value F
-            if (m.group(11) != null) {
-                this.groupF = Integer.parseInt(m.group(11));
+        // Optional value F, separated by any character except a line terminator
+        if (pos < length) {
+            end = endOfNumber(obisIDString, pos + 1);
+            if (isLineTerminator(obisIDString.charAt(pos)) || end == pos + 1 || end != length) {
+                throw invalidIdentifier(obisIDString);
             }
-        } else {
-            throw new ParseException("Invalid OBIS identifier:" + obisIDString, 0);
+            this.groupF = parseNumber(obisIDString, pos + 1, end);
         }
     }
 
+    private static int endOfNumber(String s, int start) {
+        int end = start;
+        while (end < s.length() && s.charAt(end) >= '0' && s.charAt(end) <= '9') {
+            end++;
+        }
+        return end;
+    }
+
+    private static int parseNumber(String s, int start, int end) throws ParseException {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw invalidIdentifier(s);
+            }
+        }
+        return (int) value;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static ParseException invalidIdentifier(String obisIDString) {
+        return new ParseException("Invalid OBIS identifier:" + obisIDString, 0);
+    }
+
     /**
      * @return the groupA
      */
@@ -205,18 +246,23 @@ public class OBISIdentifier {
 
     @Override
     public int hashCode() {
-        return Objects.hash(groupA, ((groupB == null) ? 0 : groupB), groupC, groupD, groupE,
-                ((groupF == null) ? 0 : groupF));
+        // Same as Objects.hash, but without boxing, as this is used for the lookup of every received value
+        int result = 31 + groupA;
+        result = 31 * result + ((groupB == null) ? 0 : groupB);
+        result = 31 * result + groupC;
+        result = 31 * result + groupD;
+        result = 31 * result + groupE;
+        return 31 * result + ((groupF == null) ? 0 : groupF);
     }
 
     /**
      * Returns an reduced OBIS Identifier. This means group F is set to null
      * (.i.e. not applicable)
      *
-     * @return reduced OBIS Identifer
+     * @return reduced OBIS Identifer, this instance if group F is already null
      */
     public OBISIdentifier getReducedOBISIdentifier() {
-        return new OBISIdentifier(groupA, groupB, groupC, groupD, groupE, null);
+        return groupF == null ? this : new OBISIdentifier(groupA, groupB, groupC, groupD, groupE, null);
     }
 
     /**
@@ -10,8 +10,8 @@ package org.openhab.binding.dsmr.internal.device.p1telegram;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.binding.dsmr.internal.device.cosem.CosemObject;
@@ -26,8 +26,13 @@ import org.slf4j.LoggerFactory;
  *
  * Data can be parsed in chunks. If a full P1 telegram is received, listeners are notified
  *
+ * The data is parsed byte by byte in a single pass. The OBIS identifier and the values of the current Cosem object are
+ * collected in reused byte buffers and the values are split while parsing, so no intermediate strings or regular
+ * expressions are needed.
+ *
  * @author M. Volaart - Initial contribution
  * @author Hilbrand Bouwkamp - Removed asynchronous call and some clean up
+ * @author agent - Byte-level parsing of the telegram
  */
 @NonNullByDefault
 public class P1TelegramParser {
@@ -55,21 +60,41 @@ public class P1TelegramParser {
     private final Logger logger = LoggerFactory.getLogger(P1TelegramParser.class);
 
     /**
-     * Pattern for the CRC-code
+     * Number of hexadecimal characters of the CRC-code
+     */
+    private static final int CRC_LENGTH = 4;
+
+    /**
+     * Initial size of the OBIS identifier and Cosem value buffers. The buffers grow if needed.
      */
-    private static final String CRC_PATTERN = "[0-9A-Z]{4}";
+    private static final int INITIAL_BUFFER_SIZE = 64;
 
     /* internal state variables */
 
     /**
      * current obisId buffer.
      */
-    private final StringBuilder obisId = new StringBuilder();
+    private byte[] obisId = new byte[INITIAL_BUFFER_SIZE];
 
     /**
-     * Current cosem object values buffer.
+     * Number of bytes in the obisId buffer.
      */
-    private final StringBuilder cosemObjectValuesString = new StringBuilder();
+    private int obisIdLength;
+
+    /**
+     * Buffer of the Cosem value that is currently parsed, i.e. the data after the last '('.
+     */
+    private byte[] cosemValue = new byte[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Number of bytes in the cosemValue buffer, -1 if currently not within a Cosem value.
+     */
+    private int cosemValueLength = -1;
+
+    /**
+     * Values of the Cosem object that is currently parsed.
+     */
+    private final List<String> cosemObjectValues = new ArrayList<>();
 
     /**
      * In lenient mode store raw data and log when a complete message is received.
@@ -79,7 +104,17 @@ public class P1TelegramParser {
     /**
      * Current crc value read.
      */
-    private final StringBuilder crcValue = new StringBuilder();
+    private int crcValue;
+
+    /**
+     * Number of characters of the crc value read.
+     */
+    private int crcValueLength;
+
+    /**
+     * Whether the crc value read so far only contains hexadecimal characters.
+     */
+    private boolean crcValueValid = true;
 
     /**
      * CRC calculation helper
@@ -232,18 +267,18 @@ public class P1TelegramParser {
                      * P1 telegram is correctly finished
                      */
                     if (c == '\r' || c == '/') {
-                        logger.trace("telegramState {}, crcValue to check 0x{}", telegramState, crcValue);
+                        logger.trace("telegramState {}, crcValue to check 0x{}", telegramState,
+                                Integer.toHexString(crcValue));
                         // Only perform CRC check if telegram is still ok
-                        if (telegramState == TelegramState.OK && crcValue.length() > 0) {
-                            if (Pattern.matches(CRC_PATTERN, crcValue)) {
-                                int crcP1Telegram = Integer.parseInt(crcValue.toString(), 16);
+                        if (telegramState == TelegramState.OK && crcValueLength > 0) {
+                            if (crcValueValid && crcValueLength == CRC_LENGTH) {
                                 int calculatedCRC = crc.getCurrentCRCCode();
 
-                                if (logger.isDebugEnabled()) {
-                                    logger.trace("received CRC value: {}, calculated CRC value: 0x{}", crcValue,
-                                            String.format("%04X", calculatedCRC));
+                                if (logger.isTraceEnabled()) {
+                                    logger.trace("received CRC value: 0x{}, calculated CRC value: 0x{}",
+                                            String.format("%04X", crcValue), String.format("%04X", calculatedCRC));
                                 }
-                                if (crcP1Telegram != calculatedCRC) {
+                                if (crcValue != calculatedCRC) {
                                     logger.trace("CRC value does not match, p1 Telegram failed");
 
                                     telegramState = TelegramState.CRC_ERROR;
@@ -306,22 +341,22 @@ public class P1TelegramParser {
                 crc.processByte((byte) c);
                 break;
             case DATA_OBIS_ID:
-                obisId.append(c);
+                appendObisId((byte) c);
                 crc.processByte((byte) c);
                 break;
             case DATA_OBIS_VALUE:
-                cosemObjectValuesString.append(c);
+                handleCosemValueCharacter(c);
                 crc.processByte((byte) c);
                 break;
             case DATA_OBIS_VALUE_END:
-                cosemObjectValuesString.append(c);
+                handleCosemValueCharacter(c);
                 crc.processByte((byte) c);
                 break;
             case CRC_VALUE:
                 if (c == '!') {
                     crc.processByte((byte) c);
                 } else {
-                    crcValue.append(c);
+                    appendCrcValue(c);
                 }
                 // CRC data is not part of received data
                 break;
@@ -330,14 +365,68 @@ public class P1TelegramParser {
         }
     }
 
+    /**
+     * Appends a character to the OBIS identifier buffer
+     *
+     * @param b the character to append
+     */
+    private void appendObisId(byte b) {
+        if (obisIdLength == obisId.length) {
+            obisId = Arrays.copyOf(obisId, obisId.length * 2);
+        }
+        obisId[obisIdLength++] = b;
+    }
+
+    /**
+     * Splits the Cosem values while parsing. A value is the data between a '(' and the next ')' character. Data
+     * outside of the parentheses is ignored. If a '(' character is found within a value, the value starts again.
+     *
+     * @param c the character to process
+     */
+    private void handleCosemValueCharacter(char c) {
+        if (c == '(') {
+            cosemValueLength = 0;
+        } else if (cosemValueLength >= 0) {
+            if (c == ')') {
+                cosemObjectValues.add(new String(cosemValue, 0, cosemValueLength, StandardCharsets.ISO_8859_1));
+                cosemValueLength = -1;
+            } else {
+                if (cosemValueLength == cosemValue.length) {
+                    cosemValue = Arrays.copyOf(cosemValue, cosemValue.length * 2);
+                }
+                cosemValue[cosemValueLength++] = (byte) c;
+            }
+        }
+    }
+
+    /**
+     * Adds a character to the CRC value read. Only 4 uppercase hexadecimal characters are a valid CRC value.
+     *
+     * @param c the character to add
+     */
+    private void appendCrcValue(char c) {
+        int digit;
+        if (c >= '0' && c <= '9') {
+            digit = c - '0';
+        } else if (c >= 'A' && c <= 'F') {
+            digit = c - 'A' + 10;
+        } else {
+            digit = 0;
+            crcValueValid = false;
+        }
+        crcValue = ((crcValue << 4) | digit) & 0xFFFF;
+        crcValueLength++;
+    }
+
     /**
      * Clears all internal state
      */
     private void clearInternalData() {
-        obisId.setLength(0);
-        cosemObjectValuesString.setLength(0);
+        clearObisData();
         rawData.setLength(0);
-        crcValue.setLength(0);
+        crcValue = 0;
+        crcValueLength = 0;
+        crcValueValid = true;
         crc.initialize();
         cosemObjects.clear();
     }
@@ -349,18 +438,18 @@ public class P1TelegramParser {
      * - current OBIS data object
      */
     private void clearObisData() {
-        obisId.setLength(0);
-        cosemObjectValuesString.setLength(0);
+        obisIdLength = 0;
+        cosemValueLength = -1;
+        cosemObjectValues.clear();
     }
 
     /**
      * Store the current CosemObject in the list of received cosem Objects
      */
     private void storeCurrentCosemObject() {
-        String obisIdString = obisId.toString();
-
-        if (!obisIdString.isEmpty()) {
-            CosemObject cosemObject = factory.getCosemObject(obisIdString, cosemObjectValuesString.toString());
+        if (obisIdLength > 0) {
+            String obisIdString = new String(obisId, 0, obisIdLength, StandardCharsets.ISO_8859_1);
+            CosemObject cosemObject = factory.getCosemObject(obisIdString, cosemObjectValues);
 
             if (cosemObject != null) {
                 logger.trace("Adding {} to list of Cosem Objects", cosemObject);
@@ -9,8 +9,9 @@
 package org.openhab.binding.dsmr.internal.meter;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.binding.dsmr.internal.device.cosem.CosemObject;
@@ -38,9 +39,9 @@ public class DSMRMeter {
     private final DSMRMeterDescriptor meterDescriptor;
 
     /**
-     * List of supported message identifiers for this meter
+     * Set of supported message identifiers for this meter, created once to look up each received object directly
      */
-    private List<OBISIdentifier> supportedIdentifiers = new ArrayList<>();
+    private final Set<OBISIdentifier> supportedIdentifiers = new HashSet<>();
 
     /**
      * Creates a new DSMRMeter
@@ -69,11 +70,21 @@ public class DSMRMeter {
      */
     public List<CosemObject> filterMeterValues(List<CosemObject> cosemObjects) {
         logger.trace("supported identifiers: {}, searching for objects {}", supportedIdentifiers, cosemObjects);
-        List<CosemObject> filteredValues = cosemObjects.stream()
-                .filter(cosemObject -> supportedIdentifiers
-                        .contains(cosemObject.getObisIdentifier().getReducedOBISIdentifier()))
-                .collect(Collectors.toList());
-        cosemObjects.removeAll(filteredValues);
+        List<CosemObject> filteredValues = new ArrayList<>();
+        List<CosemObject> remainingValues = new ArrayList<>(cosemObjects.size());
+
+        // Single pass over the objects, as removing each object from the list would shift the remaining objects
+        for (CosemObject cosemObject : cosemObjects) {
+            if (supportedIdentifiers.contains(cosemObject.getObisIdentifier().getReducedOBISIdentifier())) {
+                filteredValues.add(cosemObject);
+            } else {
+                remainingValues.add(cosemObject);
+            }
+        }
+        if (!filteredValues.isEmpty()) {
+            cosemObjects.clear();
+            cosemObjects.addAll(remainingValues);
+        }
         return filteredValues;
     }
 
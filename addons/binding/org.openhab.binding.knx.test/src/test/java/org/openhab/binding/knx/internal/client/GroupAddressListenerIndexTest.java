@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+
+import tuwien.auto.calimero.GroupAddress;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class GroupAddressListenerIndexTest {
+
+    private static final GroupAddress GA1 = new GroupAddress(1, 2, 3);
+    private static final GroupAddress GA2 = new GroupAddress(1, 2, 4);
+    private static final GroupAddress GA3 = new GroupAddress(5, 6, 7);
+
+    @Test
+    public void testIndexedLookup() {
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        TestGroupAddressListener listener1 = new TestGroupAddressListener(true, GA1, GA2);
+        TestGroupAddressListener listener2 = new TestGroupAddressListener(true, GA2);
+        assertThat(index.register(listener1), is(true));
+        assertThat(index.register(listener2), is(true));
+
+        assertThat(index.getListeners(GA1), is(equalTo(Collections.singletonList(listener1))));
+        assertThat(index.getListeners(GA2).size(), is(2));
+        assertThat(index.getListeners(GA3).isEmpty(), is(true));
+
+        assertThat(index.unregister(listener1), is(true));
+        assertThat(index.unregister(listener1), is(false));
+        assertThat(index.getListeners(GA1).isEmpty(), is(true));
+        assertThat(index.getListeners(GA2), is(equalTo(Collections.singletonList(listener2))));
+    }
+
+    @Test
+    public void testRegisterAgainRefreshesAddresses() {
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        TestGroupAddressListener listener = new TestGroupAddressListener(true, GA1);
+        index.register(listener);
+        listener.addresses.clear();
+        listener.addresses.add(GA3);
+        // not re-indexed yet, stale entry is filtered out
+        assertThat(index.getListeners(GA1).isEmpty(), is(true));
+        assertThat(index.getListeners(GA3).isEmpty(), is(true));
+
+        assertThat(index.register(listener), is(false));
+        assertThat(index.getListeners(GA3), is(equalTo(Collections.singletonList(listener))));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    public void testUnindexedListenerIsAsked() {
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        TestGroupAddressListener indexed = new TestGroupAddressListener(true, GA1);
+        TestGroupAddressListener unindexed = new TestGroupAddressListener(false, GA1, GA2);
+        index.register(indexed);
+        index.register(unindexed);
+
+        List<GroupAddressListener> listeners = index.getListeners(GA1);
+        assertThat(listeners.size(), is(2));
+        assertThat(index.getListeners(GA2), is(equalTo(Collections.singletonList(unindexed))));
+        assertThat(index.unregister(unindexed), is(true));
+        assertThat(index.getListeners(GA2).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDispatcherKeepsOrderPerAddress() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OrderedTelegramDispatcher dispatcher = new OrderedTelegramDispatcher(executor, 3, 100000);
+            GroupAddress[] addresses = { GA1, GA2, GA3 };
+            List<List<Integer>> received = new ArrayList<>();
+            for (int i = 0; i < addresses.length; i++) {
+                received.add(Collections.synchronizedList(new ArrayList<>()));
+            }
+            int telegrams = 30000;
+            CountDownLatch latch = new CountDownLatch(telegrams);
+            for (int i = 0; i < telegrams; i++) {
+                int sequence = i;
+                int address = i % addresses.length;
+                assertThat(dispatcher.dispatch(addresses[address], () -> {
+                    received.get(address).add(sequence);
+                    latch.countDown();
+                }), is(true));
+            }
+            assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+            for (int address = 0; address < addresses.length; address++) {
+                List<Integer> sequences = received.get(address);
+                assertThat(sequences.size(), is(telegrams / addresses.length));
+                for (int i = 1; i < sequences.size(); i++) {
+                    assertThat(sequences.get(i) > sequences.get(i - 1), is(true));
+                }
+            }
+            assertThat(dispatcher.getPendingCount(), is(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDispatcherCapacity() {
+        List<Runnable> executed = new ArrayList<>();
+        // executor which never runs the lanes
+        OrderedTelegramDispatcher dispatcher = new OrderedTelegramDispatcher(executed::add, 2, 3);
+        assertThat(dispatcher.dispatch(GA1, () -> {
+        }), is(true));
+        assertThat(dispatcher.dispatch(GA1, () -> {
+        }), is(true));
+        assertThat(dispatcher.dispatch(GA2, () -> {
+        }), is(true));
+        assertThat(dispatcher.dispatch(GA3, () -> {
+        }), is(false));
+        assertThat(dispatcher.getDroppedCount(), is(1L));
+        assertThat(dispatcher.getPendingCount(), is(3));
+
+        dispatcher.clear();
+        assertThat(dispatcher.getPendingCount(), is(0));
+        assertThat(dispatcher.dispatch(GA3, () -> {
+        }), is(true));
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ReadDatapointQueueTest {
+
+    private static Datapoint datapoint(int sub) {
+        return new CommandDP(new GroupAddress(1, 1, sub), "test", 0, "9.001");
+    }
+
+    private static int polledSubGroup(ReadDatapointQueue queue) {
+        ReadDatapoint polled = queue.poll();
+        return polled == null ? -1 : polled.getDatapoint().getMainAddress().getRawAddress() & 0xff;
+    }
+
+    @Test
+    public void testReadsAreCoalesced() {
+        ReadDatapointQueue queue = new ReadDatapointQueue();
+        assertThat(queue.add(datapoint(1), 3, false), is(true));
+        assertThat(queue.add(datapoint(2), 3, false), is(true));
+        assertThat(queue.add(datapoint(1), 3, false), is(false));
+        assertThat(queue.size(), is(2));
+        assertThat(queue.getCoalescedCount(), is(1L));
+
+        assertThat(polledSubGroup(queue), is(1));
+        assertThat(polledSubGroup(queue), is(2));
+        assertThat(polledSubGroup(queue), is(-1));
+        assertThat(queue.size(), is(0));
+    }
+
+    @Test
+    public void testPrioritizedReadsFirst() {
+        ReadDatapointQueue queue = new ReadDatapointQueue();
+        queue.add(datapoint(1), 3, false);
+        queue.add(datapoint(2), 3, false);
+        queue.add(datapoint(3), 3, true);
+        // upgrading a pending regular read
+        assertThat(queue.add(datapoint(2), 3, true), is(false));
+
+        assertThat(polledSubGroup(queue), is(3));
+        assertThat(polledSubGroup(queue), is(2));
+        assertThat(polledSubGroup(queue), is(1));
+        assertThat(polledSubGroup(queue), is(-1));
+    }
+
+    @Test
+    public void testRetry() {
+        ReadDatapointQueue queue = new ReadDatapointQueue();
+        queue.add(datapoint(1), 3, false);
+        queue.add(datapoint(2), 3, false);
+        ReadDatapoint failed = queue.poll();
+        assertThat(failed, is(notNullValue()));
+        failed.incrementRetries();
+        queue.retry(failed);
+        assertThat(polledSubGroup(queue), is(2));
+        ReadDatapoint retried = queue.poll();
+        assertThat(retried, is(sameInstance(failed)));
+        assertThat(retried.getRetries(), is(1));
+
+        // requested again meanwhile, the retry is coalesced
+        queue.add(datapoint(1), 3, false);
+        queue.retry(retried);
+        assertThat(queue.size(), is(1));
+    }
+
+    @Test
+    public void testReadAgainAfterPolled() {
+        ReadDatapointQueue queue = new ReadDatapointQueue();
+        queue.add(datapoint(1), 3, false);
+        queue.add(datapoint(1), 3, true);
+        assertThat(polledSubGroup(queue), is(1));
+        // stale entry of the upgraded read must not be returned
+        queue.add(datapoint(1), 3, false);
+        assertThat(polledSubGroup(queue), is(1));
+        assertThat(polledSubGroup(queue), is(-1));
+    }
+
+    @Test
+    public void testPacing() {
+        AdaptiveReadPacing pacing = new AdaptiveReadPacing(50);
+        assertThat(pacing.isReadDue(0), is(true));
+        pacing.onRead(0);
+        assertThat(pacing.isReadDue(49), is(false));
+        assertThat(pacing.isReadDue(50), is(true));
+
+        pacing.onBusy();
+        assertThat(pacing.getPauseMillis(), is(100L));
+        pacing.onResponse(AdaptiveReadPacing.SLOW_LATENCY_MILLIS);
+        assertThat(pacing.getPauseMillis(), is(200L));
+        for (int i = 0; i < 20; i++) {
+            pacing.onBusy();
+        }
+        assertThat(pacing.getPauseMillis(), is(AdaptiveReadPacing.MAX_PAUSE_MILLIS));
+
+        for (int i = 0; i < 50; i++) {
+            pacing.onResponse(10);
+        }
+        assertThat(pacing.getPauseMillis(), is(50L));
+        assertThat(pacing.getAverageLatencyMillis() < 100, is(true));
+    }
+
+    @Test
+    public void testPacingWithoutPause() {
+        AdaptiveReadPacing pacing = new AdaptiveReadPacing(0);
+        pacing.onRead(0);
+        assertThat(pacing.isReadDue(0), is(true));
+        pacing.onBusy();
+        assertThat(pacing.getPauseMillis(), is(50L));
+        pacing.onResponse(10);
+        pacing.onResponse(10);
+        assertThat(pacing.getPauseMillis() < 50, is(true));
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+
+/**
+ * Benchmark of the telegram dispatching, replaying a telegram stream against a synthetic installation of 1000
+ * devices.
+ *
+ * The stream resembles a recorded bus trace: most telegrams go to a small set of busy group addresses (sensors,
+ * central functions), the rest is spread over the installation. The tests assert that the indexed lookup delivers
+ * exactly the same telegrams as scanning all listeners. The benchmark is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ */
+public class TelegramDispatchBenchmarkTest {
+
+    private static final int DEVICES = 1000;
+    private static final int ADDRESSES_PER_DEVICE = 4;
+    private static final int MAIN_GROUPS = 16;
+    private static final int TELEGRAMS = 20000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(TelegramDispatchBenchmarkTest.class);
+
+    private final Random random = new Random(1);
+    private final List<GroupAddress> installation = new ArrayList<>();
+    private final List<TestGroupAddressListener> devices = new ArrayList<>();
+
+    private void createInstallation() {
+        for (int main = 0; main < MAIN_GROUPS; main++) {
+            for (int middle = 0; middle < 8; middle++) {
+                for (int sub = 0; sub < 32; sub++) {
+                    installation.add(new GroupAddress(main, middle, sub));
+                }
+            }
+        }
+        for (int i = 0; i < DEVICES; i++) {
+            TestGroupAddressListener device = new TestGroupAddressListener(true);
+            for (int j = 0; j < ADDRESSES_PER_DEVICE; j++) {
+                device.addresses.add(installation.get(random.nextInt(installation.size())));
+            }
+            devices.add(device);
+        }
+    }
+
+    private GroupAddress[] recordTelegrams() {
+        GroupAddress[] telegrams = new GroupAddress[TELEGRAMS];
+        for (int i = 0; i < telegrams.length; i++) {
+            if (random.nextInt(10) < 7) {
+                telegrams[i] = installation.get(random.nextInt(50));
+            } else {
+                telegrams[i] = installation.get(random.nextInt(installation.size()));
+            }
+        }
+        return telegrams;
+    }
+
+    private void benchmark(String name, GroupAddress[] telegrams, ToIntFunction<GroupAddress> dispatch) {
+        long deliveries = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (GroupAddress telegram : telegrams) {
+                dispatch.applyAsInt(telegram);
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (GroupAddress telegram : telegrams) {
+                deliveries += dispatch.applyAsInt(telegram);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("{}: {} ns/telegram ({} deliveries)", name,
+                String.format("%.1f", (double) elapsed / ROUNDS / telegrams.length), deliveries);
+    }
+
+    private int scan(GroupAddress destination) {
+        int found = 0;
+        for (GroupAddressListener device : devices) {
+            if (device.listensTo(destination)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void testIndexedLookupEqualsScan() {
+        createInstallation();
+        GroupAddress[] telegrams = recordTelegrams();
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        for (TestGroupAddressListener device : devices) {
+            index.register(device);
+        }
+
+        long deliveries = 0;
+        for (GroupAddress telegram : telegrams) {
+            int found = scan(telegram);
+            assertThat(index.getListeners(telegram).size(), is(equalTo(found)));
+            deliveries += found;
+        }
+        assertThat(deliveries > 0, is(true));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkListenerLookup() {
+        createInstallation();
+        GroupAddress[] telegrams = recordTelegrams();
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        for (TestGroupAddressListener device : devices) {
+            index.register(device);
+        }
+
+        benchmark("scan all listeners", telegrams, this::scan);
+        benchmark("indexed lookup", telegrams, destination -> index.getListeners(destination).size());
+    }
+
+    @Test
+    public void testDispatchingDeliversAllTelegrams() throws InterruptedException {
+        createInstallation();
+        GroupAddress[] telegrams = recordTelegrams();
+        GroupAddressListenerIndex index = new GroupAddressListenerIndex();
+        for (TestGroupAddressListener device : devices) {
+            index.register(device);
+        }
+        IndividualAddress source = new IndividualAddress(1, 1, 1);
+        byte[] asdu = new byte[] { 1 };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OrderedTelegramDispatcher dispatcher = new OrderedTelegramDispatcher(executor, 8, TELEGRAMS);
+            CountDownLatch latch = new CountDownLatch(TELEGRAMS);
+            long expected = 0;
+            for (GroupAddress destination : telegrams) {
+                List<GroupAddressListener> listeners = index.getListeners(destination);
+                expected += listeners.size();
+                dispatcher.dispatch(destination, () -> {
+                    for (GroupAddressListener listener : listeners) {
+                        listener.onGroupWrite(null, source, destination, asdu);
+                    }
+                    latch.countDown();
+                });
+            }
+            assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+
+            long received = 0;
+            for (TestGroupAddressListener device : devices) {
+                received += device.received.get();
+            }
+            assertThat(received, is(equalTo(expected)));
+            assertThat(dispatcher.getDroppedCount(), is(0L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+
+/**
+ * Group address listener counting the received telegrams
+ *
+ * @author agent - Initial contribution
+ */
+class TestGroupAddressListener implements GroupAddressListener {
+
+    final Set<GroupAddress> addresses = new HashSet<>();
+    final AtomicInteger received = new AtomicInteger();
+    private final boolean indexed;
+
+    TestGroupAddressListener(boolean indexed, GroupAddress... addresses) {
+        this.indexed = indexed;
+        for (GroupAddress address : addresses) {
+            this.addresses.add(address);
+        }
+    }
+
+    @Override
+    public boolean listensTo(GroupAddress destination) {
+        return addresses.contains(destination);
+    }
+
+    @Override
+    public @Nullable Set<GroupAddress> getGroupAddresses() {
+        return indexed ? addresses : null;
+    }
+
+    @Override
+    public void onGroupWrite(AbstractKNXClient client, IndividualAddress source, GroupAddress destination,
+            byte[] asdu) {
+        received.incrementAndGet();
+    }
+
+    @Override
+    public void onGroupRead(AbstractKNXClient client, IndividualAddress source, GroupAddress destination,
+            byte[] asdu) {
+        received.incrementAndGet();
+    }
+
+    @Override
+    public void onGroupReadResponse(AbstractKNXClient client, IndividualAddress source, GroupAddress destination,
+            byte[] asdu) {
+        received.incrementAndGet();
+    }
+
+}
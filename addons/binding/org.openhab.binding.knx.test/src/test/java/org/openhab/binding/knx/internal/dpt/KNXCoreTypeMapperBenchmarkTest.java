@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.dpt;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.smarthome.core.types.Type;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.KNXException;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+import tuwien.auto.calimero.dptxlator.DPTXlator;
+import tuwien.auto.calimero.dptxlator.TranslatorTypes;
+
+/**
+ * Benchmark of {@link KNXCoreTypeMapper#toType(Datapoint, byte[])} over a telegram mix of a typical installation:
+ * mostly switches, dimmers and temperatures, with some energy values and colors.
+ *
+ * The baseline creates a translator and formats the value to a string for every telegram, as the mapper used to do.
+ * The benchmark is ignored in the regular build, the test only checks the mapped types.
+ *
+ * @author agent - Initial contribution
+ */
+public class KNXCoreTypeMapperBenchmarkTest {
+
+    private static final String[] DPTS = { "1.001", "1.001", "1.001", "1.008", "1.009", "5.001", "5.001", "9.001",
+            "9.001", "9.004", "9.007", "14.056", "14.019", "232.600", "7.001", "13.010" };
+    private static final int TELEGRAMS = 10000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(KNXCoreTypeMapperBenchmarkTest.class);
+
+    private final List<Datapoint> datapoints = new ArrayList<>();
+    private final List<byte[]> telegrams = new ArrayList<>();
+
+    private void recordTelegrams() throws KNXException {
+        Random random = new Random(1);
+        for (int i = 0; i < TELEGRAMS; i++) {
+            String dpt = DPTS[random.nextInt(DPTS.length)];
+            DPTXlator translator = TranslatorTypes.createTranslator(0, dpt);
+            byte[] data = new byte[Math.max(1, translator.getTypeSize())];
+            if (dpt.startsWith("9.") || dpt.startsWith("14.")) {
+                // plausible measurement, random floats might be invalid
+                translator.setValue(String.valueOf(random.nextInt(400) / 10.0));
+                data = translator.getData();
+            } else {
+                random.nextBytes(data);
+                if (dpt.startsWith("1.")) {
+                    data[0] &= 1;
+                }
+            }
+            datapoints.add(new CommandDP(new GroupAddress(1, 1, i % 256), "benchmark", 0, dpt));
+            telegrams.add(data);
+        }
+    }
+
+    private interface Round {
+        int run() throws KNXException;
+    }
+
+    private void benchmark(String name, Round round) throws KNXException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sum += round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("{}: {} ns/telegram ({})", name, String.format("%.1f", (double) elapsed / ROUNDS / TELEGRAMS),
+                sum);
+    }
+
+    @Test
+    public void testPooledTranslatorsDoNotCarryOverState() throws KNXException {
+        recordTelegrams();
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+
+        List<Type> expected = new ArrayList<>();
+        for (int i = 0; i < TELEGRAMS; i++) {
+            Type type = mapper.toType(datapoints.get(i), telegrams.get(i));
+            assertThat(type, is(notNullValue()));
+            expected.add(type);
+        }
+
+        // map the telegrams again in reverse order, so each pooled translator last saw another telegram
+        for (int i = TELEGRAMS - 1; i >= 0; i--) {
+            assertThat(mapper.toType(datapoints.get(i), telegrams.get(i)), is(equalTo(expected.get(i))));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkToType() throws KNXException {
+        recordTelegrams();
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+
+        benchmark("new translator and string per telegram", () -> {
+            int length = 0;
+            for (int i = 0; i < TELEGRAMS; i++) {
+                Datapoint datapoint = datapoints.get(i);
+                DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(),
+                        datapoint.getDPT());
+                translator.setData(telegrams.get(i));
+                length += translator.getValue().length();
+            }
+            return length;
+        });
+        benchmark("KNXCoreTypeMapper.toType", () -> {
+            int hash = 0;
+            for (int i = 0; i < TELEGRAMS; i++) {
+                hash += mapper.toType(datapoints.get(i), telegrams.get(i)).hashCode();
+            }
+            return hash;
+        });
+    }
+
+}
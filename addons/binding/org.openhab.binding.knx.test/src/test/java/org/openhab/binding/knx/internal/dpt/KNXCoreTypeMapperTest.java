@@ -11,8 +11,13 @@ package org.openhab.binding.knx.internal.dpt;
 import static org.junit.Assert.assertEquals;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.junit.Test;
 
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+
 /**
  *
  * @author Simon Kaufmann - initial contribution and API
@@ -26,4 +31,20 @@ public class KNXCoreTypeMapperTest {
         assertEquals("3", new KNXCoreTypeMapper().toDPTValue(new DecimalType("3.0"), "17.001"));
     }
 
+    @Test
+    public void testToType_translatorsReused() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        CommandDP datapoint = new CommandDP(new GroupAddress(1, 2, 3), "test", 0, "1.001");
+        assertEquals(OnOffType.ON, mapper.toType(datapoint, new byte[] { 1 }));
+        assertEquals(OnOffType.OFF, mapper.toType(datapoint, new byte[] { 0 }));
+        assertEquals(OnOffType.ON, new KNXCoreTypeMapper().toType(datapoint, new byte[] { 1 }));
+    }
+
+    @Test
+    public void testToType_rgb() {
+        CommandDP datapoint = new CommandDP(new GroupAddress(1, 2, 3), "test", 0, "232.600");
+        assertEquals(HSBType.fromRGB(10, 200, 255),
+                new KNXCoreTypeMapper().toType(datapoint, new byte[] { 10, (byte) 200, (byte) 255 }));
+    }
+
 }
@@ -39,6 +39,10 @@ public class KNXBindingConstants {
     public static final String MANUFACTURER_SERIAL_NO = "manfacturerserialnumber";
     public static final String MANUFACTURER_HARDWARE_TYPE = "manfacturerhardwaretype";
     public static final String MANUFACTURER_FIRMWARE_REVISION = "manfacturerfirmwarerevision";
+    public static final String READ_QUEUE_SIZE = "readqueuesize";
+    public static final String READ_LATENCY = "readlatency";
+    public static final String READ_PAUSE = "readpause";
+    public static final String COALESCED_READS = "coalescedreads";
 
     // Thing Configuration parameters
     public static final String IP_ADDRESS = "ipAddress";
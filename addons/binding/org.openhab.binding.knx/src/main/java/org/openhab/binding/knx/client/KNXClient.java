@@ -79,6 +79,17 @@ public interface KNXClient {
      */
     void readDatapoint(Datapoint datapoint);
 
+    /**
+     * Schedule the given data point for asynchronous reading.
+     *
+     * Reads of a group address which is already scheduled are coalesced with the scheduled one.
+     *
+     * @param datapoint the datapoint
+     * @param prioritized {@code true} if the read should be sent before the regular reads, e.g. for explicit refresh
+     *            requests
+     */
+    void readDatapoint(Datapoint datapoint, boolean prioritized);
+
     /**
      * Write a command to the KNX bus.
      *
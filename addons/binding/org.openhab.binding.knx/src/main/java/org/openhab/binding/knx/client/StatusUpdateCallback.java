@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.knx.client;
 
+import java.util.Map;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
@@ -35,4 +37,11 @@ public interface StatusUpdateCallback {
      */
     void updateStatus(ThingStatus status, ThingStatusDetail thingStatusDetail, String message);
 
+    /**
+     * see BaseThingHandler
+     *
+     * @param properties
+     */
+    void updateProperties(Map<String, String> properties);
+
 }
@@ -8,7 +8,10 @@
  */
 package org.openhab.binding.knx.handler;
 
+import java.util.Set;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.knx.internal.client.BusMessageListener;
 
 import tuwien.auto.calimero.GroupAddress;
@@ -30,4 +33,17 @@ public interface GroupAddressListener extends BusMessageListener {
      */
     public boolean listensTo(GroupAddress destination);
 
+    /**
+     * Called when the GroupAddressListener is registered, in order to index it by the group addresses it listens to.
+     *
+     * Listeners returning <code>null</code> are not indexed, and are asked via {@link #listensTo(GroupAddress)} for
+     * every telegram instead. The set is copied on registration, so the listener needs to be registered again when
+     * its group addresses change.
+     *
+     * @return the group addresses the listener is interested in, or <code>null</code> if unknown
+     */
+    public default @Nullable Set<GroupAddress> getGroupAddresses() {
+        return null;
+    }
+
 }
@@ -8,6 +8,7 @@
  */
 package org.openhab.binding.knx.handler;
 
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -75,4 +76,9 @@ public abstract class KNXBridgeBaseThingHandler extends BaseBridgeHandler implem
         super.updateStatus(status, statusDetail, description);
     }
 
+    @Override
+    public void updateProperties(Map<String, String> properties) {
+        super.updateProperties(properties);
+    }
+
 }
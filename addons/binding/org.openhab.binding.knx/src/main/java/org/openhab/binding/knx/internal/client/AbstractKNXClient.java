@@ -8,9 +8,9 @@
  */
 package org.openhab.binding.knx.internal.client;
 
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -22,6 +22,7 @@ import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.types.Type;
+import org.openhab.binding.knx.KNXBindingConstants;
 import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.client.DeviceInfoClient;
 import org.openhab.binding.knx.client.KNXClient;
@@ -37,6 +38,7 @@ import tuwien.auto.calimero.DetachEvent;
 import tuwien.auto.calimero.FrameEvent;
 import tuwien.auto.calimero.GroupAddress;
 import tuwien.auto.calimero.IndividualAddress;
+import tuwien.auto.calimero.KNXAckTimeoutException;
 import tuwien.auto.calimero.KNXException;
 import tuwien.auto.calimero.datapoint.CommandDP;
 import tuwien.auto.calimero.datapoint.Datapoint;
@@ -58,12 +60,16 @@ import tuwien.auto.calimero.process.ProcessListener;
  * KNX Client which encapsulates the communication with the KNX bus via the calimero libary.
  *
  * @author Simon Kaufmann - initial contribution and API.
+ * @author agent - Indexed listener lookup, ordered dispatching and read queue
  *
  */
 @NonNullByDefault
 public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClient {
 
     private static final int MAX_SEND_ATTEMPTS = 2;
+    private static final int DISPATCHER_LANES = 8;
+    private static final int DISPATCHER_CAPACITY = 10000;
+    private static final long STATISTICS_PROPERTIES_UPDATE_INTERVAL_MILLIS = 600_000;
 
     private final Logger logger = LoggerFactory.getLogger(AbstractKNXClient.class);
     private final KNXTypeMapper typeHelper = new KNXCoreTypeMapper();
@@ -85,8 +91,12 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     private @Nullable ScheduledFuture<?> busJob;
     private @Nullable ScheduledFuture<?> connectJob;
 
-    private final Set<GroupAddressListener> groupAddressListeners = new CopyOnWriteArraySet<>();
-    private final LinkedBlockingQueue<ReadDatapoint> readDatapoints = new LinkedBlockingQueue<>();
+    private final GroupAddressListenerIndex groupAddressListeners = new GroupAddressListenerIndex();
+    private final OrderedTelegramDispatcher telegramDispatcher;
+    private final ReadDatapointQueue readDatapoints = new ReadDatapointQueue();
+    private final AdaptiveReadPacing readPacing;
+    private long lastStatisticsUpdateMillis;
+    private Map<String, String> lastStatisticsProperties = new HashMap<>();
 
     @FunctionalInterface
     private interface ListenerNotification {
@@ -132,6 +142,8 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         this.readRetriesLimit = readRetriesLimit;
         this.knxScheduler = knxScheduler;
         this.statusUpdateCallback = statusUpdateCallback;
+        this.telegramDispatcher = new OrderedTelegramDispatcher(knxScheduler, DISPATCHER_LANES, DISPATCHER_CAPACITY);
+        this.readPacing = new AdaptiveReadPacing(readingPause);
     }
 
     public void initialize() {
@@ -249,11 +261,20 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         IndividualAddress source = event.getSourceAddr();
         byte[] asdu = event.getASDU();
         logger.trace("Received a {} telegram from '{}' to '{}'", task, source, destination);
-        for (GroupAddressListener listener : groupAddressListeners) {
-            if (listener.listensTo(destination)) {
-                knxScheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
-            }
+        List<GroupAddressListener> listeners = groupAddressListeners.getListeners(destination);
+        if (listeners.isEmpty()) {
+            return;
         }
+        telegramDispatcher.dispatch(destination, () -> {
+            for (GroupAddressListener listener : listeners) {
+                try {
+                    action.apply(listener, source, destination, asdu);
+                } catch (RuntimeException e) {
+                    logger.warn("An error occurred while handling a {} telegram to '{}': {}", task, destination,
+                            e.getMessage(), e);
+                }
+            }
+        });
     }
 
     /**
@@ -276,15 +297,26 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         if (processCommunicator == null) {
             return;
         }
+        long now = System.currentTimeMillis();
+        updateStatisticsPropertiesIfNeeded(now);
+        if (!readPacing.isReadDue(now)) {
+            return;
+        }
         ReadDatapoint datapoint = readDatapoints.poll();
         if (datapoint != null) {
             datapoint.incrementRetries();
+            readPacing.onRead(now);
             try {
                 logger.trace("Sending a Group Read Request telegram for {}", datapoint.getDatapoint().getMainAddress());
                 processCommunicator.read(datapoint.getDatapoint());
+                readPacing.onResponse(System.currentTimeMillis() - now);
             } catch (KNXException e) {
+                if (e instanceof KNXAckTimeoutException) {
+                    readPacing.onBusy();
+                    logger.debug("The KNX bus is busy, pausing {}ms between reads", readPacing.getPauseMillis());
+                }
                 if (datapoint.getRetries() < datapoint.getLimit()) {
-                    readDatapoints.add(datapoint);
+                    readDatapoints.retry(datapoint);
                     logger.debug("Could not read value for datapoint {}: {}. Going to retry.",
                             datapoint.getDatapoint().getMainAddress(), e.getMessage());
                 } else {
@@ -298,9 +330,30 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         }
     }
 
+    private void updateStatisticsPropertiesIfNeeded(long now) {
+        if (now - lastStatisticsUpdateMillis < STATISTICS_PROPERTIES_UPDATE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastStatisticsUpdateMillis = now;
+        Map<String, String> properties = new HashMap<>();
+        properties.put(KNXBindingConstants.READ_QUEUE_SIZE, String.valueOf(readDatapoints.size()));
+        double latency = readPacing.getAverageLatencyMillis();
+        if (!Double.isNaN(latency)) {
+            properties.put(KNXBindingConstants.READ_LATENCY, String.valueOf(Math.round(latency)));
+        }
+        properties.put(KNXBindingConstants.READ_PAUSE, String.valueOf(readPacing.getPauseMillis()));
+        properties.put(KNXBindingConstants.COALESCED_READS, String.valueOf(readDatapoints.getCoalescedCount()));
+        if (properties.equals(lastStatisticsProperties)) {
+            return;
+        }
+        lastStatisticsProperties = properties;
+        statusUpdateCallback.updateProperties(properties);
+    }
+
     public void dispose() {
         cancelReconnectJob(true);
         disconnect(null);
+        telegramDispatcher.clear();
     }
 
     @Override
@@ -363,22 +416,24 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
     @Override
     public void readDatapoint(Datapoint datapoint) {
-        synchronized (this) {
-            ReadDatapoint retryDatapoint = new ReadDatapoint(datapoint, readRetriesLimit);
-            if (!readDatapoints.contains(retryDatapoint)) {
-                readDatapoints.add(retryDatapoint);
-            }
+        readDatapoint(datapoint, false);
+    }
+
+    @Override
+    public void readDatapoint(Datapoint datapoint, boolean prioritized) {
+        if (!readDatapoints.add(datapoint, readRetriesLimit, prioritized)) {
+            logger.trace("Read request for {} coalesced with a pending one", datapoint.getMainAddress());
         }
     }
 
     @Override
     public final boolean registerGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.add(listener);
+        return groupAddressListeners.register(listener);
     }
 
     @Override
     public final boolean unregisterGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.remove(listener);
+        return groupAddressListeners.unregister(listener);
     }
 
     @Override
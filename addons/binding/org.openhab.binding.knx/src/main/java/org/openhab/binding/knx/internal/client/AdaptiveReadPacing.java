@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Paces the read requests sent to the KNX bus according to the observed bus load.
+ *
+ * The pause between two reads starts at the configured reading pause. It is doubled whenever a read is answered
+ * slowly or the bus reports being busy, and it is shortened again step by step while reads are answered quickly.
+ *
+ * This class is not thread-safe.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class AdaptiveReadPacing {
+
+    static final long SLOW_LATENCY_MILLIS = 1000;
+    static final long MAX_PAUSE_MILLIS = 5000;
+    private static final long MIN_BACKOFF_MILLIS = 50;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final long minPauseMillis;
+    private final long maxPauseMillis;
+    private long pauseMillis;
+    private long lastReadMillis;
+    private boolean hasRead;
+    private double averageLatencyMillis = Double.NaN;
+
+    /**
+     *
+     * @param minPauseMillis the configured pause between two reads, in milliseconds
+     */
+    public AdaptiveReadPacing(long minPauseMillis) {
+        this.minPauseMillis = Math.max(0, minPauseMillis);
+        this.maxPauseMillis = Math.max(this.minPauseMillis, MAX_PAUSE_MILLIS);
+        this.pauseMillis = this.minPauseMillis;
+    }
+
+    /**
+     * Check whether the pause since the last read has elapsed
+     *
+     * @param nowMillis current time, in milliseconds
+     * @return true if the next read can be sent
+     */
+    public boolean isReadDue(long nowMillis) {
+        return !hasRead || nowMillis - lastReadMillis >= pauseMillis;
+    }
+
+    /**
+     * Record that a read was sent
+     *
+     * @param nowMillis current time, in milliseconds
+     */
+    public void onRead(long nowMillis) {
+        hasRead = true;
+        lastReadMillis = nowMillis;
+    }
+
+    /**
+     * Record the time it took to receive the response to a read
+     *
+     * @param latencyMillis the latency, in milliseconds
+     */
+    public void onResponse(long latencyMillis) {
+        averageLatencyMillis = Double.isNaN(averageLatencyMillis) ? latencyMillis
+                : averageLatencyMillis + LATENCY_SMOOTHING * (latencyMillis - averageLatencyMillis);
+        if (latencyMillis >= SLOW_LATENCY_MILLIS) {
+            slowDown();
+        } else {
+            pauseMillis = Math.max(minPauseMillis, pauseMillis * 3 / 4);
+        }
+    }
+
+    /**
+     * Record that the bus or the gateway did not acknowledge a read
+     */
+    public void onBusy() {
+        slowDown();
+    }
+
+    private void slowDown() {
+        pauseMillis = Math.min(maxPauseMillis, Math.max(MIN_BACKOFF_MILLIS, pauseMillis * 2));
+    }
+
+    public long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    /**
+     * @return the smoothed read latency in milliseconds, or NaN if no read was answered yet
+     */
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+
+import tuwien.auto.calimero.GroupAddress;
+
+/**
+ * Index of the registered {@link GroupAddressListener}s by the group addresses they listen to.
+ *
+ * Finding the listeners of a telegram is a lookup of its destination, instead of asking every registered listener.
+ * Listeners which do not provide their group addresses are kept aside and asked for every telegram.
+ *
+ * Lookups are lock-free, registrations are serialized.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class GroupAddressListenerIndex {
+
+    private final Map<GroupAddress, Set<GroupAddressListener>> listenersByAddress = new ConcurrentHashMap<>();
+    private final Map<GroupAddressListener, Set<GroupAddress>> addressesByListener = new HashMap<>();
+    private final Set<GroupAddressListener> unindexedListeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Register the listener, or refresh its indexed group addresses if it is registered already
+     *
+     * @param listener the listener
+     * @return true if the listener was not registered before
+     */
+    public synchronized boolean register(GroupAddressListener listener) {
+        boolean added = !addressesByListener.containsKey(listener) && !unindexedListeners.contains(listener);
+        removeFromIndex(listener);
+        Set<GroupAddress> addresses = listener.getGroupAddresses();
+        if (addresses == null) {
+            unindexedListeners.add(listener);
+        } else {
+            Set<GroupAddress> copy = new HashSet<>(addresses);
+            addressesByListener.put(listener, copy);
+            for (GroupAddress address : copy) {
+                listenersByAddress.computeIfAbsent(address, a -> new CopyOnWriteArraySet<>()).add(listener);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Unregister the listener
+     *
+     * @param listener the listener
+     * @return true if the listener was registered
+     */
+    public synchronized boolean unregister(GroupAddressListener listener) {
+        return removeFromIndex(listener);
+    }
+
+    private boolean removeFromIndex(GroupAddressListener listener) {
+        boolean removed = unindexedListeners.remove(listener);
+        Set<GroupAddress> addresses = addressesByListener.remove(listener);
+        if (addresses != null) {
+            removed = true;
+            for (GroupAddress address : addresses) {
+                Set<GroupAddressListener> listeners = listenersByAddress.get(address);
+                if (listeners != null) {
+                    listeners.remove(listener);
+                    if (listeners.isEmpty()) {
+                        listenersByAddress.remove(address);
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Find the listeners interested in the given group address
+     *
+     * @param destination the destination of a telegram
+     * @return the listeners which listen to the destination
+     */
+    public List<GroupAddressListener> getListeners(GroupAddress destination) {
+        Set<GroupAddressListener> indexed = listenersByAddress.getOrDefault(destination, Collections.emptySet());
+        if (indexed.isEmpty() && unindexedListeners.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<GroupAddressListener> listeners = new ArrayList<>(indexed.size());
+        for (GroupAddressListener listener : indexed) {
+            // the listener might have changed its addresses without registering again
+            if (listener.listensTo(destination)) {
+                listeners.add(listener);
+            }
+        }
+        for (GroupAddressListener listener : unindexedListeners) {
+            if (listener.listensTo(destination)) {
+                listeners.add(listener);
+            }
+        }
+        return listeners;
+    }
+
+    public synchronized int size() {
+        return addressesByListener.size() + unindexedListeners.size();
+    }
+
+}
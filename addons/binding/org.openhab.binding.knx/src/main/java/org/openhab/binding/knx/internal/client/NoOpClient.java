@@ -61,6 +61,10 @@ public class NoOpClient implements KNXClient {
     public void readDatapoint(Datapoint datapoint) {
     }
 
+    @Override
+    public void readDatapoint(Datapoint datapoint, boolean prioritized) {
+    }
+
     @Override
     public void writeToKNX(OutboundSpec commandSpec) throws KNXException {
     }
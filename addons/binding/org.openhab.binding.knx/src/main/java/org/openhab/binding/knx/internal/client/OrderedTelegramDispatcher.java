@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+
+/**
+ * Dispatches the handling of received telegrams to an executor.
+ *
+ * Telegrams are distributed to a fixed number of lanes by their destination. Each lane is executed serially, so the
+ * telegrams of one group address are handled in the order they were received, while different group addresses are
+ * handled concurrently. The number of pending telegrams is bounded; telegrams exceeding the capacity are dropped.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class OrderedTelegramDispatcher {
+
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(OrderedTelegramDispatcher.class);
+
+    private final Executor executor;
+    private final int capacity;
+    private final Lane[] lanes;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private class Lane implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void submit(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    logger.debug("Telegram dispatching was rejected: {}", e.getMessage());
+                    clear();
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void clear() {
+            while (tasks.poll() != null) {
+                pending.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    pending.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.warn("An error occurred while handling a telegram: {}", e.getMessage(), e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // give other lanes a chance if this one is busy
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     *
+     * @param executor the executor running the lanes
+     * @param laneCount the maximum number of telegrams handled concurrently
+     * @param capacity the maximum number of pending telegrams
+     */
+    public OrderedTelegramDispatcher(Executor executor, int laneCount, int capacity) {
+        if (laneCount <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Lane count and capacity must be positive");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Schedule the handling of a telegram
+     *
+     * @param destination the destination of the telegram, determining the order of execution
+     * @param task the handling of the telegram
+     * @return false if the telegram was dropped because the capacity is exceeded
+     */
+    public boolean dispatch(GroupAddress destination, Runnable task) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            if (droppedCount.incrementAndGet() % 1000 == 1) {
+                logger.warn("Too many pending KNX telegrams ({}), dropping the telegram to '{}'", capacity,
+                        destination);
+            }
+            return false;
+        }
+        dispatchedCount.incrementAndGet();
+        lanes[Math.floorMod(destination.hashCode(), lanes.length)].submit(task);
+        return true;
+    }
+
+    /**
+     * Drop all pending telegrams
+     */
+    public void clear() {
+        for (Lane lane : lanes) {
+            lane.clear();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+}
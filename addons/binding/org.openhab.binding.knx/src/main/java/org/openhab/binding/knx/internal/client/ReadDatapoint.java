@@ -20,11 +20,17 @@ public class ReadDatapoint {
     private final Datapoint datapoint;
     private int retries;
     private final int limit;
+    private boolean prioritized;
 
     public ReadDatapoint(Datapoint datapoint, int limit) {
+        this(datapoint, limit, false);
+    }
+
+    public ReadDatapoint(Datapoint datapoint, int limit, boolean prioritized) {
         this.datapoint = datapoint;
         this.retries = 0;
         this.limit = limit;
+        this.prioritized = prioritized;
     }
 
     public Datapoint getDatapoint() {
@@ -43,6 +49,14 @@ public class ReadDatapoint {
         return limit;
     }
 
+    public boolean isPrioritized() {
+        return prioritized;
+    }
+
+    public void setPrioritized(boolean prioritized) {
+        this.prioritized = prioritized;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ * Queue of the data points to be read from the KNX bus.
+ *
+ * There is at most one pending read per group address: reads requested for a group address which is already queued
+ * are coalesced with the queued one. Prioritized reads (e.g. explicit refresh requests) are taken before regular reads
+ * (e.g. periodic reads). Otherwise, the reads are taken in the order they were requested.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadDatapointQueue {
+
+    private final Map<GroupAddress, ReadDatapoint> pending = new HashMap<>();
+    private final Deque<ReadDatapoint> prioritized = new ArrayDeque<>();
+    private final Deque<ReadDatapoint> regular = new ArrayDeque<>();
+    private long coalescedCount;
+
+    /**
+     * Queue the data point to be read
+     *
+     * @param datapoint the data point
+     * @param limit the maximum number of read attempts
+     * @param prioritize whether the read should be taken before regular reads
+     * @return false if the read was coalesced with a pending read of the same group address
+     */
+    public synchronized boolean add(Datapoint datapoint, int limit, boolean prioritize) {
+        GroupAddress address = datapoint.getMainAddress();
+        ReadDatapoint queued = pending.get(address);
+        if (queued != null) {
+            coalescedCount++;
+            if (prioritize && !queued.isPrioritized()) {
+                // the entry in the regular queue becomes stale
+                queued.setPrioritized(true);
+                prioritized.add(queued);
+            }
+            return false;
+        }
+        ReadDatapoint datapointToRead = new ReadDatapoint(datapoint, limit, prioritize);
+        pending.put(address, datapointToRead);
+        (prioritize ? prioritized : regular).add(datapointToRead);
+        return true;
+    }
+
+    /**
+     * Queue a failed read again, unless the group address has been requested again meanwhile
+     *
+     * @param datapoint the data point which was taken from this queue
+     */
+    public synchronized void retry(ReadDatapoint datapoint) {
+        GroupAddress address = datapoint.getDatapoint().getMainAddress();
+        if (pending.containsKey(address)) {
+            coalescedCount++;
+            return;
+        }
+        pending.put(address, datapoint);
+        (datapoint.isPrioritized() ? prioritized : regular).add(datapoint);
+    }
+
+    /**
+     * Take the next data point to be read
+     *
+     * @return the data point, or <code>null</code> if the queue is empty
+     */
+    public synchronized @Nullable ReadDatapoint poll() {
+        ReadDatapoint datapoint;
+        while ((datapoint = prioritized.poll()) != null || (datapoint = regular.poll()) != null) {
+            GroupAddress address = datapoint.getDatapoint().getMainAddress();
+            if (pending.get(address) == datapoint) {
+                pending.remove(address);
+                return datapoint;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+        prioritized.clear();
+        regular.clear();
+    }
+
+    /**
+     * @return the number of pending reads
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of reads which were coalesced with a pending read
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.dpt;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import tuwien.auto.calimero.KNXException;
+import tuwien.auto.calimero.dptxlator.DPT;
+import tuwien.auto.calimero.dptxlator.DPTXlator;
+import tuwien.auto.calimero.dptxlator.DPTXlator1BitControlled;
+import tuwien.auto.calimero.dptxlator.DPTXlator2ByteFloat;
+import tuwien.auto.calimero.dptxlator.DPTXlator2ByteUnsigned;
+import tuwien.auto.calimero.dptxlator.DPTXlator3BitControlled;
+import tuwien.auto.calimero.dptxlator.DPTXlator4ByteFloat;
+import tuwien.auto.calimero.dptxlator.DPTXlator4ByteSigned;
+import tuwien.auto.calimero.dptxlator.DPTXlator4ByteUnsigned;
+import tuwien.auto.calimero.dptxlator.DPTXlator64BitSigned;
+import tuwien.auto.calimero.dptxlator.DPTXlator8BitSigned;
+import tuwien.auto.calimero.dptxlator.DPTXlator8BitUnsigned;
+import tuwien.auto.calimero.dptxlator.DPTXlatorBoolean;
+import tuwien.auto.calimero.dptxlator.DPTXlatorRGB;
+import tuwien.auto.calimero.dptxlator.DPTXlatorSceneControl;
+import tuwien.auto.calimero.dptxlator.DPTXlatorSceneNumber;
+import tuwien.auto.calimero.dptxlator.TranslatorTypes;
+
+/**
+ * Pool of calimero datapoint type translators, so they don't need to be created for every telegram.
+ *
+ * Translators hold the data they translate, so an acquired translator must be used by one thread only, and released
+ * to the pool afterwards. Only translators which keep no state besides their data are pooled, others are created
+ * anew.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class DPTXlatorPool {
+
+    private static final int MAX_IDLE_PER_TYPE = 8;
+    private static final Set<Class<? extends DPTXlator>> POOLED_TRANSLATORS = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList(DPTXlatorBoolean.class, DPTXlator1BitControlled.class,
+                    DPTXlator3BitControlled.class, DPTXlator8BitUnsigned.class, DPTXlator8BitSigned.class,
+                    DPTXlator2ByteUnsigned.class, DPTXlator2ByteFloat.class, DPTXlator4ByteUnsigned.class,
+                    DPTXlator4ByteSigned.class, DPTXlator4ByteFloat.class, DPTXlator64BitSigned.class,
+                    DPTXlatorSceneNumber.class, DPTXlatorSceneControl.class, DPTXlatorRGB.class)));
+
+    private final Map<String, Queue<DPTXlator>> idleTranslators = new ConcurrentHashMap<>();
+    private final Map<String, DPT> types = new ConcurrentHashMap<>();
+
+    /**
+     * Get a translator for the given datapoint type, either from the pool or a new one
+     *
+     * @param mainNumber the main number of the datapoint type, or 0 to derive it from the datapoint type id
+     * @param dptId the datapoint type id
+     * @return the translator
+     * @throws KNXException if there is no translator for the datapoint type
+     */
+    public DPTXlator acquire(int mainNumber, String dptId) throws KNXException {
+        Queue<DPTXlator> idle = idleTranslators.get(dptId);
+        DPTXlator translator = idle == null ? null : idle.poll();
+        if (translator == null) {
+            translator = TranslatorTypes.createTranslator(mainNumber, dptId);
+        }
+        return translator;
+    }
+
+    /**
+     * Return a translator to the pool
+     *
+     * @param dptId the datapoint type id the translator was acquired for
+     * @param translator the translator, not to be used by the caller anymore
+     */
+    public void release(String dptId, DPTXlator translator) {
+        if (!POOLED_TRANSLATORS.contains(translator.getClass())) {
+            return;
+        }
+        idleTranslators.computeIfAbsent(dptId, id -> new ArrayBlockingQueue<>(MAX_IDLE_PER_TYPE)).offer(translator);
+    }
+
+    /**
+     * Get the datapoint type for the given id
+     *
+     * @param mainNumber the main number of the datapoint type, or 0 to derive it from the datapoint type id
+     * @param dptId the datapoint type id
+     * @return the datapoint type
+     * @throws KNXException if there is no translator for the datapoint type
+     */
+    public DPT getType(int mainNumber, String dptId) throws KNXException {
+        DPT type = types.get(dptId);
+        if (type == null) {
+            DPTXlator translator = acquire(mainNumber, dptId);
+            type = translator.getType();
+            types.put(dptId, type);
+            release(dptId, translator);
+        }
+        return type;
+    }
+
+}
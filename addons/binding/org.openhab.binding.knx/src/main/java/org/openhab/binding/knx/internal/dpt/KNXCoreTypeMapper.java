@@ -63,7 +63,6 @@ import tuwien.auto.calimero.dptxlator.DPTXlatorSceneNumber;
 import tuwien.auto.calimero.dptxlator.DPTXlatorString;
 import tuwien.auto.calimero.dptxlator.DPTXlatorTime;
 import tuwien.auto.calimero.dptxlator.DPTXlatorUtf8;
-import tuwien.auto.calimero.dptxlator.TranslatorTypes;
 
 /**
  * This class provides type mapping between all openHAB core types and KNX data point types.
@@ -82,6 +81,7 @@ import tuwien.auto.calimero.dptxlator.TranslatorTypes;
  * @author Volker Daube
  * @author Jan N. Klug
  * @author Helmut Lehmeyer - Java8, generic DPT Mapper
+ * @author agent - Pooled translators and direct decoding of common DPTs
  */
 @Component
 public class KNXCoreTypeMapper implements KNXTypeMapper {
@@ -91,6 +91,9 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     private static final String TIME_DAY_FORMAT = new String("EEE, HH:mm:ss");
     private static final String DATE_FORMAT = new String("yyyy-MM-dd");
 
+    /** translators are shared by all mapper instances */
+    private static final DPTXlatorPool TRANSLATORS = new DPTXlatorPool();
+
     /**
      * stores the openHAB type class for (supported) KNX datapoint types in a generic way.
      * dptTypeMap stores more specific type class and exceptions.
@@ -547,8 +550,7 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         }
 
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
-            dpt = translator.getType();
+            dpt = TRANSLATORS.getType(mainNumber, dptID);
         } catch (KNXException e) {
             return null;
         }
@@ -615,10 +617,23 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
 
     @Override
     public Type toType(Datapoint datapoint, byte[] data) {
+        DPTXlator translator;
+        try {
+            translator = TRANSLATORS.acquire(datapoint.getMainNumber(), datapoint.getDPT());
+        } catch (KNXException e) {
+            logger.warn("Failed creating a translator for datapoint type '{}'.", datapoint.getDPT(), e);
+            return null;
+        }
+        try {
+            return toType(translator, datapoint, data);
+        } finally {
+            TRANSLATORS.release(datapoint.getDPT(), translator);
+        }
+    }
+
+    private Type toType(DPTXlator translator, Datapoint datapoint, byte[] data) {
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
             translator.setData(data);
-            String value = translator.getValue();
 
             String id = translator.getType().getID();
             logger.trace("toType datapoint DPT = {}", datapoint.getDPT());
@@ -633,6 +648,8 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                 logger.debug("toType: couldn't identify sub number in dptID: {}.", id);
                 return null;
             }
+            // the high-volume types are decoded without formatting the value to a string
+            String value = isDecodedDirectly(mainNumber) ? null : translator.getValue();
             /*
              * Following code section deals with specific mapping of values from KNX to openHAB types were the String
              * received from the DPTXlator is not sufficient to set the openHAB type or has bugs
@@ -673,6 +690,10 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                             return translator3BitControlled.getControlBit() ? UpDownType.DOWN : UpDownType.UP;
                     }
                 case 14:
+                    if (!StringType.class.equals(toTypeClass(id))) {
+                        // the formatted value is used by string items only
+                        break;
+                    }
                     /*
                      * FIXME: Workaround for a bug in Calimero / Openhab DPTXlator4ByteFloat.makeString(): is using a
                      * locale when
@@ -685,15 +706,14 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                     DPTXlator4ByteFloat translator4ByteFloat = (DPTXlator4ByteFloat) translator;
                     Float f = translator4ByteFloat.getValueFloat();
                     if (Math.abs(f) < 100000) {
-                        value = String.valueOf(f);
+                        return StringType.valueOf(String.valueOf(f));
                     } else {
                         NumberFormat dcf = NumberFormat.getInstance(Locale.US);
                         if (dcf instanceof DecimalFormat) {
                             ((DecimalFormat) dcf).applyPattern("0.#####E0");
                         }
-                        value = dcf.format(f);
+                        return StringType.valueOf(dcf.format(f));
                     }
-                    break;
                 case 18:
                     DPTXlatorSceneControl translatorSceneControl = (DPTXlatorSceneControl) translator;
                     int decimalValue = translatorSceneControl.getSceneNumber();
@@ -767,11 +787,11 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                 return new DecimalType(translator.getNumericValue());
             }
             if (typeClass.equals(StringType.class)) {
-                return StringType.valueOf(value);
+                return StringType.valueOf(value != null ? value : translator.getValue());
             }
 
             if (typeClass.equals(DateTimeType.class)) {
-                String date = formatDateTime(value, datapoint.getDPT());
+                String date = formatDateTime(value != null ? value : translator.getValue(), datapoint.getDPT());
                 if ((date == null) || (date.isEmpty())) {
                     logger.debug("toType: KNX clock msg ignored: date object null or empty {}.", date);
                     return null;
@@ -781,12 +801,8 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
             }
 
             if (typeClass.equals(HSBType.class)) {
-                // value has format of "r:<red value> g:<green value> b:<blue value>"
-                int r = Integer.parseInt(value.split(" ")[0].split(":")[1]);
-                int g = Integer.parseInt(value.split(" ")[1].split(":")[1]);
-                int b = Integer.parseInt(value.split(" ")[2].split(":")[1]);
-
-                return HSBType.fromRGB(r, g, b);
+                // the translator has accepted the data, so it holds the red, green and blue octets
+                return HSBType.fromRGB(data[0] & 0xFF, data[1] & 0xFF, data[2] & 0xFF);
             }
 
         } catch (KNXFormatException kfe) {
@@ -795,13 +811,24 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         } catch (KNXIllegalArgumentException kiae) {
             logger.info("Translator couldn't parse data for datapoint type '{}' (KNXIllegalArgumentException).",
                     datapoint.getDPT());
-        } catch (KNXException e) {
-            logger.warn("Failed creating a translator for datapoint type '{}'.", datapoint.getDPT(), e);
         }
 
         return null;
     }
 
+    private boolean isDecodedDirectly(int mainNumber) {
+        switch (mainNumber) {
+            case 1:
+            case 5:
+            case 9:
+            case 14:
+            case 232:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Converts a datapoint type id into an openHAB type class
      *
@@ -0,0 +1,382 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.filereader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderException;
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests of the {@link FileChannelTailer}. The tests poll the reader directly instead of scheduling it.
+ *
+ * The benchmark reading a large log file is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ */
+public class FileChannelTailerTest {
+
+    private static final String ROTATED = "<rotated>";
+    private static final String NOT_FOUND = "<not found>";
+
+    private final Logger logger = LoggerFactory.getLogger(FileChannelTailerTest.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path logFile;
+    private Path checkpointFile;
+    private final List<FileChannelTailer> tailers = new ArrayList<>();
+
+    /**
+     * Records the events of the reader, the lines of each batch and the rotations
+     */
+    private static class RecordingListener implements FileReaderListener {
+        private final List<String> events = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void fileNotFound() {
+            events.add(NOT_FOUND);
+        }
+
+        @Override
+        public void fileRotated() {
+            events.add(ROTATED);
+        }
+
+        @Override
+        public void handle(String line) {
+            fail("Lines must be delivered in batches");
+        }
+
+        @Override
+        public void handle(List<String> lines) {
+            events.addAll(lines);
+            batchSizes.add(lines.size());
+        }
+
+        @Override
+        public void handle(Exception ex) {
+            throw new AssertionError("Unexpected exception", ex);
+        }
+
+        /**
+         * Returns the events recorded since the last call
+         */
+        private List<String> take() {
+            List<String> taken = new ArrayList<>(events);
+            events.clear();
+            return taken;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = folder.getRoot().toPath().resolve("openhab.log");
+        checkpointFile = folder.getRoot().toPath().resolve("userdata").resolve("logreader")
+                .resolve("logreader_reader_test.offset");
+        Files.createFile(logFile);
+    }
+
+    @After
+    public void tearDown() {
+        for (FileChannelTailer tailer : tailers) {
+            tailer.stop();
+        }
+    }
+
+    private FileChannelTailer start(RecordingListener listener, Path checkpointFile) throws FileReaderException {
+        FileChannelTailer tailer = new FileChannelTailer(checkpointFile);
+        tailer.registerListener(listener);
+        // the tests poll the reader themselves
+        tailer.start(logFile.toString(), 1000, mock(ScheduledExecutorService.class));
+        tailers.add(tailer);
+        return tailer;
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(Charset.defaultCharset()), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void testReadingStartsAtTheEndWithoutCheckpoint() throws IOException, FileReaderException {
+        append(logFile, "old line\n");
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+
+        tailer.poll();
+        assertThat(listener.take(), is(Collections.emptyList()));
+
+        append(logFile, "first\nsecond\r\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("first", "second")));
+        assertThat(listener.batchSizes, is(Arrays.asList(2)));
+    }
+
+    @Test
+    public void testMissingFile() throws IOException, FileReaderException {
+        Files.delete(logFile);
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList(NOT_FOUND)));
+
+        append(logFile, "created\n");
+        tailer.poll();
+        append(logFile, "line\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("line")));
+    }
+
+    @Test
+    public void testPartialLastLineIsDeliveredOnceTerminated() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+
+        append(logFile, "hel");
+        tailer.poll();
+        assertThat(listener.take(), is(Collections.emptyList()));
+        assertThat(tailer.getOffset(), is(0L));
+
+        append(logFile, "lo\r\nwor");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("hello")));
+        assertThat(tailer.getOffset(), is(7L));
+
+        append(logFile, "ld\n\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("world", "")));
+        assertThat(tailer.getOffset(), is(14L));
+    }
+
+    @Test
+    public void testLineLongerThanTheBuffer() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+
+        StringBuilder longLine = new StringBuilder();
+        while (longLine.length() < 3 * FileChannelTailer.BUFFER_SIZE) {
+            longLine.append("0123456789");
+        }
+        int half = longLine.length() / 2;
+        append(logFile, "short\n" + longLine.substring(0, half));
+        tailer.poll();
+        append(logFile, longLine.substring(half) + "\nnext\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("short", longLine.toString(), "next")));
+    }
+
+    @Test
+    public void testLinesAreDeliveredInLimitedBatches() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+
+        int lines = 2 * FileChannelTailer.MAX_LINES_PER_BATCH + 500;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        append(logFile, text.toString());
+        tailer.poll();
+
+        List<String> events = listener.take();
+        assertThat(events.size(), is(lines));
+        for (int i = 0; i < lines; i++) {
+            assertThat(events.get(i), is("line " + i));
+        }
+        assertThat(listener.batchSizes, is(Arrays.asList(FileChannelTailer.MAX_LINES_PER_BATCH,
+                FileChannelTailer.MAX_LINES_PER_BATCH, 500)));
+    }
+
+    @Test
+    public void testRotationIsDetectedByTheFileKey() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+        append(logFile, "before\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("before")));
+
+        // the rest of the old file is not read yet, when it is replaced by a new one
+        append(logFile, "rest\nunterminated");
+        Files.move(logFile, logFile.resolveSibling("openhab.log.1"));
+        append(logFile, "1234567\nnew line\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("rest", "unterminated", ROTATED, "1234567", "new line")));
+
+        append(logFile, "after\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("after")));
+    }
+
+    @Test
+    public void testOldFileIsReadUntilTheNewOneIsCreated() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+
+        append(logFile, "last\n");
+        Path rotated = logFile.resolveSibling("openhab.log.1");
+        Files.move(logFile, rotated);
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("last")));
+
+        append(rotated, "written late\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("written late")));
+
+        append(logFile, "new\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList(ROTATED, "new")));
+    }
+
+    @Test
+    public void testTruncation() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, null);
+        tailer.poll();
+        append(logFile, "a long line before the truncation\nunterminated");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("a long line before the truncation")));
+
+        Files.write(logFile, "short\n".getBytes(Charset.defaultCharset()), StandardOpenOption.TRUNCATE_EXISTING);
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("unterminated", ROTATED, "short")));
+        assertThat(tailer.getOffset(), is(6L));
+    }
+
+    @Test
+    public void testCheckpointIsRestored() throws IOException, FileReaderException {
+        append(logFile, "before the first start\n");
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, checkpointFile);
+        tailer.poll();
+        append(logFile, "one\ntwo\npar");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("one", "two")));
+        tailer.stop();
+        assertTrue(Files.exists(checkpointFile));
+
+        // written while the reader was stopped
+        append(logFile, "tial\nthree\n");
+
+        listener = new RecordingListener();
+        tailer = start(listener, checkpointFile);
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("partial", "three")));
+        tailer.stop();
+
+        // the checkpoint of a replaced file is not used
+        Files.move(logFile, logFile.resolveSibling("openhab.log.1"));
+        append(logFile, "before the second start\n");
+        listener = new RecordingListener();
+        tailer = start(listener, checkpointFile);
+        tailer.poll();
+        append(logFile, "four\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("four")));
+    }
+
+    @Test
+    public void testCheckpointBeyondTheEndIsNotUsed() throws IOException, FileReaderException {
+        RecordingListener listener = new RecordingListener();
+        FileChannelTailer tailer = start(listener, checkpointFile);
+        tailer.poll();
+        append(logFile, "a line, that is removed again\n");
+        tailer.poll();
+        tailer.stop();
+
+        Files.write(logFile, "short\n".getBytes(Charset.defaultCharset()), StandardOpenOption.TRUNCATE_EXISTING);
+        listener = new RecordingListener();
+        tailer = start(listener, checkpointFile);
+        tailer.poll();
+        append(logFile, "next\n");
+        tailer.poll();
+        assertThat(listener.take(), is(Arrays.asList("next")));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkReading() throws IOException, FileReaderException {
+        int lines = 1000000;
+        try (BufferedWriter writer = Files.newBufferedWriter(folder.getRoot().toPath().resolve("large.log"),
+                Charset.defaultCharset())) {
+            for (int i = 0; i < lines; i++) {
+                writer.write("2018-10-18 12:00:00.000 [INFO ] [org.openhab.binding.example    ] - Line number " + i);
+                writer.newLine();
+            }
+        }
+        Path largeFile = folder.getRoot().toPath().resolve("large.log");
+        long bytes = Files.size(largeFile);
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int read = 0;
+            try (BufferedReader reader = Files.newBufferedReader(largeFile, Charset.defaultCharset())) {
+                while (reader.readLine() != null) {
+                    read++;
+                }
+            }
+            long readerNanos = System.nanoTime() - start;
+            assertThat(read, is(lines));
+
+            Files.write(logFile, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+            int[] delivered = new int[1];
+            FileChannelTailer tailer = start(new RecordingListener() {
+                @Override
+                public void handle(List<String> batch) {
+                    delivered[0] += batch.size();
+                }
+            }, null);
+            tailer.poll();
+            try (OutputStream out = Files.newOutputStream(logFile, StandardOpenOption.APPEND)) {
+                Files.copy(largeFile, out);
+            }
+            start = System.nanoTime();
+            tailer.poll();
+            long tailerNanos = System.nanoTime() - start;
+            tailer.stop();
+            assertThat(delivered[0], is(lines));
+
+            logger.info("{} lines ({} MB): BufferedReader {} ms, FileChannelTailer {} ms ({} lines/s)", lines,
+                    bytes / 1024 / 1024, readerNanos / 1000000, tailerNanos / 1000000,
+                    lines * 1000000000L / tailerNanos);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.searchengine;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.openhab.binding.logreader.internal.searchengine.MultiPatternMatcher.LiteralInfo;
+
+/**
+ * Test class for {@link MultiPatternMatcher}. The result of the matcher must always be the same as the result of
+ * {@link java.util.regex.Matcher#find()}.
+ *
+ * @author agent - Initial contribution
+ */
+@RunWith(value = Parameterized.class)
+public class MultiPatternMatcherTest {
+
+    // @formatter:off
+    @Parameters(name = "{0}")
+    public static final List<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+            { "ERROR+", new String[] { "2018-01-01 [ERROR] failed", "[WARN ] ok", "ERRO" } },
+            { "Timeout after \\d+ ms", new String[] { "Timeout after 10 ms", "Timeout after ms", "Timeout" } },
+            { "\\d+ ms", new String[] { "10 ms", "ms" } },
+            { "\\x41BC", new String[] { "ABC", "41BC", "BC" } },
+            { "\\x{41}BC", new String[] { "ABC", "41BC", "{41}BC" } },
+            { "\\u0041BC", new String[] { "ABC", "0041BC", "BC" } },
+            { "\\cJfoo", new String[] { "\nfoo", "Jfoo", "foo" } },
+            { "\\0101BC", new String[] { "ABC", "101BC", "BC" } },
+            { "\\p{Lu}BC", new String[] { "ABC", "aBC", "{Lu}BC" } },
+            { "\\pLBC", new String[] { "ABC", "1BC", "LBC" } },
+            { "(a)b\\1c", new String[] { "abac", "ab1c" } },
+            { "(?<x>a)b\\k<x>c", new String[] { "abac", "abc" } },
+            { "colou?r", new String[] { "color", "colour", "colr" } },
+            { "foo(bar)?baz", new String[] { "foobaz", "foobarbaz", "fooba" } },
+            { "a\\.b\\[c", new String[] { "a.b[c", "axb[c" } },
+        });
+    }
+    // @formatter:on
+
+    @Parameter(0)
+    public String pattern;
+
+    @Parameter(1)
+    public String[] lines;
+
+    @Test
+    public void testLiteralIsRequired() {
+        LiteralInfo info = MultiPatternMatcher.extractLiteral(pattern);
+        Pattern compiled = Pattern.compile(pattern);
+
+        for (String line : lines) {
+            boolean found = compiled.matcher(line).find();
+            if (info.literal != null && found) {
+                assertTrue("Literal '" + info.literal + "' not in matching line '" + line + "'",
+                        line.contains(info.literal));
+            }
+            if (info.literal != null && info.literalOnly) {
+                assertEquals("Literal only result for line '" + line + "'", found, line.contains(info.literal));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchIsEqualToFind() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher();
+        int bit = matcher.addPatternSet(pattern);
+        Pattern compiled = Pattern.compile(pattern);
+
+        for (String line : lines) {
+            assertEquals("Result for line '" + line + "'", compiled.matcher(line).find(),
+                    (matcher.match(line) & bit) != 0);
+        }
+    }
+
+    @Test
+    public void testBlacklisting() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher();
+        SearchEngine engine = new SearchEngine(matcher, pattern, "ignored");
+
+        for (String line : lines) {
+            boolean found = Pattern.compile(pattern).matcher(line).find();
+            assertEquals(found, engine.isMatching(matcher.match(line)));
+            assertFalse(engine.isMatching(matcher.match(line + " ignored")));
+        }
+    }
+}
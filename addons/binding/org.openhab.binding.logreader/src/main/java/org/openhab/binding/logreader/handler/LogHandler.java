@@ -11,6 +11,8 @@ package org.openhab.binding.logreader.handler;
 import static org.openhab.binding.logreader.LogReaderBindingConstants.*;
 
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.PatternSyntaxException;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -27,6 +29,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.logreader.internal.config.LogReaderConfiguration;
 import org.openhab.binding.logreader.internal.filereader.api.FileReaderListener;
 import org.openhab.binding.logreader.internal.filereader.api.LogFileReader;
+import org.openhab.binding.logreader.internal.searchengine.MultiPatternMatcher;
 import org.openhab.binding.logreader.internal.searchengine.SearchEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +40,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Miika Jukka - Initial contribution
  * @author Pauli Anttila - Rewrite
+ * @author agent - Process lines in blocks and persist the read position
  */
 public class LogHandler extends BaseThingHandler implements FileReaderListener {
     private final Logger logger = LoggerFactory.getLogger(LogHandler.class);
@@ -45,6 +49,7 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
 
     private LogFileReader fileReader;
 
+    private MultiPatternMatcher matcher;
     private SearchEngine errorEngine;
     private SearchEngine warningEngine;
     private SearchEngine customEngine;
@@ -86,9 +91,13 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
         clearCounters();
 
         try {
-            warningEngine = new SearchEngine(configuration.warningPatterns, configuration.warningBlacklistingPatterns);
-            errorEngine = new SearchEngine(configuration.errorPatterns, configuration.errorBlacklistingPatterns);
-            customEngine = new SearchEngine(configuration.customPatterns, configuration.customBlacklistingPatterns);
+            matcher = new MultiPatternMatcher();
+            warningEngine = new SearchEngine(matcher, configuration.warningPatterns,
+                    configuration.warningBlacklistingPatterns);
+            errorEngine = new SearchEngine(matcher, configuration.errorPatterns,
+                    configuration.errorBlacklistingPatterns);
+            customEngine = new SearchEngine(matcher, configuration.customPatterns,
+                    configuration.customBlacklistingPatterns);
 
         } catch (PatternSyntaxException e) {
             logger.debug("Illegal search pattern syntax '{}'. ", e.getMessage(), e);
@@ -167,25 +176,47 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
         if (line == null) {
             return;
         }
+        handle(Collections.singletonList(line));
+    }
 
+    @Override
+    public void handle(List<String> lines) {
         if (!(thing.getStatus() == ThingStatus.ONLINE)) {
             updateStatus(ThingStatus.ONLINE);
         }
 
-        if (errorEngine.isMatching(line)) {
+        // Each line is scanned once for all engines. The states are updated once per batch with the last
+        // matching line, the trigger channels fire for every matching line.
+        String lastError = null;
+        String lastWarning = null;
+        String lastCustom = null;
+        for (String line : lines) {
+            int matches = matcher.match(line);
+            if (errorEngine.isMatching(matches)) {
+                lastError = line;
+                triggerChannel(CHANNEL_NEWERROR, line);
+            }
+            if (warningEngine.isMatching(matches)) {
+                lastWarning = line;
+                triggerChannel(CHANNEL_NEWWARNING, line);
+            }
+            if (customEngine.isMatching(matches)) {
+                lastCustom = line;
+                triggerChannel(CHANNEL_NEWCUSTOM, line);
+            }
+        }
+
+        if (lastError != null) {
             updateChannelIfLinked(CHANNEL_ERRORS, new DecimalType(errorEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTERROR, new StringType(line));
-            triggerChannel(CHANNEL_NEWERROR, line);
+            updateChannelIfLinked(CHANNEL_LASTERROR, new StringType(lastError));
         }
-        if (warningEngine.isMatching(line)) {
+        if (lastWarning != null) {
             updateChannelIfLinked(CHANNEL_WARNINGS, new DecimalType(warningEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTWARNING, new StringType(line));
-            triggerChannel(CHANNEL_NEWWARNING, line);
+            updateChannelIfLinked(CHANNEL_LASTWARNING, new StringType(lastWarning));
         }
-        if (customEngine.isMatching(line)) {
+        if (lastCustom != null) {
             updateChannelIfLinked(CHANNEL_CUSTOMEVENTS, new DecimalType(customEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTCUSTOMEVENT, new StringType(line));
-            triggerChannel(CHANNEL_NEWCUSTOM, line);
+            updateChannelIfLinked(CHANNEL_LASTCUSTOMEVENT, new StringType(lastCustom));
         }
     }
 
@@ -10,6 +10,10 @@ package org.openhab.binding.logreader.internal;
 
 import static org.openhab.binding.logreader.LogReaderBindingConstants.THING_READER;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -17,14 +21,18 @@ import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
 import org.openhab.binding.logreader.handler.LogHandler;
-import org.openhab.binding.logreader.internal.filereader.FileTailer;
+import org.openhab.binding.logreader.internal.filereader.FileChannelTailer;
 import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The {@link LogReaderHandlerFactory} is responsible for creating things and thing
@@ -39,6 +47,8 @@ public class LogReaderHandlerFactory extends BaseThingHandlerFactory {
     private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections
             .unmodifiableSet(Stream.of(THING_READER).collect(Collectors.toSet()));
 
+    private final Logger logger = LoggerFactory.getLogger(LogReaderHandlerFactory.class);
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -49,9 +59,28 @@ public class LogReaderHandlerFactory extends BaseThingHandlerFactory {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (thingTypeUID.equals(THING_READER)) {
-            return new LogHandler(thing, new FileTailer());
+            return new LogHandler(thing, new FileChannelTailer(getCheckpointFile(thing.getUID())));
         }
 
         return null;
     }
+
+    @Override
+    public void removeThing(ThingUID thingUID) {
+        Path checkpointFile = getCheckpointFile(thingUID);
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            logger.debug("Failed to delete checkpoint '{}'", checkpointFile, e);
+        }
+        super.removeThing(thingUID);
+    }
+
+    /**
+     * Returns the file in which the read offset of the thing is stored, so a restart resumes reading where it stopped.
+     */
+    private Path getCheckpointFile(ThingUID thingUID) {
+        String fileName = thingUID.getAsString().replaceAll("[^\\w.-]", "_") + ".offset";
+        return Paths.get(ConfigConstants.getUserDataFolder(), THING_READER.getBindingId(), fileName);
+    }
 }
@@ -0,0 +1,336 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.filereader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderException;
+import org.openhab.binding.logreader.internal.filereader.api.LogFileReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NIO {@link FileChannel} based log file reader implementation.
+ *
+ * The file is polled with the given refresh rate. All data appended since the last poll is read in large blocks and
+ * the complete lines are delivered to the listeners in batches. A rotation is detected if the file is replaced by a
+ * new one (different file key) or truncated. In case of a replacement, the rest of the old file is read first.
+ *
+ * The read offset is stored periodically to a checkpoint file, so a restart resumes where the reader has stopped.
+ * Without a valid checkpoint, reading starts at the end of the file.
+ *
+ * @author agent - Initial contribution
+ */
+public class FileChannelTailer extends AbstractLogFileReader implements LogFileReader {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_LINES_PER_BATCH = 1000;
+    static final long CHECKPOINT_INTERVAL_IN_MS = 10000;
+
+    private static final String CHECKPOINT_FILE_KEY = "fileKey";
+    private static final String CHECKPOINT_OFFSET = "offset";
+
+    private final Logger logger = LoggerFactory.getLogger(FileChannelTailer.class);
+
+    private final @Nullable Path checkpointFile;
+    private final Charset charset = Charset.defaultCharset();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Bytes of a line, which has not been terminated yet
+    private byte[] partialLine = new byte[256];
+    private int partialLength;
+
+    private @Nullable Path path;
+    private @Nullable FileChannel channel;
+    private @Nullable Object fileKey;
+    private long position;
+    private boolean firstOpen;
+
+    private @Nullable ScheduledFuture<?> job;
+    private long checkpointedOffset = -1;
+    private long lastCheckpointInMS;
+
+    /**
+     * Creates a reader without a checkpoint. Reading always starts at the end of the file.
+     */
+    public FileChannelTailer() {
+        this(null);
+    }
+
+    /**
+     * Creates a reader.
+     *
+     * @param checkpointFile file to store the read offset in or null.
+     */
+    public FileChannelTailer(@Nullable Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    @Override
+    public synchronized void start(String filePath, long refreshRate, ScheduledExecutorService scheduler)
+            throws FileReaderException {
+        path = Paths.get(filePath);
+        firstOpen = true;
+
+        try {
+            logger.debug("Start polling '{}' every {} ms", filePath, refreshRate);
+            job = scheduler.scheduleWithFixedDelay(this::poll, 0, refreshRate, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | IllegalArgumentException e) {
+            throw new FileReaderException(e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        logger.debug("Shutdown");
+
+        ScheduledFuture<?> job = this.job;
+        if (job != null) {
+            job.cancel(false);
+            this.job = null;
+        }
+        if (channel != null) {
+            writeCheckpoint();
+        }
+        close();
+    }
+
+    /**
+     * Reads all data appended since the last poll.
+     */
+    synchronized void poll() {
+        try {
+            if (channel == null && !open()) {
+                sendFileNotFoundToListeners();
+                return;
+            }
+            checkRotation();
+            readAvailable();
+            if (System.currentTimeMillis() - lastCheckpointInMS >= CHECKPOINT_INTERVAL_IN_MS) {
+                writeCheckpoint();
+            }
+        } catch (IOException e) {
+            close();
+            sendExceptionToListeners(e);
+        }
+    }
+
+    /**
+     * Returns the offset of the first byte, which has not been delivered to the listeners yet.
+     */
+    synchronized long getOffset() {
+        return position - partialLength;
+    }
+
+    private boolean open() throws IOException {
+        Path path = this.path;
+        if (path == null || !Files.exists(path)) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel = channel;
+        fileKey = fileKey(Files.readAttributes(path, BasicFileAttributes.class));
+        partialLength = 0;
+        if (firstOpen) {
+            firstOpen = false;
+            position = restoreCheckpoint(channel.size());
+        } else {
+            position = 0;
+        }
+        logger.debug("Opened '{}' at offset {}", path, position);
+        return true;
+    }
+
+    private void checkRotation() throws IOException {
+        FileChannel channel = this.channel;
+        Path path = this.path;
+        if (channel == null || path == null) {
+            return;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // The file has been moved away, but the new one is not created yet. Continue with the old one.
+            return;
+        }
+
+        if (!fileKey(attributes).equals(fileKey)) {
+            logger.debug("File '{}' has been replaced", path);
+            readAvailable();
+            flushPartial();
+            close();
+            if (open()) {
+                sendFileRotationToListeners();
+            }
+        } else if (channel.size() < position) {
+            logger.debug("File '{}' has been truncated", path);
+            flushPartial();
+            position = 0;
+            sendFileRotationToListeners();
+        }
+    }
+
+    private void readAvailable() throws IOException {
+        FileChannel channel = this.channel;
+        if (channel == null) {
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        byte[] bytes = buffer.array();
+        int read;
+        buffer.clear();
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    lines.add(toLine(bytes, lineStart, i));
+                    lineStart = i + 1;
+                    if (lines.size() >= MAX_LINES_PER_BATCH) {
+                        sendLinesToListeners(lines);
+                        lines = new ArrayList<>();
+                    }
+                }
+            }
+            appendPartial(bytes, lineStart, read);
+            buffer.clear();
+        }
+        if (!lines.isEmpty()) {
+            sendLinesToListeners(lines);
+        }
+    }
+
+    /**
+     * Delivers the last line of a rotated file, which has not been terminated by a line break.
+     */
+    private void flushPartial() {
+        if (partialLength > 0) {
+            String line = new String(partialLine, 0, partialLength, charset);
+            partialLength = 0;
+            sendLinesToListeners(Collections.singletonList(line));
+        }
+    }
+
+    private String toLine(byte[] bytes, int start, int end) {
+        String line;
+        if (partialLength == 0) {
+            line = new String(bytes, start, end - start, charset);
+        } else {
+            appendPartial(bytes, start, end);
+            line = new String(partialLine, 0, partialLength, charset);
+            partialLength = 0;
+        }
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    private void appendPartial(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (partialLength + length > partialLine.length) {
+            partialLine = Arrays.copyOf(partialLine, Math.max(partialLine.length * 2, partialLength + length));
+        }
+        System.arraycopy(bytes, start, partialLine, partialLength, length);
+        partialLength += length;
+    }
+
+    private void close() {
+        FileChannel channel = this.channel;
+        this.channel = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close '{}'", path, e);
+            }
+        }
+    }
+
+    private static Object fileKey(BasicFileAttributes attributes) {
+        // Some file systems don't provide a file key, the creation time identifies the file as well
+        Object key = attributes.fileKey();
+        return key != null ? key : attributes.creationTime();
+    }
+
+    private long restoreCheckpoint(long size) {
+        Path checkpointFile = this.checkpointFile;
+        if (checkpointFile != null && Files.exists(checkpointFile)) {
+            Properties checkpoint = new Properties();
+            try (InputStream in = Files.newInputStream(checkpointFile)) {
+                checkpoint.load(in);
+                long offset = Long.parseLong(checkpoint.getProperty(CHECKPOINT_OFFSET, "-1"));
+                if (String.valueOf(fileKey).equals(checkpoint.getProperty(CHECKPOINT_FILE_KEY)) && offset >= 0
+                        && offset <= size) {
+                    logger.debug("Resume reading at offset {} from checkpoint", offset);
+                    checkpointedOffset = offset;
+                    return offset;
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.debug("Failed to read checkpoint '{}'", checkpointFile, e);
+            }
+        }
+        return size;
+    }
+
+    private void writeCheckpoint() {
+        lastCheckpointInMS = System.currentTimeMillis();
+        Path checkpointFile = this.checkpointFile;
+        long offset = getOffset();
+        if (checkpointFile == null || offset == checkpointedOffset) {
+            return;
+        }
+
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(CHECKPOINT_FILE_KEY, String.valueOf(fileKey));
+        checkpoint.setProperty(CHECKPOINT_OFFSET, String.valueOf(offset));
+        try {
+            Path parent = checkpointFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                checkpoint.store(out, null);
+            }
+            try {
+                Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            checkpointedOffset = offset;
+        } catch (IOException e) {
+            logger.debug("Failed to write checkpoint '{}'", checkpointFile, e);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.searchengine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This class matches a line against several sets of search patterns with a single scan of the line.
+ *
+ * For every pattern a literal is extracted, which must be contained in each matching line (e.g. "ERRO" for the
+ * pattern "ERROR+"). All literals are compiled into one Aho-Corasick automaton. A line is scanned once by the
+ * automaton and only the patterns whose literal has been found are evaluated by their regular expression. Patterns
+ * which consist of a literal only do not need a regular expression evaluation at all. Patterns without a usable
+ * literal are always evaluated.
+ *
+ * This class is not thread safe. All pattern sets have to be added before the first line is matched.
+ *
+ * @author agent - Initial contribution
+ */
+public class MultiPatternMatcher {
+
+    /**
+     * Maximum number of pattern sets, one bit of the match result per set
+     */
+    public static final int MAX_PATTERN_SETS = Integer.SIZE;
+
+    private static class Entry {
+        final int setBit;
+        final Matcher matcher;
+        final int literalId;
+        final boolean literalOnly;
+
+        Entry(int setBit, Pattern pattern, int literalId, boolean literalOnly) {
+            this.setBit = setBit;
+            this.matcher = pattern.matcher("");
+            this.literalId = literalId;
+            this.literalOnly = literalOnly;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> literals = new LinkedHashMap<>();
+    private int patternSets;
+
+    // The automaton, created on first use
+    private boolean compiled;
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private int alphabetSize;
+    private int[] transitions = new int[0];
+    private int[][] outputs = new int[0][];
+
+    // Literals found in the current line are marked with the number of the line
+    private int[] literalHits = new int[0];
+    private int lineStamp;
+
+    /**
+     * Adds a set of search patterns.
+     *
+     * @param patterns search patterns separated by | character. If null or empty, the set never matches.
+     * @return the bit, which is set in the result of {@link #match(String)} if one of the patterns matches.
+     * @throws PatternSyntaxException if one of the patterns is invalid.
+     */
+    public int addPatternSet(@Nullable String patterns) throws PatternSyntaxException {
+        if (compiled) {
+            throw new IllegalStateException("Pattern sets can't be added after the first match");
+        }
+        if (patternSets == MAX_PATTERN_SETS) {
+            throw new IllegalStateException("Too many pattern sets");
+        }
+        int setBit = 1 << patternSets++;
+
+        if (patterns != null && !patterns.isEmpty()) {
+            for (String patternStr : patterns.split("\\|")) {
+                Pattern pattern = Pattern.compile(patternStr);
+                LiteralInfo info = extractLiteral(patternStr);
+                int literalId = -1;
+                if (info.literal != null) {
+                    literalId = literals.computeIfAbsent(info.literal, l -> literals.size());
+                }
+                entries.add(new Entry(setBit, pattern, literalId, info.literalOnly));
+            }
+        }
+        return setBit;
+    }
+
+    /**
+     * Matches the line against all pattern sets.
+     *
+     * @param line the line to match.
+     * @return the bits of all pattern sets, which have at least one matching pattern.
+     */
+    public int match(String line) {
+        if (!compiled) {
+            compile();
+        }
+
+        if (!literals.isEmpty()) {
+            scan(line);
+        }
+
+        int result = 0;
+        for (Entry entry : entries) {
+            if ((result & entry.setBit) != 0) {
+                continue;
+            }
+            if (entry.literalId >= 0 && literalHits[entry.literalId] != lineStamp) {
+                continue;
+            }
+            if (entry.literalOnly || entry.matcher.reset(line).find()) {
+                result |= entry.setBit;
+            }
+        }
+        return result;
+    }
+
+    private void scan(String line) {
+        if (++lineStamp == 0) {
+            // Overflow, all hits of former lines have to be invalidated
+            Arrays.fill(literalHits, 0);
+            lineStamp = 1;
+        }
+        int state = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int charClass = c < asciiClasses.length ? asciiClasses[c] : otherClasses.getOrDefault(c, 0);
+            state = transitions[state * alphabetSize + charClass];
+            int[] found = outputs[state];
+            if (found != null) {
+                for (int literalId : found) {
+                    literalHits[literalId] = lineStamp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the Aho-Corasick automaton of all literals as a complete transition table. Characters which are not part
+     * of any literal share the character class 0.
+     */
+    private void compile() {
+        compiled = true;
+        literalHits = new int[literals.size()];
+
+        alphabetSize = 1;
+        for (String literal : literals.keySet()) {
+            for (char c : literal.toCharArray()) {
+                if (c < asciiClasses.length) {
+                    if (asciiClasses[c] == 0) {
+                        asciiClasses[c] = alphabetSize++;
+                    }
+                } else if (!otherClasses.containsKey(c)) {
+                    otherClasses.put(c, alphabetSize++);
+                }
+            }
+        }
+
+        // Trie of all literals, -1 for missing edges
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(newNode());
+        trieOutputs.add(new ArrayList<>());
+        for (Map.Entry<String, Integer> literal : literals.entrySet()) {
+            int node = 0;
+            for (char c : literal.getKey().toCharArray()) {
+                int charClass = charClass(c);
+                int next = trie.get(node)[charClass];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.get(node)[charClass] = next;
+                    trie.add(newNode());
+                    trieOutputs.add(new ArrayList<>());
+                }
+                node = next;
+            }
+            trieOutputs.get(node).add(literal.getValue());
+        }
+
+        // Breadth first traversal to resolve the failure links into the transition table
+        int states = trie.size();
+        transitions = new int[states * alphabetSize];
+        outputs = new int[states][];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int charClass = 0; charClass < alphabetSize; charClass++) {
+            int next = trie.get(0)[charClass];
+            if (next > 0) {
+                failure[next] = 0;
+                transitions[charClass] = next;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            trieOutputs.get(node).addAll(trieOutputs.get(failure[node]));
+            for (int charClass = 0; charClass < alphabetSize; charClass++) {
+                int next = trie.get(node)[charClass];
+                if (next > 0) {
+                    failure[next] = transitions[failure[node] * alphabetSize + charClass];
+                    transitions[node * alphabetSize + charClass] = next;
+                    queue.add(next);
+                } else {
+                    transitions[node * alphabetSize + charClass] = transitions[failure[node] * alphabetSize
+                            + charClass];
+                }
+            }
+        }
+        for (int node = 0; node < states; node++) {
+            List<Integer> found = trieOutputs.get(node);
+            if (!found.isEmpty()) {
+                outputs[node] = found.stream().distinct().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    private int[] newNode() {
+        int[] node = new int[alphabetSize];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    private int charClass(char c) {
+        return c < asciiClasses.length ? asciiClasses[c] : otherClasses.get(c);
+    }
+
+    static class LiteralInfo {
+        final @Nullable String literal;
+        final boolean literalOnly;
+
+        LiteralInfo(@Nullable String literal, boolean literalOnly) {
+            this.literal = literal;
+            this.literalOnly = literalOnly;
+        }
+    }
+
+    /**
+     * Extracts the longest literal, which is contained in every match of the pattern. The extraction is
+     * conservative: Literals inside of groups are ignored, as well as the characters made optional by a quantifier.
+     * Patterns with inline flags, lookarounds or quoting do not provide a literal.
+     *
+     * @param pattern the regular expression
+     * @return the literal or null, and whether a find() of the pattern is equal to searching the literal
+     */
+    static LiteralInfo extractLiteral(String pattern) {
+        StringBuilder run = new StringBuilder();
+        String longest = "";
+        boolean literalOnly = true;
+        boolean afterQuantifier = false;
+        int depth = 0;
+        int i = 0;
+
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            boolean quantifier = false;
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= pattern.length()) {
+                        return new LiteralInfo(null, false);
+                    }
+                    char escaped = pattern.charAt(i + 1);
+                    if (escaped == 'Q') {
+                        return new LiteralInfo(null, false);
+                    }
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // Character classes, boundaries, back references and character codes are not added to
+                        // the literal. The complete escape sequence is skipped.
+                        literalOnly = false;
+                        longest = longer(longest, run, depth);
+                        run.setLength(0);
+                        i = skipEscape(pattern, i);
+                        if (i < 0) {
+                            return new LiteralInfo(null, false);
+                        }
+                    } else {
+                        if (depth == 0) {
+                            run.append(escaped);
+                        }
+                        i += 2;
+                    }
+                    break;
+                case '[':
+                    literalOnly = false;
+                    longest = longer(longest, run, depth);
+                    run.setLength(0);
+                    i = skipCharacterClass(pattern, i);
+                    break;
+                case '(':
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '?') {
+                        return new LiteralInfo(null, false);
+                    }
+                    literalOnly = false;
+                    longest = longer(longest, run, depth);
+                    run.setLength(0);
+                    depth++;
+                    i++;
+                    break;
+                case ')':
+                    depth--;
+                    i++;
+                    break;
+                case '?':
+                case '*':
+                case '{':
+                    if (!afterQuantifier) {
+                        // The preceding character is optional
+                        literalOnly = false;
+                        if (run.length() > 0) {
+                            run.setLength(run.length() - 1);
+                        }
+                        longest = longer(longest, run, depth);
+                        run.setLength(0);
+                        quantifier = true;
+                    }
+                    i = c == '{' ? pattern.indexOf('}', i) + 1 : i + 1;
+                    if (i == 0) {
+                        return new LiteralInfo(null, false);
+                    }
+                    break;
+                case '+':
+                    if (!afterQuantifier) {
+                        // The preceding character is required once. If the pattern ends here, finding the
+                        // literal is equal to finding the pattern.
+                        if (i != pattern.length() - 1 || run.length() == 0) {
+                            literalOnly = false;
+                        }
+                        longest = longer(longest, run, depth);
+                        run.setLength(0);
+                        quantifier = true;
+                    }
+                    i++;
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                case '|':
+                    literalOnly = false;
+                    longest = longer(longest, run, depth);
+                    run.setLength(0);
+                    i++;
+                    break;
+                default:
+                    if (depth == 0) {
+                        run.append(c);
+                    }
+                    i++;
+            }
+            afterQuantifier = quantifier;
+        }
+        longest = longer(longest, run, depth);
+
+        if (longest.isEmpty()) {
+            return new LiteralInfo(null, false);
+        }
+        return new LiteralInfo(longest, literalOnly && depth == 0);
+    }
+
+    private static String longer(String longest, StringBuilder run, int depth) {
+        return depth == 0 && run.length() > longest.length() ? run.toString() : longest;
+    }
+
+    /**
+     * Skips an escape sequence starting with a backslash followed by a letter or digit.
+     *
+     * @return the index after the escape sequence or -1 if the escape sequence is incomplete
+     */
+    private static int skipEscape(String pattern, int start) {
+        int i = start + 2;
+        switch (pattern.charAt(start + 1)) {
+            case 'x':
+                // \xhh or \x{h...h}
+                return isAt(pattern, i, '{') ? skipTo(pattern, i, '}') : checked(pattern, i + 2);
+            case 'u':
+                // Unicode escape with four hex digits
+                return checked(pattern, i + 4);
+            case '0':
+                // \0n, \0nn or \0mnn
+                while (i < pattern.length() && i < start + 5 && pattern.charAt(i) >= '0' && pattern.charAt(i) <= '7') {
+                    i++;
+                }
+                return i;
+            case 'c':
+                // \cx
+                return checked(pattern, i + 1);
+            case 'p':
+            case 'P':
+                // \p{name} or \pL
+                return isAt(pattern, i, '{') ? skipTo(pattern, i, '}') : checked(pattern, i + 1);
+            case 'k':
+                // \k<name>
+                return skipTo(pattern, i, '>');
+            case 'N':
+                // \N{name}
+                return skipTo(pattern, i, '}');
+            default:
+                if (Character.isDigit(pattern.charAt(start + 1))) {
+                    // Back reference, the following digits may belong to the group number
+                    while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                        i++;
+                    }
+                }
+                return i;
+        }
+    }
+
+    private static boolean isAt(String pattern, int index, char c) {
+        return index < pattern.length() && pattern.charAt(index) == c;
+    }
+
+    private static int skipTo(String pattern, int start, char end) {
+        int index = pattern.indexOf(end, start);
+        return index < 0 ? -1 : index + 1;
+    }
+
+    private static int checked(String pattern, int end) {
+        return end <= pattern.length() ? end : -1;
+    }
+
+    private static int skipCharacterClass(String pattern, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // A closing bracket directly after the opening one (or its negation) is a literal
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -8,10 +8,6 @@
  */
 package org.openhab.binding.logreader.internal.searchengine;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import org.eclipse.jdt.annotation.Nullable;
@@ -19,36 +15,42 @@ import org.eclipse.jdt.annotation.Nullable;
 /**
  * This class implements logic for regular expression based searching.
  *
+ * The search patterns are added to a {@link MultiPatternMatcher}, which is shared with other search engines. Each line
+ * is matched once by the {@link MultiPatternMatcher} and the result is passed to all search engines.
+ *
  * @author Pauli Anttila - Initial contribution
+ * @author agent - Use a shared multi-pattern matcher
  */
 public class SearchEngine {
 
-    private List<Pattern> matchers;
-    private List<Pattern> blacklistingMatchers;
+    private final int matchBit;
+    private final int blacklistingBit;
 
     private long matchCount;
 
     /**
      * Initialize search patterns.
      *
+     * @param matcher shared matcher to which the patterns are added.
      * @param patterns search patterns.
      * @param blacklistingPatterns search patterns to bypass results which have found by the initial search patterns.
      *
      */
-    public SearchEngine(String patterns, String blacklistingPatterns) throws PatternSyntaxException {
-        matchers = compilePatterns(patterns);
-        blacklistingMatchers = compilePatterns(blacklistingPatterns);
+    public SearchEngine(MultiPatternMatcher matcher, @Nullable String patterns, @Nullable String blacklistingPatterns)
+            throws PatternSyntaxException {
+        matchBit = matcher.addPatternSet(patterns);
+        blacklistingBit = matcher.addPatternSet(blacklistingPatterns);
     }
 
     /**
      * Check if data is matching to one of the provided search patterns.
      *
-     * @param data data against search will be done.
+     * @param matches result of {@link MultiPatternMatcher#match(String)} for the data.
      * @return true if one of the search patterns found.
      */
-    public boolean isMatching(String data) {
-        if (isMatching(matchers, data)) {
-            if (notBlacklisted(data)) {
+    public boolean isMatching(int matches) {
+        if ((matches & matchBit) != 0) {
+            if (notBlacklisted(matches)) {
                 matchCount++;
                 return true;
             }
@@ -68,40 +70,7 @@ public class SearchEngine {
         setMatchCount(0);
     }
 
-    /**
-     * Split pattern string and precompile search patterns.
-     *
-     * @param patterns patterns which will handled.
-     * @return list of precompiled patterns. If pattern parameter is null, empty list is returned.
-     */
-    private List<Pattern> compilePatterns(@Nullable String patterns) throws PatternSyntaxException {
-        List<Pattern> patternsList = new ArrayList<Pattern>();
-
-        if (patterns != null && !patterns.isEmpty()) {
-            String list[] = patterns.split("\\|");
-            if (list.length > 0) {
-
-                for (String patternStr : list) {
-                    patternsList.add(Pattern.compile(patternStr));
-                }
-            }
-        }
-        return patternsList;
-    }
-
-    private boolean notBlacklisted(String data) {
-        return !isMatching(blacklistingMatchers, data);
-    }
-
-    private boolean isMatching(@Nullable List<Pattern> patterns, String data) {
-        if (patterns != null) {
-            for (Pattern pattern : patterns) {
-                Matcher matcher = pattern.matcher(data);
-                if (matcher.find()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private boolean notBlacklisted(int matches) {
+        return (matches & blacklistingBit) == 0;
     }
 }
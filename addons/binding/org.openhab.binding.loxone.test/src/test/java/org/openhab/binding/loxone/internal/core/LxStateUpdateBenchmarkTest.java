@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark of processing the initial table of value states, as sent by a large Miniserver after enabling status
+ * updates.
+ *
+ * The table resembles a captured one: 5000 states, of which 80% are configured in controls of the Miniserver. The
+ * test asserts that decoding into a table and looking up states by binary UUID finds exactly the same states with
+ * the same values as creating a {@link LxUuid} for each state and looking it up by its string form. The benchmark
+ * comparing both is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class LxStateUpdateBenchmarkTest {
+
+    private static final int STATES = 5000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private final Logger logger = LoggerFactory.getLogger(LxStateUpdateBenchmarkTest.class);
+
+    private final Map<LxUuid, Integer> states = new HashMap<>();
+    private final LxUuidIndex<Integer> index = new LxUuidIndex<>();
+    private byte[] message;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        byte[][] uuids = new byte[STATES][];
+        double[] values = new double[STATES];
+        for (int i = 0; i < STATES; i++) {
+            uuids[i] = LxWsStateUpdateTableTest.randomUuid(random);
+            values[i] = random.nextInt(10) < 5 ? random.nextInt(2) : random.nextDouble() * 100;
+            if (random.nextInt(10) < 8) {
+                LxUuid uuid = new LxUuid(uuids[i], 0);
+                states.put(uuid, i);
+                index.put(uuid, i);
+            }
+        }
+        message = LxWsStateUpdateTableTest.valueTable(uuids, values);
+    }
+
+    private long processByStringUuid(byte[] data) {
+        long checksum = 0;
+        for (int offset = 0; offset < data.length; offset += 24) {
+            Integer state = states.get(new LxUuid(data, offset));
+            if (state != null) {
+                double value = ByteBuffer.wrap(data, offset + 16, 8).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+                checksum += state * 31 + Double.doubleToLongBits(value);
+            }
+        }
+        return checksum;
+    }
+
+    private long processByBinaryUuid(byte[] data) {
+        long checksum = 0;
+        LxWsStateUpdateTable table = LxWsStateUpdateTable.decode(true, data, 0, data.length);
+        for (int i = 0; i < table.size(); i++) {
+            Integer state = index.get(table.getMostSignificantBits(i), table.getLeastSignificantBits(i));
+            if (state != null) {
+                checksum += state * 31 + Double.doubleToLongBits(table.getValue(i));
+            }
+        }
+        return checksum;
+    }
+
+    private void benchmark(String name, ToLongFunction<byte[]> process) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            process.applyAsLong(message);
+        }
+        long result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            result += process.applyAsLong(message);
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("{}: {} ns/state ({})", name, String.format("%.1f", (double) elapsed / ROUNDS / STATES), result);
+    }
+
+    @Test
+    public void testValueStatesTable() {
+        assertThat(processByBinaryUuid(message), is(equalTo(processByStringUuid(message))));
+        assertThat(index.size(), is(states.size()));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkValueStatesTable() {
+        benchmark("string UUID per state", this::processByStringUuid);
+        benchmark("binary UUID table", this::processByBinaryUuid);
+    }
+}
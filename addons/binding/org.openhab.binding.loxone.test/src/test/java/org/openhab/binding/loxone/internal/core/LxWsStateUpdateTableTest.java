@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests decoding of binary state update tables and lookup of states by binary UUID.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class LxWsStateUpdateTableTest {
+
+    static byte[] randomUuid(Random random) {
+        byte[] uuid = new byte[16];
+        random.nextBytes(uuid);
+        return uuid;
+    }
+
+    static byte[] valueTable(byte[][] uuids, double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(uuids.length * 24).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < uuids.length; i++) {
+            buffer.put(uuids[i]).putDouble(values[i]);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] textTable(byte[][] uuids, String[] texts) {
+        ByteBuffer buffer = ByteBuffer.allocate(uuids.length * 128).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < uuids.length; i++) {
+            byte[] text = texts[i].getBytes(StandardCharsets.US_ASCII);
+            buffer.put(uuids[i]).put(new byte[16]).putInt(text.length).put(text);
+            while (buffer.position() % 4 != 0) {
+                buffer.put((byte) 0);
+            }
+        }
+        byte[] table = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(table);
+        return table;
+    }
+
+    @Test
+    public void testBinaryUuidMatchesString() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            byte[] data = randomUuid(random);
+            LxUuid uuid = new LxUuid(data, 0);
+            LxUuid parsed = new LxUuid(uuid.toString().toLowerCase());
+            assertThat(parsed.isBinary(), is(true));
+            assertThat(parsed.getMostSignificantBits(), is(LxUuid.readMostSignificantBits(data, 0)));
+            assertThat(parsed.getLeastSignificantBits(), is(LxUuid.readLeastSignificantBits(data, 0)));
+        }
+        assertThat(new LxUuid("0b734138-037d-034e-ffff403fb0c34b9e").getMostSignificantBits(),
+                is(0x0b734138037d034eL));
+        assertThat(new LxUuid("0b734138-037d-034e-ffff403fb0c34b9e").getLeastSignificantBits(),
+                is(0xffff403fb0c34b9eL));
+        assertThat(new LxUuid("0b734138-037d-034e-ffff403fb0c34b9e/AI1").isBinary(), is(false));
+        assertThat(new LxUuid("0b734138-037d-034e-ffff-403fb0c34b9e").isBinary(), is(false));
+    }
+
+    @Test
+    public void testValueTable() {
+        Random random = new Random(2);
+        byte[][] uuids = { randomUuid(random), randomUuid(random), randomUuid(random) };
+        double[] values = { 0.0, -12.5, 1234567.125 };
+        byte[] message = valueTable(uuids, values);
+
+        LxWsStateUpdateTable table = LxWsStateUpdateTable.decode(true, message, 0, message.length);
+        assertThat(table.isTruncated(), is(false));
+        assertThat(table.size(), is(3));
+        for (int i = 0; i < 3; i++) {
+            assertThat(table.getMostSignificantBits(i), is(LxUuid.readMostSignificantBits(uuids[i], 0)));
+            assertThat(table.getLeastSignificantBits(i), is(LxUuid.readLeastSignificantBits(uuids[i], 0)));
+            assertThat(table.getValue(i), is(values[i]));
+            assertThat(table.getText(i), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testTextTable() {
+        Random random = new Random(3);
+        byte[][] uuids = { randomUuid(random), randomUuid(random), randomUuid(random) };
+        String[] texts = { "", "on", "Living room" };
+        byte[] message = textTable(uuids, texts);
+
+        LxWsStateUpdateTable table = LxWsStateUpdateTable.decode(false, message, 0, message.length);
+        assertThat(table.isTruncated(), is(false));
+        assertThat(table.size(), is(3));
+        for (int i = 0; i < 3; i++) {
+            assertThat(table.getLeastSignificantBits(i), is(LxUuid.readLeastSignificantBits(uuids[i], 0)));
+            assertThat(table.getText(i), is(texts[i]));
+            assertThat(table.getValue(i), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testTruncatedTable() {
+        Random random = new Random(4);
+        byte[][] uuids = { randomUuid(random), randomUuid(random) };
+        byte[] message = valueTable(uuids, new double[] { 1.0, 2.0 });
+
+        LxWsStateUpdateTable table = LxWsStateUpdateTable.decode(true, message, 0, message.length - 1);
+        assertThat(table.isTruncated(), is(true));
+        assertThat(table.size(), is(1));
+
+        message = textTable(uuids, new String[] { "first", "second" });
+        ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN).putInt(32, 1000);
+        table = LxWsStateUpdateTable.decode(false, message, 0, message.length);
+        assertThat(table.isTruncated(), is(true));
+        assertThat(table.size(), is(0));
+    }
+
+    @Test
+    public void testIndex() {
+        Random random = new Random(5);
+        LxUuidIndex<String> index = new LxUuidIndex<>();
+        byte[][] uuids = new byte[500][];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = randomUuid(random);
+            assertThat(index.put(new LxUuid(uuids[i], 0), "state" + i), is(true));
+        }
+        assertThat(index.put(new LxUuid(uuids[7], 0), "replaced"), is(true));
+        assertThat(index.put(new LxUuid("0b734138-037d-034e-ffff403fb0c34b9e/AI1"), "ignored"), is(false));
+        assertThat(index.size(), is(500));
+
+        for (int i = 0; i < uuids.length; i++) {
+            String state = index.get(LxUuid.readMostSignificantBits(uuids[i], 0),
+                    LxUuid.readLeastSignificantBits(uuids[i], 0));
+            assertThat(state, is(i == 7 ? "replaced" : "state" + i));
+        }
+        byte[] unknown = randomUuid(random);
+        assertThat(index.get(LxUuid.readMostSignificantBits(unknown, 0), LxUuid.readLeastSignificantBits(unknown, 0)),
+                is(nullValue()));
+
+        index.clear();
+        assertThat(index.size(), is(0));
+        assertThat(index.get(LxUuid.readMostSignificantBits(uuids[0], 0), LxUuid.readLeastSignificantBits(uuids[0], 0)),
+                is(nullValue()));
+    }
+}
@@ -49,6 +49,7 @@ import org.slf4j.LoggerFactory;
  * processing thread.
  *
  * @author Pawel Pieczul - initial contribution
+ * @author agent - Look up states by binary UUID
  *
  */
 public class LxServer {
@@ -96,6 +97,8 @@ public class LxServer {
     // the state. It must be ensured that updates received for this state UUID are passed to all controls that have this
     // state UUID configured.
     private final Map<LxUuid, Map<LxUuid, LxControlState>> states = new HashMap<>();
+    // Index of the above map by binary representation of state UUID, used to process state updates from Miniserver
+    private final LxUuidIndex<Map<LxUuid, LxControlState>> statesIndex = new LxUuidIndex<>();
     private final List<LxServerListener> listeners = new ArrayList<>();
 
     // Services
@@ -428,6 +431,23 @@ public class LxServer {
             }
         }
 
+        private void updateStates(Map<LxUuid, LxControlState> perStateUuid, Double value, String text) {
+            for (LxControlState state : perStateUuid.values()) {
+                state.setValue(value, text);
+                LxControl control = state.getControl();
+                if (control != null) {
+                    logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId, state.getUuid(),
+                            control.getName(), state.getName(), value, text);
+                    for (LxServerListener listener : listeners) {
+                        listener.onControlStateUpdate(control, state.getName().toLowerCase());
+                    }
+                } else {
+                    logger.debug("[{}] State update {} ({}) of unknown control", debugId, state.getUuid(),
+                            state.getName());
+                }
+            }
+        }
+
         private boolean processMessage(LxServerEvent wsMsg) {
             EventType event = wsMsg.getEvent();
             logger.trace("[{}] Server received event: {}", debugId, event);
@@ -444,24 +464,13 @@ public class LxServer {
                     }
                     break;
                 case STATE_UPDATE:
-                    LxWsStateUpdateEvent update = (LxWsStateUpdateEvent) wsMsg.getObject();
-                    Map<LxUuid, LxControlState> perStateUuid = findState(update.getUuid());
-                    if (perStateUuid != null) {
-                        perStateUuid.forEach((controlUuid, state) -> {
-                            state.setValue(update.getValue(), update.getText());
-                            LxControl control = state.getControl();
-                            if (control != null) {
-                                logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
-                                        update.getUuid(), control.getName(), state.getName(), update.getValue(),
-                                        update.getText());
-                                for (LxServerListener listener : listeners) {
-                                    listener.onControlStateUpdate(control, state.getName().toLowerCase());
-                                }
-                            } else {
-                                logger.debug("[{}] State update {} ({}) of unknown control", debugId, update.getUuid(),
-                                        state.getName());
-                            }
-                        });
+                    LxWsStateUpdateTable updates = (LxWsStateUpdateTable) wsMsg.getObject();
+                    for (int i = 0; i < updates.size(); i++) {
+                        Map<LxUuid, LxControlState> perStateUuid = findState(updates.getMostSignificantBits(i),
+                                updates.getLeastSignificantBits(i));
+                        if (perStateUuid != null) {
+                            updateStates(perStateUuid, updates.getValue(i), updates.getText(i));
+                        }
                     }
                     break;
                 case SERVER_ONLINE:
@@ -565,6 +574,8 @@ public class LxServer {
         removeUnusedFromMap(categories);
         removeUnusedFromMap(controls);
         removeUnusedFromMap(states);
+        statesIndex.clear();
+        states.forEach(statesIndex::put);
     }
 
     /**
@@ -643,21 +654,17 @@ public class LxServer {
     }
 
     /**
-     * Search for a state with given UUID
+     * Search for a state with given binary UUID
      *
-     * @param id
-     *            UUID of state to locate
+     * @param msb
+     *            most significant part of UUID of state to locate
+     * @param lsb
+     *            least significant part of UUID of state to locate
      * @return
      *         map of all state objects with control UUID as key
      */
-    private Map<LxUuid, LxControlState> findState(LxUuid id) {
-        if (states == null || id == null) {
-            return null;
-        }
-        if (states.containsKey(id)) {
-            return states.get(id);
-        }
-        return null;
+    private Map<LxUuid, LxControlState> findState(long msb, long lsb) {
+        return statesIndex.get(msb, lsb);
     }
 
     /**
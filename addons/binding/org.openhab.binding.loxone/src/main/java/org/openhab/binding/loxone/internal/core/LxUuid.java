@@ -18,12 +18,16 @@ import java.nio.ByteOrder;
  * across all objects residing on the Miniserver.
  *
  * @author Pawel Pieczul - initial contribution
+ * @author agent - Binary representation of the UUID
  *
  */
 public class LxUuid {
     private String uuid;
     private String uuidOriginal;
     private boolean updated;
+    private long msb;
+    private long lsb;
+    private boolean binary;
 
     /**
      * Create a new {@link LxUuid} object from an UUID on a Miniserver.
@@ -49,6 +53,79 @@ public class LxUuid {
         uuidOriginal = uuid;
         this.uuid = uuidOriginal.replaceAll("[^a-zA-Z0-9-]", "-").toUpperCase();
         updated = true;
+        binary = parseBinary(this.uuid);
+    }
+
+    /**
+     * Parses UUID in the format in which Miniserver sends it in binary messages (xxxxxxxx-xxxx-xxxx-xxxxxxxxxxxxxxxx)
+     * into two long values.
+     *
+     * @param id
+     *            normalized UUID string
+     * @return
+     *         true if UUID has a binary representation
+     */
+    private boolean parseBinary(String id) {
+        if (id.length() != 35 || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-') {
+            return false;
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < id.length(); i++) {
+            if (i == 8 || i == 13 || i == 18) {
+                continue;
+            }
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            if (i < 18) {
+                high = (high << 4) | digit;
+            } else {
+                low = (low << 4) | digit;
+            }
+        }
+        msb = high;
+        lsb = low;
+        return true;
+    }
+
+    /**
+     * Reads most significant part of a binary UUID, the same as returned by {@link #getMostSignificantBits()} for an
+     * UUID created from the same data.
+     *
+     * @param data
+     *            buffer with binary message received from Miniserver
+     * @param offset
+     *            offset in buffer where UUID is expected
+     * @return
+     *         most significant part of the UUID
+     */
+    static long readMostSignificantBits(byte data[], int offset) {
+        long data1 = (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16
+                | (data[offset + 3] & 0xffL) << 24;
+        int data2 = (data[offset + 4] & 0xff) | (data[offset + 5] & 0xff) << 8;
+        int data3 = (data[offset + 6] & 0xff) | (data[offset + 7] & 0xff) << 8;
+        return data1 << 32 | (long) data2 << 16 | data3;
+    }
+
+    /**
+     * Reads least significant part of a binary UUID, the same as returned by {@link #getLeastSignificantBits()} for an
+     * UUID created from the same data.
+     *
+     * @param data
+     *            buffer with binary message received from Miniserver
+     * @param offset
+     *            offset in buffer where UUID is expected
+     * @return
+     *         least significant part of the UUID
+     */
+    static long readLeastSignificantBits(byte data[], int offset) {
+        long bits = 0;
+        for (int i = offset + 8; i < offset + 16; i++) {
+            bits = (bits << 8) | (data[i] & 0xff);
+        }
+        return bits;
     }
 
     @Override
@@ -87,6 +164,36 @@ public class LxUuid {
         return uuidOriginal;
     }
 
+    /**
+     * Check if the UUID can be received in binary messages from Miniserver.
+     *
+     * @return
+     *         true if UUID has a binary representation
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Returns most significant part of the binary representation of UUID.
+     *
+     * @return
+     *         most significant 64 bits, valid only if {@link #isBinary()} is true
+     */
+    long getMostSignificantBits() {
+        return msb;
+    }
+
+    /**
+     * Returns least significant part of the binary representation of UUID.
+     *
+     * @return
+     *         least significant 64 bits, valid only if {@link #isBinary()} is true
+     */
+    long getLeastSignificantBits() {
+        return lsb;
+    }
+
     /**
      * Indicate the object corresponding to UUID has recently been updated.
      *
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.util.Arrays;
+
+/**
+ * Index of objects by binary representation of their {@link LxUuid}.
+ * <p>
+ * Binary messages from Miniserver identify states with UUIDs as 16 bytes. This index allows to locate objects with
+ * the two 64-bit parts of such UUID, without creating {@link LxUuid} or any other objects for a lookup. It is an open
+ * addressing hash table with linear probing. UUIDs that have no binary representation are not indexed.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <T>
+ *            type of indexed objects
+ */
+class LxUuidIndex<T> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] msbs = new long[INITIAL_CAPACITY];
+    private long[] lsbs = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Add an object to the index or replace an object already indexed with the same UUID
+     *
+     * @param uuid
+     *            UUID of the object
+     * @param value
+     *            object to index
+     * @return
+     *         true if object was indexed, false if UUID has no binary representation
+     */
+    boolean put(LxUuid uuid, T value) {
+        if (!uuid.isBinary() || value == null) {
+            return false;
+        }
+        if ((size + 1) * 2 > values.length) {
+            resize(values.length * 2);
+        }
+        insert(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), value);
+        return true;
+    }
+
+    /**
+     * Search for an object with given binary UUID
+     *
+     * @param msb
+     *            most significant part of UUID
+     * @param lsb
+     *            least significant part of UUID
+     * @return
+     *         indexed object or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    T get(long msb, long lsb) {
+        int mask = values.length - 1;
+        for (int i = hash(msb, lsb) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return (T) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove all objects from the index
+     */
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Get number of indexed objects
+     *
+     * @return
+     *         number of objects in the index
+     */
+    int size() {
+        return size;
+    }
+
+    private void insert(long msb, long lsb, Object value) {
+        int mask = values.length - 1;
+        int i = hash(msb, lsb) & mask;
+        while (values[i] != null) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        values[i] = value;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        Object[] oldValues = values;
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        values = new Object[capacity];
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldMsbs[i], oldLsbs[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 32;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+}
@@ -52,6 +52,7 @@ import com.google.gson.JsonSyntaxException;
  * It uses jetty websocket client and creates one own thread to send keep-alive messages to the Miniserver.
  *
  * @author Pawel Pieczul - initial contribution
+ * @author agent - Decode state tables in one pass
  *
  */
 class LxWsClient {
@@ -535,6 +536,21 @@ class LxWsClient {
         }
     }
 
+    /**
+     * Sends a table of state updates to {@link LxServer} object as a single event
+     *
+     * @param table
+     *            decoded table of state updates
+     */
+    private void notifyStateUpdates(LxWsStateUpdateTable table) {
+        if (table.isTruncated()) {
+            logger.debug("[{}] malformed state updates received, {} updates accepted", debugId, table.size());
+        }
+        if (table.size() > 0) {
+            notifyMaster(EventType.STATE_UPDATE, null, table);
+        }
+    }
+
     /**
      * Implementation of jetty websocket client
      *
@@ -651,20 +667,10 @@ class LxWsClient {
                     switch (header.type) {
                         case EVENT_TABLE_OF_VALUE_STATES:
                             stopResponseTimeout();
-                            while (length > 0) {
-                                LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(true, data, offset);
-                                offset += event.getSize();
-                                length -= event.getSize();
-                                notifyMaster(EventType.STATE_UPDATE, null, event);
-                            }
+                            notifyStateUpdates(LxWsStateUpdateTable.decode(true, data, offset, length));
                             break;
                         case EVENT_TABLE_OF_TEXT_STATES:
-                            while (length > 0) {
-                                LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(false, data, offset);
-                                offset += event.getSize();
-                                length -= event.getSize();
-                                notifyMaster(EventType.STATE_UPDATE, null, event);
-                            }
+                            notifyStateUpdates(LxWsStateUpdateTable.decode(false, data, offset, length));
                             break;
                         case KEEPALIVE_RESPONSE:
                         case TEXT_MESSAGE:
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.util.Arrays;
+
+/**
+ * A table of control's state updates received from Loxone Miniserver in one binary message
+ * <p>
+ * Binary message is decoded into arrays of primitive values in one pass. State UUIDs are kept as two 64-bit values,
+ * which can be used to look up states in {@link LxUuidIndex} without creating intermediate objects for each update.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class LxWsStateUpdateTable {
+    private static final int VALUE_EVENT_SIZE = 24;
+    private static final int TEXT_EVENT_HEADER_SIZE = 36;
+
+    private final boolean valueTable;
+    private long[] msbs;
+    private long[] lsbs;
+    private double[] values;
+    private String[] texts;
+    private int size = 0;
+    private boolean truncated = false;
+
+    private LxWsStateUpdateTable(boolean valueTable, int capacity) {
+        this.valueTable = valueTable;
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        if (valueTable) {
+            values = new double[capacity];
+        } else {
+            texts = new String[capacity];
+        }
+    }
+
+    /**
+     * Decode a table of state updates from binary message
+     *
+     * @param isValueTable
+     *            true if the table contains double value updates, false if it contains text updates
+     * @param data
+     *            buffer with binary message received from Miniserver
+     * @param offset
+     *            offset in buffer where the table begins
+     * @param length
+     *            length of the table in bytes
+     * @return
+     *         decoded table, with updates that were completely received before any malformed data
+     */
+    static LxWsStateUpdateTable decode(boolean isValueTable, byte data[], int offset, int length) {
+        int end = Math.min(offset + length, data.length);
+        int pos = offset;
+        if (isValueTable) {
+            LxWsStateUpdateTable table = new LxWsStateUpdateTable(true, Math.max(length, 0) / VALUE_EVENT_SIZE);
+            while (pos < end) {
+                if (end - pos < VALUE_EVENT_SIZE) {
+                    table.truncated = true;
+                    break;
+                }
+                int i = table.size++;
+                table.msbs[i] = LxUuid.readMostSignificantBits(data, pos);
+                table.lsbs[i] = LxUuid.readLeastSignificantBits(data, pos);
+                table.values[i] = Double.longBitsToDouble(readLong(data, pos + 16));
+                pos += VALUE_EVENT_SIZE;
+            }
+            return table;
+        }
+        LxWsStateUpdateTable table = new LxWsStateUpdateTable(false, 16);
+        while (pos < end) {
+            if (end - pos < TEXT_EVENT_HEADER_SIZE) {
+                table.truncated = true;
+                break;
+            }
+            // icon UUID at pos + 16 is not used
+            int textLen = readInt(data, pos + 32);
+            if (textLen < 0 || textLen > end - pos - TEXT_EVENT_HEADER_SIZE) {
+                table.truncated = true;
+                break;
+            }
+            if (table.size == table.msbs.length) {
+                table.grow();
+            }
+            int i = table.size++;
+            table.msbs[i] = LxUuid.readMostSignificantBits(data, pos);
+            table.lsbs[i] = LxUuid.readLeastSignificantBits(data, pos);
+            table.texts[i] = new String(data, pos + TEXT_EVENT_HEADER_SIZE, textLen);
+            pos += TEXT_EVENT_HEADER_SIZE + (textLen % 4 > 0 ? textLen + 4 - (textLen % 4) : textLen);
+        }
+        return table;
+    }
+
+    private void grow() {
+        int capacity = msbs.length * 2;
+        msbs = Arrays.copyOf(msbs, capacity);
+        lsbs = Arrays.copyOf(lsbs, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+    }
+
+    private static int readInt(byte data[], int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16
+                | (data[offset + 3] & 0xff) << 24;
+    }
+
+    private static long readLong(byte data[], int offset) {
+        return (readInt(data, offset) & 0xffffffffL) | (long) readInt(data, offset + 4) << 32;
+    }
+
+    /**
+     * Get number of state updates in the table
+     *
+     * @return
+     *         number of state updates
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check if the binary message ended with incomplete or malformed data, which was discarded
+     *
+     * @return
+     *         true if some data was discarded
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Get most significant part of UUID of a state
+     *
+     * @param index
+     *            index of the update in the table
+     * @return
+     *         most significant 64 bits of state UUID
+     */
+    long getMostSignificantBits(int index) {
+        return msbs[index];
+    }
+
+    /**
+     * Get least significant part of UUID of a state
+     *
+     * @param index
+     *            index of the update in the table
+     * @return
+     *         least significant 64 bits of state UUID
+     */
+    long getLeastSignificantBits(int index) {
+        return lsbs[index];
+    }
+
+    /**
+     * Get new value of a state
+     *
+     * @param index
+     *            index of the update in the table
+     * @return
+     *         new value of the state or null if the table contains text updates
+     */
+    Double getValue(int index) {
+        return valueTable ? values[index] : null;
+    }
+
+    /**
+     * Get new text value of a state
+     *
+     * @param index
+     *            index of the update in the table
+     * @return
+     *         new text value of the state or null if the table contains value updates
+     */
+    String getText(int index) {
+        return valueTable ? null : texts[index];
+    }
+}
@@ -15,9 +15,11 @@ import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -106,8 +108,10 @@ import org.openhab.io.transport.modbus.PollTask;
 import org.openhab.io.transport.modbus.WriteTask;
 import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
 import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -729,9 +733,11 @@ public class ModbusDataHandlerTest extends JavaTest {
     }
 
     private void mockTransformation(String name, TransformationService service) throws InvalidSyntaxException {
-        doReturn(Arrays.asList(new Object[] { null })).when(bundleContext)
+        ServiceReference<?> reference = mock(ServiceReference.class);
+        doReturn(mock(Bundle.class)).when(reference).getBundle();
+        doReturn(Collections.singletonList(reference)).when(bundleContext)
                 .getServiceReferences(TransformationService.class, "(smarthome.transform=" + name + ")");
-        doReturn(service).when(bundleContext).getService(any());
+        doReturn(service).when(bundleContext).getService(reference);
     }
 
     @Test
@@ -1046,6 +1052,55 @@ public class ModbusDataHandlerTest extends JavaTest {
         waitForAssert(() -> verify((ModbusPollerThingHandler) poller.getHandler()).refresh(), 2500, 50);
     }
 
+    @Test
+    public void testOnRegistersUnchangedValueNotUpdated() {
+        ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("thisishost", 502);
+
+        // Minimally mocked request
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        doReturn(3).when(request).getDataLength();
+        doReturn(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS).when(request).getFunctionCode();
+
+        PollTask task = Mockito.mock(PollTask.class);
+        doReturn(endpoint).when(task).getEndpoint();
+        doReturn(request).when(task).getRequest();
+
+        Bridge poller = createPollerMock("poller1", task);
+
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("readStart", "0");
+        dataConfig.put("readTransform", "default");
+        dataConfig.put("readValueType", "int16");
+        dataConfig.put("updateUnchangedValuesEveryMillis", new BigDecimal(60000));
+        dataConfig.put("readDeadband", new BigDecimal(2));
+
+        ModbusDataThingHandler dataHandler = createDataHandler("read1", poller,
+                builder -> builder.withConfiguration(dataConfig));
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+        ChannelUID numberChannel = new ChannelUID(dataHandler.getThing().getUID(),
+                ModbusBindingConstants.CHANNEL_NUMBER);
+        ChannelUID lastReadSuccessChannel = new ChannelUID(dataHandler.getThing().getUID(),
+                ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS);
+
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(10, 0, 0));
+        // unchanged, and within deadband
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(10, 0, 0));
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(11, 0, 0));
+        assertThat(stateUpdates.get(numberChannel), is(equalTo(Arrays.asList(new DecimalType(10)))));
+        assertThat(stateUpdates.get(lastReadSuccessChannel).size(), is(equalTo(3)));
+
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(12, 0, 0));
+        assertThat(stateUpdates.get(numberChannel),
+                is(equalTo(Arrays.asList(new DecimalType(10), new DecimalType(12)))));
+
+        // REFRESH makes sure the value is updated even if unchanged
+        dataHandler.handleCommand(numberChannel, RefreshType.REFRESH);
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(12, 0, 0));
+        assertThat(stateUpdates.get(numberChannel).size(), is(equalTo(3)));
+        assertThat(dataHandler.getThing().getProperties().get(ModbusBindingConstants.PROPERTY_SUPPRESSED_UPDATES),
+                is(notNullValue()));
+    }
+
     /**
      *
      * @param pollerFunctionCode poller function code. Use null if you want to have data thing direct child of endpoint
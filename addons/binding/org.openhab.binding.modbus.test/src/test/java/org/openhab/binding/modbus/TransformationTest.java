@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.transform.TransformationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openhab.binding.modbus.internal.Transformation;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TransformationTest {
+
+    @Mock
+    private BundleContext context;
+
+    @Mock
+    private ServiceReference<TransformationService> reference;
+
+    private final AtomicInteger serviceCalls = new AtomicInteger();
+
+    private final TransformationService service = (function, source) -> {
+        serviceCalls.incrementAndGet();
+        return function + source;
+    };
+
+    @Before
+    public void setUp() {
+        doReturn(service).when(context).getService(reference);
+        doReturn(mock(Bundle.class)).when(reference).getBundle();
+    }
+
+    private void registerService(String name) throws InvalidSyntaxException {
+        doReturn(Collections.singletonList(reference)).when(context).getServiceReferences(TransformationService.class,
+                "(smarthome.transform=" + name + ")");
+    }
+
+    @Test
+    public void testIdentity() {
+        Transformation transformation = new Transformation("default");
+        assertThat(transformation.transform(context, "3"), is(equalTo("3")));
+        assertThat(transformation.getTransformCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testServiceResolvedOnce() throws InvalidSyntaxException {
+        registerService("JS");
+        Transformation transformation = new Transformation("JS(foo)");
+        assertThat(transformation.transform(context, "1"), is(equalTo("foo1")));
+        assertThat(transformation.transform(context, "1"), is(equalTo("foo1")));
+        assertThat(transformation.transform(context, "2"), is(equalTo("foo2")));
+
+        verify(context, times(1)).getServiceReferences(TransformationService.class, "(smarthome.transform=JS)");
+        // Service is released after each use
+        verify(context, times(3)).getService(reference);
+        verify(context, times(3)).ungetService(reference);
+        // JS transformation is not known to be deterministic, not memoised
+        assertThat(serviceCalls.get(), is(equalTo(3)));
+        assertThat(transformation.getTransformCount(), is(equalTo(3L)));
+        assertThat(transformation.getMemoHitCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testServiceResolvedAgainAfterUnregistration() throws InvalidSyntaxException {
+        registerService("JS");
+        Transformation transformation = new Transformation("JS(foo)");
+        assertThat(transformation.transform(context, "1"), is(equalTo("foo1")));
+        // Unregistered service has no bundle
+        doReturn(null).when(reference).getBundle();
+        assertThat(transformation.transform(context, "1"), is(equalTo("foo1")));
+        verify(context, times(2)).getServiceReferences(TransformationService.class, "(smarthome.transform=JS)");
+    }
+
+    @Test
+    public void testMapOutputMemoised() throws InvalidSyntaxException {
+        registerService("MAP");
+        Transformation transformation = new Transformation("MAP(states.map)");
+        assertThat(transformation.transform(context, "1"), is(equalTo("states.map1")));
+        assertThat(transformation.transform(context, "1"), is(equalTo("states.map1")));
+        assertThat(transformation.transform(context, "2"), is(equalTo("states.map2")));
+        assertThat(transformation.transform(context, "1"), is(equalTo("states.map1")));
+
+        assertThat(serviceCalls.get(), is(equalTo(2)));
+        assertThat(transformation.getTransformCount(), is(equalTo(4L)));
+        assertThat(transformation.getMemoHitCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testMissingServicePassesValue() throws InvalidSyntaxException {
+        doReturn(Collections.emptyList()).when(context).getServiceReferences(any(Class.class), any());
+        Transformation transformation = new Transformation("MAP(states.map)");
+        assertThat(transformation.transform(context, "1"), is(equalTo("1")));
+        assertThat(transformation.getMemoHitCount(), is(equalTo(0L)));
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.openhab.binding.modbus.internal.ValueChangeFilter;
+
+public class ValueChangeFilterTest {
+
+    @Test
+    public void testDisabledPublishesEverything() {
+        ValueChangeFilter filter = new ValueChangeFilter(0, 5);
+        assertThat(filter.isEnabled(), is(equalTo(false)));
+        assertThat(filter.shouldPublish(1, 1, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(1, 1, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(2, 2, 0), is(equalTo(true)));
+        assertThat(filter.getPublishedCount(), is(equalTo(3L)));
+        assertThat(filter.getSuppressedCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testUnchangedSuppressedUntilMaxSilence() {
+        ValueChangeFilter filter = new ValueChangeFilter(1000, 0);
+        assertThat(filter.shouldPublish(1, 1, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(1, 1, 100), is(equalTo(false)));
+        assertThat(filter.shouldPublish(1, 1, 999), is(equalTo(false)));
+        assertThat(filter.shouldPublish(1, 1, 1000), is(equalTo(true)));
+        assertThat(filter.shouldPublish(15, 1.5, 1001), is(equalTo(true)));
+        assertThat(filter.getPublishedCount(), is(equalTo(3L)));
+        assertThat(filter.getSuppressedCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testDeadbandComparedToLastPublished() {
+        ValueChangeFilter filter = new ValueChangeFilter(1000, 1);
+        assertThat(filter.shouldPublish(100, 10, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(105, 10.5, 1), is(equalTo(false)));
+        assertThat(filter.shouldPublish(95, 9.5, 2), is(equalTo(false)));
+        // slow drift is published once it exceeds the deadband
+        assertThat(filter.shouldPublish(110, 11, 3), is(equalTo(true)));
+        assertThat(filter.shouldPublish(102, 10.2, 4), is(equalTo(false)));
+        assertThat(filter.shouldPublish(0x7ff8000000000000L, Double.NaN, 5), is(equalTo(true)));
+        assertThat(filter.shouldPublish(0x7ff8000000000000L, Double.NaN, 6), is(equalTo(false)));
+    }
+
+    @Test
+    public void testRawValueComparedExactly() {
+        ValueChangeFilter filter = new ValueChangeFilter(1000, 0);
+        // 64 bit values differing in the least significant bit are equal as double
+        assertThat(filter.shouldPublish(Long.MAX_VALUE, Long.MAX_VALUE, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(Long.MAX_VALUE - 1, Long.MAX_VALUE - 1, 1), is(equalTo(true)));
+        assertThat(filter.shouldPublish(Long.MAX_VALUE - 1, Long.MAX_VALUE - 1, 2), is(equalTo(false)));
+    }
+
+    @Test
+    public void testReset() {
+        ValueChangeFilter filter = new ValueChangeFilter(1000, 0);
+        assertThat(filter.shouldPublish(1, 1, 0), is(equalTo(true)));
+        assertThat(filter.shouldPublish(1, 1, 1), is(equalTo(false)));
+        filter.reset();
+        assertThat(filter.shouldPublish(1, 1, 2), is(equalTo(true)));
+        assertThat(filter.shouldPublish(1, 1, 3), is(equalTo(false)));
+    }
+
+}
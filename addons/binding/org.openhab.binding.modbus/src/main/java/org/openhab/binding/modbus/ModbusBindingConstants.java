@@ -55,6 +55,16 @@ public class ModbusBindingConstants {
     public static final String[] DATA_CHANNELS_TO_DELEGATE_COMMAND_FROM_READWRITE_TO_WRITE = { CHANNEL_SWITCH,
             CHANNEL_CONTACT, CHANNEL_DATETIME, CHANNEL_DIMMER, CHANNEL_NUMBER, CHANNEL_STRING, CHANNEL_ROLLERSHUTTER };
 
+    // List of all thing properties
+    public static final String PROPERTY_PUBLISHED_UPDATES = "publishedUpdates";
+    public static final String PROPERTY_SUPPRESSED_UPDATES = "suppressedUpdates";
+    public static final String PROPERTY_WRITE_PLAN_CACHE_HITS = "writePlanCacheHits";
+    public static final String PROPERTY_PREFIX_READ_TRANSFORM = "readTransform";
+    public static final String PROPERTY_PREFIX_WRITE_TRANSFORM = "writeTransform";
+    public static final String PROPERTY_SUFFIX_TRANSFORM_COUNT = "Count";
+    public static final String PROPERTY_SUFFIX_TRANSFORM_MEMO_HITS = "MemoHits";
+    public static final String PROPERTY_SUFFIX_TRANSFORM_AVERAGE_MICROS = "AverageMicros";
+
     public static final String WRITE_TYPE_COIL = "coil";
     public static final String WRITE_TYPE_HOLDING = "holding";
 
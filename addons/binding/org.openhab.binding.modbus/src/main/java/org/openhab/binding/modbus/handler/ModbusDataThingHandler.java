@@ -13,6 +13,7 @@ import static org.openhab.binding.modbus.ModbusBindingConstants.*;
 import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -49,8 +50,10 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.modbus.ModbusBindingConstants;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
 import org.openhab.binding.modbus.internal.Transformation;
+import org.openhab.binding.modbus.internal.ValueChangeFilter;
 import org.openhab.binding.modbus.internal.config.ModbusDataConfiguration;
 import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.DecodedRegisterValue;
 import org.openhab.io.transport.modbus.ModbusBitUtilities;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
 import org.openhab.io.transport.modbus.ModbusConstants;
@@ -83,12 +86,23 @@ import org.slf4j.LoggerFactory;
  * to avoid data race conditions.
  *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Suppress unchanged updates and cache write plans
  */
 @NonNullByDefault
 public class ModbusDataThingHandler extends BaseThingHandler implements ModbusReadCallback, ModbusWriteCallback {
 
     private final Logger logger = LoggerFactory.getLogger(ModbusDataThingHandler.class);
 
+    /**
+     * How often the statistics (e.g. counters of suppressed updates) are refreshed to thing properties
+     */
+    private static final long STATISTICS_PROPERTIES_UPDATE_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * Maximum number of parsed JSON write plans cached, keyed by transformation output
+     */
+    private static final int MAX_CACHED_WRITE_PLANS = 32;
+
     private static final Map<String, List<Class<? extends State>>> CHANNEL_ID_TO_ACCEPTED_TYPES = new HashMap<>();
 
     static {
@@ -129,6 +143,28 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
     private volatile boolean transformationOnlyInWrite;
     private volatile boolean childOfEndpoint;
     private volatile @Nullable ModbusPollerThingHandler pollerHandler;
+    private volatile @Nullable ValueChangeFilter valueFilter;
+    private volatile long lastStatisticsPropertiesUpdateMillis;
+    private final DecodedRegisterValue decodedValue = new DecodedRegisterValue();
+    private final WritePlanCache writePlanCache = new WritePlanCache();
+    private volatile long writePlanCacheHitCount;
+
+    /**
+     * Write requests of recently written transformation outputs, least recently used first
+     */
+    private static class WritePlanCache extends LinkedHashMap<String, Collection<ModbusWriteRequestBlueprint>> {
+        private static final long serialVersionUID = 1L;
+
+        private WritePlanCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.@Nullable Entry<String, Collection<ModbusWriteRequestBlueprint>> eldest) {
+            return size() > MAX_CACHED_WRITE_PLANS;
+        }
+    }
 
     public ModbusDataThingHandler(Thing thing) {
         super(thing);
@@ -151,6 +187,11 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
                 // There is no data to update
                 return;
             }
+            ValueChangeFilter valueFilter = this.valueFilter;
+            if (valueFilter != null) {
+                // Make sure the refreshed data is updated to channels even if it has not changed
+                valueFilter.reset();
+            }
             // We *schedule* the REFRESH to avoid dead-lock situation where poller is trying update this
             // data thing with cached data (resulting in deadlock in two synchronized methods: this (handleCommand) and
             // onRegisters.
@@ -169,6 +210,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         }
 
         Optional<Command> transformedCommand = transformCommandAndProcessJSON(channelUID, command);
+        updateStatisticsPropertiesIfNeeded();
         if (transformedCommand == null) {
             // We have, JSON as transform output (which has been processed) or some error. See
             // transformCommandAndProcessJSON javadoc
@@ -292,14 +334,20 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         if (slaveEndpoint == null || manager == null) {
             return;
         }
-        Collection<ModbusWriteRequestBlueprint> requests;
-        try {
-            requests = WriteRequestJsonUtilities.fromJson(slaveId, transformOutput);
-        } catch (IllegalArgumentException | IllegalStateException e) {
-            logger.warn(
-                    "Thing {} '{}' could handle transformation result '{}'. Original command {}. Error details follow",
-                    getThing().getUID(), getThing().getLabel(), transformOutput, command, e);
-            return;
+        // Write plans are cached since commands are typically repeated, e.g. ON and OFF
+        Collection<ModbusWriteRequestBlueprint> requests = writePlanCache.get(transformOutput);
+        if (requests == null) {
+            try {
+                requests = WriteRequestJsonUtilities.fromJson(slaveId, transformOutput);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                logger.warn(
+                        "Thing {} '{}' could handle transformation result '{}'. Original command {}. Error details follow",
+                        getThing().getUID(), getThing().getLabel(), transformOutput, command, e);
+                return;
+            }
+            writePlanCache.put(transformOutput, requests);
+        } else {
+            writePlanCacheHitCount++;
         }
 
         requests.stream().map(request -> new BasicWriteTask(slaveEndpoint, request, this)).forEach(writeTask -> {
@@ -314,7 +362,8 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         // Long running initialization should be done asynchronously in background.
         try {
             logger.trace("initialize() of thing {} '{}' starting", thing.getUID(), thing.getLabel());
-            config = getConfigAs(ModbusDataConfiguration.class);
+            ModbusDataConfiguration config = getConfigAs(ModbusDataConfiguration.class);
+            this.config = config;
             Bridge bridge = getBridge();
             if (bridge == null) {
                 logger.debug("Thing {} '{}' has no bridge", getThing().getUID(), getThing().getLabel());
@@ -356,6 +405,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             validateAndParseReadParameters();
             validateAndParseWriteParameters();
             validateMustReadOrWrite();
+            valueFilter = new ValueChangeFilter(config.getUpdateUnchangedValuesEveryMillis(), config.getReadDeadband());
 
             updateStatus(ThingStatus.ONLINE);
         } catch (ModbusConfigurationException | EndpointNotInitializedException e) {
@@ -387,6 +437,11 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         transformationOnlyInWrite = false;
         childOfEndpoint = false;
         pollerHandler = null;
+        valueFilter = null;
+        lastStatisticsPropertiesUpdateMillis = 0;
+        decodedValue.clear();
+        writePlanCache.clear();
+        writePlanCacheHitCount = 0;
     }
 
     @Override
@@ -648,7 +703,17 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             int itemsPerRegister = 16 / readValueType.getBits();
             extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
         }
-        numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType);
+        ModbusBitUtilities.extractValueFromRegisters(registers, extractIndex, readValueType, decodedValue);
+        boolean publish = shouldPublish(extractRawValue(registers, extractIndex, readValueType),
+                decodedValue.getDoubleValue());
+        updateStatisticsPropertiesIfNeeded();
+        if (!publish) {
+            logger.trace(
+                    "Thing {} channels not updated since value {} has not changed. readValueType={}, extractIndex={}. Registers {} for request {}",
+                    thing.getUID(), decodedValue, readValueType, extractIndex, registers, request);
+            return;
+        }
+        numericState = decodedValue.toDecimalType();
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
         logger.debug(
@@ -665,6 +730,13 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             return;
         }
         boolean boolValue = bits.getBit(readIndex.get() - pollStart);
+        boolean publish = shouldPublish(boolValue ? 1 : 0, boolValue ? 1 : 0);
+        updateStatisticsPropertiesIfNeeded();
+        if (!publish) {
+            logger.trace("Thing {} channels not updated since value {} has not changed. Bits {} for request {}",
+                    thing.getUID(), boolValue, bits, request);
+            return;
+        }
         DecimalType numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
         logger.debug(
@@ -691,6 +763,11 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
                     getThing().getUID(), getThing().getLabel(), error.getClass().getName(), error.toString(),
                     error.getMessage(), error);
         }
+        ValueChangeFilter valueFilter = this.valueFilter;
+        if (valueFilter != null) {
+            // Update channels with the first value after the recovery
+            valueFilter.reset();
+        }
         Map<@NonNull ChannelUID, @NonNull State> states = new HashMap<>();
         states.put(new ChannelUID(getThing().getUID(), ModbusBindingConstants.CHANNEL_LAST_READ_ERROR),
                 new DateTimeType());
@@ -755,6 +832,91 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         updateState(ModbusBindingConstants.CHANNEL_LAST_WRITE_SUCCESS, now);
     }
 
+    /**
+     * Check whether polled value should be updated to the data channels
+     *
+     * When the update is suppressed, only the thing status and the last successful read channel are updated.
+     *
+     * @param rawValue register or bit content of the polled data
+     * @param value numeric value of the polled data
+     * @return true if data channels should be updated
+     */
+    private boolean shouldPublish(long rawValue, double value) {
+        ValueChangeFilter valueFilter = this.valueFilter;
+        if (valueFilter == null || !valueFilter.isEnabled()) {
+            return true;
+        }
+        boolean publish = valueFilter.shouldPublish(rawValue, value, System.currentTimeMillis());
+        if (!publish) {
+            updateStatus(ThingStatus.ONLINE);
+            tryUpdateState(new ChannelUID(getThing().getUID(), ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS),
+                    new DateTimeType());
+        }
+        return publish;
+    }
+
+    /**
+     * Extract the register content the value is decoded from
+     *
+     * Unlike the decoded number, this is exact also with 64 bit values.
+     *
+     * @param registers polled registers
+     * @param index index of the value, see {@link ModbusBitUtilities#extractStateFromRegisters}
+     * @param type value type
+     * @return bits of the value, with registers of multi-register types concatenated
+     */
+    private static long extractRawValue(ModbusRegisterArray registers, int index, ValueType type) {
+        int bits = type.getBits();
+        if (bits < 16) {
+            int itemsPerRegister = 16 / bits;
+            int register = registers.getRegister(index / itemsPerRegister).toUnsignedShort();
+            return (register >> (bits * (index % itemsPerRegister))) & ((1 << bits) - 1);
+        }
+        long rawValue = 0;
+        for (int i = 0; i < bits / 16; i++) {
+            rawValue = (rawValue << 16) | registers.getRegister(index + i).toUnsignedShort();
+        }
+        return rawValue;
+    }
+
+    /**
+     * Refresh statistics to thing properties, unless they have been refreshed recently
+     */
+    private void updateStatisticsPropertiesIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastStatisticsPropertiesUpdateMillis < STATISTICS_PROPERTIES_UPDATE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastStatisticsPropertiesUpdateMillis = now;
+        Map<String, String> properties = editProperties();
+        ValueChangeFilter valueFilter = this.valueFilter;
+        if (valueFilter != null && valueFilter.isEnabled()) {
+            properties.put(PROPERTY_PUBLISHED_UPDATES, String.valueOf(valueFilter.getPublishedCount()));
+            properties.put(PROPERTY_SUPPRESSED_UPDATES, String.valueOf(valueFilter.getSuppressedCount()));
+        }
+        putTransformationStatistics(properties, PROPERTY_PREFIX_READ_TRANSFORM, readTransformation);
+        putTransformationStatistics(properties, PROPERTY_PREFIX_WRITE_TRANSFORM, writeTransformation);
+        if (!writePlanCache.isEmpty()) {
+            properties.put(PROPERTY_WRITE_PLAN_CACHE_HITS, String.valueOf(writePlanCacheHitCount));
+        }
+        updateProperties(properties);
+    }
+
+    private void putTransformationStatistics(Map<String, String> properties, String prefix,
+            @Nullable Transformation transformation) {
+        if (transformation == null || !transformation.hasTransformationService()) {
+            return;
+        }
+        long count = transformation.getTransformCount();
+        long memoHits = transformation.getMemoHitCount();
+        long serviceCalls = count - memoHits;
+        properties.put(prefix + PROPERTY_SUFFIX_TRANSFORM_COUNT, String.valueOf(count));
+        properties.put(prefix + PROPERTY_SUFFIX_TRANSFORM_MEMO_HITS, String.valueOf(memoHits));
+        properties.put(prefix + PROPERTY_SUFFIX_TRANSFORM_AVERAGE_MICROS, String.valueOf(
+                serviceCalls == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(transformation.getServiceTransformNanos())
+                        / serviceCalls));
+    }
+
     /**
      * Update linked channels
      *
@@ -11,8 +11,15 @@ package org.openhab.binding.modbus.internal;
 import static org.apache.commons.lang.StringUtils.isEmpty;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,12 +32,13 @@ import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.OpenClosedType;
 import org.eclipse.smarthome.core.transform.TransformationException;
-import org.eclipse.smarthome.core.transform.TransformationHelper;
 import org.eclipse.smarthome.core.transform.TransformationService;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +47,12 @@ import org.slf4j.LoggerFactory;
  *
  * Inspired from other openHAB binding "Transformation" classes.
  *
+ * The transformation service is looked up on first use, and the same service reference is used as long as it stays
+ * registered. Outputs of transformation services known to be deterministic (e.g. MAP) are memoised for a short while,
+ * which makes the transformation practically free with small input domains, e.g. enumerated register values.
+ *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Cache the parsed transformation
  *
  */
 @NonNullByDefault
@@ -61,6 +74,35 @@ public class Transformation {
         DEFAULT_TYPES.add(OnOffType.class);
     }
 
+    /**
+     * Transformation services whose output depends only on the input and the transformation argument (and the
+     * contents of the transformation file)
+     */
+    private static final Set<String> MEMOISABLE_SERVICES = new HashSet<>(
+            Arrays.asList("MAP", "SCALE", "REGEX", "JSONPATH", "XPATH", "XSLT"));
+
+    /**
+     * Maximum number of memoised outputs per transformation
+     */
+    private static final int MAX_MEMOISED_OUTPUTS = 256;
+
+    /**
+     * How long memoised outputs are valid. Transformation files might be edited at runtime.
+     */
+    private static final long MEMOISED_OUTPUT_MAX_AGE_MILLIS = 30_000;
+
+    private static final String SERVICE_FILTER_FORMAT = "(smarthome.transform=%s)";
+
+    private static class MemoisedOutput {
+        private final String output;
+        private final long createdMillis;
+
+        private MemoisedOutput(String output, long createdMillis) {
+            this.output = output;
+            this.createdMillis = createdMillis;
+        }
+    }
+
     private final Logger logger = LoggerFactory.getLogger(Transformation.class);
 
     private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
@@ -76,6 +118,20 @@ public class Transformation {
     @Nullable
     private final String transformationServiceParam;
 
+    private volatile @Nullable ServiceReference<TransformationService> serviceReference;
+    private final Map<String, MemoisedOutput> memoisedOutputs = new LinkedHashMap<String, MemoisedOutput>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, MemoisedOutput> eldest) {
+            return size() > MAX_MEMOISED_OUTPUTS;
+        }
+    };
+    private final AtomicLong transformCount = new AtomicLong();
+    private final AtomicLong memoHitCount = new AtomicLong();
+    private final AtomicLong serviceTransformNanos = new AtomicLong();
+
     /**
      *
      * @param transformation either FUN(VAL) (standard transformation syntax), default (identity transformation
@@ -133,15 +189,35 @@ public class Transformation {
                     throw new TransformationException(
                             "transformation service parameter is missing! Invalid transform?");
                 }
-                @Nullable
-                TransformationService transformationService = TransformationHelper.getTransformationService(context,
-                        transformationServiceName);
-                if (transformationService != null) {
-                    transformedResponse = transformationService.transform(transformationServiceParam, value);
+                transformCount.incrementAndGet();
+                boolean memoisable = MEMOISABLE_SERVICES.contains(transformationServiceName.toUpperCase());
+                String memoisedOutput = memoisable ? getMemoisedOutput(value) : null;
+                if (memoisedOutput != null) {
+                    memoHitCount.incrementAndGet();
+                    transformedResponse = memoisedOutput;
                 } else {
-                    transformedResponse = value;
-                    logger.warn("couldn't transform response because transformationService of type '{}' is unavailable",
+                    ServiceReference<TransformationService> reference = getServiceReference(context,
                             transformationServiceName);
+                    @Nullable
+                    TransformationService transformationService = reference == null ? null
+                            : context.getService(reference);
+                    if (reference != null && transformationService != null) {
+                        try {
+                            long start = System.nanoTime();
+                            transformedResponse = transformationService.transform(transformationServiceParam, value);
+                            serviceTransformNanos.addAndGet(System.nanoTime() - start);
+                        } finally {
+                            context.ungetService(reference);
+                        }
+                        if (memoisable && transformedResponse != null) {
+                            memoiseOutput(value, transformedResponse);
+                        }
+                    } else {
+                        transformedResponse = value;
+                        logger.warn(
+                                "couldn't transform response because transformationService of type '{}' is unavailable",
+                                transformationServiceName);
+                    }
                 }
             } catch (TransformationException te) {
                 logger.error("transformation throws exception [transformation={}, response={}]", transformation, value,
@@ -162,6 +238,77 @@ public class Transformation {
         return transformedResponse == null ? "" : transformedResponse;
     }
 
+    /**
+     * Resolve transformation service reference, re-using the previously resolved reference if it is still registered
+     */
+    private @Nullable ServiceReference<TransformationService> getServiceReference(BundleContext context,
+            String serviceName) {
+        ServiceReference<TransformationService> reference = this.serviceReference;
+        if (reference != null && reference.getBundle() != null) {
+            return reference;
+        }
+        Collection<ServiceReference<TransformationService>> references;
+        try {
+            references = context.getServiceReferences(TransformationService.class,
+                    String.format(SERVICE_FILTER_FORMAT, serviceName));
+        } catch (InvalidSyntaxException e) {
+            logger.warn("Cannot get service reference for transformation service of type {}", serviceName, e);
+            return null;
+        }
+        if (references == null || references.isEmpty()) {
+            return null;
+        }
+        reference = references.iterator().next();
+        this.serviceReference = reference;
+        return reference;
+    }
+
+    private @Nullable String getMemoisedOutput(String value) {
+        synchronized (memoisedOutputs) {
+            MemoisedOutput memoised = memoisedOutputs.get(value);
+            if (memoised == null) {
+                return null;
+            } else if (System.currentTimeMillis() - memoised.createdMillis > MEMOISED_OUTPUT_MAX_AGE_MILLIS) {
+                memoisedOutputs.remove(value);
+                return null;
+            }
+            return memoised.output;
+        }
+    }
+
+    private void memoiseOutput(String value, String output) {
+        synchronized (memoisedOutputs) {
+            memoisedOutputs.put(value, new MemoisedOutput(output, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Get number of transformations using transformation service
+     *
+     * @return number of transformations, including the ones served from memoised outputs
+     */
+    public long getTransformCount() {
+        return transformCount.get();
+    }
+
+    /**
+     * Get number of transformations served from memoised outputs
+     *
+     * @return number of transformations not calling the transformation service
+     */
+    public long getMemoHitCount() {
+        return memoHitCount.get();
+    }
+
+    /**
+     * Get total time spent in transformation service calls
+     *
+     * @return total time in nanoseconds
+     */
+    public long getServiceTransformNanos() {
+        return serviceTransformNanos.get();
+    }
+
     public boolean isIdentityTransform() {
         return TRANSFORM_DEFAULT.equalsIgnoreCase(this.transformation);
     }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Decides whether polled value should be published to channels
+ *
+ * Value is published when its raw data (register or bit content) differs from the last published one, or when the
+ * value has not been published for the given maximum period of silence. With a deadband, the changed raw data is
+ * published only if the decoded number differs from the last published number by at least the deadband. With
+ * non-positive maximum silence, all values are published.
+ *
+ * This class is not thread-safe.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ValueChangeFilter {
+
+    private final long maxSilenceMillis;
+    private final double deadband;
+    private boolean hasPublished;
+    private long lastPublishedRawValue;
+    private double lastPublishedValue;
+    private long lastPublishedMillis;
+    private long publishedCount;
+    private long suppressedCount;
+
+    /**
+     *
+     * @param maxSilenceMillis maximum time to suppress unchanged values, in milliseconds. Use zero to disable the
+     *            filtering.
+     * @param deadband minimum absolute change in value to be considered as change. Use zero to consider any change.
+     */
+    public ValueChangeFilter(long maxSilenceMillis, double deadband) {
+        this.maxSilenceMillis = maxSilenceMillis;
+        this.deadband = Math.max(0, deadband);
+    }
+
+    /**
+     * Whether the filtering is enabled at all
+     *
+     * @return true if some updates might be suppressed
+     */
+    public boolean isEnabled() {
+        return maxSilenceMillis > 0;
+    }
+
+    /**
+     * Check whether value should be published, and record the decision
+     *
+     * @param rawValue polled register or bit content the value is decoded from
+     * @param value polled value, as decoded number
+     * @param nowMillis current time, in milliseconds
+     * @return true if the value should be published, false if the update should be suppressed
+     */
+    public boolean shouldPublish(long rawValue, double value, long nowMillis) {
+        if (!isEnabled() || !hasPublished || isChange(rawValue, value)
+                || nowMillis - lastPublishedMillis >= maxSilenceMillis) {
+            hasPublished = true;
+            lastPublishedRawValue = rawValue;
+            lastPublishedValue = value;
+            lastPublishedMillis = nowMillis;
+            publishedCount++;
+            return true;
+        }
+        suppressedCount++;
+        return false;
+    }
+
+    /**
+     * Forget the last published value, ensuring that next value is published
+     */
+    public void reset() {
+        hasPublished = false;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount;
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    private boolean isChange(long rawValue, double value) {
+        if (rawValue == lastPublishedRawValue) {
+            return false;
+        } else if (deadband == 0) {
+            return true;
+        }
+        double delta = Math.abs(value - lastPublishedValue);
+        return Double.isNaN(delta) || delta >= deadband;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ValueChangeFilter(maxSilenceMillis=").append(maxSilenceMillis).append(", deadband=")
+                .append(deadband).append(", published=").append(publishedCount).append(", suppressed=")
+                .append(suppressedCount).append(')').toString();
+    }
+
+}
@@ -36,6 +36,8 @@ public class ModbusDataConfiguration {
     private String writeValueType;
     private boolean writeMultipleEvenWithSingleRegisterOrCoil;
     private int writeMaxTries = 3; // backwards compatibility and tests
+    private long updateUnchangedValuesEveryMillis; // backwards compatibility and tests
+    private double readDeadband;
 
     public @Nullable String getReadStart() {
         return readStart;
@@ -108,4 +110,20 @@ public class ModbusDataConfiguration {
     public void setWriteMaxTries(int writeMaxTries) {
         this.writeMaxTries = writeMaxTries;
     }
+
+    public long getUpdateUnchangedValuesEveryMillis() {
+        return updateUnchangedValuesEveryMillis;
+    }
+
+    public void setUpdateUnchangedValuesEveryMillis(long updateUnchangedValuesEveryMillis) {
+        this.updateUnchangedValuesEveryMillis = updateUnchangedValuesEveryMillis;
+    }
+
+    public double getReadDeadband() {
+        return readDeadband;
+    }
+
+    public void setReadDeadband(double readDeadband) {
+        this.readDeadband = readDeadband;
+    }
 }
@@ -24,6 +24,7 @@ import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingStatusInfo;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerCallback;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -32,6 +33,7 @@ import org.mockito.Mock;
 import org.openhab.binding.network.NetworkBindingConstants;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionEngine;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 
 /**
@@ -51,6 +53,12 @@ public class NetworkHandlerTest {
     public void setUp() {
         initMocks(this);
         when(thing.getUID()).thenReturn(thingUID);
+        PresenceDetectionEngine.acquire();
+    }
+
+    @After
+    public void tearDown() {
+        PresenceDetectionEngine.release();
     }
 
     @Test
@@ -70,7 +78,7 @@ public class NetworkHandlerTest {
         });
         PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000));
         // Mock start/stop automatic refresh
-        doNothing().when(presenceDetection).startAutomaticRefresh(anyObject());
+        doNothing().when(presenceDetection).startAutomaticRefresh();
         doNothing().when(presenceDetection).stopAutomaticRefresh();
 
         handler.initialize(presenceDetection);
@@ -115,7 +123,7 @@ public class NetworkHandlerTest {
         });
         PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000));
         // Mock start/stop automatic refresh
-        doNothing().when(presenceDetection).startAutomaticRefresh(anyObject());
+        doNothing().when(presenceDetection).startAutomaticRefresh();
         doNothing().when(presenceDetection).stopAutomaticRefresh();
 
         handler.initialize(presenceDetection);
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+
+/**
+ * Tests cases for {@see NetworkSweeper}
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkSweeperTest {
+    @Mock
+    PresenceDetectionListener listener;
+
+    @Mock
+    NetworkUtils networkUtils;
+
+    PresenceDetectionEngine engine;
+    InetAddress localhost;
+
+    @Before
+    public void setUp() throws IOException {
+        MockitoAnnotations.initMocks(this);
+        engine = new PresenceDetectionEngine(2);
+        localhost = InetAddress.getByName("127.0.0.1");
+    }
+
+    @After
+    public void shutDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void tcpSweepTest() throws IOException, InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        try (ServerSocket first = new ServerSocket(0, 1, localhost);
+                ServerSocket second = new ServerSocket(0, 1, localhost)) {
+            NetworkSweeper sweeper = new NetworkSweeper(engine, listener,
+                    Arrays.asList("127.0.0.1", "127.0.0.2", "127.0.0.3"),
+                    new HashSet<>(Arrays.asList(first.getLocalPort(), second.getLocalPort())), 1000, 1000,
+                    finished::countDown);
+            sweeper.start();
+            assertTrue(finished.await(2, TimeUnit.SECONDS));
+            assertTrue(sweeper.isFinished());
+            assertThat(sweeper.getTotalHosts(), is(3));
+            assertThat(sweeper.getFinishedHosts(), is(3));
+        }
+
+        // Only 127.0.0.1 answers, on the lower port. The other port is not probed anymore.
+        ArgumentCaptor<PresenceDetectionValue> partial = ArgumentCaptor.forClass(PresenceDetectionValue.class);
+        verify(listener).partialDetectionResult(partial.capture());
+        assertThat(partial.getValue().getHostAddress(), is("127.0.0.1"));
+        assertTrue(partial.getValue().isTCPServiceReachable());
+        assertThat(partial.getValue().getReachableTCPports().size(), is(1));
+        verify(listener, times(3)).finalDetectionResult(any());
+    }
+
+    @Test
+    public void pingAnswerStopsProbingTest() throws IOException, InterruptedException {
+        doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), eq("127.0.0.1"), anyInt());
+        CountDownLatch finished = new CountDownLatch(1);
+        try (ServerSocket server = new ServerSocket(0, 1, localhost)) {
+            NetworkSweeper sweeper = new NetworkSweeper(engine, listener, Collections.singleton("127.0.0.1"),
+                    Collections.singleton(server.getLocalPort()), 1000, 1000, finished::countDown);
+            sweeper.networkUtils = networkUtils;
+            sweeper.setPingMethods(IpPingMethodEnum.WINDOWS_PING, null, null, false);
+            sweeper.start();
+            assertTrue(finished.await(2, TimeUnit.SECONDS));
+            assertThat(sweeper.getFoundHosts(), is(1));
+            assertThat(sweeper.getSentProbes(), is(1L));
+        }
+
+        ArgumentCaptor<PresenceDetectionValue> partial = ArgumentCaptor.forClass(PresenceDetectionValue.class);
+        verify(listener).partialDetectionResult(partial.capture());
+        assertTrue(partial.getValue().isPingReachable());
+        assertFalse(partial.getValue().isTCPServiceReachable());
+    }
+
+    @Test
+    public void rateLimitTest() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        List<String> hosts = Arrays.asList("127.0.0.1", "127.0.0.2", "127.0.0.3", "127.0.0.4", "127.0.0.5",
+                "127.0.0.6", "127.0.0.7", "127.0.0.8", "127.0.0.9", "127.0.0.10");
+        // Port 1 is closed, every probe is refused immediately
+        NetworkSweeper sweeper = new NetworkSweeper(engine, listener, hosts, Collections.singleton(1), 1000, 20,
+                finished::countDown);
+        long start = System.nanoTime();
+        sweeper.start();
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        // 10 probes at 20 per second take about half a second
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(sweeper.getSentProbes(), is(10L));
+        verify(listener, never()).partialDetectionResult(any());
+    }
+
+    @Test
+    public void maximumDurationTest() {
+        // A silent /24 with 8 workers: 254 pings of 500 ms ICMP, 50 ms iOS wake-up and 500 ms ARP on one interface
+        // need 32 rounds of 1050 ms, more than the 1524 probes at 100 per second
+        long duration = NetworkSweeper.getMaximumDurationInMS(254, true, 1, 4, 500, 100, 8);
+        assertThat(duration, is(32 * 1050L + 1050 + 4 * 500));
+        // With enough workers the rate limit dominates
+        duration = NetworkSweeper.getMaximumDurationInMS(254, true, 1, 4, 500, 100, 254);
+        assertThat(duration, is(254 * 6 * 10L + 1050 + 4 * 500));
+    }
+
+    @Test
+    public void cancelTest() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        NetworkSweeper sweeper = new NetworkSweeper(engine, listener,
+                Arrays.asList("127.0.0.1", "127.0.0.2", "127.0.0.3"), Collections.singleton(1), 1000, 1,
+                finished::countDown);
+        sweeper.start();
+        sweeper.cancel();
+        assertTrue(sweeper.isFinished());
+        // No further probes are sent and the finished callback is not called
+        assertFalse(finished.await(1500, TimeUnit.MILLISECONDS));
+        assertThat(sweeper.getSentProbes(), is(1L));
+    }
+}
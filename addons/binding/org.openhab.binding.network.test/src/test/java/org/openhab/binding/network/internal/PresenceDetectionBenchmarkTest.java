@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark of the presence detection of a simulated set of local hosts, sharing one {@link PresenceDetectionEngine}.
+ *
+ * Every fifth host is online and answers the ping after a few milliseconds, the pings of all other hosts block a
+ * worker until they time out. With more hosts than workers, the pings of the online hosts wait in the queue of the
+ * engine behind the offline ones. The test asserts that all online hosts are still reported reachable. The benchmark
+ * of a large host set is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionBenchmarkTest {
+
+    private static final int ONLINE_EVERY = 5;
+    private static final int ANSWER_IN_MS = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionBenchmarkTest.class);
+
+    /**
+     * Detects the presence of all hosts once.
+     *
+     * @return The amount of online hosts that have been reported reachable
+     */
+    private int detectAll(int hosts, int workers, int timeoutInMS) throws IOException, InterruptedException {
+        NetworkUtils networkUtils = mock(NetworkUtils.class);
+        doReturn(IpPingMethodEnum.WINDOWS_PING).when(networkUtils).determinePingMethod();
+        doAnswer(invocation -> {
+            String host = invocation.getArgument(1);
+            if (isOnline(host)) {
+                Thread.sleep(ANSWER_IN_MS);
+                return true;
+            }
+            Thread.sleep(invocation.<Integer> getArgument(2));
+            return false;
+        }).when(networkUtils).nativePing(any(), anyString(), anyInt());
+
+        CountDownLatch finished = new CountDownLatch(hosts);
+        AtomicInteger reachable = new AtomicInteger();
+        PresenceDetectionListener listener = new PresenceDetectionListener() {
+            @Override
+            public void partialDetectionResult(PresenceDetectionValue value) {
+            }
+
+            @Override
+            public void finalDetectionResult(PresenceDetectionValue value) {
+                if (value.isReachable() && isOnline(value.getHostAddress())) {
+                    reachable.incrementAndGet();
+                }
+                finished.countDown();
+            }
+        };
+
+        PresenceDetectionEngine engine = new PresenceDetectionEngine(workers);
+        try {
+            List<PresenceDetection> detections = new ArrayList<>();
+            for (int i = 0; i < hosts; i++) {
+                PresenceDetection detection = new PresenceDetection(listener, engine, timeoutInMS);
+                detection.networkUtils = networkUtils;
+                detection.setHostname("127.0." + (1 + i / 250) + "." + (1 + i % 250));
+                detection.setTimeout(timeoutInMS);
+                detection.setUseIcmpPing(true);
+                detections.add(detection);
+            }
+
+            long start = System.nanoTime();
+            for (PresenceDetection detection : detections) {
+                detection.performPresenceDetection(false);
+            }
+            assertTrue(finished.await(hosts * timeoutInMS / workers + 10000, TimeUnit.MILLISECONDS));
+            long elapsed = System.nanoTime() - start;
+            logger.info("{} hosts with {} workers: {} ms, {} of {} online hosts reachable", hosts, workers,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), reachable.get(), onlineHosts(hosts));
+        } finally {
+            engine.shutdown();
+        }
+        return reachable.get();
+    }
+
+    private static boolean isOnline(String host) {
+        return Integer.parseInt(host.substring(host.lastIndexOf('.') + 1)) % ONLINE_EVERY == 0;
+    }
+
+    private static int onlineHosts(int hosts) {
+        int online = 0;
+        for (int i = 0; i < hosts; i++) {
+            if ((1 + i % 250) % ONLINE_EVERY == 0) {
+                online++;
+            }
+        }
+        return online;
+    }
+
+    @Test
+    public void onlineHostsQueuedBehindOfflineHostsAreReachable() throws IOException, InterruptedException {
+        assertThat(detectAll(20, 2, 200), is(onlineHosts(20)));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkPresenceDetection() throws IOException, InterruptedException {
+        detectAll(250, 8, 500);
+        detectAll(500, 8, 500);
+        detectAll(500, 32, 500);
+    }
+}
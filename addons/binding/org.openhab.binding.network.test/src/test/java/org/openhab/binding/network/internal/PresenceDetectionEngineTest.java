@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see PresenceDetectionEngine} and {@see TimerWheel}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionEngineTest {
+    PresenceDetectionEngine engine;
+    InetAddress localhost;
+
+    @Before
+    public void setUp() throws IOException {
+        engine = new PresenceDetectionEngine(2);
+        localhost = InetAddress.getByName("127.0.0.1");
+    }
+
+    @After
+    public void shutDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void tcpProbeTests() throws IOException, InterruptedException {
+        AtomicReference<Double> open = new AtomicReference<>();
+        AtomicReference<Double> refused = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        int closedPort;
+        try (ServerSocket closed = new ServerSocket(0, 1, localhost)) {
+            closedPort = closed.getLocalPort();
+        }
+        try (ServerSocket server = new ServerSocket(0, 1, localhost)) {
+            engine.probeTcp(localhost, server.getLocalPort(), 1000, latency -> {
+                open.set(latency);
+                latch.countDown();
+            });
+            engine.probeTcp(localhost, closedPort, 1000, latency -> {
+                refused.set(latency);
+                latch.countDown();
+            });
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+        }
+        assertTrue(open.get() >= 0);
+        assertThat(refused.get(), is(PresenceDetection.NOT_REACHABLE));
+    }
+
+    @Test
+    public void boundedWorkersTest() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(10);
+        for (int i = 0; i < 10; ++i) {
+            engine.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ignored) {
+                }
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertThat(maxRunning.get(), is(2));
+    }
+
+    @Test
+    public void sharedEngineTest() {
+        PresenceDetectionEngine shared = PresenceDetectionEngine.acquire();
+        assertThat(PresenceDetectionEngine.acquire(), is(sameInstance(shared)));
+        PresenceDetectionEngine.release();
+        // Still used by the first user
+        assertThat(PresenceDetectionEngine.getInstance(), is(sameInstance(shared)));
+        PresenceDetectionEngine.release();
+        try {
+            PresenceDetectionEngine.getInstance();
+            fail("The engine must be stopped after the last user released it");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            shared.submit(() -> {
+            });
+            fail("The workers must be stopped after the last user released the engine");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    @Test
+    public void scheduleTest() throws InterruptedException {
+        CountDownLatch once = new CountDownLatch(1);
+        CountDownLatch periodic = new CountDownLatch(3);
+        engine.schedule(once::countDown, 100);
+        engine.schedulePeriodic(periodic::countDown, 100);
+        assertTrue(once.await(1, TimeUnit.SECONDS));
+        assertTrue(periodic.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void timerWheelTest() {
+        TimerWheel wheel = new TimerWheel(10, 16, 0);
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 100);
+        wheel.schedule(runs::incrementAndGet, 30).cancel();
+
+        assertThat(wheel.advance(90).size(), is(0));
+        List<Runnable> due = wheel.advance(100);
+        assertThat(due.size(), is(1));
+        due.get(0).run();
+        assertThat(runs.get(), is(1));
+        assertFalse(timeout.isCancelled());
+        assertThat(wheel.size(), is(0));
+
+        // Longer than one round of the wheel
+        wheel.schedule(runs::incrementAndGet, 500);
+        assertThat(wheel.advance(590).size(), is(0));
+        assertThat(wheel.advance(600).size(), is(1));
+    }
+
+    @Test
+    public void timerWheelSpreadTest() {
+        TimerWheel wheel = new TimerWheel(10, 100, 0);
+        // 10 tasks with an interval of 10 ticks occupy each tick once
+        for (int i = 0; i < 10; ++i) {
+            wheel.schedulePeriodic(() -> {
+            }, 100);
+        }
+        for (int tick = 1; tick <= 30; ++tick) {
+            assertThat(wheel.advance(tick * 10).size(), is(1));
+        }
+        assertThat(wheel.size(), is(10));
+    }
+}
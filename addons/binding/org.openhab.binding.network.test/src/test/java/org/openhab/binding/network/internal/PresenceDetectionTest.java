@@ -14,11 +14,13 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
-import java.net.UnknownHostException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 import org.junit.After;
 import org.junit.Before;
@@ -46,15 +48,22 @@ public class PresenceDetectionTest {
     PresenceDetectionListener listener;
 
     @Mock
-    ExecutorService executorService;
+    PresenceDetectionEngine mockedEngine;
+
+    @Mock
+    Future<?> future;
+
+    @Mock
+    TimerWheel.Timeout timeout;
 
     @Mock
     Consumer<PresenceDetectionValue> callback;
 
+    PresenceDetectionEngine engine;
     PresenceDetection subject;
 
     @Before
-    public void setUp() throws UnknownHostException {
+    public void setUp() throws IOException {
         MockitoAnnotations.initMocks(this);
 
         // Mock an interface
@@ -62,7 +71,8 @@ public class PresenceDetectionTest {
         doReturn(ArpPingUtilEnum.IPUTILS_ARPING).when(networkUtils).determineNativeARPpingMethod(anyString());
         doReturn(IpPingMethodEnum.WINDOWS_PING).when(networkUtils).determinePingMethod();
 
-        subject = spy(new PresenceDetection(listener, (int) CACHETIME));
+        engine = new PresenceDetectionEngine(4);
+        subject = spy(new PresenceDetection(listener, engine, (int) CACHETIME));
         subject.networkUtils = networkUtils;
         subject.cache = spy(new ExpiringCacheAsync<PresenceDetectionValue>(CACHETIME, () -> {
             subject.performPresenceDetection(false);
@@ -83,13 +93,14 @@ public class PresenceDetectionTest {
     @After
     public void shutDown() {
         subject.waitForPresenceDetection();
+        engine.shutdown();
     }
 
-    // Depending on the amount of test methods an according amount of threads is spawned.
-    // We will check if they spawn and return in time.
+    // Depending on the amount of test methods an according amount of checks is performed.
+    // We will check if they are submitted and return in time.
     @Test
     public void threadCountTest() {
-        assertNull(subject.executorService);
+        assertFalse(subject.isDetectionInProgress());
 
         doNothing().when(subject).performARPping(anyObject());
         doNothing().when(subject).performJavaPing();
@@ -98,13 +109,14 @@ public class PresenceDetectionTest {
 
         subject.performPresenceDetection(false);
 
-        // Thread count: ARP + ICMP + 1*TCP
+        // Check count: ARP + ICMP + 1*TCP. Only ARP and ICMP block a worker.
         assertThat(subject.detectionChecks, is(3));
-        assertNotNull(subject.executorService);
+        assertTrue(subject.isDetectionInProgress());
+        assertThat(subject.detectionTasks.size(), is(2));
 
         subject.waitForPresenceDetection();
         assertThat(subject.detectionChecks, is(0));
-        assertNull(subject.executorService);
+        assertFalse(subject.isDetectionInProgress());
     }
 
     @Test
@@ -112,10 +124,12 @@ public class PresenceDetectionTest {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 anyObject(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
 
-        assertTrue(subject.performPresenceDetection(false));
-        subject.waitForPresenceDetection();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"))) {
+            subject.setServicePorts(Collections.singleton(server.getLocalPort()));
+            assertTrue(subject.performPresenceDetection(false));
+            subject.waitForPresenceDetection();
+        }
 
         verify(subject, times(0)).performJavaPing();
         verify(subject).performSystemPing();
@@ -134,25 +148,28 @@ public class PresenceDetectionTest {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 anyObject(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
-
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
+        subject.engine = mockedEngine;
+        doReturn(future).when(mockedEngine).submit(any());
+        doReturn(timeout).when(mockedEngine).schedule(any(), anyLong());
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
         // Get value will issue a PresenceDetection internally.
         subject.getValue(callback);
         verify(subject).performPresenceDetection(eq(false));
-        assertNotNull(subject.executorService);
+        assertTrue(subject.isDetectionInProgress());
         // There should be no straight callback yet
         verify(callback, times(0)).accept(anyObject());
 
-        // Perform the different presence detection threads now
+        // Perform the different presence detection checks now
         ArgumentCaptor<Runnable> capture = ArgumentCaptor.forClass(Runnable.class);
-        verify(executorService, times(3)).execute(capture.capture());
+        verify(mockedEngine, times(2)).submit(capture.capture());
         for (Runnable r : capture.getAllValues()) {
             r.run();
         }
+        ArgumentCaptor<DoubleConsumer> tcpCapture = ArgumentCaptor.forClass(DoubleConsumer.class);
+        verify(mockedEngine).probeTcp(any(), eq(1010), anyInt(), tcpCapture.capture());
+        tcpCapture.getValue().accept(10);
         // "Wait" for the presence detection to finish
         subject.waitForPresenceDetection();
 
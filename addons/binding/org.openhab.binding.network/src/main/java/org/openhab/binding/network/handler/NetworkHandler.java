@@ -184,7 +184,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
         presenceDetection.setTimeout(handlerConfiguration.timeout.intValue());
 
         updateStatus(ThingStatus.ONLINE);
-        presenceDetection.startAutomaticRefresh(scheduler);
+        presenceDetection.startAutomaticRefresh();
 
         // Update properties (after startAutomaticRefresh, to get the correct dhcp state)
         updateProperty(NetworkBindingConstants.PROPERTY_ARP_STATE,
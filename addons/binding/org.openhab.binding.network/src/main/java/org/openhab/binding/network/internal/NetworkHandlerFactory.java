@@ -46,6 +46,7 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
     @Activate
     protected void activate(@NonNull ComponentContext componentContext, Map<String, Object> config) {
         super.activate(componentContext);
+        PresenceDetectionEngine.acquire();
         modified(config);
     };
 
@@ -53,6 +54,7 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
     @Deactivate
     protected void deactivate(ComponentContext componentContext) {
         super.deactivate(componentContext);
+        PresenceDetectionEngine.release();
     }
 
     @Modified
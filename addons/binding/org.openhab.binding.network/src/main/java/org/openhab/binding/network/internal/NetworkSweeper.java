@@ -0,0 +1,412 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.network.internal.TimerWheel.Timeout;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link NetworkSweeper} checks a number of hosts for their presence, for example all IPs of the local subnets
+ * during a discovery.
+ *
+ * The probes of all hosts are pipelined through the {@link PresenceDetectionEngine}: Each host is pinged first and then
+ * probed on the given TCP ports, one probe after the other. A host is not probed anymore as soon as it answered.
+ * Probes of different hosts are interleaved and limited by a global budget of probes per second, so that a sweep
+ * neither floods the network nor takes longer than necessary.
+ *
+ * The results are reported as soon as they are known, by {@link PresenceDetectionListener#partialDetectionResult}
+ * for a reachable host and by {@link PresenceDetectionListener#finalDetectionResult} for every host that has been
+ * checked completely.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkSweeper {
+    private static final long PACE_INTERVAL_IN_MS = PresenceDetectionEngine.TICK_IN_MS;
+    private static final long PROGRESS_INTERVAL_IN_MS = TimeUnit.SECONDS.toMillis(5);
+    private static final long IOS_WAKE_UP_IN_MS = 50;
+    // A probe of a host that is not a TCP port
+    private static final int PING = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(NetworkSweeper.class);
+
+    private final PresenceDetectionEngine engine;
+    private final PresenceDetectionListener listener;
+    private final Runnable finishedCallback;
+    private final List<InetAddress> addresses = new ArrayList<>();
+    private final List<Integer> tcpPorts;
+    private final int timeoutInMS;
+    private final int probesPerSecond;
+    NetworkUtils networkUtils = new NetworkUtils();
+
+    private IpPingMethodEnum pingMethod;
+    private ArpPingUtilEnum arpPingMethod;
+    private String arpPingUtilPath;
+    private Set<String> interfaceNames = Collections.emptySet();
+    private boolean iosWakeUp;
+
+    // All following fields are guarded by this
+    private final ArrayDeque<Host> readyHosts = new ArrayDeque<>();
+    private int totalHosts;
+    private int finishedHosts;
+    private int foundHosts;
+    private long sentProbes;
+    private double budget;
+    private long startInNS;
+    private long lastPaceInNS;
+    private long lastProgressInNS;
+    private Timeout pacer;
+    private boolean cancelled;
+
+    /**
+     * The probing state of a host
+     */
+    private class Host {
+        final InetAddress address;
+        final List<Integer> probes;
+        int nextProbe;
+
+        Host(InetAddress address, List<Integer> probes) {
+            this.address = address;
+            this.probes = probes;
+        }
+    }
+
+    /**
+     * Creates a sweeper. Call {@link #setPingMethods} to enable pings and {@link #start()} to start the sweep.
+     *
+     * @param engine The engine to perform the probes with
+     * @param listener Receives the results
+     * @param hostAddresses The IP addresses of the hosts to check
+     * @param tcpPorts The TCP ports to probe on each host
+     * @param timeoutInMS The timeout of each probe
+     * @param probesPerSecond The maximum amount of probes to start per second
+     * @param finishedCallback Called once after all hosts have been checked, but not if the sweep has been cancelled
+     */
+    public NetworkSweeper(PresenceDetectionEngine engine, PresenceDetectionListener listener,
+            Collection<String> hostAddresses, Set<Integer> tcpPorts, int timeoutInMS, int probesPerSecond,
+            Runnable finishedCallback) {
+        this.engine = engine;
+        this.listener = listener;
+        this.tcpPorts = new ArrayList<>(new TreeSet<>(tcpPorts));
+        this.timeoutInMS = timeoutInMS;
+        this.probesPerSecond = Math.max(1, probesPerSecond);
+        this.finishedCallback = finishedCallback;
+
+        for (String hostAddress : hostAddresses) {
+            try {
+                addresses.add(InetAddress.getByName(hostAddress));
+            } catch (UnknownHostException e) {
+                logger.trace("Skip IP that cannot be converted to a InetAddress", e);
+            }
+        }
+    }
+
+    /**
+     * Returns how long a sweep takes at most if no host answers. The ping of a host blocks one of the workers of the
+     * engine until the ICMP ping, the wake-up of iOS devices and the ARP ping on each interface timed out. The TCP
+     * probes of a host follow its ping one after the other. All probes are started at the given rate.
+     *
+     * @param hosts The amount of hosts
+     * @param icmpPing True if the hosts are pinged with ICMP
+     * @param arpInterfaces The amount of interfaces to send ARP pings on, 0 if ARP pings are disabled
+     * @param tcpPorts The amount of TCP ports to probe on each host
+     * @param timeoutInMS The timeout of each probe
+     * @param probesPerSecond The maximum amount of probes to start per second
+     * @param workers The maximum amount of blocking checks the engine performs at the same time
+     * @return The duration in milliseconds
+     */
+    public static long getMaximumDurationInMS(int hosts, boolean icmpPing, int arpInterfaces, int tcpPorts,
+            int timeoutInMS, int probesPerSecond, int workers) {
+        boolean ping = icmpPing || arpInterfaces > 0;
+        long pingInMS = (icmpPing ? timeoutInMS : 0)
+                + (arpInterfaces > 0 ? IOS_WAKE_UP_IN_MS + (long) arpInterfaces * timeoutInMS : 0);
+        // The pings of all hosts, performed by the workers in parallel
+        int parallelPings = Math.max(1, workers);
+        long pingsInMS = (hosts + parallelPings - 1) / parallelPings * pingInMS;
+        // All probes at the given rate, see pace()
+        int probesPerHost = (ping ? 1 + arpInterfaces : 0) + tcpPorts;
+        long probesInMS = (long) hosts * probesPerHost * 1000 / Math.max(1, probesPerSecond);
+        // The last host is pinged and probed on each port after the others
+        return Math.max(pingsInMS, probesInMS) + pingInMS + (long) tcpPorts * timeoutInMS;
+    }
+
+    /**
+     * Enables pings, performed before the TCP probes of each host.
+     *
+     * @param pingMethod The ICMP ping method or null to disable ICMP pings
+     * @param arpPingMethod The ARP ping method or null to disable ARP pings
+     * @param arpPingUtilPath The path of the ARP ping tool
+     * @param iosWakeUp True to wake up iOS devices before the ARP ping
+     */
+    public void setPingMethods(IpPingMethodEnum pingMethod, ArpPingUtilEnum arpPingMethod, String arpPingUtilPath,
+            boolean iosWakeUp) {
+        this.pingMethod = pingMethod;
+        this.arpPingMethod = arpPingMethod;
+        this.arpPingUtilPath = arpPingUtilPath;
+        this.iosWakeUp = iosWakeUp;
+        this.interfaceNames = arpPingMethod != null ? networkUtils.getInterfaceNames() : Collections.emptySet();
+    }
+
+    /**
+     * Starts the sweep. Returns immediately, the probes are performed by the engine.
+     */
+    public synchronized void start() {
+        List<Integer> probes = new ArrayList<>();
+        if (pingMethod != null || arpPingMethod != null) {
+            probes.add(PING);
+        }
+        probes.addAll(tcpPorts);
+        if (!probes.isEmpty()) {
+            for (InetAddress address : addresses) {
+                readyHosts.add(new Host(address, probes));
+            }
+        }
+        totalHosts = readyHosts.size();
+
+        startInNS = System.nanoTime();
+        lastPaceInNS = startInNS;
+        lastProgressInNS = startInNS;
+        logger.debug("Sweeping {} hosts with {} probes each, at most {} probes per second", totalHosts, probes.size(),
+                probesPerSecond);
+        if (readyHosts.isEmpty()) {
+            finish();
+            return;
+        }
+        budget = 1;
+        pacer = engine.schedulePeriodic(this::pace, PACE_INTERVAL_IN_MS);
+        pace();
+    }
+
+    /**
+     * Stops the sweep. Probes in progress are not reported anymore.
+     */
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (pacer != null) {
+            pacer.cancel();
+        }
+        if (finishedHosts < totalHosts) {
+            logger.debug("Sweep cancelled after {} of {} hosts", finishedHosts, totalHosts);
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return cancelled || finishedHosts == totalHosts;
+    }
+
+    public synchronized int getTotalHosts() {
+        return totalHosts;
+    }
+
+    /**
+     * Returns the amount of hosts that have been checked completely.
+     */
+    public synchronized int getFinishedHosts() {
+        return finishedHosts;
+    }
+
+    /**
+     * Returns the amount of hosts that answered.
+     */
+    public synchronized int getFoundHosts() {
+        return foundHosts;
+    }
+
+    public synchronized long getSentProbes() {
+        return sentProbes;
+    }
+
+    /**
+     * Returns the average amount of probes started per second since the start of the sweep.
+     */
+    public synchronized double getProbesPerSecond() {
+        long elapsed = System.nanoTime() - startInNS;
+        return elapsed > 0 ? sentProbes * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Called periodically on the engine thread. Starts as many probes as the budget allows.
+     */
+    private synchronized void pace() {
+        if (cancelled) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Accumulate at most one second of unused budget
+        budget = Math.min(probesPerSecond, budget + (now - lastPaceInNS) * probesPerSecond / 1e9);
+        lastPaceInNS = now;
+
+        Host host;
+        while (budget >= 1 && (host = readyHosts.poll()) != null) {
+            int probe = host.probes.get(host.nextProbe++);
+            if (probe == PING) {
+                budget -= 1 + interfaceNames.size();
+                sentProbes += 1 + interfaceNames.size();
+                ping(host);
+            } else {
+                budget -= 1;
+                sentProbes += 1;
+                probeTcp(host, probe);
+            }
+        }
+
+        if (now - lastProgressInNS >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_IN_MS)) {
+            lastProgressInNS = now;
+            logger.debug("Sweep progress: {} of {} hosts checked, {} found, {} probes sent ({} per second)",
+                    finishedHosts, totalHosts, foundHosts, sentProbes, Math.round(getProbesPerSecond()));
+        }
+    }
+
+    private void probeTcp(Host host, int port) {
+        try {
+            engine.probeTcp(host.address, port, timeoutInMS, latency -> {
+                if (latency == PresenceDetection.NOT_REACHABLE) {
+                    probeFinished(host, null);
+                    return;
+                }
+                PresenceDetectionValue value = new PresenceDetectionValue(host.address.getHostAddress(), latency);
+                value.addType(PresenceDetectionType.TCP_CONNECTION);
+                value.addReachableTcpService(port);
+                probeFinished(host, value);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Sweep stopped, the presence detection engine has been shut down");
+            cancel();
+        }
+    }
+
+    private void ping(Host host) {
+        try {
+            engine.submit(() -> {
+                PresenceDetectionValue value = null;
+                try {
+                    value = performPing(host.address);
+                } catch (IOException e) {
+                    logger.trace("Failed to ping {}", host.address, e);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                probeFinished(host, value);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Sweep stopped, the presence detection engine has been shut down");
+            cancel();
+        }
+    }
+
+    /**
+     * Performs an ICMP ping and, if that fails, an ARP ping on each interface.
+     *
+     * @return The result value if the host answered, otherwise null
+     */
+    PresenceDetectionValue performPing(InetAddress address) throws IOException, InterruptedException {
+        String hostAddress = address.getHostAddress();
+        long pingTime = System.nanoTime();
+        if (pingMethod != null) {
+            boolean reachable = pingMethod == IpPingMethodEnum.JAVA_PING ? address.isReachable(timeoutInMS)
+                    : networkUtils.nativePing(pingMethod, hostAddress, timeoutInMS);
+            if (reachable) {
+                return reachableValue(hostAddress, PresenceDetectionType.ICMP_PING, pingTime);
+            }
+        }
+        if (arpPingMethod != null && !interfaceNames.isEmpty()) {
+            if (iosWakeUp) {
+                networkUtils.wakeUpIOS(address);
+                Thread.sleep(IOS_WAKE_UP_IN_MS);
+            }
+            for (String interfaceName : interfaceNames) {
+                pingTime = System.nanoTime();
+                if (networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName, hostAddress,
+                        timeoutInMS)) {
+                    return reachableValue(hostAddress, PresenceDetectionType.ARP_PING, pingTime);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PresenceDetectionValue reachableValue(String hostAddress, PresenceDetectionType type,
+            long pingTime) {
+        PresenceDetectionValue value = new PresenceDetectionValue(hostAddress,
+                Math.round((System.nanoTime() - pingTime) / 1000000.0f));
+        value.addType(type);
+        return value;
+    }
+
+    /**
+     * Called when a probe of a host finished.
+     *
+     * @param host The host
+     * @param value The result value if the host answered, otherwise null
+     */
+    private void probeFinished(Host host, PresenceDetectionValue value) {
+        boolean hostFinished;
+        boolean sweepFinished = false;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            hostFinished = value != null || host.nextProbe >= host.probes.size();
+            if (hostFinished) {
+                ++finishedHosts;
+                if (value != null) {
+                    ++foundHosts;
+                }
+                sweepFinished = finishedHosts == totalHosts;
+            } else {
+                readyHosts.add(host);
+            }
+        }
+
+        if (value != null) {
+            listener.partialDetectionResult(value);
+        }
+        if (hostFinished) {
+            PresenceDetectionValue finalValue = value != null ? value
+                    : new PresenceDetectionValue(host.address.getHostAddress(), PresenceDetection.NOT_REACHABLE);
+            finalValue.setDetectionIsFinished(true);
+            listener.finalDetectionResult(finalValue);
+        }
+        if (sweepFinished) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        synchronized (this) {
+            if (pacer != null) {
+                pacer.cancel();
+            }
+            logger.debug("Sweep finished: {} of {} hosts found, {} probes sent in {} ms ({} per second)", foundHosts,
+                    totalHosts, sentProbes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startInNS),
+                    Math.round(getProbesPerSecond()));
+        }
+        finishedCallback.run();
+    }
+}
@@ -13,16 +13,16 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.apache.commons.lang.StringUtils;
+import org.openhab.binding.network.internal.TimerWheel.Timeout;
 import org.openhab.binding.network.internal.dhcp.DHCPListenService;
 import org.openhab.binding.network.internal.dhcp.IPRequestReceivedCallback;
 import org.openhab.binding.network.internal.toberemoved.cache.ExpiringCacheAsync;
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author David Gräff, 2017 - Rewritten
  * @author Marc Mettke - Initial contribution
+ * @author agent - Use the shared presence detection engine
  */
 public class PresenceDetection implements IPRequestReceivedCallback {
     public static final double NOT_REACHABLE = -1;
@@ -60,16 +61,30 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /// State variables (cannot be final because of test dependency injections)
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
-    private ScheduledFuture<?> refreshJob;
+    PresenceDetectionEngine engine;
+    private Timeout refreshJob;
     private InetAddress destination;
-    ExecutorService executorService;
+    // The blocking checks of the ongoing detection, null if there is no detection in progress
+    List<Future<?>> detectionTasks;
+    private Timeout detectionTimeout;
+    // The blocking checks of the ongoing detection that still wait for a free worker
+    private int queuedChecks;
+    private long detectionDeadlineInNS;
+    private long detectionStartInMS;
+    private int detectionRun;
     private String dhcpState = "off";
     Integer currentCheck = 0;
     int detectionChecks;
 
     public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
             throws IllegalArgumentException {
+        this(updateListener, PresenceDetectionEngine.getInstance(), cacheDeviceStateTimeInMS);
+    }
+
+    public PresenceDetection(final PresenceDetectionListener updateListener, PresenceDetectionEngine engine,
+            int cacheDeviceStateTimeInMS) throws IllegalArgumentException {
         this.updateListener = updateListener;
+        this.engine = engine;
         cache = new ExpiringCacheAsync<PresenceDetectionValue>(cacheDeviceStateTimeInMS, () -> {
             performPresenceDetection(false);
         });
@@ -202,14 +217,17 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Return true if a presence detection is in progress.
+     */
+    public synchronized boolean isDetectionInProgress() {
+        return detectionTasks != null;
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The TCP connection attempts are performed non-blocking
+     * by the {@link PresenceDetectionEngine}, the pings are queued for its bounded worker pool.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -223,65 +241,68 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
+        synchronized (this) {
+            if (detectionTasks != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        if (!cache.isExpired()) {
-            return false;
-        }
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            Set<String> interfaceNames = null;
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != null) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
-        }
+            currentCheck = 0;
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod != null) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
 
-        if (detectionChecks == 0) {
-            return false;
-        }
+            if (detectionChecks == 0) {
+                return false;
+            }
 
-        executorService = getThreadsFor(detectionChecks);
+            final int run = ++detectionRun;
+            detectionTasks = new ArrayList<>();
+            queuedChecks = detectionChecks - tcpPorts.size();
+            detectionStartInMS = System.currentTimeMillis();
+            // The TCP connection attempts start right away. The timeout is extended as each blocking check starts.
+            startDetectionTimeout(run);
 
-        for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
+            for (Integer tcpPort : tcpPorts) {
                 performServicePing(tcpPort);
-                checkIfFinished();
-            });
-        }
-
-        // ARP ping for IPv4 addresses. Use an own executor for each network interface
-        if (interfaceNames != null) {
-            for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
-                    checkIfFinished();
-                });
             }
-        }
 
-        // ICMP ping
-        if (pingMethod != null) {
-            executorService.execute(() -> {
-                if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
-                } else {
-                    performJavaPing();
+            // ARP ping for IPv4 addresses. One check for each network interface
+            if (interfaceNames != null) {
+                for (final String interfaceName : interfaceNames) {
+                    detectionTasks.add(engine.submit(() -> {
+                        checkStarted(run);
+                        performARPping(interfaceName);
+                        checkIfFinished(run);
+                    }));
                 }
-                checkIfFinished();
-            });
+            }
+
+            // ICMP ping
+            if (pingMethod != null) {
+                detectionTasks.add(engine.submit(() -> {
+                    checkStarted(run);
+                    if (pingMethod != IpPingMethodEnum.JAVA_PING) {
+                        performSystemPing();
+                    } else {
+                        performJavaPing();
+                    }
+                    checkIfFinished(run);
+                }));
+            }
         }
 
         if (waitForDetectionToFinish) {
@@ -291,27 +312,73 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return true;
     }
 
+    /**
+     * (Re)starts the timeout of the detection. Must be called with the lock held.
+     */
+    private void startDetectionTimeout(int run) {
+        if (detectionTimeout != null) {
+            detectionTimeout.cancel();
+        }
+        detectionDeadlineInNS = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMS + 100);
+        detectionTimeout = engine.schedule(() -> detectionTimedOut(run), timeoutInMS + 100);
+    }
+
+    /**
+     * Called by a worker as soon as a blocking check starts. The time a check waited for a free worker
+     * does not count towards the timeout, so devices are not reported as unreachable because the
+     * workers were busy with other devices.
+     *
+     * @param run The detection run of the check
+     */
+    private synchronized void checkStarted(int run) {
+        if (detectionTasks == null || run != detectionRun) {
+            return;
+        }
+        --queuedChecks;
+        startDetectionTimeout(run);
+    }
+
+    /**
+     * Submits the final result, unless some blocking checks are still queued. The start of those restarts the
+     * timeout.
+     */
+    private void detectionTimedOut(int run) {
+        synchronized (this) {
+            if (queuedChecks > 0) {
+                return;
+            }
+        }
+        submitFinalResult(run);
+    }
+
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished and all remaining checks are cancelled.
+     *
+     * @param run The detection run the result is submitted for. Ignored if it is not the current one.
      */
-    private synchronized void submitFinalResult() {
-        // Do nothing if we are not in a detection process
-        if (executorService == null) {
+    private synchronized void submitFinalResult(int run) {
+        // Do nothing if we are not in this detection process
+        if (detectionTasks == null || run != detectionRun) {
             return;
         }
         // Finish the detection process
-        executorService.shutdownNow();
-        executorService = null;
+        for (Future<?> task : detectionTasks) {
+            task.cancel(true);
+        }
+        detectionTasks = null;
+        detectionTimeout.cancel();
+        detectionTimeout = null;
         detectionChecks = 0;
+        queuedChecks = 0;
 
         PresenceDetectionValue v;
 
         // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually reachable.
         // Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping response.
-        if (lastSeenInMS + timeoutInMS + 100 < System.currentTimeMillis()) {
+        // Checks may have waited for a free worker, so compare with the start of the detection, not with the timeout.
+        if (lastSeenInMS < detectionStartInMS) {
             // We haven't seen the device in the detection process
             v = new PresenceDetectionValue(destination.getHostAddress(), -1);
         } else {
@@ -320,6 +387,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
         cache.setValue(v);
         updateListener.finalDetectionResult(v);
+        // Wake up waitForPresenceDetection()
+        notifyAll();
     }
 
     /**
@@ -327,32 +396,46 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * If the counter equals the total checks,the final result is submitted. This will
      * happen way before the "timeoutInMS", if all checks were successful.
      * Thread safe.
+     *
+     * @param run The detection run of the check. Late checks of a previous run are ignored.
      */
-    private synchronized void checkIfFinished() {
-        currentCheck += 1;
-        if (currentCheck < detectionChecks) {
-            return;
+    private void checkIfFinished(int run) {
+        synchronized (this) {
+            if (detectionTasks == null || run != detectionRun) {
+                return;
+            }
+            currentCheck += 1;
+            if (currentCheck < detectionChecks) {
+                return;
+            }
         }
-        submitFinalResult();
+        submitFinalResult(run);
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
-     * if no presence detection is performed right now.
+     * Waits for the presence detection to finish. Returns immediately
+     * if no presence detection is performed right now. The wait ends at the latest
+     * if no check started within the timeout.
      */
     public void waitForPresenceDetection() {
-        if (executorService == null) {
-            return;
-        }
-        try {
-            // We may get interrupted here by cancelRefreshJob().
-            executorService.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
-            submitFinalResult();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
-            executorService.shutdownNow();
-            executorService = null;
+        int run;
+        synchronized (this) {
+            if (detectionTasks == null) {
+                return;
+            }
+            run = detectionRun;
+            try {
+                long remaining;
+                // The deadline moves with each check that starts
+                while (detectionTasks != null && run == detectionRun
+                        && (remaining = detectionDeadlineInNS - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Reset interrupt flag
+            }
         }
+        submitFinalResult(run);
     }
 
     /**
@@ -380,20 +463,23 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
+    /**
+     * Starts a non-blocking TCP connection attempt to the given port. The check of the current detection
+     * run is finished as soon as the connection is established, refused or timed out.
+     *
+     * @param tcpPort The TCP port
+     */
     protected void performServicePing(int tcpPort) {
         logger.trace("Perform TCP presence detection for {} on port: {}", hostname, tcpPort);
-        try {
-            double pingTime = System.nanoTime();
-            if (networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+        final int run = detectionRun;
+        engine.probeTcp(destination, tcpPort, timeoutInMS, latency -> {
+            if (latency != NOT_REACHABLE) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
                 v.addReachableTcpService(tcpPort);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            // This should not happen and might be a user configuration issue, we log a warning message therefore.
-            logger.warn("Could not create a socket connection", e);
-        }
+            checkIfFinished(run);
+        });
     }
 
     /**
@@ -468,16 +554,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     }
 
     /**
-     * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
-     *
-     * @param scheduledExecutorService A scheduler to run pings periodically.
+     * Start/Restart a periodic runner to update the devices reach-ability state. A first detection is
+     * performed immediately, the following ones are spread by the {@link PresenceDetectionEngine} across the refresh
+     * interval together with the detections of all other devices.
      */
-    public void startAutomaticRefresh(ScheduledExecutorService scheduledExecutorService) {
-        if (refreshJob != null && !refreshJob.isDone()) {
-            refreshJob.cancel(true);
+    public void startAutomaticRefresh() {
+        if (refreshJob != null) {
+            refreshJob.cancel();
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
-                refreshIntervalInMS, TimeUnit.MILLISECONDS);
+        refreshJob = engine.schedulePeriodic(() -> performPresenceDetection(false), refreshIntervalInMS);
+        performPresenceDetection(false);
 
         enableDHCPListen(useDHCPsniffing);
     }
@@ -493,8 +579,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * Stop automatic refreshing.
      */
     public void stopAutomaticRefresh() {
-        if (refreshJob != null && !refreshJob.isDone()) {
-            refreshJob.cancel(true);
+        if (refreshJob != null) {
+            refreshJob.cancel();
             refreshJob = null;
         }
         enableDHCPListen(false);
@@ -0,0 +1,349 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+import org.openhab.binding.network.internal.TimerWheel.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PresenceDetectionEngine} performs the checks of all {@link PresenceDetection} objects of the binding.
+ *
+ * Instead of a thread per check and device, a single selector thread performs all TCP connection attempts
+ * non-blocking and drives a {@link TimerWheel} for the periodic refreshes and detection timeouts. Checks that
+ * need to block, like ICMP and ARP pings via a native tool, are executed by a shared worker pool of bounded size.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionEngine {
+    static final long TICK_IN_MS = 50;
+    static final int WHEEL_SIZE = 1024;
+    static final int DEFAULT_WORKERS = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static PresenceDetectionEngine instance;
+    private static int users;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionEngine.class);
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final ThreadPoolExecutor workers;
+    private final TimerWheel wheel;
+    // Operations to be performed by the selector thread
+    private final Queue<Runnable> operations = new ConcurrentLinkedQueue<>();
+    // Only accessed by the selector thread
+    private final PriorityQueue<TcpProbe> probeDeadlines = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.deadlineInMS, b.deadlineInMS));
+    private volatile boolean running = true;
+
+    /**
+     * A non-blocking TCP connection attempt
+     */
+    private static class TcpProbe {
+        final SocketChannel channel;
+        final DoubleConsumer callback;
+        final long startInNS;
+        final long deadlineInMS;
+        boolean done;
+
+        TcpProbe(SocketChannel channel, DoubleConsumer callback, long startInNS, long deadlineInMS) {
+            this.channel = channel;
+            this.callback = callback;
+            this.startInNS = startInNS;
+            this.deadlineInMS = deadlineInMS;
+        }
+    }
+
+    /**
+     * Returns the engine shared by the handler factory and the discovery, and registers the caller as a user. The
+     * engine is created by the first user. Every call must be paired with a call to {@link #release()}.
+     */
+    public static synchronized PresenceDetectionEngine acquire() {
+        if (instance == null) {
+            try {
+                instance = new PresenceDetectionEngine(DEFAULT_WORKERS);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open a selector for the presence detection", e);
+            }
+        }
+        ++users;
+        return instance;
+    }
+
+    /**
+     * Unregisters a user of the shared engine. The engine is stopped when the last user released it.
+     */
+    public static synchronized void release() {
+        if (users == 0) {
+            return;
+        }
+        if (--users == 0) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Returns the shared engine, without registering as a user.
+     *
+     * @throws IllegalStateException If no user acquired the engine
+     */
+    public static synchronized PresenceDetectionEngine getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("The presence detection engine is not running");
+        }
+        return instance;
+    }
+
+    /**
+     * Creates and starts an engine.
+     *
+     * @param maxWorkers The maximum amount of blocking checks (ICMP, ARP pings) performed at the same time
+     * @throws IOException If the selector cannot be opened
+     */
+    public PresenceDetectionEngine(int maxWorkers) throws IOException {
+        selector = Selector.open();
+        wheel = new TimerWheel(TICK_IN_MS, WHEEL_SIZE, currentTimeInMS());
+
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(maxWorkers, maxWorkers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "networkPresenceWorker-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        workers.allowCoreThreadTimeOut(true);
+
+        selectorThread = new Thread(this::run, "networkPresenceSelector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Tries to connect to the given TCP port. The callback is called exactly once from the selector thread,
+     * either with the latency in milliseconds or with {@link PresenceDetection#NOT_REACHABLE}.
+     *
+     * @param address The destination address
+     * @param port The TCP port
+     * @param timeoutInMS The connection timeout
+     * @param callback Receives the latency or {@link PresenceDetection#NOT_REACHABLE}
+     */
+    public void probeTcp(InetAddress address, int port, int timeoutInMS, DoubleConsumer callback) {
+        operate(() -> startProbe(new InetSocketAddress(address, port), timeoutInMS, callback));
+    }
+
+    /**
+     * Executes a blocking check with the worker pool. At most the configured amount of checks are executed
+     * at the same time, others wait in a queue.
+     *
+     * @param check The check
+     * @return A future to cancel the check
+     */
+    public Future<?> submit(Runnable check) {
+        return workers.submit(check);
+    }
+
+    /**
+     * Runs a task once after the given delay on the selector thread. The task must not block.
+     *
+     * @param task The task
+     * @param delayInMS The delay in milliseconds, with a resolution of {@value #TICK_IN_MS} ms.
+     * @return A timeout that can be cancelled
+     */
+    public Timeout schedule(Runnable task, long delayInMS) {
+        Timeout timeout = wheel.schedule(task, delayInMS);
+        selector.wakeup();
+        return timeout;
+    }
+
+    /**
+     * Runs a task periodically on the selector thread. The task must not block. The first run
+     * is within one interval, spread with the other periodic tasks.
+     *
+     * @param task The task
+     * @param intervalInMS The interval in milliseconds
+     * @return A timeout that can be cancelled
+     */
+    public Timeout schedulePeriodic(Runnable task, long intervalInMS) {
+        Timeout timeout = wheel.schedulePeriodic(task, intervalInMS);
+        selector.wakeup();
+        return timeout;
+    }
+
+    /**
+     * Returns the maximum amount of blocking checks that are performed at the same time.
+     */
+    public int getMaxWorkers() {
+        return workers.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the amount of blocking checks that are waiting for a free worker.
+     */
+    public int getQueuedChecks() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Stops the selector thread and the workers. Pending TCP connection attempts are closed without
+     * calling their callbacks.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        workers.shutdownNow();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void operate(Runnable operation) {
+        if (!running) {
+            throw new RejectedExecutionException("The presence detection engine has been shut down");
+        }
+        operations.add(operation);
+        selector.wakeup();
+    }
+
+    private static long currentTimeInMS() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                Runnable operation;
+                while ((operation = operations.poll()) != null) {
+                    runSafely(operation);
+                }
+
+                long now = currentTimeInMS();
+                long wakeUp = wheel.nextTickInMS();
+                TcpProbe nextProbe = probeDeadlines.peek();
+                if (nextProbe != null) {
+                    wakeUp = Math.min(wakeUp, nextProbe.deadlineInMS);
+                }
+                if (wakeUp > now) {
+                    selector.select(wakeUp - now);
+                } else {
+                    selector.selectNow();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishProbe((TcpProbe) key.attachment());
+                }
+
+                now = currentTimeInMS();
+                while ((nextProbe = probeDeadlines.peek()) != null && nextProbe.deadlineInMS <= now) {
+                    probeDeadlines.poll();
+                    if (!nextProbe.done) {
+                        complete(nextProbe, PresenceDetection.NOT_REACHABLE);
+                    }
+                }
+
+                List<Runnable> due = wheel.advance(now);
+                for (Runnable task : due) {
+                    runSafely(task);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            logger.warn("The presence detection selector failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(((TcpProbe) key.attachment()).channel);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.warn("A presence detection task failed", e);
+        }
+    }
+
+    private void startProbe(InetSocketAddress address, int timeoutInMS, DoubleConsumer callback) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            TcpProbe probe = new TcpProbe(channel, callback, System.nanoTime(), currentTimeInMS() + timeoutInMS);
+            if (channel.connect(address)) {
+                complete(probe, latency(probe));
+                return;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            probeDeadlines.add(probe);
+        } catch (IOException e) {
+            // Refused connections and unreachable networks can be reported immediately
+            logger.trace("Could not connect to {}", address, e);
+            closeQuietly(channel);
+            runSafely(() -> callback.accept(PresenceDetection.NOT_REACHABLE));
+        }
+    }
+
+    private void finishProbe(TcpProbe probe) {
+        if (probe.done) {
+            return;
+        }
+        try {
+            complete(probe, probe.channel.finishConnect() ? latency(probe) : PresenceDetection.NOT_REACHABLE);
+        } catch (IOException e) {
+            complete(probe, PresenceDetection.NOT_REACHABLE);
+        }
+    }
+
+    private void complete(TcpProbe probe, double latency) {
+        probe.done = true;
+        closeQuietly(probe.channel);
+        runSafely(() -> probe.callback.accept(latency));
+    }
+
+    private static double latency(TcpProbe probe) {
+        return Math.round((System.nanoTime() - probe.startInNS) / 1000000.0f);
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
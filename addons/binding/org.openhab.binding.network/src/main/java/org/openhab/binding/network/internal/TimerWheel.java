@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A hashed timer wheel for the {@link PresenceDetectionEngine}. Timeouts are put into one of a fixed number of
+ * buckets, each covering one tick. The wheel does not own a thread, {@link #advance(long)} has to be called
+ * periodically and returns the tasks that are due.
+ *
+ * Periodic timeouts are spread across their interval: The first run is put into the least loaded tick of the
+ * interval, so that a number of things with the same refresh interval do not perform their checks all at once.
+ *
+ * @author agent - Initial contribution
+ */
+public class TimerWheel {
+    // The fractional part of the golden ratio. Used to start the search for a free tick at well distributed positions.
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    private final long tickInMS;
+    private final List<List<Timeout>> buckets;
+    // The number of periodic timeouts in each bucket
+    private final int[] periodicLoad;
+    private long currentTick;
+    private int spreadCounter;
+
+    /**
+     * A timeout of the wheel. Can be cancelled.
+     */
+    public class Timeout {
+        private final Runnable task;
+        private final long periodInTicks;
+        private long deadlineTick;
+        private boolean cancelled;
+
+        Timeout(Runnable task, long deadlineTick, long periodInTicks) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            this.periodInTicks = periodInTicks;
+        }
+
+        /**
+         * Cancels the timeout. The task will not be returned by {@link TimerWheel#advance(long)} anymore.
+         */
+        public void cancel() {
+            synchronized (TimerWheel.this) {
+                cancelled = true;
+            }
+        }
+
+        public boolean isCancelled() {
+            synchronized (TimerWheel.this) {
+                return cancelled;
+            }
+        }
+
+        boolean isPeriodic() {
+            return periodInTicks > 0;
+        }
+    }
+
+    /**
+     * Creates a timer wheel.
+     *
+     * @param tickInMS The resolution of the wheel in milliseconds
+     * @param wheelSize The amount of buckets. Timeouts further away than wheelSize ticks take multiple rounds.
+     * @param nowInMS The current time in milliseconds
+     */
+    public TimerWheel(long tickInMS, int wheelSize, long nowInMS) {
+        this.tickInMS = tickInMS;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; ++i) {
+            buckets.add(new ArrayList<>());
+        }
+        this.periodicLoad = new int[wheelSize];
+        this.currentTick = nowInMS / tickInMS;
+    }
+
+    /**
+     * Schedules a task to be returned once after the given delay.
+     *
+     * @param task The task
+     * @param delayInMS The delay in milliseconds
+     * @return A timeout that can be cancelled
+     */
+    public synchronized Timeout schedule(Runnable task, long delayInMS) {
+        Timeout timeout = new Timeout(task, currentTick + Math.max(1, ticks(delayInMS)), 0);
+        add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Schedules a task to be returned every given interval. The first run is within one interval, placed
+     * in the tick with the least other periodic tasks.
+     *
+     * @param task The task
+     * @param intervalInMS The interval in milliseconds
+     * @return A timeout that can be cancelled
+     */
+    public synchronized Timeout schedulePeriodic(Runnable task, long intervalInMS) {
+        long periodInTicks = Math.max(1, ticks(intervalInMS));
+        int candidates = (int) Math.min(periodInTicks, buckets.size());
+        int start = (int) ((spreadCounter++ * GOLDEN_RATIO_FRACTION) % 1.0 * candidates);
+
+        int bestOffset = start;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates; ++i) {
+            int offset = (start + i) % candidates;
+            int load = periodicLoad[bucketIndex(currentTick + 1 + offset)];
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestOffset = offset;
+                if (load == 0) {
+                    break;
+                }
+            }
+        }
+
+        Timeout timeout = new Timeout(task, currentTick + 1 + bestOffset, periodInTicks);
+        add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to the given time and returns all tasks that are due. Periodic tasks are rescheduled.
+     *
+     * @param nowInMS The current time in milliseconds
+     * @return The due tasks in the order of their deadlines
+     */
+    public synchronized List<Runnable> advance(long nowInMS) {
+        List<Runnable> due = new ArrayList<>();
+        long targetTick = nowInMS / tickInMS;
+        // Never process more than one round, all timeouts have been visited by then
+        if (targetTick - currentTick > buckets.size()) {
+            currentTick = targetTick - buckets.size();
+        }
+        List<Timeout> rescheduled = new ArrayList<>();
+        while (currentTick < targetTick) {
+            ++currentTick;
+            Iterator<Timeout> iterator = buckets.get(bucketIndex(currentTick)).iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    remove(iterator, timeout);
+                } else if (timeout.deadlineTick <= currentTick) {
+                    remove(iterator, timeout);
+                    due.add(timeout.task);
+                    if (timeout.isPeriodic()) {
+                        timeout.deadlineTick = Math.max(timeout.deadlineTick + timeout.periodInTicks,
+                                currentTick + 1);
+                        rescheduled.add(timeout);
+                    }
+                }
+            }
+        }
+        for (Timeout timeout : rescheduled) {
+            add(timeout);
+        }
+        return due;
+    }
+
+    /**
+     * Returns the time in milliseconds at which the next tick has to be processed.
+     */
+    public synchronized long nextTickInMS() {
+        return (currentTick + 1) * tickInMS;
+    }
+
+    /**
+     * Returns the amount of scheduled, not cancelled timeouts.
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Timeout> bucket : buckets) {
+            for (Timeout timeout : bucket) {
+                if (!timeout.cancelled) {
+                    ++size;
+                }
+            }
+        }
+        return size;
+    }
+
+    private long ticks(long ms) {
+        return (ms + tickInMS - 1) / tickInMS;
+    }
+
+    private int bucketIndex(long tick) {
+        return (int) (tick % buckets.size());
+    }
+
+    private void add(Timeout timeout) {
+        int index = bucketIndex(timeout.deadlineTick);
+        buckets.get(index).add(timeout);
+        if (timeout.isPeriodic()) {
+            periodicLoad[index]++;
+        }
+    }
+
+    private void remove(Iterator<Timeout> iterator, Timeout timeout) {
+        iterator.remove();
+        if (timeout.isPeriodic()) {
+            periodicLoad[bucketIndex(timeout.deadlineTick)]--;
+        }
+    }
+}
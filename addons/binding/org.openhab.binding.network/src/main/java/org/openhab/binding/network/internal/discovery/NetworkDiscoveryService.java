@@ -10,13 +10,10 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
-import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
@@ -25,7 +22,8 @@ import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
-import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.NetworkSweeper;
+import org.openhab.binding.network.internal.PresenceDetectionEngine;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
@@ -45,11 +43,14 @@ import com.google.common.collect.Sets;
  *
  * @author David Graeff - Rewritten
  * @author Marc Mettke - Initial contribution
+ * @author agent - Rate-limited asynchronous subnet sweep
  */
 @Component(service = DiscoveryService.class, immediate = true, configurationPid = "discovery.network")
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
     static final int PING_TIMEOUT_IN_MS = 500;
     static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    static final int DEFAULT_PROBES_PER_SECOND = 100;
+    static final String PARAMETER_PROBES_PER_SECOND = "probesPerSecond";
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
@@ -57,8 +58,9 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     // TCP port 554 (Windows share / Linux samba)
     // TCP port 1025 (Xbox / MS-RPC)
     private Set<Integer> tcp_service_ports = Sets.newHashSet(80, 548, 554, 1025);
-    private Integer scannedIPcount;
-    private ExecutorService executorService = null;
+    private NetworkSweeper sweeper = null;
+    private PresenceDetectionEngine engine;
+    private int probesPerSecond = DEFAULT_PROBES_PER_SECOND;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     NetworkUtils networkUtils = new NetworkUtils();
 
@@ -71,6 +73,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     @Override
     @Activate
     public void activate(Map<String, Object> config) {
+        engine = PresenceDetectionEngine.acquire();
         super.activate(config);
         modified(config);
     };
@@ -83,12 +86,25 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         // configuration, the values are automatically available in all handlers. Because they all
         // share the same instance.
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
+        Object rate = config.get(PARAMETER_PROBES_PER_SECOND);
+        try {
+            probesPerSecond = rate != null ? Math.max(1, Integer.parseInt(rate.toString()))
+                    : DEFAULT_PROBES_PER_SECOND;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} '{}', using {}", PARAMETER_PROBES_PER_SECOND, rate, DEFAULT_PROBES_PER_SECOND);
+            probesPerSecond = DEFAULT_PROBES_PER_SECOND;
+        }
     }
 
     @Override
     @Deactivate
     protected void deactivate() {
+        stopScan();
         super.deactivate();
+        synchronized (this) {
+            engine = null;
+        }
+        PresenceDetectionEngine.release();
     }
 
     @Override
@@ -109,65 +125,58 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * The scan takes as long as the probes of all IPs take if none answers: An ICMP ping and an ARP ping on each
+     * interface, which block a worker of the engine, and a connection attempt to each TCP service. The probes are
+     * started at the configured rate.
+     */
+    @Override
+    public synchronized int getScanTimeout() {
+        int ips = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size();
+        int interfaces = networkUtils.getInterfaceNames().size();
+        int workers = engine != null ? engine.getMaxWorkers() : 1;
+        long durationInMS = NetworkSweeper.getMaximumDurationInMS(ips, true, interfaces, tcp_service_ports.size(),
+                PING_TIMEOUT_IN_MS, probesPerSecond, workers);
+        return (int) TimeUnit.MILLISECONDS.toSeconds(durationInMS) + 1;
+    }
+
+    /**
+     * Starts a sweep of all IPs on each interface on the network. The probes of all IPs are pipelined
+     * through the {@link PresenceDetectionEngine} at a limited rate, results are published as they arrive.
      */
     @Override
-    protected void startScan() {
-        if (executorService != null) {
+    protected synchronized void startScan() {
+        if (engine == null || (sweeper != null && !sweeper.isFinished())) {
             return;
         }
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Network Device Discovery");
 
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        scannedIPcount = 0;
-
-        for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
-            try {
-                s.setHostname(ip);
-            } catch (UnknownHostException unknownHostException) {
-                logger.trace("Skip IP that cannot be converted to a InetAddress", unknownHostException);
-                continue;
-            }
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath);
-            // TCP devices
-            s.setServicePorts(tcp_service_ports);
-
-            executorService.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                synchronized (scannedIPcount) {
-                    scannedIPcount += 1;
-                    if (scannedIPcount == networkIPs.size()) {
-                        logger.trace("Scan of {} IPs successful", scannedIPcount);
-                        stopScan();
-                    }
-                }
-            });
+        final NetworkSweeper newSweeper = new NetworkSweeper(engine, this, networkIPs, tcp_service_ports,
+                PING_TIMEOUT_IN_MS, probesPerSecond, this::sweepFinished);
+        newSweeper.setPingMethods(networkUtils.determinePingMethod(),
+                networkUtils.determineNativeARPpingMethod(configuration.arpPingToolPath),
+                configuration.arpPingToolPath, true);
+        sweeper = newSweeper;
+        newSweeper.start();
+    }
+
+    private void sweepFinished() {
+        NetworkSweeper finishedSweeper = sweeper;
+        if (finishedSweeper != null) {
+            logger.trace("Scan of {} IPs successful", finishedSweeper.getTotalHosts());
         }
+        stopScan();
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        if (executorService == null) {
+        if (sweeper == null) {
             return;
         }
-
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
-        }
-        executorService.shutdown();
-        executorService = null;
+        sweeper.cancel();
+        sweeper = null;
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -176,7 +185,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called as the sweep started in {@link startScan} finds devices.
      *
      * @param ip The device IP
      * @param tcpPort The TCP port
@@ -219,7 +228,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called as the sweep started in {@link startScan} finds devices.
      *
      * @param ip The device IP
      */
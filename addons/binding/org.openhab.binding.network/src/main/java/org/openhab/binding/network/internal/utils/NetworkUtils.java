@@ -11,19 +11,13 @@ package org.openhab.binding.network.internal.utils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.ConnectException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
-import java.net.NoRouteToHostException;
 import java.net.PortUnreachableException;
-import java.net.Socket;
-import java.net.SocketAddress;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -145,27 +139,6 @@ public class NetworkUtils {
         return networkIPs;
     }
 
-    /**
-     * Try to establish a tcp connection to the given port. Returns false if a timeout occurred
-     * or the connection was denied.
-     *
-     * @param host The IP or hostname
-     * @param port The tcp port. Must be not 0.
-     * @param timeout Timeout in ms
-     * @param logger A slf4j logger instance to log IOException
-     * @return
-     * @throws IOException
-     */
-    public boolean servicePing(String host, int port, int timeout) throws IOException {
-        SocketAddress socketAddress = new InetSocketAddress(host, port);
-        try (Socket socket = new Socket()) {
-            socket.connect(socketAddress, timeout);
-            return true;
-        } catch (ConnectException | SocketTimeoutException | NoRouteToHostException ignored) {
-            return false;
-        }
-    }
-
     /**
      * Return the working method for the native system ping. If no native ping
      * works JavaPing is returned.
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests of the {@link SampleRingBuffer}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SampleRingBufferTest {
+
+    private static SampleRingBuffer buffer(int capacity, double... samples) {
+        SampleRingBuffer buffer = new SampleRingBuffer(capacity);
+        for (double sample : samples) {
+            buffer.add(sample);
+        }
+        return buffer;
+    }
+
+    @Test
+    public void testEmptyBuffer() {
+        SampleRingBuffer buffer = new SampleRingBuffer(10);
+        assertTrue(Double.isNaN(buffer.average()));
+        assertTrue(Double.isNaN(buffer.percentile(95)));
+    }
+
+    @Test
+    public void testAverage() {
+        assertThat(buffer(10, 1, 2, 3, 4, 5).average(), is(3.0));
+        assertThat(buffer(10, 0.25).average(), is(0.25));
+        assertThat(buffer(10, 0.1, 0.2, 0.6).average(), is((0.1 + 0.2 + 0.6) / 3));
+    }
+
+    @Test
+    public void testPercentileUsesTheNearestRank() {
+        SampleRingBuffer buffer = buffer(10, 50, 15, 40, 35, 20);
+        assertThat(buffer.percentile(0), is(15.0));
+        assertThat(buffer.percentile(5), is(15.0));
+        assertThat(buffer.percentile(20), is(15.0));
+        assertThat(buffer.percentile(30), is(20.0));
+        assertThat(buffer.percentile(40), is(20.0));
+        assertThat(buffer.percentile(50), is(35.0));
+        assertThat(buffer.percentile(95), is(50.0));
+        assertThat(buffer.percentile(100), is(50.0));
+    }
+
+    @Test
+    public void testOldestSamplesAreOverwritten() {
+        SampleRingBuffer buffer = buffer(3, 1, 2, 3, 10);
+        assertThat(buffer.average(), is(5.0));
+        assertThat(buffer.percentile(0), is(2.0));
+        assertThat(buffer.percentile(100), is(10.0));
+
+        buffer.add(20);
+        buffer.add(30);
+        assertThat(buffer.average(), is(20.0));
+        assertThat(buffer.percentile(0), is(10.0));
+    }
+
+    @Test
+    public void testPercentileKeepsTheOrderOfTheSamples() {
+        SampleRingBuffer buffer = buffer(3, 3, 2, 1);
+        assertThat(buffer.percentile(50), is(2.0));
+
+        // overwrites 3, the oldest sample, and not the largest one sorted last
+        buffer.add(10);
+        assertThat(buffer.percentile(0), is(1.0));
+        assertThat(buffer.percentile(50), is(2.0));
+        assertThat(buffer.percentile(100), is(10.0));
+        assertThat(buffer.average(), is(13.0 / 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        buffer(3, 1).percentile(101);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new SampleRingBuffer(0);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.CentralProcessor.TickType;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.HWDiskStore;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.software.os.OperatingSystem;
+
+/**
+ * Tests of the CPU load and the drive rates, that a {@link SystemSnapshot} derives from an earlier snapshot.
+ *
+ * @author agent - Initial contribution
+ */
+public class SystemSnapshotTest {
+
+    private static final long PAUSE_IN_MS = 50;
+
+    private final HardwareAbstractionLayer hal = mock(HardwareAbstractionLayer.class);
+    private final CentralProcessor processor = mock(CentralProcessor.class);
+    private final OperatingSystem operatingSystem = mock(OperatingSystem.class);
+
+    @Before
+    public void setUp() {
+        when(hal.getProcessor()).thenReturn(processor);
+        when(hal.getMemory()).thenReturn(mock(GlobalMemory.class));
+        when(processor.getSystemCpuLoadTicks()).thenReturn(new long[TickType.values().length]);
+    }
+
+    private static HWDiskStore drive(String name, long readBytes, long writeBytes) {
+        HWDiskStore drive = new HWDiskStore();
+        drive.setName(name);
+        drive.setReadBytes(readBytes);
+        drive.setWriteBytes(writeBytes);
+        return drive;
+    }
+
+    private SystemSnapshot snapshot(SystemSnapshot previous, HWDiskStore... drives) {
+        SystemSnapshot snapshot = new SystemSnapshot(hal, operatingSystem);
+        if (previous != null) {
+            snapshot.deriveFrom(previous);
+        }
+        when(hal.getDiskStores()).thenReturn(drives);
+        return snapshot;
+    }
+
+    private static void assertRate(double rate, long bytes, long minNanos, long maxNanos) {
+        assertTrue("rate " + rate, rate >= bytes / (maxNanos / 1e9) && rate <= bytes / (minNanos / 1e9));
+    }
+
+    @Test
+    public void testCpuLoad() {
+        SystemSnapshot first = snapshot(null);
+        assertTrue(Double.isNaN(first.getCpuLoad()));
+
+        long[] ticks = new long[TickType.values().length];
+        ticks[TickType.USER.getIndex()] = 20;
+        ticks[TickType.SYSTEM.getIndex()] = 10;
+        ticks[TickType.IDLE.getIndex()] = 60;
+        ticks[TickType.IOWAIT.getIndex()] = 10;
+        when(processor.getSystemCpuLoadTicks()).thenReturn(ticks);
+        SystemSnapshot second = snapshot(first);
+        assertThat(second.getCpuLoad(), is(1 - 70 / 100.0));
+
+        // no ticks elapsed
+        assertTrue(Double.isNaN(snapshot(second).getCpuLoad()));
+    }
+
+    @Test
+    public void testDriveRates() throws InterruptedException {
+        long start = System.nanoTime();
+        SystemSnapshot first = snapshot(null, drive("sda", 1000, 2000), drive("sdb", 0, 0));
+        assertThat(first.getDrives().length, is(2));
+        long queried = System.nanoTime();
+        assertTrue(Double.isNaN(first.getDriveReadRate(0)));
+        assertTrue(Double.isNaN(first.getDriveWriteRate(0)));
+
+        Thread.sleep(PAUSE_IN_MS);
+        // the drives are listed in another order, sdc is new
+        long minNanos = System.nanoTime() - queried;
+        SystemSnapshot second = snapshot(first, drive("sdc", 5000, 5000), drive("sdb", 500, 100),
+                drive("sda", 3000, 1500));
+        second.getDrives();
+        long maxNanos = System.nanoTime() - start;
+
+        assertTrue(Double.isNaN(second.getDriveReadRate(0)));
+        assertTrue(Double.isNaN(second.getDriveWriteRate(0)));
+        assertRate(second.getDriveReadRate(1), 500, minNanos, maxNanos);
+        assertRate(second.getDriveWriteRate(1), 100, minNanos, maxNanos);
+        assertRate(second.getDriveReadRate(2), 2000, minNanos, maxNanos);
+        // the write counter of sda has been reset
+        assertTrue(Double.isNaN(second.getDriveWriteRate(2)));
+    }
+
+    @Test
+    public void testUnchangedCountersHaveNoTraffic() throws InterruptedException {
+        SystemSnapshot first = snapshot(null, drive("sda", 1000, 2000));
+        first.getDrives();
+        Thread.sleep(PAUSE_IN_MS);
+        SystemSnapshot second = snapshot(first, drive("sda", 1000, 2000));
+        assertThat(second.getDriveReadRate(0), is(0.0));
+        assertThat(second.getDriveWriteRate(0), is(0.0));
+    }
+
+    @Test
+    public void testRatesAreDerivedFromTheLastQueriedDrives() throws InterruptedException {
+        long start = System.nanoTime();
+        SystemSnapshot first = snapshot(null, drive("sda", 1000, 1000));
+        first.getDrives();
+        long queried = System.nanoTime();
+
+        // the drives are not queried in the second snapshot
+        Thread.sleep(PAUSE_IN_MS);
+        SystemSnapshot second = snapshot(first, drive("sda", 2000, 2000));
+        Thread.sleep(PAUSE_IN_MS);
+        long minNanos = System.nanoTime() - queried;
+        SystemSnapshot third = snapshot(second, drive("sda", 4000, 3000));
+        assertRate(third.getDriveReadRate(0), 3000, minNanos, System.nanoTime() - start);
+        assertRate(third.getDriveWriteRate(0), 2000, minNanos, System.nanoTime() - start);
+
+        // the drives of the third snapshot are the base of the next one
+        Thread.sleep(PAUSE_IN_MS);
+        SystemSnapshot fourth = snapshot(third, drive("sda", 4000, 3000));
+        assertThat(fourth.getDriveReadRate(0), is(0.0));
+    }
+}
@@ -389,6 +389,30 @@ public class SysteminfoOSGiTest extends JavaOSGiTest {
         assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY, mockedCpuLoad15Value);
     }
 
+    @Test
+    public void assertChannelCpuAverageLoadIsUpdated() {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_CPU_AVERAGE_LOAD;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedCpuAverageLoad = new DecimalType(12.5);
+        when(mockedSystemInfo.getCpuAverageLoad()).thenReturn(mockedCpuAverageLoad);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY, mockedCpuAverageLoad);
+    }
+
+    @Test
+    public void assertChannelCpuPeakLoadIsUpdated() {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_CPU_PEAK_LOAD;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedCpuPeakLoad = new DecimalType(42.5);
+        when(mockedSystemInfo.getCpuPeakLoad()).thenReturn(mockedCpuPeakLoad);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY, mockedCpuPeakLoad);
+    }
+
     @Test
     public void assertChannelCpuThreadsIsUpdated() {
         String channnelID = SysteminfoBindingConstants.CHANNEL_CPU_THREADS;
@@ -666,6 +690,30 @@ public class SysteminfoOSGiTest extends JavaOSGiTest {
                 mockedDriveSerialNumber);
     }
 
+    @Test
+    public void assertChannelDriveReadRateIsUpdated() throws DeviceNotFoundException {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_DRIVE_READ_RATE;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedDriveReadRate = new DecimalType(256.5);
+        when(mockedSystemInfo.getDriveReadRate(DEFAULT_DEVICE_INDEX)).thenReturn(mockedDriveReadRate);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY, mockedDriveReadRate);
+    }
+
+    @Test
+    public void assertChannelDriveWriteRateIsUpdated() throws DeviceNotFoundException {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_DRIVE_WRITE_RATE;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedDriveWriteRate = new DecimalType(128.5);
+        when(mockedSystemInfo.getDriveWriteRate(DEFAULT_DEVICE_INDEX)).thenReturn(mockedDriveWriteRate);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY, mockedDriveWriteRate);
+    }
+
     @Ignore
     // There is a bug opened for this issue - https://github.com/dblock/oshi/issues/185
     @Test
@@ -807,6 +855,33 @@ public class SysteminfoOSGiTest extends JavaOSGiTest {
                 mockedNetworkDataReceiveed);
     }
 
+    @Test
+    public void assertChannelNetworkDataSentRateIsUpdated() throws DeviceNotFoundException {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_NETWORK_DATA_SENT_RATE;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedNetworkDataSentRate = new DecimalType(64.5);
+        when(mockedSystemInfo.getNetworkDataSentRate(DEFAULT_DEVICE_INDEX)).thenReturn(mockedNetworkDataSentRate);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY,
+                mockedNetworkDataSentRate);
+    }
+
+    @Test
+    public void assertChannelNetworkDataReceivedRateIsUpdated() throws DeviceNotFoundException {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_NETWORK_DATA_RECEIVED_RATE;
+        String acceptedItemType = "Number";
+
+        DecimalType mockedNetworkDataReceivedRate = new DecimalType(32.5);
+        when(mockedSystemInfo.getNetworkDataReceivedRate(DEFAULT_DEVICE_INDEX))
+                .thenReturn(mockedNetworkDataReceivedRate);
+
+        initializeThingWithChannel(channnelID, acceptedItemType);
+        assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY,
+                mockedNetworkDataReceivedRate);
+    }
+
     @Test
     public void assertChannelNetworkPacketsSentIsUpdated() throws DeviceNotFoundException {
         String channnelID = SysteminfoBindingConstants.CHANNEL_NETWORK_PACKETS_SENT;
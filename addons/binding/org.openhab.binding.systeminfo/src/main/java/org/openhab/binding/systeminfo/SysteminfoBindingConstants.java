@@ -117,6 +117,16 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_DRIVE_SERIAL = "drive#serial";
 
+    /**
+     * Physical storage drive data read per second
+     */
+    public static final String CHANNEL_DRIVE_READ_RATE = "drive#readRate";
+
+    /**
+     * Physical storage drive data written per second
+     */
+    public static final String CHANNEL_DRIVE_WRITE_RATE = "drive#writeRate";
+
     /**
      * Name of the logical volume storage
      */
@@ -212,6 +222,16 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_CPU_LOAD_15 = "cpu#load15";
 
+    /**
+     * Moving average of the recent CPU load samples
+     */
+    public static final String CHANNEL_CPU_AVERAGE_LOAD = "cpu#averageLoad";
+
+    /**
+     * 95th percentile of the recent CPU load samples
+     */
+    public static final String CHANNEL_CPU_PEAK_LOAD = "cpu#peakLoad";
+
     /**
      * CPU name
      */
@@ -252,6 +272,16 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_NETWORK_DATA_RECEIVED = "network#dataReceived";
 
+    /**
+     * Network data sent per second
+     */
+    public static final String CHANNEL_NETWORK_DATA_SENT_RATE = "network#dataSentRate";
+
+    /**
+     * Network data received per second
+     */
+    public static final String CHANNEL_NETWORK_DATA_RECEIVED_RATE = "network#dataReceivedRate";
+
     /**
      * Network packets sent
      */
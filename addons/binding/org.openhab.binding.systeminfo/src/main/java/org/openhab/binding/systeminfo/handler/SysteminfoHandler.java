@@ -324,6 +324,12 @@ public class SysteminfoHandler extends BaseThingHandler {
                 case CHANNEL_CPU_LOAD_15:
                     state = systeminfo.getCpuLoad15();
                     break;
+                case CHANNEL_CPU_AVERAGE_LOAD:
+                    state = systeminfo.getCpuAverageLoad();
+                    break;
+                case CHANNEL_CPU_PEAK_LOAD:
+                    state = systeminfo.getCpuPeakLoad();
+                    break;
                 case CHANNEL_CPU_UPTIME:
                     state = systeminfo.getCpuUptime();
                     break;
@@ -375,6 +381,12 @@ public class SysteminfoHandler extends BaseThingHandler {
                 case CHANNEL_DRIVE_NAME:
                     state = systeminfo.getDriveName(deviceIndex);
                     break;
+                case CHANNEL_DRIVE_READ_RATE:
+                    state = systeminfo.getDriveReadRate(deviceIndex);
+                    break;
+                case CHANNEL_DRIVE_WRITE_RATE:
+                    state = systeminfo.getDriveWriteRate(deviceIndex);
+                    break;
                 case CHANNEL_STORAGE_NAME:
                     state = systeminfo.getStorageName(deviceIndex);
                     break;
@@ -417,6 +429,12 @@ public class SysteminfoHandler extends BaseThingHandler {
                 case CHANNEL_NETWORK_DATA_RECEIVED:
                     state = systeminfo.getNetworkDataReceived(deviceIndex);
                     break;
+                case CHANNEL_NETWORK_DATA_SENT_RATE:
+                    state = systeminfo.getNetworkDataSentRate(deviceIndex);
+                    break;
+                case CHANNEL_NETWORK_DATA_RECEIVED_RATE:
+                    state = systeminfo.getNetworkDataReceivedRate(deviceIndex);
+                    break;
                 case CHANNEL_NETWORK_PACKETS_RECEIVED:
                     state = systeminfo.getNetworkPacketsReceived(deviceIndex);
                     break;
@@ -20,7 +20,6 @@ import org.slf4j.LoggerFactory;
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
 import oshi.hardware.Display;
-import oshi.hardware.GlobalMemory;
 import oshi.hardware.HWDiskStore;
 import oshi.hardware.HardwareAbstractionLayer;
 import oshi.hardware.NetworkIF;
@@ -35,9 +34,14 @@ import oshi.util.EdidUtil;
  * This implementation of {@link SysteminfoInterface} is using the open source library OSHI to provide system
  * information. OSHI is a free JNA-based (native) Operating System and Hardware Information library for Java.
  *
+ * The dynamic information is read from a {@link SystemSnapshot}, which is shared by all channels and things. A new
+ * snapshot is taken, when the current one is older than {@link #SNAPSHOT_MAX_AGE_IN_MS}. The CPU load of each snapshot
+ * is kept in a {@link SampleRingBuffer} to provide a moving average and a percentile.
+ *
  * @author Svilen Valkanov - Initial contribution
  * @author Lyubomir Papazov - Move the initialization logic that could potentially take long time to the
  *         initializeSysteminfo method
+ * @author agent - Shared system snapshot and load statistics
  *
  * @see <a href="https://github.com/oshi/oshi">OSHI github repository</a>
  *
@@ -50,20 +54,35 @@ public class OshiSysteminfo implements SysteminfoInterface {
     private Logger logger = LoggerFactory.getLogger(OshiSysteminfo.class);
 
     // Dynamic objects (may be queried repeatedly)
-    private GlobalMemory memory;
     private CentralProcessor cpu;
     private Sensors sensors;
 
-    // Static objects, should be recreated on each request
     private OperatingSystem operatingSystem;
-    private NetworkIF[] networks;
     private Display[] displays;
-    private OSFileStore[] fileStores;
-    private PowerSource[] powerSources;
-    private HWDiskStore[] drives;
+
+    // Dynamic information, shared by all channels and things
+    private SystemSnapshot snapshot;
+    private final SampleRingBuffer cpuLoadSamples = new SampleRingBuffer(SAMPLE_WINDOW);
 
     public static final int PRECISION_AFTER_DECIMAL_SIGN = 1;
 
+    /**
+     * Channels that are updated within this time read their values from the same snapshot
+     */
+    public static final long SNAPSHOT_MAX_AGE_IN_MS = 500;
+
+    /**
+     * Number of samples used for the moving average and the percentile of the CPU load. One sample is taken per
+     * snapshot, no matter which thing or channel priority caused the snapshot, so the time covered by the samples
+     * depends on the refresh intervals of all things.
+     */
+    public static final int SAMPLE_WINDOW = 60;
+
+    /**
+     * Percentile of the CPU load samples reported as peak load
+     */
+    public static final double PEAK_LOAD_PERCENTILE = 95;
+
     /**
      * Some of the methods used in this constructor execute native code and require execute permissions
      *
@@ -80,19 +99,32 @@ public class OshiSysteminfo implements SysteminfoInterface {
         hal = systemInfo.getHardware();
 
         // Doesn't need regular update, they may be queried repeatedly
-        memory = hal.getMemory();
         cpu = hal.getProcessor();
         sensors = hal.getSensors();
 
-        // Static objects, should be recreated on each request. In OSHI 4.0.0. it is planned to change this mechanism -
-        // see https://github.com/oshi/oshi/issues/310
-        // TODO: Once the issue is resolved in OSHI , remove unnecessary object recreations from the public get methods
         operatingSystem = systemInfo.getOperatingSystem();
-        networks = hal.getNetworkIFs();
         displays = hal.getDisplays();
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        powerSources = hal.getPowerSources();
-        drives = hal.getDiskStores();
+    }
+
+    /**
+     * Returns the current snapshot or takes a new one, if it is older than {@link #SNAPSHOT_MAX_AGE_IN_MS}.
+     */
+    synchronized SystemSnapshot getSnapshot() {
+        SystemSnapshot current = snapshot;
+        if (current == null || current.getAgeInMS() >= SNAPSHOT_MAX_AGE_IN_MS) {
+            long start = System.nanoTime();
+            SystemSnapshot next = new SystemSnapshot(hal, operatingSystem);
+            if (current != null) {
+                next.deriveFrom(current);
+                if (!Double.isNaN(next.getCpuLoad())) {
+                    cpuLoadSamples.add(next.getCpuLoad());
+                }
+            }
+            snapshot = next;
+            current = next;
+            logger.trace("System snapshot taken in {} ms", (System.nanoTime() - start) / 1000000);
+        }
+        return current;
     }
 
     @SuppressWarnings("null")
@@ -104,7 +136,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
     }
 
     private OSProcess getProcess(int pid) throws DeviceNotFoundException {
-        OSProcess process = operatingSystem.getProcess(pid);
+        OSProcess process = getSnapshot().getProcess(pid);
         if (process == null) {
             throw new DeviceNotFoundException("Error while getting information for process with PID " + pid);
         }
@@ -164,29 +196,54 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuLoad() {
-        double processorLoad = cpu.getSystemCpuLoad();
+        double processorLoad = getSnapshot().getCpuLoad();
+        if (Double.isNaN(processorLoad)) {
+            // The first snapshot has no previous one to compare with
+            processorLoad = cpu.getSystemCpuLoad();
+        }
         BigDecimal processorLoadPercent = getPercentsValue(processorLoad);
         return new DecimalType(processorLoadPercent);
     }
 
+    @Override
+    public DecimalType getCpuAverageLoad() {
+        getSnapshot();
+        double averageLoad;
+        synchronized (this) {
+            averageLoad = cpuLoadSamples.average();
+        }
+        return Double.isNaN(averageLoad) ? null : new DecimalType(getPercentsValue(averageLoad));
+    }
+
+    @Override
+    public DecimalType getCpuPeakLoad() {
+        getSnapshot();
+        double peakLoad;
+        synchronized (this) {
+            peakLoad = cpuLoadSamples.percentile(PEAK_LOAD_PERCENTILE);
+        }
+        return Double.isNaN(peakLoad) ? null : new DecimalType(getPercentsValue(peakLoad));
+    }
+
     @Override
     public DecimalType getMemoryTotal() {
-        long totalMemory = memory.getTotal();
+        long totalMemory = getSnapshot().getMemoryTotal();
         totalMemory = getSizeInMB(totalMemory);
         return new DecimalType(totalMemory);
     }
 
     @Override
     public DecimalType getMemoryAvailable() {
-        long availableMemory = memory.getAvailable();
+        long availableMemory = getSnapshot().getMemoryAvailable();
         availableMemory = getSizeInMB(availableMemory);
         return new DecimalType(availableMemory);
     }
 
     @Override
     public DecimalType getMemoryUsed() {
-        long totalMemory = memory.getTotal();
-        long availableMemory = memory.getAvailable();
+        SystemSnapshot current = getSnapshot();
+        long totalMemory = current.getMemoryTotal();
+        long availableMemory = current.getMemoryAvailable();
         long usedMemory = totalMemory - availableMemory;
         usedMemory = getSizeInMB(usedMemory);
         return new DecimalType(usedMemory);
@@ -194,10 +251,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageTotal(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the storage data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), index);
         long totalSpace = fileStore.getTotalSpace();
         totalSpace = getSizeInMB(totalSpace);
         return new DecimalType(totalSpace);
@@ -205,10 +259,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageAvailable(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the storage data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), index);
         long freeSpace = fileStore.getUsableSpace();
         freeSpace = getSizeInMB(freeSpace);
         return new DecimalType(freeSpace);
@@ -216,10 +267,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageUsed(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the storage data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), index);
         long totalSpace = fileStore.getTotalSpace();
         long freeSpace = fileStore.getUsableSpace();
         long usedSpace = totalSpace - freeSpace;
@@ -229,10 +277,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageAvailablePercent(int deviceIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the storage data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, deviceIndex);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), deviceIndex);
         long totalSpace = fileStore.getTotalSpace();
         long freeSpace = fileStore.getUsableSpace();
         if (totalSpace > 0) {
@@ -246,10 +291,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageUsedPercent(int deviceIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the storage data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        fileStores = operatingSystem.getFileSystem().getFileStores();
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, deviceIndex);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), deviceIndex);
         long totalSpace = fileStore.getTotalSpace();
         long freeSpace = fileStore.getUsableSpace();
         long usedSpace = totalSpace - freeSpace;
@@ -264,31 +306,28 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public StringType getStorageName(int index) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), index);
         String name = fileStore.getName();
         return new StringType(name);
     }
 
     @Override
     public StringType getStorageType(int deviceIndex) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, deviceIndex);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), deviceIndex);
         String type = fileStore.getType();
         return new StringType(type);
     }
 
     @Override
     public StringType getStorageDescription(int index) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+        OSFileStore fileStore = (OSFileStore) getDevice(getSnapshot().getFileStores(), index);
         String description = fileStore.getDescription();
         return new StringType(description);
     }
 
     @Override
     public StringType getNetworkIp(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the network data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        networks = hal.getNetworkIFs();
-        NetworkIF netInterface = (NetworkIF) getDevice(networks, index);
+        NetworkIF netInterface = (NetworkIF) getDevice(getSnapshot().getNetworks(), index);
         String[] ipAddresses = netInterface.getIPv4addr();
         String ipv4 = (String) getDevice(ipAddresses, 0);
         return new StringType(ipv4);
@@ -296,14 +335,14 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public StringType getNetworkName(int index) throws DeviceNotFoundException {
-        NetworkIF netInterface = (NetworkIF) getDevice(networks, index);
+        NetworkIF netInterface = (NetworkIF) getDevice(getSnapshot().getNetworks(), index);
         String name = netInterface.getName();
         return new StringType(name);
     }
 
     @Override
     public StringType getNetworkDisplayName(int index) throws DeviceNotFoundException {
-        NetworkIF netInterface = (NetworkIF) getDevice(networks, index);
+        NetworkIF netInterface = (NetworkIF) getDevice(getSnapshot().getNetworks(), index);
         String adapterName = netInterface.getDisplayName();
         return new StringType(adapterName);
     }
@@ -347,10 +386,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getBatteryRemainingTime(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the battery data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        powerSources = hal.getPowerSources();
-        PowerSource powerSource = (PowerSource) getDevice(powerSources, index);
+        PowerSource powerSource = (PowerSource) getDevice(getSnapshot().getPowerSources(), index);
         double remainingTimeInSeconds = powerSource.getTimeRemaining();
         // The getTimeRemaining() method returns (-1.0) if is calculating or (-2.0) if the time is unlimited.
         BigDecimal remainingTime = getTimeInMinutes(remainingTimeInSeconds);
@@ -359,10 +395,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getBatteryRemainingCapacity(int index) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the battery data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        powerSources = hal.getPowerSources();
-        PowerSource powerSource = (PowerSource) getDevice(powerSources, index);
+        PowerSource powerSource = (PowerSource) getDevice(getSnapshot().getPowerSources(), index);
         double remainingCapacity = powerSource.getRemainingCapacity();
         BigDecimal remainingCapacityPercents = getPercentsValue(remainingCapacity);
         return new DecimalType(remainingCapacityPercents);
@@ -370,15 +403,16 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public StringType getBatteryName(int index) throws DeviceNotFoundException {
-        PowerSource powerSource = (PowerSource) getDevice(powerSources, index);
+        PowerSource powerSource = (PowerSource) getDevice(getSnapshot().getPowerSources(), index);
         String name = powerSource.getName();
         return new StringType(name);
     }
 
     @Override
     public DecimalType getMemoryAvailablePercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        SystemSnapshot current = getSnapshot();
+        long availableMemory = current.getMemoryAvailable();
+        long totalMemory = current.getMemoryTotal();
         if (totalMemory > 0) {
             double freePercentDecimal = (double) availableMemory / (double) totalMemory;
             BigDecimal freePercent = getPercentsValue(freePercentDecimal);
@@ -390,8 +424,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getMemoryUsedPercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        SystemSnapshot current = getSnapshot();
+        long availableMemory = current.getMemoryAvailable();
+        long totalMemory = current.getMemoryTotal();
         long usedMemory = totalMemory - availableMemory;
         if (totalMemory > 0) {
             double usedPercentDecimal = (double) usedMemory / (double) totalMemory;
@@ -404,36 +439,51 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public StringType getDriveName(int deviceIndex) throws DeviceNotFoundException {
-        HWDiskStore drive = (HWDiskStore) getDevice(drives, deviceIndex);
+        HWDiskStore drive = (HWDiskStore) getDevice(getSnapshot().getDrives(), deviceIndex);
         String name = drive.getName();
         return new StringType(name);
     }
 
     @Override
     public StringType getDriveModel(int deviceIndex) throws DeviceNotFoundException {
-        HWDiskStore drive = (HWDiskStore) getDevice(drives, deviceIndex);
+        HWDiskStore drive = (HWDiskStore) getDevice(getSnapshot().getDrives(), deviceIndex);
         String model = drive.getModel();
         return new StringType(model);
     }
 
     @Override
     public StringType getDriveSerialNumber(int deviceIndex) throws DeviceNotFoundException {
-        HWDiskStore drive = (HWDiskStore) getDevice(drives, deviceIndex);
+        HWDiskStore drive = (HWDiskStore) getDevice(getSnapshot().getDrives(), deviceIndex);
         String serialNumber = drive.getSerial();
         return new StringType(serialNumber);
     }
 
+    @Override
+    public DecimalType getDriveReadRate(int deviceIndex) throws DeviceNotFoundException {
+        SystemSnapshot current = getSnapshot();
+        getDevice(current.getDrives(), deviceIndex);
+        return getRateInKB(current.getDriveReadRate(deviceIndex));
+    }
+
+    @Override
+    public DecimalType getDriveWriteRate(int deviceIndex) throws DeviceNotFoundException {
+        SystemSnapshot current = getSnapshot();
+        getDevice(current.getDrives(), deviceIndex);
+        return getRateInKB(current.getDriveWriteRate(deviceIndex));
+    }
+
     @Override
     public DecimalType getSwapTotal() {
-        long swapTotal = memory.getSwapTotal();
+        long swapTotal = getSnapshot().getSwapTotal();
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailable() {
-        long swapTotal = memory.getSwapTotal();
-        long swapUsed = memory.getSwapUsed();
+        SystemSnapshot current = getSnapshot();
+        long swapTotal = current.getSwapTotal();
+        long swapUsed = current.getSwapUsed();
         long swapAvaialble = swapTotal - swapUsed;
         swapAvaialble = getSizeInMB(swapAvaialble);
         return swapAvaialble > 0 ? new DecimalType(swapAvaialble) : null;
@@ -441,15 +491,16 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsed() {
-        long swapTotal = memory.getSwapUsed();
+        long swapTotal = getSnapshot().getSwapUsed();
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailablePercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        SystemSnapshot current = getSnapshot();
+        long usedSwap = current.getSwapUsed();
+        long totalSwap = current.getSwapTotal();
         long freeSwap = totalSwap - usedSwap;
         if (totalSwap > 0) {
             double freePercentDecimal = (double) freeSwap / (double) totalSwap;
@@ -462,8 +513,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsedPercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        SystemSnapshot current = getSnapshot();
+        long usedSwap = current.getSwapUsed();
+        long totalSwap = current.getSwapTotal();
         if (totalSwap > 0) {
             double usedPercentDecimal = (double) usedSwap / (double) totalSwap;
             BigDecimal usedPercent = getPercentsValue(usedPercentDecimal);
@@ -477,6 +529,15 @@ public class OshiSysteminfo implements SysteminfoInterface {
         return sizeInBytes /= 1024 * 1024;
     }
 
+    private DecimalType getRateInKB(double bytesPerSecond) {
+        if (Double.isNaN(bytesPerSecond)) {
+            return null;
+        }
+        BigDecimal result = new BigDecimal(bytesPerSecond / 1024);
+        result = result.setScale(PRECISION_AFTER_DECIMAL_SIGN, BigDecimal.ROUND_HALF_UP);
+        return new DecimalType(result);
+    }
+
     private BigDecimal getPercentsValue(double decimalFraction) {
         BigDecimal result = new BigDecimal(decimalFraction * 100);
         result = result.setScale(PRECISION_AFTER_DECIMAL_SIGN, BigDecimal.ROUND_HALF_UP);
@@ -552,61 +613,59 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuThreads() {
-        int threadCount = operatingSystem.getThreadCount();
+        int threadCount = getSnapshot().getThreadCount();
         return new DecimalType(threadCount);
     }
 
     @Override
     public StringType getNetworkMac(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
+        NetworkIF network = (NetworkIF) getDevice(getSnapshot().getNetworks(), networkIndex);
         String mac = network.getMacaddr();
         return new StringType(mac);
     }
 
     @Override
     public DecimalType getNetworkPacketsReceived(int networkIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the network data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        networks = hal.getNetworkIFs();
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = (NetworkIF) getDevice(getSnapshot().getNetworks(), networkIndex);
         long packRecv = network.getPacketsRecv();
         return new DecimalType(packRecv);
     }
 
     @Override
     public DecimalType getNetworkPacketsSent(int networkIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the network data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        networks = hal.getNetworkIFs();
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = (NetworkIF) getDevice(getSnapshot().getNetworks(), networkIndex);
         long packSent = network.getPacketsSent();
         return new DecimalType(packSent);
     }
 
     @Override
     public DecimalType getNetworkDataSent(int networkIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the network data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        networks = hal.getNetworkIFs();
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = (NetworkIF) getDevice(getSnapshot().getNetworks(), networkIndex);
         long bytesSent = network.getBytesSent();
         return new DecimalType(getSizeInMB(bytesSent));
     }
 
     @Override
     public DecimalType getNetworkDataReceived(int networkIndex) throws DeviceNotFoundException {
-        // In the current OSHI version a new query is required for the network data values to be updated
-        // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
-        networks = hal.getNetworkIFs();
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = (NetworkIF) getDevice(getSnapshot().getNetworks(), networkIndex);
         long bytesRecv = network.getBytesRecv();
         return new DecimalType(getSizeInMB(bytesRecv));
     }
 
+    @Override
+    public DecimalType getNetworkDataSentRate(int networkIndex) throws DeviceNotFoundException {
+        SystemSnapshot current = getSnapshot();
+        getDevice(current.getNetworks(), networkIndex);
+        return getRateInKB(current.getNetworkSentRate(networkIndex));
+    }
+
+    @Override
+    public DecimalType getNetworkDataReceivedRate(int networkIndex) throws DeviceNotFoundException {
+        SystemSnapshot current = getSnapshot();
+        getDevice(current.getNetworks(), networkIndex);
+        return getRateInKB(current.getNetworkReceivedRate(networkIndex));
+    }
+
     @Override
     public StringType getProcessName(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@link SampleRingBuffer} keeps the last samples of a metric in a primitive array. When the buffer is full, the
+ * oldest sample is overwritten. It is used to derive moving averages and percentiles from the system snapshots.
+ *
+ * This class is not thread safe, the owner has to synchronize the access.
+ *
+ * @author agent - Initial contribution
+ */
+public class SampleRingBuffer {
+
+    private final double[] samples;
+    // Reused by percentile() to avoid an allocation per call
+    private final double[] sorted;
+    private int next;
+    private int size;
+
+    /**
+     * @param capacity - the maximum number of samples kept
+     */
+    public SampleRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be a positive number");
+        }
+        samples = new double[capacity];
+        sorted = new double[capacity];
+    }
+
+    /**
+     * Adds a sample and overwrites the oldest one, if the buffer is full
+     */
+    public void add(double sample) {
+        samples[next] = sample;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the arithmetic mean of the samples or NaN, if the buffer is empty
+     */
+    public double average() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += samples[i];
+        }
+        return sum / size;
+    }
+
+    /**
+     * Returns the percentile of the samples, using the nearest-rank method.
+     *
+     * @param percent - the percentile /0-100/
+     * @return the smallest sample, which is greater or equal than the given percent of all samples or NaN, if the
+     *         buffer is empty
+     */
+    public double percentile(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+        }
+        if (size == 0) {
+            return Double.NaN;
+        }
+        // The samples before size are always the valid ones, the order does not matter for sorting
+        System.arraycopy(samples, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        int rank = (int) Math.ceil(percent / 100 * size);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import oshi.hardware.CentralProcessor.TickType;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.HWDiskStore;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.hardware.NetworkIF;
+import oshi.hardware.PowerSource;
+import oshi.software.os.OSFileStore;
+import oshi.software.os.OSProcess;
+import oshi.software.os.OperatingSystem;
+
+/**
+ * The {@link SystemSnapshot} holds the dynamic system information queried from OSHI at one point in time. All
+ * channels of all things, that are updated within the same refresh, read their values from the same snapshot.
+ *
+ * The CPU ticks and the memory are queried when the snapshot is taken, as the CPU load is derived from the difference
+ * to the previous snapshot. The storages, networks, drives, batteries, the thread count and the processes are queried
+ * lazily on first access, so a snapshot only queries what the refreshed channels need. Network and drive rates are
+ * derived from the difference to the last snapshot, in which the networks or drives have been queried.
+ *
+ * @author agent - Initial contribution
+ */
+public class SystemSnapshot {
+
+    /**
+     * Devices queried at one point in time with the rates of two of their counters
+     */
+    private static class Devices<T> {
+        private final T[] devices;
+        private final long timestampInNS;
+        private final double[] firstRates;
+        private final double[] secondRates;
+
+        /**
+         * @param devices - the queried devices
+         * @param previous - the devices of an earlier query or null, if there is none
+         * @param name - returns the name of a device, which identifies it between two queries
+         * @param first - returns the first counter of a device
+         * @param second - returns the second counter of a device
+         */
+        private Devices(T[] devices, Devices<T> previous, Function<T, String> name, ToLongFunction<T> first,
+                ToLongFunction<T> second) {
+            this.devices = devices;
+            this.timestampInNS = System.nanoTime();
+            this.firstRates = nanArray(devices.length);
+            this.secondRates = nanArray(devices.length);
+            if (previous == null) {
+                return;
+            }
+            double seconds = (timestampInNS - previous.timestampInNS) / 1e9;
+            if (seconds <= 0) {
+                return;
+            }
+            // Devices are matched by name, as the order of the devices may change between two queries
+            for (int i = 0; i < devices.length; i++) {
+                for (T old : previous.devices) {
+                    if (name.apply(old).equals(name.apply(devices[i]))) {
+                        firstRates[i] = rate(first.applyAsLong(devices[i]), first.applyAsLong(old), seconds);
+                        secondRates[i] = rate(second.applyAsLong(devices[i]), second.applyAsLong(old), seconds);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private final HardwareAbstractionLayer hal;
+    private final OperatingSystem operatingSystem;
+
+    private final long timestampInNS;
+    private final long[] cpuTicks;
+    private final long memoryTotal;
+    private final long memoryAvailable;
+    private final long swapTotal;
+    private final long swapUsed;
+
+    // Derived from the previous snapshot, NaN if not available
+    private double cpuLoad = Double.NaN;
+
+    // The last networks and drives queried by an earlier snapshot, used to derive the rates
+    private Devices<NetworkIF> previousNetworks;
+    private Devices<HWDiskStore> previousDrives;
+
+    // Lazily queried
+    private OSFileStore[] fileStores;
+    private Devices<NetworkIF> networks;
+    private Devices<HWDiskStore> drives;
+    private PowerSource[] powerSources;
+    private volatile Integer threadCount;
+    private final Map<Integer, OSProcess> processes = new ConcurrentHashMap<>();
+
+    /**
+     * Queries the CPU ticks and the memory from OSHI
+     */
+    SystemSnapshot(HardwareAbstractionLayer hal, OperatingSystem operatingSystem) {
+        this.hal = hal;
+        this.operatingSystem = operatingSystem;
+        timestampInNS = System.nanoTime();
+
+        cpuTicks = hal.getProcessor().getSystemCpuLoadTicks();
+
+        GlobalMemory memory = hal.getMemory();
+        memoryTotal = memory.getTotal();
+        memoryAvailable = memory.getAvailable();
+        swapTotal = memory.getSwapTotal();
+        swapUsed = memory.getSwapUsed();
+    }
+
+    /**
+     * Computes the CPU load from the difference to the previous snapshot and keeps the last queried networks and
+     * drives for the rates.
+     *
+     * @param previous - the previous snapshot
+     */
+    synchronized void deriveFrom(SystemSnapshot previous) {
+        synchronized (previous) {
+            previousNetworks = previous.networks != null ? previous.networks : previous.previousNetworks;
+            previousDrives = previous.drives != null ? previous.drives : previous.previousDrives;
+        }
+
+        long totalTicks = 0;
+        for (int i = 0; i < cpuTicks.length && i < previous.cpuTicks.length; i++) {
+            totalTicks += cpuTicks[i] - previous.cpuTicks[i];
+        }
+        int idle = TickType.IDLE.getIndex();
+        int ioWait = TickType.IOWAIT.getIndex();
+        long idleTicks = cpuTicks[idle] - previous.cpuTicks[idle] + cpuTicks[ioWait] - previous.cpuTicks[ioWait];
+        if (totalTicks > 0) {
+            cpuLoad = 1 - (double) idleTicks / totalTicks;
+        }
+    }
+
+    /**
+     * Returns the age of the snapshot in milliseconds
+     */
+    long getAgeInMS() {
+        return (System.nanoTime() - timestampInNS) / 1000000;
+    }
+
+    /**
+     * Returns the CPU load since the previous snapshot as a fraction /0-1/ or NaN, if there is no previous snapshot
+     */
+    double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    long getMemoryTotal() {
+        return memoryTotal;
+    }
+
+    long getMemoryAvailable() {
+        return memoryAvailable;
+    }
+
+    long getSwapTotal() {
+        return swapTotal;
+    }
+
+    long getSwapUsed() {
+        return swapUsed;
+    }
+
+    /**
+     * Returns the file stores. They are queried on first access.
+     */
+    synchronized OSFileStore[] getFileStores() {
+        if (fileStores == null) {
+            // In the current OSHI version a new query is required for the data values to be updated
+            // In OSHI 4.0.0. it is planned to change this mechanism - see https://github.com/oshi/oshi/issues/310
+            fileStores = operatingSystem.getFileSystem().getFileStores();
+        }
+        return fileStores;
+    }
+
+    NetworkIF[] getNetworks() {
+        return getNetworkDevices().devices;
+    }
+
+    HWDiskStore[] getDrives() {
+        return getDriveDevices().devices;
+    }
+
+    /**
+     * Returns the batteries. They are queried on first access.
+     */
+    synchronized PowerSource[] getPowerSources() {
+        if (powerSources == null) {
+            powerSources = hal.getPowerSources();
+        }
+        return powerSources;
+    }
+
+    /**
+     * Returns the bytes per second sent by the network with this index or NaN, if no rate is available
+     */
+    double getNetworkSentRate(int index) {
+        return getNetworkDevices().firstRates[index];
+    }
+
+    /**
+     * Returns the bytes per second received by the network with this index or NaN, if no rate is available
+     */
+    double getNetworkReceivedRate(int index) {
+        return getNetworkDevices().secondRates[index];
+    }
+
+    /**
+     * Returns the bytes per second read from the drive with this index or NaN, if no rate is available
+     */
+    double getDriveReadRate(int index) {
+        return getDriveDevices().firstRates[index];
+    }
+
+    /**
+     * Returns the bytes per second written to the drive with this index or NaN, if no rate is available
+     */
+    double getDriveWriteRate(int index) {
+        return getDriveDevices().secondRates[index];
+    }
+
+    private synchronized Devices<NetworkIF> getNetworkDevices() {
+        if (networks == null) {
+            NetworkIF[] queried = hal.getNetworkIFs();
+            for (NetworkIF network : queried) {
+                network.updateNetworkStats();
+            }
+            networks = new Devices<>(queried, previousNetworks, NetworkIF::getName, NetworkIF::getBytesSent,
+                    NetworkIF::getBytesRecv);
+            previousNetworks = null;
+        }
+        return networks;
+    }
+
+    private synchronized Devices<HWDiskStore> getDriveDevices() {
+        if (drives == null) {
+            drives = new Devices<>(hal.getDiskStores(), previousDrives, HWDiskStore::getName,
+                    HWDiskStore::getReadBytes, HWDiskStore::getWriteBytes);
+            previousDrives = null;
+        }
+        return drives;
+    }
+
+    /**
+     * Returns the number of threads. It is queried on first access.
+     */
+    int getThreadCount() {
+        Integer count = threadCount;
+        if (count == null) {
+            count = operatingSystem.getThreadCount();
+            threadCount = count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the process with this PID. It is queried on first access, further accesses within the same snapshot
+     * return the same object.
+     *
+     * @return the process or null, if there is no process with this PID
+     */
+    OSProcess getProcess(int pid) {
+        OSProcess process = processes.get(pid);
+        if (process == null) {
+            process = operatingSystem.getProcess(pid);
+            if (process != null) {
+                processes.put(pid, process);
+            }
+        }
+        return process;
+    }
+
+    private static double rate(long current, long previous, double seconds) {
+        return current >= previous ? (current - previous) / seconds : Double.NaN;
+    }
+
+    private static double[] nanArray(int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+}
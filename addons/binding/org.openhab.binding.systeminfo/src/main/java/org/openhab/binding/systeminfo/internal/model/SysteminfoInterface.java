@@ -91,6 +91,20 @@ public interface SysteminfoInterface {
      */
     public DecimalType getCpuLoad15();
 
+    /**
+     * Returns the moving average of the CPU load over the last samples. A sample is taken on each refresh.
+     *
+     * @return the load as percentage value /0-100/ or null, if no samples are available yet
+     */
+    public DecimalType getCpuAverageLoad();
+
+    /**
+     * Returns the 95th percentile of the CPU load over the last samples. A sample is taken on each refresh.
+     *
+     * @return the load as percentage value /0-100/ or null, if no samples are available yet
+     */
+    public DecimalType getCpuPeakLoad();
+
     /**
      * Get the System uptime (time since boot).
      *
@@ -269,6 +283,24 @@ public interface SysteminfoInterface {
      */
     public StringType getDriveSerialNumber(int deviceIndex) throws DeviceNotFoundException;
 
+    /**
+     * Gets the data read from the physical storage drive per second since the previous refresh
+     *
+     * @param deviceIndex - index of the storage drive
+     * @return rate in kB/s or null, if no previous refresh is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getDriveReadRate(int deviceIndex) throws DeviceNotFoundException;
+
+    /**
+     * Gets the data written to the physical storage drive per second since the previous refresh
+     *
+     * @param deviceIndex - index of the storage drive
+     * @return rate in kB/s or null, if no previous refresh is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getDriveWriteRate(int deviceIndex) throws DeviceNotFoundException;
+
     // Network info
     /**
      * Get the Host IP address of the network.
@@ -335,6 +367,24 @@ public interface SysteminfoInterface {
      */
     public DecimalType getNetworkDataReceived(int networkIndex) throws DeviceNotFoundException;
 
+    /**
+     * Get data sent per second since the previous refresh for this network
+     *
+     * @param networkIndex - the index of the network
+     * @return rate in kB/s or null, if no previous refresh is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getNetworkDataSentRate(int networkIndex) throws DeviceNotFoundException;
+
+    /**
+     * Get data received per second since the previous refresh for this network
+     *
+     * @param networkIndex - the index of the network
+     * @return rate in kB/s or null, if no previous refresh is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getNetworkDataReceivedRate(int networkIndex) throws DeviceNotFoundException;
+
     // Display info
     /**
      * Get information about the display device as product number, manufacturer, serial number, width and height in cm";
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import org.eclipse.smarthome.test.java.JavaTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link TelemetryBuffer} with a stand-in {@link TelemetryTransport}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TelemetryBufferTest extends JavaTest {
+
+    private static final long NEVER = 600000;
+
+    private ScheduledExecutorService scheduler;
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Boolean>> completions = new CopyOnWriteArrayList<>();
+    private volatile boolean available = true;
+    private volatile boolean acknowledge = true;
+
+    private final TelemetryTransport transport = (deviceId, payload, completion) -> {
+        if (!acknowledge) {
+            completions.add(completion);
+            return;
+        }
+        if (available) {
+            sent.add(deviceId + ":" + payload);
+        }
+        completion.accept(available);
+    };
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testUpdatesAreSentByTheItemDevices() {
+        TelemetryBuffer buffer = new TelemetryBuffer(transport, scheduler, null, 0, 100, 1000);
+        buffer.offer("Item1", "ON");
+        buffer.offer("Item2", "12.5");
+
+        waitForAssert(() -> assertEquals(2, sent.size()));
+        assertEquals("Item1:{\"deviceId\":\"Item1\",\"value\":\"ON\"}", sent.get(0));
+        assertEquals("Item2:{\"deviceId\":\"Item2\",\"value\":\"12.5\"}", sent.get(1));
+        assertEquals(2, buffer.getSentMessages());
+    }
+
+    @Test
+    public void testUpdatesAreBatchedByTheGateway() {
+        TelemetryBuffer buffer = new TelemetryBuffer(transport, scheduler, "openhab", 50, 100, 150);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer("Item" + i, String.valueOf(i));
+        }
+
+        waitForAssert(() -> assertEquals(10, buffer.getSentDatapoints()));
+        for (String message : sent) {
+            assertTrue(message, message.startsWith("openhab:[{\"deviceId\":\"Item"));
+            assertTrue(message, message.length() - "openhab:".length() <= 150);
+        }
+        assertTrue(buffer.getSentMessages() > 1);
+        assertTrue(buffer.getSentMessages() < 10);
+    }
+
+    @Test
+    public void testFailedUpdatesAreRetried() {
+        available = false;
+        TelemetryBuffer buffer = new TelemetryBuffer(transport, scheduler, null, 0, 100, 1000);
+        buffer.offer("Item1", "1");
+
+        waitForAssert(() -> assertEquals(1, buffer.getFailedMessages()));
+        buffer.offer("Item1", "2");
+        available = true;
+
+        waitForAssert(() -> assertEquals(1, sent.size()));
+        assertEquals("Item1:{\"deviceId\":\"Item1\",\"value\":\"2\"}", sent.get(0));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testOnlyOneMessageIsSentAtATime() {
+        acknowledge = false;
+        TelemetryBuffer buffer = new TelemetryBuffer(transport, scheduler, null, 0, 100, 1000);
+        buffer.offer("Item1", "1");
+        buffer.offer("Item2", "1");
+
+        waitForAssert(() -> assertEquals(1, completions.size()));
+        buffer.offer("Item2", "2");
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.getCoalescedCount());
+
+        acknowledge = true;
+        completions.get(0).accept(true);
+        waitForAssert(() -> assertEquals(2, buffer.getSentMessages()));
+        assertEquals("Item2:{\"deviceId\":\"Item2\",\"value\":\"2\"}", sent.get(0));
+    }
+
+    @Test
+    public void testOldestUpdatesAreDroppedAndUnsentUpdatesAreSaved() throws IOException {
+        TelemetryBuffer buffer = new TelemetryBuffer(transport, scheduler, "openhab", NEVER, 3, 1000);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer("Item" + i, String.valueOf(i));
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getDroppedCount());
+
+        File file = File.createTempFile("azureiothub", ".json");
+        buffer.close();
+        buffer.save(file);
+
+        TelemetryBuffer restored = new TelemetryBuffer(transport, scheduler, "openhab", 0, 3, 1000);
+        restored.load(file);
+        assertFalse(file.exists());
+
+        waitForAssert(() -> assertEquals(3, restored.getSentDatapoints()));
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0), sent.get(0).contains("\"deviceId\":\"Item2\""));
+        assertFalse(sent.get(0), sent.get(0).contains("\"deviceId\":\"Item1\""));
+    }
+}
@@ -8,6 +8,8 @@
  */
 package org.openhab.io.internal.azureiothub;
 
+import java.util.function.Consumer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,10 +26,27 @@ import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
 public class AzureEventCallback implements IotHubEventCallback {
     private final Logger logger = LoggerFactory.getLogger(AzureEventCallback.class);
 
+    private final Consumer<Boolean> completion;
+
+    public AzureEventCallback() {
+        this(null);
+    }
+
+    /**
+     * @param completion to be called with true if the message has been accepted by the IoT Hub
+     */
+    public AzureEventCallback(Consumer<Boolean> completion) {
+        this.completion = completion;
+    }
+
     @Override
     public void execute(IotHubStatusCode status, Object context) {
         logger.debug("IoT Hub responded to message with status {}", status.name());
 
+        if (completion != null) {
+            completion.accept(status == IotHubStatusCode.OK || status == IotHubStatusCode.OK_EMPTY);
+        }
+
         if (context != null) {
             synchronized (context) {
                 context.notify();
@@ -8,24 +8,23 @@
  */
 package org.openhab.io.internal.azureiothub;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.time.Instant;
 import java.util.function.Consumer;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
 import org.eclipse.smarthome.core.library.types.StringType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.PartitionReceiver;
 import com.microsoft.azure.sdk.iot.device.Message;
-import com.microsoft.azure.sdk.iot.service.Device;
 import com.microsoft.azure.servicebus.ServiceBusException;
 
 /**
@@ -35,13 +34,14 @@ import com.microsoft.azure.servicebus.ServiceBusException;
  *
  * @author Niko Tanghe - Initial contribution
  * @author Kai Kreuzer - Code cleanup
+ * @author agent - Send telemetry through a retry buffer
  *
  */
 
 public class CloudClient {
 
-    private static final String DATAPOINT_VALUE = "value";
-    private static final String DATAPOINT_DEVICE_ID = "deviceId";
+    // the IoT Hub accepts messages up to 256 KB, leave room for the message properties
+    private static final int MAX_MESSAGE_SIZE = 255 * 1024;
 
     private final Logger logger = LoggerFactory.getLogger(CloudClient.class);
 
@@ -49,27 +49,44 @@ public class CloudClient {
     private boolean commandEnabled;
     private EventPublisher eventPublisher;
 
+    private File bufferFile;
+
     private AzureDevices azureDeviceStore;
     private EventHubClient azureClient;
-    private Object lockobj = new Object();
-    private Gson gson = new Gson();
+    private TelemetryBuffer buffer;
 
     /**
      * Constructor of CloudClient
      *
      * @param connectionstring the connectionstring to the Azure IoT Hub
      * @param eventPublisher
+     * @param gatewayId the id of the device on the Azure IoT Hub sending the item updates in batches, or null to send
+     *            the updates of every item by a device of its own
+     * @param batchInterval the time in milliseconds item updates are collected before they are sent in a batch
+     * @param bufferSize the maximum number of items with an update waiting to be sent
+     * @param bufferFile the file to keep unsent item updates in across restarts, or null
      * @throws IOException
      * @throws ServiceBusException
      *
      */
-    public CloudClient(String connectionstring, boolean commandEnabled, EventPublisher eventPublisher)
+    public CloudClient(String connectionstring, boolean commandEnabled, EventPublisher eventPublisher,
+            String gatewayId, long batchInterval, int bufferSize, File bufferFile)
             throws IOException, ServiceBusException {
         this.connectionstring = connectionstring;
         this.commandEnabled = commandEnabled;
         this.eventPublisher = eventPublisher;
+        this.bufferFile = bufferFile;
 
         azureDeviceStore = new AzureDevices(this.connectionstring);
+        buffer = new TelemetryBuffer(this::send, ThreadPoolManager.getScheduledPool("azureiothub"), gatewayId,
+                gatewayId == null ? 0 : batchInterval, bufferSize, MAX_MESSAGE_SIZE);
+        if (bufferFile != null) {
+            try {
+                buffer.load(bufferFile);
+            } catch (IOException e) {
+                logger.warn("Failed to load unsent item updates: {}", e.getMessage());
+            }
+        }
 
         if (this.commandEnabled) {
             azureClient = receiveMessages("0");
@@ -77,44 +94,37 @@ public class CloudClient {
     }
 
     public void sendItemUpdate(String deviceId, String state) {
+        buffer.offer(deviceId, state);
+    }
+
+    private void send(String deviceId, String payload, Consumer<Boolean> completion) {
         AzureDevice device;
         try {
             device = azureDeviceStore.getDevice(deviceId);
         } catch (Exception e) {
-            logger.error("Failed to obtain azure device", e);
+            logger.debug("Failed to obtain azure device {}: {}", deviceId, e.getMessage());
+            completion.accept(false);
             return;
         }
 
-        setItemState(device, state);
-    }
-
-    private void setItemState(AzureDevice azureDevice, String state) {
-        AzureEventCallback callback = new AzureEventCallback();
-
-        Device device = azureDevice.getDevice();
-        if (device == null) {
+        if (device.getDevice() == null) {
             logger.error("Invalid device connection for device, can not send item state update");
+            completion.accept(false);
             return;
         }
 
-        JsonObject datapoint = new JsonObject();
-        datapoint.addProperty(DATAPOINT_DEVICE_ID, device.getDeviceId());
-        datapoint.addProperty(DATAPOINT_VALUE, state);
-
-        Message msg = new Message(gson.toJson(datapoint));
-
-        azureDevice.sendMessage(msg, callback, lockobj);
+        device.sendMessage(new Message(payload), new AzureEventCallback(completion), null);
+    }
 
-        synchronized (lockobj) {
+    public void shutdown() {
+        buffer.close();
+        if (bufferFile != null) {
             try {
-                lockobj.wait();
-            } catch (InterruptedException e) {
-                // done
+                buffer.save(bufferFile);
+            } catch (IOException e) {
+                logger.warn("Failed to save unsent item updates: {}", e.getMessage());
             }
         }
-    }
-
-    public void shutdown() {
         if (azureClient != null) {
             try {
                 azureClient.closeSync();
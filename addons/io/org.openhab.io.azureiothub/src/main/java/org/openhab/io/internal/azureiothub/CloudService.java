@@ -8,10 +8,12 @@
  */
 package org.openhab.io.internal.azureiothub;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
@@ -30,6 +32,7 @@ import org.slf4j.LoggerFactory;
  * This class starts the cloud connection service and implements interface to communicate with the cloud.
  *
  * @author Niko Tanghe - Initial contribution
+ * @author agent - Item filter and gateway batching
  *
  */
 @Component(immediate = true, configurationPid = "org.openhab.azureiothub", property = {
@@ -39,11 +42,20 @@ public class CloudService implements EventSubscriber {
 
     private static final String CFG_MODE = "mode";
     private static final String CFG_CONNECTIONSTRING = "connectionstring";
+    private static final String CFG_ITEMS = "items";
+    private static final String CFG_DEVICEID = "deviceid";
+    private static final String CFG_BATCHINTERVAL = "batchinterval";
+    private static final String CFG_BUFFERSIZE = "buffersize";
+    private static final String CFG_PERSISTBUFFER = "persistbuffer";
+
+    private static final long DEFAULT_BATCHINTERVAL = 1000;
+    private static final int DEFAULT_BUFFERSIZE = 1000;
 
     private Logger logger = LoggerFactory.getLogger(CloudService.class);
 
     public static String clientVersion;
     private CloudClient cloudClient;
+    private ItemFilter itemFilter;
 
     protected ItemRegistry itemRegistry;
     protected EventPublisher eventPublisher;
@@ -55,7 +67,10 @@ public class CloudService implements EventSubscriber {
 
     @Override
     public EventFilter getEventFilter() {
-        return null;
+        return event -> {
+            ItemFilter filter = itemFilter;
+            return filter == null || filter.isAllowed(((ItemStateEvent) event).getItemName());
+        };
     }
 
     @Reference
@@ -100,9 +115,28 @@ public class CloudService implements EventSubscriber {
             logger.debug("remoteAccessEnabled is not set, keeping value '{}'", commandEnabled);
         }
 
+        String gatewayId = null;
+        Object deviceId = config.get(CFG_DEVICEID);
+        if (deviceId != null && !deviceId.toString().trim().isEmpty()) {
+            gatewayId = deviceId.toString().trim();
+        }
+        long batchInterval = getNumber(config, CFG_BATCHINTERVAL, DEFAULT_BATCHINTERVAL);
+        int bufferSize = (int) Math.max(1, getNumber(config, CFG_BUFFERSIZE, DEFAULT_BUFFERSIZE));
+        File bufferFile = null;
+        if (Boolean.parseBoolean(String.valueOf(config.get(CFG_PERSISTBUFFER)))) {
+            bufferFile = new File(ConfigConstants.getUserDataFolder(), "azureiothub" + File.separator + "buffer.json");
+        }
+
+        Object items = config.get(CFG_ITEMS);
+        itemFilter = new ItemFilter(items == null ? null : items.toString(), itemRegistry);
+        if (!itemFilter.allowsAll() && itemRegistry != null) {
+            itemRegistry.addRegistryChangeListener(itemFilter);
+        }
+
         if (connectionstring != null && !connectionstring.isEmpty()) {
             try {
-                cloudClient = new CloudClient(connectionstring, commandEnabled, eventPublisher);
+                cloudClient = new CloudClient(connectionstring, commandEnabled, eventPublisher, gatewayId,
+                        batchInterval, bufferSize, bufferFile);
                 logger.debug("Azure IoT Hub connector activated");
             } catch (Exception e) {
                 logger.error("Failed to setup Azure IoT Hub client");
@@ -115,8 +149,27 @@ public class CloudService implements EventSubscriber {
     @Deactivate
     protected void deactivate() {
         logger.debug("Azure IoT Hub connector deactivated");
+        if (itemFilter != null && itemRegistry != null) {
+            itemRegistry.removeRegistryChangeListener(itemFilter);
+        }
         if (cloudClient != null) {
             cloudClient.shutdown();
+            cloudClient = null;
+        }
+    }
+
+    private long getNumber(Map<String, ?> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultValue);
+            }
         }
+        return defaultValue;
     }
 }
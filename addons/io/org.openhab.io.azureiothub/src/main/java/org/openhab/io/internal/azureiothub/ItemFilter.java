@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+
+/**
+ * The allow-list of items whose updates are sent to the Azure IoT Hub.
+ *
+ * The list contains item names, group names (allowing all direct and indirect members of the group) and name
+ * prefixes ending with '*'. An empty list allows all items. The decision for an item is cached until the item
+ * registry changes.
+ *
+ * @author agent - Initial contribution
+ */
+public class ItemFilter implements ItemRegistryChangeListener {
+
+    private static final char WILDCARD = '*';
+
+    private final ItemRegistry itemRegistry;
+
+    private final Set<String> names = new HashSet<>();
+    private final List<String> prefixes = new ArrayList<>();
+
+    private final Map<String, Boolean> allowed = new ConcurrentHashMap<>();
+
+    /**
+     * @param allowList comma separated item names, group names and name prefixes, may be null or empty
+     * @param itemRegistry the item registry to resolve the groups of items
+     */
+    public ItemFilter(String allowList, ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+        if (allowList != null) {
+            for (String entry : allowList.split(",")) {
+                String name = entry.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (name.charAt(name.length() - 1) == WILDCARD) {
+                    prefixes.add(name.substring(0, name.length() - 1));
+                } else {
+                    names.add(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if all items are allowed
+     */
+    public boolean allowsAll() {
+        return names.isEmpty() && prefixes.isEmpty();
+    }
+
+    /**
+     * @param itemName the name of the item
+     * @return true if updates of the item are to be sent
+     */
+    public boolean isAllowed(String itemName) {
+        if (allowsAll()) {
+            return true;
+        }
+        Boolean result = allowed.get(itemName);
+        if (result == null) {
+            result = resolve(itemName);
+            allowed.put(itemName, result);
+        }
+        return result;
+    }
+
+    private boolean resolve(String itemName) {
+        if (matches(itemName)) {
+            return true;
+        }
+        if (itemRegistry == null) {
+            return false;
+        }
+        // walk up the groups of the item
+        Set<String> visited = new HashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>();
+        toVisit.push(itemName);
+        while (!toVisit.isEmpty()) {
+            Item item = itemRegistry.get(toVisit.pop());
+            if (item == null) {
+                continue;
+            }
+            for (String groupName : item.getGroupNames()) {
+                if (matches(groupName)) {
+                    return true;
+                }
+                if (visited.add(groupName)) {
+                    toVisit.push(groupName);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String name) {
+        if (names.contains(name)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void added(Item element) {
+        allowed.clear();
+    }
+
+    @Override
+    public void removed(Item element) {
+        allowed.clear();
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        allowed.clear();
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        allowed.clear();
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+/**
+ * Buffers item updates and sends them through a {@link TelemetryTransport}.
+ *
+ * Without a gateway device, every update is sent in its own message by the device of the item. With a gateway
+ * device, the waiting updates are packed into messages (JSON arrays of datapoints) of at most the given size, which
+ * are sent by the gateway device.
+ *
+ * Updates are coalesced per item, only the latest state of an item is sent. Only one message is sent at a time,
+ * updates arriving meanwhile wait for the next message. If a message fails, its datapoints are put back in front of
+ * the waiting ones and sending is retried with an increasing delay. The number of waiting items is bounded, the
+ * oldest updates are dropped if it is exceeded while the hub is unreachable.
+ *
+ * @author agent - Initial contribution
+ */
+public class TelemetryBuffer {
+
+    private static final long MIN_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+    private static final long SEND_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String DATAPOINT_VALUE = "value";
+    private static final String DATAPOINT_DEVICE_ID = "deviceId";
+
+    private final Logger logger = LoggerFactory.getLogger(TelemetryBuffer.class);
+
+    private final Gson gson = new Gson();
+
+    private final TelemetryTransport transport;
+    private final ScheduledExecutorService scheduler;
+    private final String gatewayId;
+    private final long batchDelay;
+    private final int capacity;
+    private final int maxMessageSize;
+
+    // all following fields are guarded by this
+    private LinkedHashMap<String, Datapoint> pending = new LinkedHashMap<>();
+    private List<Datapoint> inFlight;
+    private long inFlightId;
+    private ScheduledFuture<?> timeout;
+    private boolean scheduled;
+    private long retryDelay;
+    private boolean closed;
+
+    private long sentMessages;
+    private long sentDatapoints;
+    private long coalescedCount;
+    private long droppedCount;
+    private long failedMessages;
+
+    /**
+     * A single item update, serialized as element of the message payload
+     */
+    static class Datapoint {
+        private final String deviceId;
+        private final String value;
+        private final long timestamp;
+
+        Datapoint(String deviceId, String value, long timestamp) {
+            this.deviceId = deviceId;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * @param transport the transport to send the messages with
+     * @param scheduler the scheduler to send the messages on
+     * @param gatewayId the device sending all updates in batches, or null to send every update by its item's device
+     * @param batchDelay the time in milliseconds updates are collected before a message is sent
+     * @param capacity the maximum number of items with a waiting update
+     * @param maxMessageSize the maximum size of a message payload in bytes
+     */
+    public TelemetryBuffer(TelemetryTransport transport, ScheduledExecutorService scheduler, String gatewayId,
+            long batchDelay, int capacity, int maxMessageSize) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.gatewayId = gatewayId;
+        this.batchDelay = batchDelay;
+        this.capacity = capacity;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Adds the update of an item, replacing a waiting update of the same item
+     *
+     * @param itemName the name of the item
+     * @param state the new state of the item
+     */
+    public void offer(String itemName, String state) {
+        offer(new Datapoint(itemName, state, System.currentTimeMillis()));
+    }
+
+    private synchronized void offer(Datapoint datapoint) {
+        if (closed) {
+            return;
+        }
+        if (pending.put(datapoint.deviceId, datapoint) != null) {
+            coalescedCount++;
+        } else {
+            trim();
+        }
+        if (inFlight == null && retryDelay == 0) {
+            schedule(batchDelay);
+        }
+    }
+
+    // drops the oldest updates exceeding the capacity
+    private void trim() {
+        Iterator<String> oldest = pending.keySet().iterator();
+        while (pending.size() > capacity) {
+            oldest.next();
+            oldest.remove();
+            droppedCount++;
+            if (droppedCount % 1000 == 1) {
+                logger.warn("Azure IoT Hub is not keeping up, {} item updates have been dropped", droppedCount);
+            }
+        }
+    }
+
+    private void schedule(long delay) {
+        if (scheduled || closed) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+            scheduled = true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Could not schedule sending of item updates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the next message, if none is being sent
+     */
+    void flush() {
+        List<Datapoint> batch = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        String deviceId;
+        long id;
+        synchronized (this) {
+            scheduled = false;
+            if (closed || inFlight != null || pending.isEmpty()) {
+                return;
+            }
+            if (gatewayId == null) {
+                Iterator<Datapoint> iterator = pending.values().iterator();
+                Datapoint datapoint = iterator.next();
+                iterator.remove();
+                batch.add(datapoint);
+                deviceId = datapoint.deviceId;
+                payload.append(toItemMessage(datapoint));
+            } else {
+                deviceId = gatewayId;
+                appendBatch(batch, payload);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            inFlight = batch;
+            id = ++inFlightId;
+            try {
+                timeout = scheduler.schedule(() -> completed(id, false), SEND_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                timeout = null;
+            }
+        }
+        logger.trace("Sending {} item updates in {} bytes", batch.size(), payload.length());
+        try {
+            transport.send(deviceId, payload.toString(), success -> completed(id, success));
+        } catch (RuntimeException e) {
+            logger.debug("Failed to send item updates: {}", e.getMessage());
+            completed(id, false);
+        }
+    }
+
+    // the message of a single item, sent by the device of the item
+    private String toItemMessage(Datapoint datapoint) {
+        JsonObject message = new JsonObject();
+        message.addProperty(DATAPOINT_DEVICE_ID, datapoint.deviceId);
+        message.addProperty(DATAPOINT_VALUE, datapoint.value);
+        return gson.toJson(message);
+    }
+
+    // moves as many waiting updates to the batch as fit into a message, the payload is a JSON array of them
+    private void appendBatch(List<Datapoint> batch, StringBuilder payload) {
+        payload.append('[');
+        // the brackets of the array
+        int size = 2;
+        Iterator<Datapoint> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Datapoint datapoint = iterator.next();
+            String json = gson.toJson(datapoint);
+            int length = json.getBytes(StandardCharsets.UTF_8).length + (batch.isEmpty() ? 0 : 1);
+            if (size + length > maxMessageSize) {
+                if (!batch.isEmpty()) {
+                    break;
+                }
+                logger.warn("Dropping update of item {}, it exceeds the maximum message size", datapoint.deviceId);
+                iterator.remove();
+                droppedCount++;
+                continue;
+            }
+            if (!batch.isEmpty()) {
+                payload.append(',');
+            }
+            payload.append(json);
+            size += length;
+            batch.add(datapoint);
+            iterator.remove();
+        }
+        payload.append(']');
+    }
+
+    private synchronized void completed(long id, boolean success) {
+        if (inFlight == null || id != inFlightId) {
+            // already completed or timed out
+            return;
+        }
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+        List<Datapoint> batch = inFlight;
+        inFlight = null;
+        if (success) {
+            if (retryDelay > 0) {
+                logger.info("Azure IoT Hub is reachable again");
+            }
+            retryDelay = 0;
+            sentMessages++;
+            sentDatapoints += batch.size();
+            if (sentMessages % 1000 == 0) {
+                logger.debug("Sent {} item updates in {} messages, coalesced {}, dropped {}, failed messages {}",
+                        sentDatapoints, sentMessages, coalescedCount, droppedCount, failedMessages);
+            }
+            if (!pending.isEmpty()) {
+                schedule(0);
+            }
+            return;
+        }
+
+        failedMessages++;
+        if (retryDelay == 0) {
+            logger.warn("Failed to send item updates to the Azure IoT Hub, retrying");
+            retryDelay = MIN_RETRY_DELAY;
+        } else {
+            logger.debug("Failed to send item updates to the Azure IoT Hub, retrying in {} ms", retryDelay);
+            retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+        }
+        // put the failed updates back in front, unless a newer update of the item is waiting
+        LinkedHashMap<String, Datapoint> requeued = new LinkedHashMap<>();
+        for (Datapoint datapoint : batch) {
+            requeued.put(datapoint.deviceId, datapoint);
+        }
+        requeued.putAll(pending);
+        pending = requeued;
+        trim();
+        schedule(retryDelay);
+    }
+
+    /**
+     * Stops sending, waiting and unsent updates are kept for {@link #save(File)}
+     */
+    public synchronized void close() {
+        closed = true;
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+    }
+
+    /**
+     * Writes the waiting and unconfirmed updates to a file
+     *
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void save(File file) throws IOException {
+        List<Datapoint> datapoints = new ArrayList<>();
+        synchronized (this) {
+            if (inFlight != null) {
+                datapoints.addAll(inFlight);
+            }
+            datapoints.addAll(pending.values());
+        }
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), gson.toJson(datapoints).getBytes(StandardCharsets.UTF_8));
+        logger.debug("Saved {} unsent item updates to {}", datapoints.size(), file);
+    }
+
+    /**
+     * Adds the updates previously saved to a file, then deletes the file
+     *
+     * @param file the file to read from
+     * @throws IOException if the file could not be read
+     */
+    public void load(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            Datapoint[] datapoints = gson.fromJson(json, Datapoint[].class);
+            if (datapoints != null) {
+                for (Datapoint datapoint : datapoints) {
+                    if (datapoint != null && datapoint.deviceId != null) {
+                        offer(datapoint);
+                    }
+                }
+                logger.debug("Loaded {} unsent item updates from {}", datapoints.length, file);
+            }
+        } catch (JsonParseException e) {
+            logger.warn("Ignoring unreadable unsent item updates in {}: {}", file, e.getMessage());
+        }
+        Files.delete(file.toPath());
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long getSentMessages() {
+        return sentMessages;
+    }
+
+    public synchronized long getSentDatapoints() {
+        return sentDatapoints;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getFailedMessages() {
+        return failedMessages;
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import java.util.function.Consumer;
+
+/**
+ * Sends telemetry messages to the cloud for the {@link TelemetryBuffer}.
+ *
+ * @author agent - Initial contribution
+ */
+@FunctionalInterface
+public interface TelemetryTransport {
+
+    /**
+     * Sends a message asynchronously
+     *
+     * @param deviceId the id of the device on the IoT Hub sending the message
+     * @param payload the JSON payload of the message
+     * @param completion to be called once with true if the message has been accepted, false if it has to be retried
+     */
+    void send(String deviceId, String payload, Consumer<Boolean> completion);
+}
@@ -8,9 +8,15 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
@@ -26,31 +32,61 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Homekit clients are notified off the event thread. Changes of a characteristic within the notification window
+ * are coalesced into a single notification, and the notifications of an accessory are sent at most once per
+ * minimum notification interval, together with those of its other characteristics which have changed meanwhile.
+ *
  * @author Andy Lintner
+ * @author agent - Coalesce change notifications
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREADPOOL_NAME = "homekit";
+
+    private static final int STATISTICS_INTERVAL = 1000;
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, AccessoryNotifier> notifiersByAccessory = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile HomekitSettings settings;
+
+    private long notificationCount;
+    private long coalescedCount;
+    private long totalLatency;
+    private long maxLatency;
+
+    public HomekitAccessoryUpdater() {
+        this(ThreadPoolManager.getScheduledPool(THREADPOOL_NAME));
+    }
+
+    HomekitAccessoryUpdater(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
 
-    public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
-        subscribe(item, null, callback);
+    public void setSettings(HomekitSettings settings) {
+        this.settings = settings;
     }
 
-    public void subscribe(GenericItem item, String key, HomekitCharacteristicChangeCallback callback) {
+    public void subscribe(int accessoryId, GenericItem item, HomekitCharacteristicChangeCallback callback) {
+        subscribe(accessoryId, item, null, callback);
+    }
+
+    public void subscribe(int accessoryId, GenericItem item, String key,
+            HomekitCharacteristicChangeCallback callback) {
         if (item == null) {
             return;
         }
         ItemKey itemKey = new ItemKey(item, key);
-        if (subscriptionsByName.containsKey(itemKey)) {
-            logger.error("Received duplicate subscription on {}", item.getName());
-        }
         subscriptionsByName.compute(itemKey, (k, v) -> {
             if (v != null) {
                 logger.error("Received duplicate subscription on {}", item.getName());
-                unsubscribe(item, key);
+                item.removeStateChangeListener(v);
+                v.cancel();
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
+            AccessoryNotifier notifier = notifiersByAccessory.compute(accessoryId,
+                    (id, n) -> n != null ? n.retain() : new AccessoryNotifier(id));
+            Subscription subscription = new Subscription(notifier, callback);
             item.addStateChangeListener(subscription);
             return subscription;
         });
@@ -66,20 +102,200 @@ public class HomekitAccessoryUpdater {
         }
         subscriptionsByName.computeIfPresent(new ItemKey(item, key), (k, v) -> {
             item.removeStateChangeListener(v);
+            v.cancel();
             return null;
         });
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    public synchronized long getNotificationCount() {
+        return notificationCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * @return the average time in milliseconds from the first change of a characteristic to its notification
+     */
+    public synchronized double getAverageLatency() {
+        return notificationCount > 0 ? totalLatency / 1e6 / notificationCount : 0;
+    }
+
+    /**
+     * @return the maximum time in milliseconds from the first change of a characteristic to its notification
+     */
+    public synchronized double getMaximumLatency() {
+        return maxLatency / 1e6;
+    }
+
+    private synchronized void coalesced() {
+        coalescedCount++;
+    }
+
+    private synchronized void notified(long latency) {
+        notificationCount++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+        if (notificationCount % STATISTICS_INTERVAL == 0) {
+            logger.debug("Sent {} notifications, coalesced {} changes, latency average {} ms, maximum {} ms",
+                    notificationCount, coalescedCount, String.format("%.1f", totalLatency / 1e6 / notificationCount),
+                    String.format("%.1f", maxLatency / 1e6));
+        }
+    }
+
+    /**
+     * Listens to an item and notifies the Homekit clients of its changes through the notifier of its accessory
+     */
+    private class Subscription implements StateChangeListener {
+        private final AccessoryNotifier notifier;
+        private final HomekitCharacteristicChangeCallback callback;
+
+        // guarded by the notifier
+        private boolean pending = false;
+        private boolean cancelled = false;
+        private long firstChange;
+
+        private Subscription(AccessoryNotifier notifier, HomekitCharacteristicChangeCallback callback) {
+            this.notifier = notifier;
+            this.callback = callback;
+        }
 
         @Override
-        void stateChanged(Item item, State oldState, State newState);
+        public void stateChanged(Item item, State oldState, State newState) {
+            notifier.changed(this);
+        }
 
         @Override
-        default void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
+
+        private void cancel() {
+            notifier.cancel(this);
+            notifiersByAccessory.computeIfPresent(notifier.accessoryId, (id, n) -> n.release() ? null : n);
+        }
+    }
+
+    /**
+     * Collects the changed characteristics of an accessory and notifies them together, at most once per minimum
+     * notification interval
+     */
+    private class AccessoryNotifier implements Runnable {
+        private final int accessoryId;
+
+        // guarded by this
+        private Set<Subscription> pending = new LinkedHashSet<>();
+        private boolean scheduled = false;
+        private long lastNotification;
+        private int subscriptionCount = 1;
+
+        private AccessoryNotifier(int accessoryId) {
+            this.accessoryId = accessoryId;
+            this.lastNotification = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        }
+
+        // called within the compute of notifiersByAccessory
+        private AccessoryNotifier retain() {
+            synchronized (this) {
+                subscriptionCount++;
+            }
+            return this;
+        }
+
+        // called within the compute of notifiersByAccessory
+        private boolean release() {
+            synchronized (this) {
+                return --subscriptionCount == 0;
+            }
+        }
+
+        private void changed(Subscription subscription) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                if (subscription.cancelled) {
+                    return;
+                }
+                if (subscription.pending) {
+                    coalesced();
+                    return;
+                }
+                subscription.pending = true;
+                subscription.firstChange = now;
+                pending.add(subscription);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            schedule(now);
+        }
+
+        private synchronized void cancel(Subscription subscription) {
+            subscription.cancelled = true;
+            if (subscription.pending) {
+                subscription.pending = false;
+                pending.remove(subscription);
+            }
+        }
+
+        private void schedule(long now) {
+            HomekitSettings settings = HomekitAccessoryUpdater.this.settings;
+            long window = TimeUnit.MILLISECONDS.toNanos(settings != null ? settings.getNotificationWindow() : 0);
+            long interval = TimeUnit.MILLISECONDS
+                    .toNanos(settings != null ? settings.getMinimumNotificationInterval() : 0);
+            long delay;
+            synchronized (this) {
+                delay = Math.max(window, lastNotification + interval - now);
+            }
+            try {
+                scheduler.schedule(this, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Could not schedule notification of accessory {}: {}", accessoryId, e.getMessage());
+                synchronized (this) {
+                    for (Subscription subscription : pending) {
+                        subscription.pending = false;
+                    }
+                    pending = new LinkedHashSet<>();
+                    scheduled = false;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Set<Subscription> notified;
+            long[] latencies;
+            long now = System.nanoTime();
+            synchronized (this) {
+                notified = pending;
+                pending = new LinkedHashSet<>();
+                latencies = new long[notified.size()];
+                int i = 0;
+                for (Subscription subscription : notified) {
+                    subscription.pending = false;
+                    latencies[i++] = now - subscription.firstChange;
+                }
+                lastNotification = now;
+            }
+            int i = 0;
+            for (Subscription subscription : notified) {
+                try {
+                    subscription.callback.changed();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not notify change of accessory {}: {}", accessoryId, e.getMessage(), e);
+                }
+                notified(latencies[i++]);
+            }
+            boolean reschedule;
+            synchronized (this) {
+                reschedule = !pending.isEmpty();
+                scheduled = reschedule;
+            }
+            if (reschedule) {
+                schedule(System.nanoTime());
+            }
+        }
     }
 
     private static class ItemKey {
@@ -81,10 +81,12 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setUpdater(HomekitAccessoryUpdater updater) {
         this.updater = updater;
+        updater.setSettings(settings);
     }
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setSettings(settings);
     }
 
     public void stop() {
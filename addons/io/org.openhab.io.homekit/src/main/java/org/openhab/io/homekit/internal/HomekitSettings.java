@@ -39,6 +39,8 @@ public class HomekitSettings {
     private String thermostatAutoMode = "Auto";
     private String thermostatOffMode = "Off";
     private InetAddress networkInterface;
+    private int notificationWindow = 100;
+    private int minimumNotificationInterval = 250;
 
     private final Logger logger = LoggerFactory.getLogger(HomekitSettings.class);
 
@@ -74,6 +76,15 @@ public class HomekitSettings {
         if (maximumTemperature != null) {
             this.maximumTemperature = Double.parseDouble(maximumTemperature.toString());
         }
+        Object notificationWindow = properties.get("notificationWindow");
+        if (notificationWindow != null) {
+            this.notificationWindow = Math.max(0, Integer.parseInt(notificationWindow.toString()));
+        }
+        Object minimumNotificationInterval = properties.get("minimumNotificationInterval");
+        if (minimumNotificationInterval != null) {
+            this.minimumNotificationInterval = Math.max(0,
+                    Integer.parseInt(minimumNotificationInterval.toString()));
+        }
         this.thermostatHeatMode = (String) properties.get("thermostatHeatMode");
         this.thermostatCoolMode = (String) properties.get("thermostatCoolMode");
         this.thermostatAutoMode = (String) properties.get("thermostatAutoMode");
@@ -132,6 +143,20 @@ public class HomekitSettings {
         return minimumTemperature;
     }
 
+    /**
+     * @return the time in milliseconds during which changes of a characteristic are collected into one notification
+     */
+    public int getNotificationWindow() {
+        return notificationWindow;
+    }
+
+    /**
+     * @return the minimum time in milliseconds between two notifications of the same accessory
+     */
+    public int getMinimumNotificationInterval() {
+        return minimumNotificationInterval;
+    }
+
     public String getThermostatHeatMode() {
         return thermostatHeatMode;
     }
@@ -58,7 +58,7 @@ class HomekitDimmableLightbulbImpl extends AbstractHomekitLightbulbImpl<DimmerIt
 
     @Override
     public void subscribeBrightness(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), "brightness", callback);
+        getUpdater().subscribe(getId(), getItem(), "brightness", callback);
     }
 
     @Override
@@ -41,7 +41,7 @@ public class HomekitHumiditySensorImpl extends AbstractHomekitAccessoryImpl<Numb
 
     @Override
     public void subscribeCurrentRelativeHumidity(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), callback);
+        getUpdater().subscribe(getId(), getItem(), callback);
     }
 
     @Override
@@ -51,7 +51,7 @@ public class HomekitSwitchImpl extends AbstractHomekitAccessoryImpl<SwitchItem>i
 
     @Override
     public void subscribeSwitchState(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), callback);
+        getUpdater().subscribe(getId(), getItem(), callback);
     }
 
     @Override
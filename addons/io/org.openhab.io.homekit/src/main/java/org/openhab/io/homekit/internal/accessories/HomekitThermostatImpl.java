@@ -186,22 +186,22 @@ class HomekitThermostatImpl extends AbstractTemperatureHomekitAccessoryImpl<Grou
 
     @Override
     public void subscribeCurrentMode(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getGenericItem(heatingCoolingModeItemName), callback);
+        getUpdater().subscribe(getId(), getGenericItem(heatingCoolingModeItemName), callback);
     }
 
     @Override
     public void subscribeCurrentTemperature(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getGenericItem(currentTemperatureItemName), callback);
+        getUpdater().subscribe(getId(), getGenericItem(currentTemperatureItemName), callback);
     }
 
     @Override
     public void subscribeTargetMode(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getGenericItem(heatingCoolingModeItemName), callback);
+        getUpdater().subscribe(getId(), getGenericItem(heatingCoolingModeItemName), callback);
     }
 
     @Override
     public void subscribeTargetTemperature(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getGenericItem(targetTemperatureItemName), callback);
+        getUpdater().subscribe(getId(), getGenericItem(targetTemperatureItemName), callback);
     }
 
     @Override
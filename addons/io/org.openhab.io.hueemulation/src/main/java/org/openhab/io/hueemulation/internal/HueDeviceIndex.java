@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Index of the items exposed as Hue devices, maintained from item registry events.
+ *
+ * Hue devices are assigned a numeric id starting with 1, the ids are persisted so that devices keep their id. The
+ * JSON of a device is cached until the state of its item changes. Changes of the ids are persisted asynchronously,
+ * changes happening in the meantime are written together.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(HueDeviceIndex.class);
+
+    private static final Set<String> SUPPORTED_TAGS = new HashSet<>(Arrays.asList("Switchable", "Lighting"));
+
+    private static final long PERSIST_DELAY = 1000;
+
+    /**
+     * the JSON of a device and the item state it was created for
+     */
+    private static class Rendering {
+        private final State state;
+        private final String json;
+
+        private Rendering(State state, String json) {
+            this.state = state;
+            this.json = json;
+        }
+    }
+
+    /**
+     * an exposed item, with the JSON of its device for the latest state it was requested for
+     */
+    private static class Light {
+        private final Item item;
+        private volatile Rendering rendering;
+
+        private Light(Item item) {
+            this.item = item;
+        }
+    }
+
+    private final Gson gson;
+    private final File itemFile;
+    private final ScheduledExecutorService scheduler;
+
+    // maps a Hue numeric id to an item name, ordered by that id, guarded by this
+    private final TreeMap<Integer, String> deviceMap = new TreeMap<>();
+    private final Map<String, Integer> deviceIds = new HashMap<>();
+
+    // the exposed items by Hue id
+    private final ConcurrentSkipListMap<Integer, Light> lights = new ConcurrentSkipListMap<>();
+
+    private final Object persistLock = new Object();
+
+    private volatile ItemRegistry itemRegistry;
+
+    private boolean persistScheduled;
+
+    // ids of items removed while the registry was not indexed may be left over until the lights are listed
+    private volatile boolean pruneNeeded;
+
+    /**
+     * @param gson the Gson instance to serialize devices with
+     * @param itemFile the file the ids are persisted in
+     * @param scheduler the scheduler to persist the ids with
+     */
+    public HueDeviceIndex(Gson gson, File itemFile, ScheduledExecutorService scheduler) {
+        this.gson = gson;
+        this.itemFile = itemFile;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Loads the persisted ids
+     */
+    public synchronized void load() throws IOException {
+        if (!itemFile.exists()) {
+            return;
+        }
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new FileReader(itemFile));
+            Map<Integer, String> tmpMap = gson.fromJson(reader, new TypeToken<Map<Integer, String>>() {
+            }.getType());
+            if (tmpMap != null) {
+                for (Map.Entry<Integer, String> entry : tmpMap.entrySet()) {
+                    deviceMap.put(entry.getKey(), entry.getValue());
+                    deviceIds.put(entry.getValue(), entry.getKey());
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Starts indexing the items of the given registry. Ids of items which are not in the registry are kept until the
+     * lights are listed the next time, as the items may not be loaded yet.
+     */
+    public void setItemRegistry(ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+        itemRegistry.addRegistryChangeListener(this);
+        rebuild(itemRegistry.getItems());
+        pruneNeeded = true;
+    }
+
+    /**
+     * Stops indexing the items of the given registry
+     */
+    public synchronized void unsetItemRegistry(ItemRegistry itemRegistry) {
+        itemRegistry.removeRegistryChangeListener(this);
+        this.itemRegistry = null;
+        pruneNeeded = false;
+        lights.clear();
+    }
+
+    private synchronized void rebuild(Collection<Item> items) {
+        // the index stays complete while it is rebuilt
+        Set<Integer> ids = new HashSet<>();
+        for (Item item : items) {
+            Integer id = add(item);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        lights.keySet().retainAll(ids);
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        add(item);
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        Integer id = deviceIds.remove(item.getName());
+        if (id != null) {
+            deviceMap.remove(id);
+            lights.remove(id);
+            schedulePersist();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        if (isExposed(item)) {
+            add(item);
+        } else {
+            removed(item);
+        }
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        ItemRegistry itemRegistry = this.itemRegistry;
+        if (itemRegistry != null) {
+            rebuild(itemRegistry.getItems());
+            prune();
+        }
+    }
+
+    private void pruneIfNeeded() {
+        if (pruneNeeded && itemRegistry != null) {
+            prune();
+        }
+    }
+
+    /**
+     * Removes the ids of items which are not exposed anymore, so they are not persisted any longer
+     */
+    private synchronized void prune() {
+        pruneNeeded = false;
+        if (deviceMap.keySet().retainAll(lights.keySet())) {
+            deviceIds.values().retainAll(lights.keySet());
+            schedulePersist();
+        }
+    }
+
+    private Integer add(Item item) {
+        if (!isExposed(item)) {
+            return null;
+        }
+        Integer id = deviceIds.get(item.getName());
+        if (id == null) {
+            // hue devices are assigned a numeric number starting with 1, if a device is
+            // removed that number is not used again. Not sure how high this id can get
+            // not worrying about it here
+            id = deviceMap.isEmpty() ? 1 : deviceMap.lastKey() + 1;
+            deviceMap.put(id, item.getName());
+            deviceIds.put(item.getName(), id);
+            schedulePersist();
+        }
+        lights.put(id, new Light(item));
+        return id;
+    }
+
+    private static boolean isExposed(Item item) {
+        for (String tag : item.getTags()) {
+            if (SUPPORTED_TAGS.contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the name of the item with the given Hue id, or null if there is none
+     */
+    public String getItemName(Integer id) {
+        Light light = lights.get(id);
+        return light != null ? light.item.getName() : null;
+    }
+
+    /**
+     * @return the Hue ids of all exposed items, in ascending order
+     */
+    public NavigableSet<Integer> getIds() {
+        pruneIfNeeded();
+        return Collections.unmodifiableNavigableSet(lights.keySet());
+    }
+
+    /**
+     * @return the JSON of the device with the given Hue id, or null if there is none
+     */
+    public String getLightJson(Integer id) {
+        Light light = lights.get(id);
+        return light != null ? getJson(id, light) : null;
+    }
+
+    /**
+     * @return the JSON object of all devices by their Hue id
+     */
+    public String getLightsJson() {
+        pruneIfNeeded();
+        StringBuilder json = new StringBuilder(lights.size() * 512 + 2);
+        json.append('{');
+        for (Map.Entry<Integer, Light> entry : lights.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(entry.getKey()).append("\":").append(getJson(entry.getKey(), entry.getValue()));
+        }
+        return json.append('}').toString();
+    }
+
+    private String getJson(Integer id, Light light) {
+        // item states are immutable, a new state object means the state has been updated
+        State state = light.item.getState();
+        Rendering rendering = light.rendering;
+        if (rendering == null || rendering.state != state) {
+            rendering = new Rendering(state, gson.toJson(itemToDevice(light.item, state, id)));
+            light.rendering = rendering;
+        }
+        return rendering.json;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     */
+    private HueDevice itemToDevice(Item item, State itemState, Integer key) {
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), key);
+        return d;
+    }
+
+    private void schedulePersist() {
+        if (!persistScheduled) {
+            persistScheduled = true;
+            scheduler.schedule(this::persist, PERSIST_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the ids to disk, if they have changed
+     */
+    public void persist() {
+        // writes are serialized, so that the last snapshot is written last
+        synchronized (persistLock) {
+            Map<Integer, String> snapshot;
+            synchronized (this) {
+                if (!persistScheduled) {
+                    return;
+                }
+                persistScheduled = false;
+                snapshot = new TreeMap<>(deviceMap);
+            }
+            JsonWriter writer = null;
+            try {
+                itemFile.getParentFile().mkdirs();
+                writer = new JsonWriter(new FileWriter(itemFile));
+                gson.toJson(snapshot, new TypeToken<Map<Integer, String>>() {
+                }.getType(), writer);
+            } catch (IOException e) {
+                logger.error("Could not persist item cache", e);
+            } finally {
+                IOUtils.closeQuietly(writer);
+            }
+        }
+    }
+}
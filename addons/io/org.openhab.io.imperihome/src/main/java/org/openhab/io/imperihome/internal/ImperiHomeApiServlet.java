@@ -31,7 +31,9 @@ import org.openhab.io.imperihome.internal.handler.RoomListHandler;
 import org.openhab.io.imperihome.internal.handler.SystemHandler;
 import org.openhab.io.imperihome.internal.io.DeviceParametersSerializer;
 import org.openhab.io.imperihome.internal.io.DeviceTypeSerializer;
+import org.openhab.io.imperihome.internal.io.HistoryListTypeAdapter;
 import org.openhab.io.imperihome.internal.io.ParamTypeSerializer;
+import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.DeviceType;
 import org.openhab.io.imperihome.internal.model.param.DeviceParameters;
 import org.openhab.io.imperihome.internal.model.param.ParamType;
@@ -95,6 +97,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
         gsonBuilder.registerTypeAdapter(DeviceType.class, new DeviceTypeSerializer());
         gsonBuilder.registerTypeAdapter(ParamType.class, new ParamTypeSerializer());
         gsonBuilder.registerTypeAdapter(DeviceParameters.class, new DeviceParametersSerializer());
+        gsonBuilder.registerTypeAdapter(HistoryList.class, new HistoryListTypeAdapter());
         gson = gsonBuilder.create();
     }
 
@@ -212,7 +215,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
             logger.warn("Unrecognized request: {}", path);
         }
 
-        resp.getWriter().write(gson.toJson(response));
+        gson.toJson(response, resp.getWriter());
     }
 
     private void setHeaders(HttpServletResponse response) {
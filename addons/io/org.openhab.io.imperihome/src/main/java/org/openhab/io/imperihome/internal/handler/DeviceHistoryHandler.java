@@ -12,8 +12,9 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,7 +26,6 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
-import org.openhab.io.imperihome.internal.model.HistoryItem;
 import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
@@ -35,17 +35,40 @@ import org.slf4j.LoggerFactory;
 /**
  * Device history request handler.
  *
+ * The requested range is divided into at most {@link #MAX_POINTS} buckets, each bucket is served as the average of
+ * the values persisted within it. The range is aligned to the bucket width, so that repeated requests for the same
+ * graph (e.g. from several tablets) are served from a short-lived cache.
+ *
  * @author Pepijn de Geus - Initial contribution
+ * @author agent - Downsample and cache the history
  */
 public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    /** Maximum number of points returned for a history request */
+    private static final int MAX_POINTS = 500;
+
+    /** Time a history result is served from the cache */
+    private static final long CACHE_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    /** Maximum number of cached history results */
+    private static final int CACHE_SIZE = 32;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
 
+    private final Map<String, CachedHistory> cache = new LinkedHashMap<String, CachedHistory>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
@@ -81,39 +104,97 @@ public class DeviceHistoryHandler {
             return null;
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        // buckets are whole seconds, so that slightly different ranges of the same graph share their buckets. Aligning
+        // the range adds at most one bucket, so the width is sized for one bucket less than the maximum.
+        long maxWidth = (MAX_POINTS - 1) * 1000L;
+        long bucketWidth = Math.max(1, (Math.max(end - start, 1) + maxWidth - 1) / maxWidth) * 1000L;
+        long alignedStart = Math.floorDiv(start, bucketWidth) * bucketWidth;
+        long alignedEnd = Math.floorDiv(end, bucketWidth) * bucketWidth + bucketWidth;
+
+        String cacheKey = deviceId + '/' + field + '/' + persistence.getId() + '/' + alignedStart + '/' + alignedEnd;
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedHistory cached = cache.get(cacheKey);
+            if (cached != null && now - cached.created < CACHE_TTL) {
+                logger.debug("Serving history of Item {} from cache", device.getItemName());
+                return cached.history;
+            }
+        }
+
+        HistoryList history = serveHistory(device, (QueryablePersistenceService) persistence, alignedStart,
+                alignedEnd, bucketWidth);
+        synchronized (cache) {
+            cache.put(cacheKey, new CachedHistory(history, now));
+        }
+        return history;
     }
 
     private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
-            long end) {
+            long end, long bucketWidth) {
         logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
 
         FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
                 .setEndDate(new Date(end));
 
-        List<HistoryItem> resultItems = new LinkedList<>();
+        // aggregate into buckets while reading, the order of the results does not matter
+        int bucketCount = (int) ((end - start) / bucketWidth);
+        int[] counts = new int[bucketCount];
+        double[] sums = new double[bucketCount];
+        long[] offsetSums = new long[bucketCount];
+        int interpreted = 0;
+
         Iterable<HistoricItem> historicItems = persistence.query(criteria);
 
         Iterator<HistoricItem> iterator = historicItems.iterator();
         if (!iterator.hasNext()) {
             logger.info("Persistence returned no results for history query");
         } else {
+            int results = 0;
             while (iterator.hasNext()) {
                 HistoricItem historicItem = iterator.next();
+                results++;
                 State state = historicItem.getState();
                 if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
+                    long offset = historicItem.getTimestamp().getTime() - start;
+                    if (offset < 0 || offset >= end - start) {
+                        continue;
+                    }
+                    int bucket = (int) (offset / bucketWidth);
+                    counts[bucket]++;
+                    sums[bucket] += ((DecimalType) state).doubleValue();
+                    offsetSums[bucket] += offset - bucket * bucketWidth;
+                    interpreted++;
                 }
             }
 
-            if (resultItems.isEmpty()) {
+            if (interpreted == 0) {
                 logger.warn(
                         "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+            } else {
+                logger.debug("Aggregated {} persisted values of Item {} into {} buckets of {} ms", results,
+                        device.getItemName(), bucketCount, bucketWidth);
             }
         }
 
-        return new HistoryList(resultItems);
+        HistoryList history = new HistoryList(Math.min(interpreted, bucketCount));
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int count = counts[bucket];
+            if (count > 0) {
+                // a single value keeps its exact timestamp, multiple values are placed at their mean time
+                history.add(start + bucket * bucketWidth + offsetSums[bucket] / count, sums[bucket] / count);
+            }
+        }
+        return history;
+    }
+
+    private static class CachedHistory {
+        private final HistoryList history;
+        private final long created;
+
+        private CachedHistory(HistoryList history, long created) {
+            this.history = history;
+            this.created = created;
+        }
     }
 
 }
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.io;
+
+import java.io.IOException;
+
+import org.openhab.io.imperihome.internal.model.HistoryList;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming serializer for {@link HistoryList}, writing the values directly without building a JSON tree.
+ *
+ * @author Pepijn de Geus - Initial contribution
+ */
+public class HistoryListTypeAdapter extends TypeAdapter<HistoryList> {
+
+    @Override
+    public void write(JsonWriter out, HistoryList historyList) throws IOException {
+        if (historyList == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("values");
+        out.beginArray();
+        for (int i = 0; i < historyList.size(); i++) {
+            out.beginObject();
+            out.name("date").value(historyList.getDate(i));
+            double value = historyList.getValue(i);
+            if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+                out.name("value").value((long) value);
+            } else {
+                out.name("value").value(value);
+            }
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public HistoryList read(JsonReader in) throws IOException {
+        throw new UnsupportedOperationException("HistoryList can only be serialized");
+    }
+
+}
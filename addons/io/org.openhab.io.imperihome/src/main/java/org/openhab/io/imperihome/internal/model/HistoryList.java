@@ -8,32 +8,53 @@
  */
 package org.openhab.io.imperihome.internal.model;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * History list data object.
+ * History list data object. Dates and values are kept in arrays and serialized by the
+ * {@link org.openhab.io.imperihome.internal.io.HistoryListTypeAdapter}.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class HistoryList {
 
-    private List<HistoryItem> values;
+    private long[] dates;
+    private double[] values;
+    private int size;
 
     public HistoryList() {
-        this(new LinkedList<HistoryItem>());
+        this(16);
     }
 
-    public HistoryList(List<HistoryItem> resultItems) {
-        this.values = resultItems;
+    public HistoryList(int capacity) {
+        dates = new long[Math.max(capacity, 1)];
+        values = new double[dates.length];
     }
 
-    public List<HistoryItem> getValues() {
-        return values;
+    public void add(long date, double value) {
+        if (size == dates.length) {
+            dates = Arrays.copyOf(dates, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        dates[size] = date;
+        values[size] = value;
+        size++;
     }
 
-    public void setValues(List<HistoryItem> values) {
-        this.values = values;
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getDate(int index) {
+        return dates[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
     }
 
 }
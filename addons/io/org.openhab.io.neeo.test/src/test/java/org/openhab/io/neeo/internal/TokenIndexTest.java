@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.neeo.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link TokenIndex}. The scores are compared with the search algorithm of tokensearch.js as
+ * {@link TokenSearch} applied it to the texts of every device before the index was introduced.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class TokenIndexTest {
+
+    private static final String[] WORDS = { "Living", "Room", "Kitchen", "Bedroom", "Lamp", "Ceiling", "TV",
+            "Stereo", "Hue", "Sonos", "Play:1", "Philips", "Denon", "AV", "Receiver", "Straße", "ÄÖÜ", "Kids", "Left",
+            "Right" };
+
+    /**
+     * Scores a text the way the linear scan of {@link TokenSearch} did (lifted from tokensearch.js)
+     */
+    static int linearScore(String text, String[] needles) {
+        int score = 0;
+        for (String haystack : StringUtils.split(text, ' ')) {
+            for (String needle : needles) {
+                int stringPos = StringUtils.indexOfIgnoreCase(haystack, needle);
+                if (stringPos > -1) {
+                    if (needle.length() < 2) {
+                        score += 1;
+                    } else if (StringUtils.equalsIgnoreCase(haystack, needle)) {
+                        score += 6;
+                    } else if (stringPos == 0) {
+                        score += 2;
+                    } else {
+                        score += 1;
+                    }
+                }
+            }
+        }
+        return score;
+    }
+
+    private static String[] needles(String query) {
+        return StringUtils.split(query, ' ');
+    }
+
+    @Test
+    public void testScores() {
+        TokenIndex<String> index = new TokenIndex<>();
+        index.put("lamp", Arrays.asList("Living Room Lamp", "hue", null, "Philips"));
+        index.put("tv", Arrays.asList("Living Room TV", "samsungtv"));
+
+        Map<String, Integer> scores = index.score(needles("lamp"));
+        assertThat(scores.size(), is(1));
+        assertThat(scores.get("lamp"), is(6));
+
+        scores = index.score(needles("liv"));
+        assertThat(scores.get("lamp"), is(2));
+        assertThat(scores.get("tv"), is(2));
+
+        scores = index.score(needles("tv"));
+        assertThat(scores.get("tv"), is(6 + 1));
+        assertThat(scores.containsKey("lamp"), is(false));
+
+        scores = index.score(needles("l"));
+        assertThat(scores.get("lamp"), is(3));
+        assertThat(scores.get("tv"), is(1));
+
+        scores = index.score(needles("LIVING lamp"));
+        assertThat(scores.get("lamp"), is(6 + 6));
+        assertThat(scores.get("tv"), is(6));
+
+        assertThat(index.score(needles("garage")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRepeatedTokens() {
+        TokenIndex<String> index = new TokenIndex<>();
+        index.put("device", Arrays.asList("Hue Lamp", "hue", "Hue"));
+
+        assertThat(index.score(needles("hue")).get("device"), is(3 * 6));
+        assertThat(index.score(needles("hu")).get("device"), is(3 * 2));
+    }
+
+    @Test
+    public void testPutReplacesAndRemoves() {
+        TokenIndex<String> index = new TokenIndex<>();
+        index.put("device", Arrays.asList("Kitchen Lamp"));
+        index.put("other", Arrays.asList("Kitchen Radio"));
+        assertThat(index.size(), is(2));
+
+        index.put("device", Arrays.asList("Garage Lamp"));
+        assertThat(index.score(needles("kitchen")).containsKey("device"), is(false));
+        assertThat(index.score(needles("garage")).get("device"), is(6));
+
+        index.remove("device");
+        assertThat(index.size(), is(1));
+        assertThat(index.score(needles("lamp")).isEmpty(), is(true));
+        assertThat(index.score(needles("gar")).isEmpty(), is(true));
+
+        index.put("other", Arrays.asList((String) null));
+        assertThat(index.size(), is(0));
+
+        index.put("device", Arrays.asList("Kitchen Lamp"));
+        index.clear();
+        assertThat(index.size(), is(0));
+        assertThat(index.score(needles("kitchen")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCaseFolding() {
+        TokenIndex<String> index = new TokenIndex<>();
+        index.put("device", Arrays.asList("STRASSE Straße ÄÖÜ"));
+
+        for (String query : new String[] { "strasse", "straße", "STRAßE", "äöü", "Äö", "ss", "ẞ" }) {
+            assertThat(query, index.score(needles(query)).getOrDefault("device", 0),
+                    is(linearScore("STRASSE Straße ÄÖÜ", needles(query))));
+        }
+    }
+
+    @Test
+    public void testScoresMatchLinearScan() {
+        Random random = new Random(1);
+        TokenIndex<Integer> index = new TokenIndex<>();
+        List<List<String>> texts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            List<String> deviceTexts = Arrays.asList(randomText(random, 3) + " " + i, randomText(random, 1),
+                    randomText(random, 2));
+            texts.add(deviceTexts);
+            index.put(i, deviceTexts);
+        }
+        // replace and remove some of the texts
+        for (int i = 0; i < texts.size(); i += 7) {
+            index.remove(i);
+            if (i % 2 == 0) {
+                texts.set(i, Arrays.asList(randomText(random, 4)));
+                index.put(i, texts.get(i));
+            } else {
+                texts.set(i, new ArrayList<>());
+            }
+        }
+
+        List<String> queries = new ArrayList<>(Arrays.asList("l", "li", "liv", "living room", "HUE", "play:1", "ss",
+                "straSSe", "äöü", "1", "49", "499", "x", "room kitchen lamp"));
+        for (int i = 0; i < 100; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            int start = random.nextInt(word.length());
+            queries.add(word.substring(start, start + 1 + random.nextInt(word.length() - start)) + " "
+                    + randomText(random, random.nextInt(2)));
+        }
+
+        for (String query : queries) {
+            String[] needles = needles(query);
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < texts.size(); i++) {
+                int score = 0;
+                for (String text : texts.get(i)) {
+                    score += linearScore(text, needles);
+                }
+                if (score > 0) {
+                    expected.put(i, score);
+                }
+            }
+            assertThat(query, index.score(needles), is(expected));
+        }
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.neeo.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.binding.BindingInfo;
+import org.eclipse.smarthome.core.binding.BindingInfoRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingRegistry;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.binding.builder.ThingBuilder;
+import org.eclipse.smarthome.core.thing.link.ItemChannelLinkRegistry;
+import org.eclipse.smarthome.core.thing.type.ThingType;
+import org.eclipse.smarthome.core.thing.type.ThingTypeRegistry;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openhab.io.neeo.internal.models.NeeoDevice;
+import org.openhab.io.neeo.internal.models.NeeoDeviceType;
+import org.openhab.io.neeo.internal.models.NeeoThingUID;
+import org.openhab.io.neeo.internal.models.TokenScore;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark of the {@link TokenSearch} over the exposed devices of a large installation.
+ *
+ * The installation has devices of ten bindings, with locations and vendors. Some devices have no thing, the thing type
+ * of one binding is not registered and another binding has no binding info. The things, thing types and binding infos
+ * are real, the registries returning them are stub-only mocks. The test asserts that searching through the
+ * {@link NeeoDeviceIndex} ranks the same devices with the same scores as the linear scan over all devices that
+ * {@link TokenSearch} did before, also after devices, things and thing types changed. The benchmark comparing both
+ * with 2000 devices is ignored in the regular build.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class TokenSearchBenchmarkTest {
+
+    private static final int DEVICES = 2000;
+    private static final int TEST_DEVICES = 200;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private static final String[] BINDINGS = { "hue", "sonos", "samsungtv", "lgwebos", "denonmarantz",
+            "yamahareceiver", "tradfri", "zwave", "nest", "knx" };
+    private static final String[] BINDING_NAMES = { "Hue Binding", "Sonos Binding", "Samsung TV Binding",
+            "LG webOS Binding", "Denon / Marantz Binding", "Yamaha Receiver Binding", "TRÅDFRI Binding",
+            "Z-Wave Binding", "Nest Binding", "KNX Binding" };
+    private static final String[] THING_TYPES = { "Hue Color Lamp", "Sonos Play:1", "Smart TV", "WebOS TV",
+            "AV Receiver", "AV Receiver", "Dimmable Light", "Roller Shutter", "Thermostat", "Generic Device" };
+    private static final String[] VENDORS = { "Philips", "Sonos", "Samsung", "LG", "Denon", "Yamaha", "IKEA", "",
+            "Nest", "MDT" };
+    private static final String[] ROOMS = { "Living Room", "Kitchen", "Bedroom", "Office", "Garage", "Basement",
+            "Hallway", "Kids Room", "Bathroom", "Garden" };
+    private static final String[] WORDS = { "Lamp", "Ceiling", "TV", "Stereo", "Spot", "Strip", "Floor", "Desk", "Fan",
+            "Blind", "Screen", "Main", "Left", "Right", "Straße", "Ölheizung" };
+
+    /** The binding without binding info */
+    private static final int NO_BINDING_INFO = 4;
+
+    /** The binding with an unregistered thing type */
+    private static final int NO_THING_TYPE = 8;
+
+    private static final String[] QUERIES = { "l", "li", "liv", "living room", "HUE", "hue lamp", "samsung tv",
+            "kitchen 12", "openhab", "open", "x", "room", "strasse", "öl", "sonos play:1", "1999", "desk lamp garage",
+            "binding", "receiver", "thermostat" };
+
+    private final Logger logger = LoggerFactory.getLogger(TokenSearchBenchmarkTest.class);
+
+    private final Random random = new Random(1);
+    private final Map<String, NeeoDevice> devices = new LinkedHashMap<>();
+    private final Map<String, Thing> things = new HashMap<>();
+    private final Map<String, ThingType> thingTypes = new HashMap<>();
+    private final Map<String, BindingInfo> bindingInfos = new HashMap<>();
+    private final Hashtable<String, Object> properties = new Hashtable<>();
+
+    private ServiceContext context;
+    private NeeoDeviceIndex deviceIndex;
+
+    /**
+     * The result of the linear scan
+     */
+    private static class LinearResult {
+        private final List<TokenScore<NeeoDevice>> devices;
+        private final int maxScore;
+
+        private LinearResult(List<TokenScore<NeeoDevice>> devices, int maxScore) {
+            this.devices = devices;
+            this.maxScore = maxScore;
+        }
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    @Before
+    public void setUp() {
+        ThingRegistry thingRegistry = stub(ThingRegistry.class);
+        when(thingRegistry.get(any())).thenAnswer(invocation -> things.get(invocation.getArgument(0).toString()));
+        ThingTypeRegistry thingTypeRegistry = stub(ThingTypeRegistry.class);
+        when(thingTypeRegistry.getThingType(any()))
+                .thenAnswer(invocation -> thingTypes.get(invocation.getArgument(0).toString()));
+        BindingInfoRegistry bindingInfoRegistry = stub(BindingInfoRegistry.class);
+        when(bindingInfoRegistry.getBindingInfo(any()))
+                .thenAnswer(invocation -> bindingInfos.get(invocation.<String> getArgument(0)));
+        NeeoDeviceDefinitions definitions = stub(NeeoDeviceDefinitions.class);
+        when(definitions.getExposed()).thenAnswer(invocation -> new ArrayList<>(devices.values()));
+        when(definitions.getExposed(any()))
+                .thenAnswer(invocation -> devices.get(invocation.getArgument(0).toString()));
+        ComponentContext componentContext = stub(ComponentContext.class);
+        when(componentContext.getProperties()).thenReturn(properties);
+
+        context = stub(ServiceContext.class);
+        when(context.getComponentContext()).thenReturn(componentContext);
+        when(context.getDefinitions()).thenReturn(definitions);
+        when(context.getThingRegistry()).thenReturn(thingRegistry);
+        when(context.getThingTypeRegistry()).thenReturn(thingTypeRegistry);
+        when(context.getBindingInfoRegistry()).thenReturn(bindingInfoRegistry);
+        when(context.getItemRegistry()).thenReturn(stub(ItemRegistry.class));
+        when(context.getItemChannelLinkRegistry()).thenReturn(stub(ItemChannelLinkRegistry.class));
+        deviceIndex = new NeeoDeviceIndex(context);
+        when(context.getDeviceIndex()).thenReturn(deviceIndex);
+        deviceIndex.activate();
+
+        for (int binding = 0; binding < BINDINGS.length; binding++) {
+            if (binding != NO_THING_TYPE) {
+                addThingType(binding);
+            }
+            if (binding != NO_BINDING_INFO) {
+                addBindingInfo(binding);
+            }
+        }
+    }
+
+    private void addDevices(int count) {
+        for (int i = 0; i < count; i++) {
+            addDevice(i);
+        }
+    }
+
+    private void addThingType(int binding) {
+        thingTypes.put(getThingTypeUID(binding).toString(),
+                new ThingType(BINDINGS[binding], "type" + binding, THING_TYPES[binding]));
+    }
+
+    private void addBindingInfo(int binding) {
+        bindingInfos.put(BINDINGS[binding], new BindingInfo(BINDINGS[binding], BINDING_NAMES[binding], null, null,
+                null, null));
+    }
+
+    private static ThingTypeUID getThingTypeUID(int binding) {
+        return new ThingTypeUID(BINDINGS[binding], "type" + binding);
+    }
+
+    private NeeoThingUID addDevice(int i) {
+        int binding = random.nextInt(BINDINGS.length);
+        NeeoThingUID uid = new NeeoThingUID(getThingTypeUID(binding) + ":device" + i);
+        putDevice(uid, ROOMS[random.nextInt(ROOMS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+        if (i % 20 != 0) {
+            putThing(uid, i % 10 != 1 ? ROOMS[random.nextInt(ROOMS.length)] : null, binding);
+        }
+        return uid;
+    }
+
+    private Thing putThing(NeeoThingUID uid, @Nullable String location, int binding) {
+        Thing thing = ThingBuilder.create(getThingTypeUID(binding), uid.asThingUID()).withLocation(location)
+                .withProperties(Collections.singletonMap(Thing.PROPERTY_VENDOR, VENDORS[binding])).build();
+        things.put(uid.toString(), thing);
+        return thing;
+    }
+
+    private void putDevice(NeeoThingUID uid, String name) {
+        devices.put(uid.toString(), new NeeoDevice(uid, NeeoDeviceType.ACCESSOIRE, "openHAB", name,
+                Collections.emptyList(), null, null, null, null));
+    }
+
+    /**
+     * Searches all exposed devices the way {@link TokenSearch} did before the {@link NeeoDeviceIndex}
+     */
+    private LinearResult linearSearch(String query) {
+        final String[] needles = StringUtils.split(query, ' ');
+        final List<TokenScore<NeeoDevice>> results = new ArrayList<>();
+        final ThingRegistry thingRegistry = context.getThingRegistry();
+        final ThingTypeRegistry thingTypeRegistry = context.getThingTypeRegistry();
+        final BindingInfoRegistry bindingInfoRegistry = context.getBindingInfoRegistry();
+        int maxScore = -1;
+        for (NeeoDevice device : context.getDefinitions().getExposed()) {
+            int score = TokenIndexTest.linearScore(device.getName(), needles);
+            score += TokenIndexTest.linearScore("openhab", needles);
+            score += TokenIndexTest.linearScore(device.getUid().getBindingId(), needles);
+
+            final Thing thing = thingRegistry.get(device.getUid().asThingUID());
+            if (thing != null) {
+                final String location = thing.getLocation();
+                if (location != null && StringUtils.isNotEmpty(location)) {
+                    score += TokenIndexTest.linearScore(location, needles);
+                }
+                final String vendor = thing.getProperties().get(Thing.PROPERTY_VENDOR);
+                if (StringUtils.isNotEmpty(vendor)) {
+                    score += TokenIndexTest.linearScore(vendor, needles);
+                }
+                final ThingType tt = thingTypeRegistry.getThingType(thing.getThingTypeUID());
+                if (tt != null) {
+                    score += TokenIndexTest.linearScore(tt.getLabel(), needles);
+                    final BindingInfo bi = bindingInfoRegistry.getBindingInfo(tt.getBindingId());
+                    if (bi != null) {
+                        score += TokenIndexTest.linearScore(bi.getName(), needles);
+                    }
+                }
+            }
+            maxScore = Math.max(maxScore, score);
+            results.add(new TokenScore<>(score, device));
+        }
+
+        final double normalizedScore = 1d / maxScore;
+        final List<TokenScore<NeeoDevice>> passed = new ArrayList<>();
+        for (TokenScore<NeeoDevice> ts : results) {
+            double score = 1 - ts.getScore() * normalizedScore;
+            if (score <= NeeoConstants.SEARCH_MATCHFACTOR) {
+                passed.add(new TokenScore<>(score, ts.getItem()));
+            }
+        }
+        return new LinearResult(passed.stream().sorted().collect(Collectors.toList()), maxScore);
+    }
+
+    private void assertSameRanking(String query, LinearResult expected, int searchLimit) {
+        TokenSearch.Result result = new TokenSearch(context, NeeoConstants.SEARCH_MATCHFACTOR).search(query);
+
+        List<TokenScore<NeeoDevice>> expectedDevices = expected.devices.subList(0,
+                Math.min(searchLimit, expected.devices.size()));
+        assertThat(query, result.getMaxScore(), is(expected.maxScore));
+        assertThat(query, result.getDevices().size(), is(expectedDevices.size()));
+        for (int i = 0; i < expectedDevices.size(); i++) {
+            TokenScore<NeeoDevice> device = result.getDevices().get(i);
+            assertThat(query, device.getItem(), is(sameInstance(expectedDevices.get(i).getItem())));
+            assertThat(query, device.getScore(), is(expectedDevices.get(i).getScore()));
+        }
+    }
+
+    private void assertSameRanking() {
+        List<String> queries = new ArrayList<>(Arrays.asList(QUERIES));
+        for (int i = 0; i < 30; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            int start = random.nextInt(word.length());
+            queries.add(word.substring(start, start + 1 + random.nextInt(word.length() - start)) + " "
+                    + ROOMS[random.nextInt(ROOMS.length)].substring(0, 3));
+        }
+        for (String query : queries) {
+            LinearResult expected = linearSearch(query);
+            properties.remove(NeeoConstants.CFG_SEARCHLIMIT);
+            assertSameRanking(query, expected, 10);
+            properties.put(NeeoConstants.CFG_SEARCHLIMIT, String.valueOf(devices.size()));
+            assertSameRanking(query, expected, devices.size());
+        }
+    }
+
+    @Test
+    public void testRankingMatchesLinearScan() {
+        addDevices(TEST_DEVICES);
+        assertSameRanking();
+    }
+
+    @Test
+    public void testRankingMatchesLinearScanAfterChanges() {
+        addDevices(TEST_DEVICES);
+        assertSameRanking();
+
+        // renamed, removed and added devices
+        List<String> uids = new ArrayList<>(devices.keySet());
+        for (int i = 0; i < 30; i++) {
+            NeeoThingUID uid = new NeeoThingUID(uids.get(random.nextInt(uids.size())));
+            if (i % 3 == 0) {
+                devices.remove(uid.toString());
+            } else {
+                putDevice(uid, "Renamed " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            }
+            deviceIndex.changed(uid);
+        }
+        for (int i = TEST_DEVICES; i < TEST_DEVICES + 20; i++) {
+            deviceIndex.changed(addDevice(i));
+        }
+        assertSameRanking();
+
+        // moved thing
+        for (int i = 0; i < 20; i++) {
+            Thing thing = things.get(uids.get(random.nextInt(uids.size())));
+            if (thing != null) {
+                NeeoThingUID uid = new NeeoThingUID(thing.getUID());
+                putThing(uid, "Attic", Arrays.asList(BINDINGS).indexOf(uid.getBindingId()));
+                deviceIndex.changed(uid);
+            }
+        }
+        assertSameRanking();
+
+        // the thing type is registered later, without any notification
+        addThingType(NO_THING_TYPE);
+        assertSameRanking();
+
+        // all devices change with the items
+        devices.clear();
+        addDevices(TEST_DEVICES / 2);
+        deviceIndex.changedAll();
+        assertSameRanking();
+    }
+
+    private void benchmark(String name, ToIntFunction<String> search) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (String query : QUERIES) {
+                search.applyAsInt(query);
+            }
+        }
+        long result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String query : QUERIES) {
+                result += search.applyAsInt(query);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("{}: {} ms/query ({})", name,
+                String.format("%.3f", (double) elapsed / ROUNDS / QUERIES.length / 1000000), result);
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkSearch() {
+        addThingType(NO_THING_TYPE);
+        addBindingInfo(NO_BINDING_INFO);
+        addDevices(DEVICES);
+        properties.remove(NeeoConstants.CFG_SEARCHLIMIT);
+
+        benchmark("linear scan", query -> Math.min(10, linearSearch(query).devices.size()));
+        benchmark("token index",
+                query -> new TokenSearch(context, NeeoConstants.SEARCH_MATCHFACTOR).search(query).getDevices().size());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            deviceIndex.changedAll();
+            deviceIndex.search(new String[] { "openhab" });
+        }
+        logger.info("indexing {} devices: {} ms", devices.size(),
+                String.format("%.3f", (double) (System.nanoTime() - start) / ROUNDS / 1000000));
+    }
+}
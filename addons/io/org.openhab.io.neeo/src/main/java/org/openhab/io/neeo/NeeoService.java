@@ -393,6 +393,7 @@ public class NeeoService implements EventSubscriber, NetworkAddressChangeListene
                 validate(eventPublisher, "eventPublisher"), validate(networkAddressService, "networkAddressService"));
 
         context = localContext;
+        localContext.getDeviceIndex().activate();
         discovery = new MdnsBrainDiscovery(context);
         discovery.addListener(discoveryListener);
 
@@ -449,6 +450,7 @@ public class NeeoService implements EventSubscriber, NetworkAddressChangeListene
         final ServiceContext localContext = context;
         if (localContext != null) {
             localContext.getDefinitions().save();
+            NeeoUtil.close(localContext.getDeviceIndex());
 
             final HttpService service = localContext.getHttpService();
             for (NeeoBrainServlet servlet : servlets) {
@@ -144,6 +144,7 @@ public class NeeoDeviceDefinitions {
         Objects.requireNonNull(device, "device cannot be null");
 
         uidToDevice.put(device.getUid(), device);
+        context.getDeviceIndex().changed(device.getUid());
         save();
     }
 
@@ -158,6 +159,7 @@ public class NeeoDeviceDefinitions {
 
         final boolean found = uidToDevice.remove(uid) != null;
         if (found) {
+            context.getDeviceIndex().changed(uid);
             save();
         }
         return found;
@@ -171,8 +173,7 @@ public class NeeoDeviceDefinitions {
     public List<NeeoDevice> getExposed() {
         final List<NeeoDevice> devices = new ArrayList<>();
         for (NeeoDevice device : exposeAll || exposeNeeoBinding ? getAllDevices() : uidToDevice.values()) {
-            if (device.getExposedChannels().length > 0 && !NeeoDeviceType.EXCLUDE.equals(device.getType())
-                    && StringUtils.isNotEmpty(device.getType().toString())) {
+            if (isExposed(device)) {
                 devices.add(device);
             }
         }
@@ -180,6 +181,45 @@ public class NeeoDeviceDefinitions {
         return devices;
     }
 
+    /**
+     * Returns the {@link NeeoDevice} for the given {@link NeeoThingUID} if it is one of the devices returned by
+     * {@link #getExposed()}
+     *
+     * @param uid the non-null uid
+     * @return the exposed device or null if the device is unknown or not exposed
+     */
+    @Nullable
+    public NeeoDevice getExposed(NeeoThingUID uid) {
+        Objects.requireNonNull(uid, "uid cannot be null");
+
+        final NeeoDevice device;
+        if (exposeAll || exposeNeeoBinding) {
+            final NeeoDevice definedDevice = uidToDevice.get(uid);
+            if (definedDevice == null) {
+                final Thing thing = context.getThingRegistry().get(uid.asThingUID());
+                device = thing == null ? null : converter.convert(thing);
+            } else {
+                device = definedDevice.merge(context);
+            }
+        } else {
+            device = uidToDevice.get(uid);
+        }
+
+        return device != null && isExposed(device) ? device : null;
+    }
+
+    /**
+     * Helper method to determine if the device is exposed (has exposed channels and the type isn't
+     * {@link NeeoDeviceType#EXCLUDE})
+     *
+     * @param device a non-null device
+     * @return true if exposed, false otherwise
+     */
+    private static boolean isExposed(NeeoDevice device) {
+        return device.getExposedChannels().length > 0 && !NeeoDeviceType.EXCLUDE.equals(device.getType())
+                && StringUtils.isNotEmpty(device.getType().toString());
+    }
+
     /**
      *
      * Checks to see if the specified itemName is bound given the {@link NeeoDeviceKeys}. This method will find any
@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.neeo.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.binding.BindingInfo;
+import org.eclipse.smarthome.core.common.registry.RegistryChangeListener;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.eclipse.smarthome.core.thing.link.ItemChannelLink;
+import org.eclipse.smarthome.core.thing.type.ThingType;
+import org.openhab.io.neeo.internal.models.NeeoDevice;
+import org.openhab.io.neeo.internal.models.NeeoThingUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The index of the exposed {@link NeeoDevice} used by the {@link TokenSearch}. The searchable texts of each device
+ * (name, binding id, location, vendor, thing type label and binding name) are looked up once and indexed in a
+ * {@link TokenIndex}.
+ *
+ * Changes of the device definitions and of the thing, item channel link and item registries only mark the affected
+ * devices (or all devices for item changes) as changed, they are indexed again before the next search. Devices whose
+ * thing type or binding info could not be found are indexed again before each search until they are complete.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class NeeoDeviceIndex implements AutoCloseable {
+
+    /** The logger */
+    private final Logger logger = LoggerFactory.getLogger(NeeoDeviceIndex.class);
+
+    /** The service context */
+    private final ServiceContext context;
+
+    /** The tokens of the indexed devices */
+    private final TokenIndex<NeeoThingUID> tokenIndex = new TokenIndex<>();
+
+    /** The indexed devices, replaced (never modified) when devices change */
+    private volatile Map<NeeoThingUID, NeeoDevice> devices = Collections.emptyMap();
+
+    /** The devices to index again before the next search */
+    private final Set<NeeoThingUID> changed = ConcurrentHashMap.newKeySet();
+
+    /** The devices with texts that could not be looked up yet (guarded by this) */
+    private final Set<NeeoThingUID> incomplete = new HashSet<>();
+
+    /** Whether all devices have to be indexed again before the next search */
+    private volatile boolean rebuild = true;
+
+    /** The listener to the thing registry */
+    private final RegistryChangeListener<Thing> thingListener = new RegistryChangeListener<Thing>() {
+        @Override
+        public void added(Thing element) {
+            changed(element.getUID());
+        }
+
+        @Override
+        public void removed(Thing element) {
+            changed(element.getUID());
+        }
+
+        @Override
+        public void updated(Thing oldElement, Thing element) {
+            changed(oldElement.getUID());
+            changed(element.getUID());
+        }
+    };
+
+    /** The listener to the item channel link registry */
+    private final RegistryChangeListener<ItemChannelLink> linkListener = new RegistryChangeListener<ItemChannelLink>() {
+        @Override
+        public void added(ItemChannelLink element) {
+            changed(element.getLinkedUID().getThingUID());
+        }
+
+        @Override
+        public void removed(ItemChannelLink element) {
+            changed(element.getLinkedUID().getThingUID());
+        }
+
+        @Override
+        public void updated(ItemChannelLink oldElement, ItemChannelLink element) {
+            changed(oldElement.getLinkedUID().getThingUID());
+            changed(element.getLinkedUID().getThingUID());
+        }
+    };
+
+    /** The listener to the item registry */
+    private final ItemRegistryChangeListener itemListener = new ItemRegistryChangeListener() {
+        @Override
+        public void added(Item element) {
+            changedAll();
+        }
+
+        @Override
+        public void removed(Item element) {
+            changedAll();
+        }
+
+        @Override
+        public void updated(Item oldElement, Item element) {
+            changedAll();
+        }
+
+        @Override
+        public void allItemsChanged(Collection<String> oldItemNames) {
+            changedAll();
+        }
+    };
+
+    /**
+     * Constructs the index from the {@link ServiceContext}. The index is empty until {@link #activate()} is called.
+     *
+     * @param context the non-null service context
+     */
+    NeeoDeviceIndex(ServiceContext context) {
+        Objects.requireNonNull(context, "context cannot be null");
+        this.context = context;
+    }
+
+    /**
+     * Starts listening to the registries
+     */
+    public void activate() {
+        context.getThingRegistry().addRegistryChangeListener(thingListener);
+        context.getItemChannelLinkRegistry().addRegistryChangeListener(linkListener);
+        context.getItemRegistry().addRegistryChangeListener(itemListener);
+        changedAll();
+    }
+
+    /**
+     * Marks the device of the given uid as changed
+     *
+     * @param uid the non-null uid
+     */
+    public void changed(ThingUID uid) {
+        Objects.requireNonNull(uid, "uid cannot be null");
+        changed.add(uid instanceof NeeoThingUID ? (NeeoThingUID) uid : new NeeoThingUID(uid));
+    }
+
+    /**
+     * Marks all devices as changed
+     */
+    public void changedAll() {
+        rebuild = true;
+    }
+
+    /**
+     * Scores the exposed devices against the needles
+     *
+     * @param needles the non-null needles
+     * @return the non-null matches
+     */
+    public synchronized Matches search(String[] needles) {
+        Objects.requireNonNull(needles, "needles cannot be null");
+
+        update();
+        final Map<NeeoThingUID, NeeoDevice> localDevices = devices;
+        final Map<NeeoThingUID, Integer> scores = tokenIndex.score(needles);
+        return new Matches(localDevices, scores);
+    }
+
+    /**
+     * Indexes the changed devices again (or all devices if needed)
+     */
+    private void update() {
+        final Map<NeeoThingUID, NeeoDevice> newDevices;
+        if (rebuild) {
+            rebuild = false;
+            changed.clear();
+            incomplete.clear();
+            tokenIndex.clear();
+
+            final long start = System.currentTimeMillis();
+            newDevices = new HashMap<>();
+            for (NeeoDevice device : context.getDefinitions().getExposed()) {
+                index(device, newDevices);
+            }
+            logger.debug("Indexed {} devices in {}ms", newDevices.size(), System.currentTimeMillis() - start);
+        } else {
+            final Set<NeeoThingUID> uids = new HashSet<>(changed);
+            changed.removeAll(uids);
+            uids.addAll(incomplete);
+            if (uids.isEmpty()) {
+                return;
+            }
+            incomplete.removeAll(uids);
+
+            newDevices = new HashMap<>(devices);
+            for (NeeoThingUID uid : uids) {
+                newDevices.remove(uid);
+                tokenIndex.remove(uid);
+
+                final NeeoDevice device = context.getDefinitions().getExposed(uid);
+                if (device != null) {
+                    index(device, newDevices);
+                }
+            }
+        }
+        devices = Collections.unmodifiableMap(newDevices);
+    }
+
+    /**
+     * Looks up the searchable texts of the device and indexes them
+     *
+     * @param device the non-null device
+     * @param newDevices the non-null devices to add the device to
+     */
+    private void index(NeeoDevice device, Map<NeeoThingUID, NeeoDevice> newDevices) {
+        final NeeoThingUID uid = device.getUid();
+        final List<@Nullable String> texts = new ArrayList<>();
+        texts.add(device.getName());
+        texts.add(uid.getBindingId());
+
+        final Thing thing = context.getThingRegistry().get(uid.asThingUID());
+        if (thing != null) {
+            final String location = thing.getLocation();
+            if (location != null && StringUtils.isNotEmpty(location)) {
+                texts.add(location);
+            }
+
+            final Map<@NonNull String, String> properties = thing.getProperties();
+            final String vendor = properties.get(Thing.PROPERTY_VENDOR);
+            if (StringUtils.isNotEmpty(vendor)) {
+                texts.add(vendor);
+            }
+
+            final ThingType tt = context.getThingTypeRegistry().getThingType(thing.getThingTypeUID());
+            if (tt == null) {
+                incomplete.add(uid);
+            } else {
+                texts.add(tt.getLabel());
+
+                final BindingInfo bi = context.getBindingInfoRegistry().getBindingInfo(tt.getBindingId());
+                if (bi == null) {
+                    incomplete.add(uid);
+                } else {
+                    texts.add(bi.getName());
+                }
+            }
+        }
+
+        newDevices.put(uid, device);
+        tokenIndex.put(uid, texts);
+    }
+
+    @Override
+    public void close() {
+        context.getThingRegistry().removeRegistryChangeListener(thingListener);
+        context.getItemChannelLinkRegistry().removeRegistryChangeListener(linkListener);
+        context.getItemRegistry().removeRegistryChangeListener(itemListener);
+    }
+
+    /**
+     * The devices matching a search, with the devices that did not match
+     *
+     * @author agent - Initial contribution
+     */
+    public static class Matches {
+        /** All indexed devices at the time of the search */
+        private final Map<NeeoThingUID, NeeoDevice> devices;
+
+        /** The scores of the matching devices */
+        private final Map<NeeoThingUID, Integer> scores;
+
+        /**
+         * Constructs the matches from the devices and the scores
+         *
+         * @param devices the non-null devices
+         * @param scores the non-null scores of the matching devices
+         */
+        private Matches(Map<NeeoThingUID, NeeoDevice> devices, Map<NeeoThingUID, Integer> scores) {
+            this.devices = devices;
+            this.scores = scores;
+        }
+
+        /**
+         * Returns the matching devices with their scores
+         *
+         * @return a non-null, possibly empty map of the scores by device
+         */
+        public Map<NeeoDevice, Integer> getMatches() {
+            final Map<NeeoDevice, Integer> matches = new HashMap<>();
+            for (Map.Entry<NeeoThingUID, Integer> score : scores.entrySet()) {
+                final NeeoDevice device = devices.get(score.getKey());
+                if (device != null) {
+                    matches.put(device, score.getValue());
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Returns whether there are devices that did not match
+         *
+         * @return true if any device did not match
+         */
+        public boolean hasUnmatched() {
+            return devices.size() > scores.size();
+        }
+
+        /**
+         * Returns the devices that did not match
+         *
+         * @return a non-null, possibly empty list of devices
+         */
+        public List<NeeoDevice> getUnmatched() {
+            final List<NeeoDevice> unmatched = new ArrayList<>();
+            for (Map.Entry<NeeoThingUID, NeeoDevice> device : devices.entrySet()) {
+                if (!scores.containsKey(device.getKey())) {
+                    unmatched.add(device.getValue());
+                }
+            }
+            return unmatched;
+        }
+    }
+}
@@ -70,6 +70,9 @@ public class ServiceContext {
     /** The network address service. */
     private final NetworkAddressService networkAddressService;
 
+    /** The device index. */
+    private final NeeoDeviceIndex deviceIndex;
+
     /**
      * Creates teh service context from the variable services
      *
@@ -113,6 +116,7 @@ public class ServiceContext {
         this.eventPublisher = eventPublisher;
         this.networkAddressService = networkAddressService;
         this.definitions = new NeeoDeviceDefinitions(this);
+        this.deviceIndex = new NeeoDeviceIndex(this);
     }
 
     /**
@@ -133,6 +137,15 @@ public class ServiceContext {
         return componentContext;
     }
 
+    /**
+     * Gets the device index.
+     *
+     * @return the device index
+     */
+    public NeeoDeviceIndex getDeviceIndex() {
+        return deviceIndex;
+    }
+
     /**
      * Gets the http service.
      *
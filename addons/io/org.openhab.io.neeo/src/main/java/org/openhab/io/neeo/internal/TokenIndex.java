@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.neeo.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * An inverted index of the tokens of the searchable texts of keys. Scoring a query only looks at the tokens that can
+ * contain a needle (found by the trigrams of the needle) and at the keys posted for them.
+ *
+ * The scores are those of the search algorithm of tokensearch.js (see {@link TokenSearch}): a token scores 6 for
+ * each needle it equals, 2 for each needle it starts with and 1 for each needle it contains otherwise (or 1 for
+ * contained needles of a single character). The comparison ignores case the same way as
+ * {@link StringUtils#indexOfIgnoreCase(String, String)}.
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <K> the type of the keys
+ */
+@NonNullByDefault
+public class TokenIndex<K> {
+
+    /** The delimiter used to split texts and search terms */
+    private static final char DELIMITER = ' ';
+
+    /** The length of the grams tokens are indexed by */
+    private static final int GRAM_LENGTH = 3;
+
+    /** The (folded) tokens of each key with their number of occurrences */
+    private final Map<K, Map<String, Integer>> tokensByKey = new HashMap<>();
+
+    /** The keys of each (folded) token with the number of occurrences of the token */
+    private final Map<String, Map<K, Integer>> postings = new HashMap<>();
+
+    /** The (folded) tokens containing each gram */
+    private final Map<String, Set<String>> tokensByGram = new HashMap<>();
+
+    /**
+     * Indexes the texts of the key, replacing the texts it was indexed with before
+     *
+     * @param key the non-null key
+     * @param texts the non-null texts, null elements are ignored
+     */
+    public synchronized void put(K key, Collection<@Nullable String> texts) {
+        Objects.requireNonNull(key, "key cannot be null");
+        Objects.requireNonNull(texts, "texts cannot be null");
+
+        remove(key);
+
+        final Map<String, Integer> tokens = new HashMap<>();
+        for (String text : texts) {
+            final String[] split = StringUtils.split(text, DELIMITER);
+            if (split != null) {
+                for (String token : split) {
+                    tokens.merge(fold(token), 1, Integer::sum);
+                }
+            }
+        }
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        tokensByKey.put(key, tokens);
+        for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+            Map<K, Integer> keys = postings.get(token.getKey());
+            if (keys == null) {
+                keys = new HashMap<>();
+                postings.put(token.getKey(), keys);
+                addGrams(token.getKey());
+            }
+            keys.put(key, token.getValue());
+        }
+    }
+
+    /**
+     * Removes the texts of the key from the index
+     *
+     * @param key the non-null key
+     */
+    public synchronized void remove(K key) {
+        Objects.requireNonNull(key, "key cannot be null");
+
+        final Map<String, Integer> tokens = tokensByKey.remove(key);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens.keySet()) {
+            final Map<K, Integer> keys = postings.get(token);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(token);
+                    removeGrams(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all texts from the index
+     */
+    public synchronized void clear() {
+        tokensByKey.clear();
+        postings.clear();
+        tokensByGram.clear();
+    }
+
+    /**
+     * Scores the indexed texts against the needles. Keys whose texts do not match any needle are not part of the
+     * result.
+     *
+     * @param needles the non-null needles
+     * @return a non-null, possibly empty map of the score of each matching key
+     */
+    public synchronized Map<K, Integer> score(String[] needles) {
+        Objects.requireNonNull(needles, "needles cannot be null");
+
+        final Map<K, Integer> scores = new HashMap<>();
+        for (String needle : needles) {
+            final String foldedNeedle = fold(needle);
+            for (String token : getCandidates(foldedNeedle)) {
+                final int tokenScore = score(token, foldedNeedle);
+                if (tokenScore > 0) {
+                    for (Map.Entry<K, Integer> posting : postings.get(token).entrySet()) {
+                        scores.merge(posting.getKey(), tokenScore * posting.getValue(), Integer::sum);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the number of indexed keys
+     *
+     * @return the number of keys with at least one token
+     */
+    public synchronized int size() {
+        return tokensByKey.size();
+    }
+
+    /**
+     * Returns the tokens which may contain the needle
+     *
+     * @param foldedNeedle the folded needle
+     * @return a non-null, possibly empty collection of folded tokens
+     */
+    private Collection<String> getCandidates(String foldedNeedle) {
+        if (foldedNeedle.length() < GRAM_LENGTH) {
+            return postings.keySet();
+        }
+
+        Set<String> candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= foldedNeedle.length(); i++) {
+            final Set<String> tokens = tokensByGram.get(foldedNeedle.substring(i, i + GRAM_LENGTH));
+            if (tokens == null) {
+                return Collections.emptySet();
+            }
+            if (candidates == null || tokens.size() < candidates.size()) {
+                candidates = tokens;
+            }
+        }
+        return candidates == null ? Collections.emptySet() : candidates;
+    }
+
+    private void addGrams(String token) {
+        for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+            tokensByGram.computeIfAbsent(token.substring(i, i + GRAM_LENGTH), gram -> new HashSet<>()).add(token);
+        }
+    }
+
+    private void removeGrams(String token) {
+        for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+            final String gram = token.substring(i, i + GRAM_LENGTH);
+            final Set<String> tokens = tokensByGram.get(gram);
+            if (tokens != null) {
+                tokens.remove(token);
+                if (tokens.isEmpty()) {
+                    tokensByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a folded token against a folded needle (see tokensearch.js)
+     *
+     * @param token the folded token
+     * @param needle the folded needle
+     * @return the score of the match
+     */
+    private static int score(String token, String needle) {
+        final int stringPos = token.indexOf(needle);
+        if (stringPos < 0) {
+            return 0;
+        }
+        if (needle.length() < 2) {
+            return 1;
+        }
+        if (token.equals(needle)) {
+            return 6;
+        }
+        return stringPos == 0 ? 2 : 1;
+    }
+
+    /**
+     * Folds the case of each character so that two strings are equal if and only if they are equal ignoring case (as
+     * in {@link String#regionMatches(boolean, int, String, int, int)})
+     *
+     * @param str the non-null string
+     * @return the non-null folded string, with the same length
+     */
+    static String fold(String str) {
+        final char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
@@ -16,11 +16,7 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
-import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
-import org.eclipse.smarthome.core.binding.BindingInfo;
-import org.eclipse.smarthome.core.thing.Thing;
-import org.eclipse.smarthome.core.thing.type.ThingType;
 import org.openhab.io.neeo.internal.models.NeeoDevice;
 import org.openhab.io.neeo.internal.models.TokenScore;
 import org.slf4j.Logger;
@@ -31,6 +27,7 @@ import org.slf4j.LoggerFactory;
  * all the exposed things in the registry.
  *
  * @author Tim Roberts - Initial Contribution
+ * @author agent - Search through an inverted token index
  */
 @NonNullByDefault
 public class TokenSearch {
@@ -78,7 +75,8 @@ public class TokenSearch {
     }
 
     /**
-     * Searches the registry for all {@link NeeoDevice} matching the query
+     * Searches the registry for all {@link NeeoDevice} matching the query. Only the devices matching any of the
+     * search terms are scored, all other devices have the score of the "openhab" term.
      *
      * @param query the non-empty query
      * @return a non-null result
@@ -91,39 +89,27 @@ public class TokenSearch {
         final String[] needles = StringUtils.split(query, DELIMITER);
         int maxScore = -1;
 
-        for (NeeoDevice device : context.getDefinitions().getExposed()) {
-            int score = search(device.getName(), needles);
-            score += search("openhab", needles);
-            // score += searchAlgorithm(thing.getLocation(), needles);
-            score += search(device.getUid().getBindingId(), needles);
-
-            final Thing thing = context.getThingRegistry().get(device.getUid().asThingUID());
-            if (thing != null) {
-                final String location = thing.getLocation();
-                if (location != null && StringUtils.isNotEmpty(location)) {
-                    score += search(location, needles);
-                }
+        // every device is scored against the "openhab" term
+        final int openhabScore = search("openhab", needles);
 
-                final Map<@NonNull String, String> properties = thing.getProperties();
-                final String vendor = properties.get(Thing.PROPERTY_VENDOR);
-                if (StringUtils.isNotEmpty(vendor)) {
-                    score += search(vendor, needles);
-                }
+        final NeeoDeviceIndex.Matches matches = context.getDeviceIndex().search(needles);
+        for (Map.Entry<NeeoDevice, Integer> match : matches.getMatches().entrySet()) {
+            final int score = openhabScore + match.getValue();
 
-                final ThingType tt = context.getThingTypeRegistry().getThingType(thing.getThingTypeUID());
-                if (tt != null) {
-                    score += search(tt.getLabel(), needles);
+            maxScore = Math.max(maxScore, score);
 
-                    final BindingInfo bi = context.getBindingInfoRegistry().getBindingInfo(tt.getBindingId());
-                    if (bi != null) {
-                        score += search(bi.getName(), needles);
-                    }
-                }
-            }
+            results.add(new TokenScore<>(score, match.getKey()));
+        }
 
-            maxScore = Math.max(maxScore, score);
+        if (matches.hasUnmatched()) {
+            maxScore = Math.max(maxScore, openhabScore);
 
-            results.add(new TokenScore<>(score, device));
+            // the unmatched devices only need to be added if they pass the threshold
+            if (1 - openhabScore * (1d / maxScore) <= threshold) {
+                for (NeeoDevice device : matches.getUnmatched()) {
+                    results.add(new TokenScore<>(openhabScore, device));
+                }
+            }
         }
 
         return new Result(applyThreshold(results, maxScore, threshold), maxScore);
@@ -16,26 +16,28 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
-import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -59,6 +61,7 @@ import io.socket.engineio.client.Transport;
  *
  * @author Victor Belov - Initial contribution
  * @author Kai Kreuzer - migrated code to new Jetty client and ESH APIs
+ * @author agent - Stream proxied responses with flow control
  *
  */
 
@@ -79,6 +82,30 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the default maximum size of response content sent to the openHAB Cloud in one message
+     */
+    public static final int DEFAULT_FRAME_SIZE = 64 * 1024;
+
+    /*
+     * This constant defines how many frames of response content may be handed to the Socket.IO connection
+     * before reading from local openHAB is paused until the connection has written them
+     */
+    private static final int MAX_PENDING_FRAMES = 4;
+
+    /*
+     * This constant defines the default time in milliseconds during which item updates are collected
+     * before they are sent to the openHAB Cloud
+     */
+    public static final int DEFAULT_ITEM_UPDATE_WINDOW = 500;
+
+    /*
+     * This constant defines the maximum number of items with an update waiting to be sent to the openHAB Cloud
+     */
+    private static final int MAX_PENDING_ITEM_UPDATES = 1000;
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -105,9 +132,29 @@ public class CloudClient {
     private HttpClient jettyClient;
 
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds HTTP requests to local openHAB which are currently running
+     */
+    private final Map<Integer, ResponseListener> runningRequests = new ConcurrentHashMap<>();
+
+    /*
+     * This variable holds the maximum size of response content sent to the openHAB Cloud in one message
      */
-    private HashMap<Integer, Request> runningRequests;
+    private final int frameSize;
+
+    /*
+     * This variable holds the flow control of response content sent to the openHAB Cloud
+     */
+    private final ProxyFlowControl flowControl;
+
+    /*
+     * This variable holds item updates waiting to be sent to the openHAB Cloud
+     */
+    private final ItemUpdateQueue itemUpdates = new ItemUpdateQueue(MAX_PENDING_ITEM_UPDATES);
+
+    /*
+     * This variable holds the time in milliseconds during which item updates are collected
+     */
+    private final int itemUpdateWindow;
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
@@ -145,17 +192,22 @@ public class CloudClient {
      * @param secret openHAB's Secret to connect to the openHAB Cloud
      * @param remoteAccessEnabled Allow the openHAB Cloud to be used as a remote proxy
      * @param exposedItems Items that are made available to apps connected to the openHAB Cloud
+     * @param frameSize Maximum size of response content sent to the openHAB Cloud in one message
+     * @param itemUpdateWindow Time in milliseconds during which item updates are collected before they are sent
      *
      */
     public CloudClient(String uuid, String secret, String baseURL, String localBaseUrl, boolean remoteAccessEnabled,
-            Set<String> exposedItems) {
+            Set<String> exposedItems, int frameSize, int itemUpdateWindow) {
         this.uuid = uuid;
         this.secret = secret;
         this.baseURL = baseURL;
         this.localBaseUrl = localBaseUrl;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        runningRequests = new HashMap<Integer, Request>();
+        this.frameSize = frameSize;
+        this.itemUpdateWindow = itemUpdateWindow;
+        flowControl = new ProxyFlowControl((long) frameSize * MAX_PENDING_FRAMES,
+                ThreadPoolManager.getPool(THREADPOOL_OPENHABCLOUD));
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
@@ -193,6 +245,12 @@ public class CloudClient {
                         headers.put("remoteaccess", Arrays.asList(((Boolean) remoteAccessEnabled).toString()));
                     }
                 });
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        flowControl.drained();
+                    }
+                });
             }
         });
         socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
@@ -249,6 +307,13 @@ public class CloudClient {
                 logger.error("Could not start Jetty client: {}", e.getMessage());
             }
         }
+        // Resend the states of exposed items, updates may have been dropped while disconnected
+        if (listener != null) {
+            listener.onConnected();
+        }
+        if (itemUpdates.size() > 0) {
+            scheduleItemUpdates();
+        }
     }
 
     /**
@@ -268,9 +333,8 @@ public class CloudClient {
             }
         }
         // And clean up the list of running requests
-        if (runningRequests != null) {
-            runningRequests.clear();
-        }
+        runningRequests.clear();
+        flowControl.drained();
     }
 
     /**
@@ -360,11 +424,13 @@ public class CloudClient {
                 logger.error("Unsupported request method {}", requestMethod);
                 return;
             }
-            ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
-            runningRequests.put(requestId, request);
+            ResponseListener listener = new ResponseListener(requestId, request);
+            // Add the request to the list of currently running requests to be able to cancel it if needed,
+            // before it is submitted so that its completion always finds it
+            runningRequests.put(requestId, listener);
+            // The listener receives headers and content as a response listener, registering it for those
+            // separately would deliver the content twice
+            request.onRequestFailure(listener).send(listener);
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
         } catch (IOException e) {
@@ -398,10 +464,9 @@ public class CloudClient {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
             // Find and abort running request
-            if (runningRequests.containsKey(requestId)) {
-                Request request = runningRequests.get(requestId);
-                request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
+            ResponseListener listener = runningRequests.remove(requestId);
+            if (listener != null) {
+                listener.abort();
             }
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
@@ -501,24 +566,48 @@ public class CloudClient {
     /**
      * Send item update to openHAB Cloud
      *
+     * Updates are collected during the item update window and sent together, only the last update of
+     * an item within the window is sent. While disconnected, updates are kept until the connection is
+     * established again.
+     *
      * @param itemName the name of the item
      * @param itemState updated item state
      *
      */
     public void sendItemUpdate(String itemName, String itemState) {
+        if (itemUpdates.offer(itemName, itemState)) {
+            scheduleItemUpdates();
+        }
+    }
+
+    private void scheduleItemUpdates() {
         if (isConnected()) {
-            logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
+            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(this::flushItemUpdates,
+                    itemUpdateWindow, TimeUnit.MILLISECONDS);
+        } else {
+            logger.debug("No connection, Item update is not sent");
+        }
+    }
+
+    private void flushItemUpdates() {
+        if (!isConnected()) {
+            logger.debug("No connection, {} Item updates are kept", itemUpdates.size());
+            return;
+        }
+        Map<String, String> updates = itemUpdates.drain();
+        for (Map.Entry<String, String> update : updates.entrySet()) {
+            logger.trace("Sending update '{}' for item '{}'", update.getValue(), update.getKey());
             JSONObject itemUpdateMessage = new JSONObject();
             try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemState);
+                itemUpdateMessage.put("itemName", update.getKey());
+                itemUpdateMessage.put("itemStatus", update.getValue());
                 socket.emit("itemupdate", itemUpdateMessage);
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
-        } else {
-            logger.debug("No connection, Item update is not sent");
         }
+        logger.debug("Sent {} Item updates ({} coalesced, {} dropped so far)", updates.size(),
+                itemUpdates.getCoalescedCount(), itemUpdates.getDroppedCount());
     }
 
     /**
@@ -553,18 +642,44 @@ public class CloudClient {
         this.listener = listener;
     }
 
+    /**
+     * Returns the number of proxied requests to local openHAB which are currently running
+     */
+    public int getRunningRequestCount() {
+        return runningRequests.size();
+    }
+
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which forwards response headers and data back to the openHAB Cloud.
+     *
+     * Response content is coalesced into frames of up to frameSize bytes, except for streaming content types
+     * whose content is forwarded as soon as it is received. Content is read from local openHAB only as fast
+     * as the Socket.IO connection writes it. Header, content and finish messages are sent in this order from
+     * the threads delivering the response, so they are queued to the Socket.IO connection in the same order.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
-
-        private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
-        private int mRequestId;
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
+
+        private static final int MIN_FRAME_CAPACITY = 4096;
+
+        private final int mRequestId;
+        private final Request mRequest;
+        private final long mStartTime = System.nanoTime();
+        private long mHeadersTime;
+        private long mContentBytes;
+        private int mFrames;
+        private byte[] mFrame;
+        private int mFrameLength;
+        private boolean mStreaming = false;
         private boolean mHeadersSent = false;
 
-        public ResponseListener(int requestId) {
+        public ResponseListener(int requestId, Request request) {
             mRequestId = requestId;
+            mRequest = request;
+        }
+
+        public void abort() {
+            mRequest.abort(new InterruptedException());
         }
 
         private JSONObject getJSONHeaders(HttpFields httpFields) {
@@ -579,8 +694,17 @@ public class CloudClient {
             return headersJSON;
         }
 
+        private boolean isStreaming(Response response) {
+            String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+            if (contentType == null) {
+                return false;
+            }
+            contentType = MimeTypes.getContentTypeWithoutCharset(contentType).toLowerCase();
+            return contentType.equals("text/event-stream") || contentType.startsWith("multipart/");
+        }
+
         @Override
-        public void onComplete(Result result) {
+        public synchronized void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
             if ((result != null && result.isFailed())
@@ -595,22 +719,21 @@ public class CloudClient {
                     logger.warn("Response Failure: {}", result.getResponseFailure().getMessage());
                 }
             }
-
-            /**
-             * What is this? In some cases where latency is very low the myopenhab service
-             * can receive responseFinished before the headers or content are received and I
-             * cannot find another workaround to prevent it.
-             */
-            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(() -> {
-                JSONObject responseJson = new JSONObject();
-                try {
-                    responseJson.put("id", mRequestId);
-                    socket.emit("responseFinished", responseJson);
-                    logger.debug("Finished responding to request {}", mRequestId);
-                } catch (JSONException e) {
-                    logger.error("{}", e.getMessage());
+            sendFrame();
+            JSONObject responseJson = new JSONObject();
+            try {
+                responseJson.put("id", mRequestId);
+                socket.emit("responseFinished", responseJson);
+                if (logger.isDebugEnabled()) {
+                    long now = System.nanoTime();
+                    logger.debug("Finished responding to request {} ({} bytes, {} frames, headers {} ms, total {} ms)",
+                            mRequestId, mContentBytes, mFrames,
+                            mHeadersSent ? TimeUnit.NANOSECONDS.toMillis(mHeadersTime - mStartTime) : "-",
+                            TimeUnit.NANOSECONDS.toMillis(now - mStartTime));
                 }
-            }, 1, TimeUnit.MILLISECONDS);
+            } catch (JSONException e) {
+                logger.error("{}", e.getMessage());
+            }
         }
 
         @Override
@@ -627,25 +750,60 @@ public class CloudClient {
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
-            logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
+            logger.trace("Jetty received response content of size {}", content.remaining());
+            synchronized (this) {
+                mContentBytes += content.remaining();
+                while (content.hasRemaining()) {
+                    if (mFrame == null) {
+                        mFrame = new byte[Math.min(frameSize, Math.max(content.remaining(), MIN_FRAME_CAPACITY))];
+                    } else if (mFrameLength == mFrame.length) {
+                        mFrame = Arrays.copyOf(mFrame, Math.min(frameSize, mFrame.length * 2));
+                    }
+                    int length = Math.min(content.remaining(), mFrame.length - mFrameLength);
+                    content.get(mFrame, mFrameLength, length);
+                    mFrameLength += length;
+                    if (mFrameLength == frameSize) {
+                        sendFrame();
+                    }
+                }
+                if (mStreaming) {
+                    sendFrame();
+                }
+            }
+            // Continue reading once the connection to the openHAB Cloud keeps up
+            flowControl.demand(callback::succeeded);
+        }
+
+        private void sendFrame() {
+            if (mFrameLength == 0) {
+                return;
+            }
+            byte[] body = mFrameLength == mFrame.length ? mFrame : Arrays.copyOf(mFrame, mFrameLength);
+            mFrame = null;
+            mFrameLength = 0;
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
+                responseJson.put("body", body);
+                // Account for the frame before the transport can drain it
+                flowControl.emitted(body.length);
                 socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
+                mFrames++;
+                logger.trace("Sent {} bytes of content to request {}", body.length, mRequestId);
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
         }
 
         @Override
-        public void onHeaders(Response response) {
+        public synchronized void onHeaders(Response response) {
             if (!mHeadersSent) {
                 logger.debug("Jetty finished receiving response header");
                 JSONObject responseJson = new JSONObject();
                 mHeadersSent = true;
+                mHeadersTime = System.nanoTime();
+                mStreaming = isStreaming(response);
                 try {
                     responseJson.put("id", mRequestId);
                     responseJson.put("headers", getJSONHeaders(response.getHeaders()));
@@ -25,4 +25,10 @@ public interface CloudClientListener {
      * @param command the {@link String} containing a command
      */
     public void sendCommand(String item, String command);
+
+    /**
+     * This method is called when the connection to the openHAB Cloud is established and should send
+     * the current states of all exposed items to the openHAB Cloud client
+     */
+    public void onConnected();
 }
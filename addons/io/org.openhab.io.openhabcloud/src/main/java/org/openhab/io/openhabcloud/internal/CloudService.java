@@ -19,11 +19,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.common.registry.RegistryChangeListener;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
@@ -40,7 +42,9 @@ import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.UpDownType;
 import org.eclipse.smarthome.core.net.HttpServiceUtil;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
+import org.eclipse.smarthome.core.types.UnDefType;
 import org.eclipse.smarthome.model.script.engine.action.ActionService;
 import org.openhab.core.OpenHAB;
 import org.openhab.io.openhabcloud.NotificationAction;
@@ -53,6 +57,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Victor Belov - Initial contribution
  * @author Kai Kreuzer - migrated code to new Jetty client and ESH APIs
+ * @author agent - Coalesce item updates
  */
 
 public class CloudService implements ActionService, CloudClientListener, EventSubscriber {
@@ -60,6 +65,8 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_FRAME_SIZE = "frameSize";
+    private static final String CFG_ITEM_UPDATE_WINDOW = "itemUpdateWindow";
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
 
@@ -73,6 +80,33 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
     private boolean remoteAccessEnabled = true;
     private Set<String> exposedItems = null;
+    private int frameSize = CloudClient.DEFAULT_FRAME_SIZE;
+    private int itemUpdateWindow = CloudClient.DEFAULT_ITEM_UPDATE_WINDOW;
+
+    /*
+     * Exposed items which exist in the item registry, by name
+     */
+    private final Map<String, Item> exposedItemIndex = new ConcurrentHashMap<>();
+
+    private final RegistryChangeListener<Item> itemRegistryListener = new RegistryChangeListener<Item>() {
+        @Override
+        public void added(Item element) {
+            if (isExposed(element.getName())) {
+                exposedItemIndex.put(element.getName(), element);
+            }
+        }
+
+        @Override
+        public void removed(Item element) {
+            exposedItemIndex.remove(element.getName());
+        }
+
+        @Override
+        public void updated(Item oldElement, Item element) {
+            removed(oldElement);
+            added(element);
+        }
+    };
     private int localPort;
 
     public CloudService() {
@@ -184,6 +218,32 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
             }
         }
 
+        frameSize = CloudClient.DEFAULT_FRAME_SIZE;
+        Object frameSizeCfg = config.get(CFG_FRAME_SIZE);
+        if (frameSizeCfg != null) {
+            try {
+                frameSize = Integer.parseInt(frameSizeCfg.toString().trim());
+                if (frameSize < 1024) {
+                    logger.warn("Frame size {} is too small, using 1024 bytes", frameSize);
+                    frameSize = 1024;
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid frame size '{}', using {} bytes", frameSizeCfg, CloudClient.DEFAULT_FRAME_SIZE);
+            }
+        }
+
+        itemUpdateWindow = CloudClient.DEFAULT_ITEM_UPDATE_WINDOW;
+        Object itemUpdateWindowCfg = config.get(CFG_ITEM_UPDATE_WINDOW);
+        if (itemUpdateWindowCfg != null) {
+            try {
+                itemUpdateWindow = Math.max(0, Integer.parseInt(itemUpdateWindowCfg.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid item update window '{}', using {} ms", itemUpdateWindowCfg,
+                        CloudClient.DEFAULT_ITEM_UPDATE_WINDOW);
+            }
+        }
+        refreshExposedItemIndex();
+
         logger.debug("UUID = {}, secret = {}", InstanceUUID.get(), getSecret());
 
         if (cloudClient != null) {
@@ -192,10 +252,10 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
         String localBaseUrl = "http://localhost:" + localPort;
         cloudClient = new CloudClient(InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl, remoteAccessEnabled,
-                exposedItems);
+                exposedItems, frameSize, itemUpdateWindow);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
-        cloudClient.connect();
         cloudClient.setListener(this);
+        cloudClient.connect();
         NotificationAction.cloudService = this;
     }
 
@@ -304,12 +364,48 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
         }
     }
 
+    @Override
+    public void onConnected() {
+        for (Item item : exposedItemIndex.values()) {
+            State state = item.getState();
+            if (state != UnDefType.NULL) {
+                cloudClient.sendItemUpdate(item.getName(), state.toString());
+            }
+        }
+    }
+
+    private boolean isExposed(String itemName) {
+        Set<String> items = exposedItems;
+        return items != null && items.contains(itemName);
+    }
+
+    /**
+     * Rebuilds the index of exposed items from the item registry
+     */
+    private synchronized void refreshExposedItemIndex() {
+        exposedItemIndex.clear();
+        ItemRegistry registry = itemRegistry;
+        Set<String> items = exposedItems;
+        if (registry != null && items != null) {
+            for (String itemName : items) {
+                Item item = registry.get(itemName);
+                if (item != null) {
+                    exposedItemIndex.put(itemName, item);
+                }
+            }
+        }
+    }
+
     public void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        itemRegistry.addRegistryChangeListener(itemRegistryListener);
+        refreshExposedItemIndex();
     }
 
     public void unsetItemRegistry(ItemRegistry itemRegistry) {
+        itemRegistry.removeRegistryChangeListener(itemRegistryListener);
         this.itemRegistry = null;
+        refreshExposedItemIndex();
     }
 
     public void setEventPublisher(EventPublisher eventPublisher) {
@@ -333,7 +429,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     @Override
     public void receive(Event event) {
         ItemStateEvent ise = (ItemStateEvent) event;
-        if (exposedItems != null && exposedItems.contains(ise.getItemName())) {
+        if (exposedItemIndex.containsKey(ise.getItemName())) {
             cloudClient.sendItemUpdate(ise.getItemName(), ise.getItemState().toString());
         }
     }
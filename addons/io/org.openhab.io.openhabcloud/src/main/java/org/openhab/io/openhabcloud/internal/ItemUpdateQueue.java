@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds item updates which are waiting to be sent to the openHAB Cloud.
+ *
+ * Updates are coalesced per item, only the last state of an item is kept. The number of items is bounded,
+ * if it is exceeded, e.g. while the connection is down, the update of the item which waits longest is dropped.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ItemUpdateQueue {
+    private final int capacity;
+    private Map<String, String> updates = new LinkedHashMap<>();
+    private long coalescedCount;
+    private long droppedCount;
+
+    /**
+     * @param capacity maximum number of items with a waiting update
+     */
+    public ItemUpdateQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the update of an item, replacing a waiting update of the same item
+     *
+     * @param itemName the name of the item
+     * @param itemState the new state of the item
+     * @return true if the queue was empty before
+     */
+    public synchronized boolean offer(String itemName, String itemState) {
+        boolean wasEmpty = updates.isEmpty();
+        if (updates.put(itemName, itemState) != null) {
+            coalescedCount++;
+        } else if (updates.size() > capacity) {
+            Iterator<String> oldest = updates.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+            droppedCount++;
+        }
+        return wasEmpty;
+    }
+
+    /**
+     * Removes all waiting updates
+     *
+     * @return the waiting updates by item name, in the order the items were first updated
+     */
+    public synchronized Map<String, String> drain() {
+        Map<String, String> drained = updates;
+        updates = new LinkedHashMap<>();
+        return drained;
+    }
+
+    public synchronized int size() {
+        return updates.size();
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * This class limits the amount of proxied response content which is handed to the Socket.IO connection
+ * but not yet written by its transport.
+ *
+ * Every emitted frame is accounted for. Once the limit is reached, the local responses stop reading content
+ * until the transport signals that it has drained its write buffer. The waiting responses are then resumed
+ * on the given executor, so that no content is emitted from within the Socket.IO event thread.
+ *
+ * As a drain only tells that the transport has written what it was handed, content emitted while it was
+ * writing is not accounted for. The buffered content is therefore bounded by about twice the limit.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ProxyFlowControl {
+    private final long maxPendingBytes;
+    private final Executor executor;
+    private final List<Runnable> waiting = new ArrayList<>();
+    private long pendingBytes;
+
+    /**
+     * @param maxPendingBytes maximum number of emitted bytes not yet written by the transport
+     * @param executor executor to resume waiting responses on
+     */
+    public ProxyFlowControl(long maxPendingBytes, Executor executor) {
+        this.maxPendingBytes = maxPendingBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Accounts for an emitted frame
+     *
+     * @param bytes the size of the frame
+     */
+    public synchronized void emitted(int bytes) {
+        pendingBytes += bytes;
+    }
+
+    /**
+     * Lets a response continue reading content if the limit is not reached, or when the transport has drained
+     *
+     * @param resume the continuation of the response
+     * @return true if the response was resumed immediately
+     */
+    public boolean demand(Runnable resume) {
+        synchronized (this) {
+            if (pendingBytes >= maxPendingBytes) {
+                waiting.add(resume);
+                return false;
+            }
+        }
+        resume.run();
+        return true;
+    }
+
+    /**
+     * Called when the transport has written its buffered packets, or when the connection is lost
+     */
+    public void drained() {
+        List<Runnable> resumed;
+        synchronized (this) {
+            pendingBytes = 0;
+            if (waiting.isEmpty()) {
+                return;
+            }
+            resumed = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Runnable resume : resumed) {
+            executor.execute(resume);
+        }
+    }
+
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicBitArray;
+import org.openhab.io.transport.modbus.BasicModbusRegister;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.DecodedRegisterValue;
+import org.openhab.io.transport.modbus.ModbusBitUtilities;
+import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Micro benchmarks of the hot paths in {@link ModbusBitUtilities}
+ *
+ * The tests check the results of the optimized paths on the benchmark data. The benchmarks themselves are ignored in
+ * the regular build, remove the {@link Ignore} annotation to log the average time per operation.
+ *
+ * @author agent - Initial contribution
+ */
+public class BitUtilitiesBenchmarkTest {
+
+    private static final int REGISTERS = 120;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 1000;
+    private static final ValueType[] TYPES = { ValueType.UINT16, ValueType.INT16, ValueType.INT32, ValueType.UINT32,
+            ValueType.FLOAT32, ValueType.INT32_SWAP, ValueType.FLOAT32_SWAP };
+
+    private final Logger logger = LoggerFactory.getLogger(BitUtilitiesBenchmarkTest.class);
+
+    private static ModbusRegisterArray randomRegisters(Random random) {
+        BasicModbusRegister[] registers = new BasicModbusRegister[REGISTERS];
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = new BasicModbusRegister((byte) random.nextInt(), (byte) random.nextInt());
+        }
+        return new BasicModbusRegisterArray(registers);
+    }
+
+    private static DecimalType[] randomCommands() {
+        Random random = new Random(1);
+        DecimalType[] commands = new DecimalType[REGISTERS];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = new DecimalType(random.nextInt(Short.MAX_VALUE));
+        }
+        return commands;
+    }
+
+    private static boolean[] randomBits() {
+        Random random = new Random(1);
+        boolean[] bits = new boolean[2000];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = random.nextBoolean();
+        }
+        return bits;
+    }
+
+    private static int itemCount(ValueType type) {
+        return REGISTERS / (type.getBits() / 16);
+    }
+
+    /**
+     * Run the operation repeatedly and log average time per operation
+     *
+     * @param name name of the benchmark
+     * @param operationsPerRound number of operations executed by single round
+     * @param round single round of the benchmark, returning value depending on the result
+     */
+    private void benchmark(String name, int operationsPerRound, IntSupplier round) {
+        long sum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sum += round.getAsInt();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sum += round.getAsInt();
+        }
+        long elapsed = System.nanoTime() - start;
+        // the sum is logged as well, so that JIT does not eliminate the work
+        logger.info("{}: {} ns/op ({})", name, String.format("%.1f", (double) elapsed / ROUNDS / operationsPerRound),
+                sum);
+    }
+
+    @Test
+    public void testExtractValueFromRegistersEqualsExtractState() {
+        ModbusRegisterArray registers = randomRegisters(new Random(1));
+        for (ValueType type : TYPES) {
+            DecodedRegisterValue value = new DecodedRegisterValue();
+            for (int index = 0; index < itemCount(type); index++) {
+                ModbusBitUtilities.extractValueFromRegisters(registers, index, type, value);
+                assertThat(value.toDecimalType(),
+                        is(equalTo(ModbusBitUtilities.extractStateFromRegisters(registers, index, type))));
+            }
+        }
+    }
+
+    @Test
+    public void testCommandToRegistersRoundTrip() {
+        for (ValueType type : TYPES) {
+            for (DecimalType command : randomCommands()) {
+                ModbusRegisterArray registers = ModbusBitUtilities.commandToRegisters(command, type);
+                assertThat(ModbusBitUtilities.extractStateFromRegisters(registers, 0, type), is(equalTo(command)));
+            }
+        }
+    }
+
+    @Test
+    public void testBitArray() {
+        boolean[] bits = randomBits();
+        BitArray array = new BasicBitArray(bits);
+        assertThat(array.size(), is(equalTo(bits.length)));
+        for (int i = 0; i < bits.length; i++) {
+            assertThat(array.getBit(i), is(equalTo(bits[i])));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkExtractStateFromRegisters() {
+        ModbusRegisterArray registers = randomRegisters(new Random(1));
+        for (ValueType type : TYPES) {
+            int items = itemCount(type);
+            benchmark("extractStateFromRegisters " + type, items, () -> {
+                int hash = 0;
+                for (int index = 0; index < items; index++) {
+                    hash += ModbusBitUtilities.extractStateFromRegisters(registers, index, type).hashCode();
+                }
+                return hash;
+            });
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkExtractValueFromRegisters() {
+        ModbusRegisterArray registers = randomRegisters(new Random(1));
+        for (ValueType type : TYPES) {
+            int items = itemCount(type);
+            DecodedRegisterValue[] values = new DecodedRegisterValue[items];
+            for (int index = 0; index < items; index++) {
+                values[index] = new DecodedRegisterValue();
+            }
+            benchmark("extractValueFromRegisters " + type, items, () -> {
+                int changed = 0;
+                for (int index = 0; index < items; index++) {
+                    if (ModbusBitUtilities.extractValueFromRegisters(registers, index, type, values[index])) {
+                        changed++;
+                    }
+                }
+                return changed;
+            });
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkCommandToRegisters() {
+        DecimalType[] commands = randomCommands();
+        for (ValueType type : TYPES) {
+            benchmark("commandToRegisters " + type, commands.length, () -> {
+                int size = 0;
+                for (DecimalType command : commands) {
+                    size += ModbusBitUtilities.commandToRegisters(command, type).size();
+                }
+                return size;
+            });
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void benchmarkBitArray() {
+        boolean[] bits = randomBits();
+        BitArray array = new BasicBitArray(bits);
+        benchmark("BitArray.getBit", bits.length, () -> {
+            int set = 0;
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getBit(i)) {
+                    set++;
+                }
+            }
+            return set;
+        });
+    }
+
+}
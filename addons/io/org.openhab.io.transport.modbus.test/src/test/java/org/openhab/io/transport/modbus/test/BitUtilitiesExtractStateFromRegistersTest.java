@@ -23,6 +23,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
+import org.openhab.io.transport.modbus.DecodedRegisterValue;
 import org.openhab.io.transport.modbus.ModbusBitUtilities;
 import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
 import org.openhab.io.transport.modbus.ModbusRegister;
@@ -303,4 +304,23 @@ public class BitUtilitiesExtractStateFromRegistersTest {
         assertThat(String.format("registers=%s, index=%d, type=%s", registers, index, type), actualState,
                 is(equalTo(expectedResult)));
     }
+
+    @Test
+    public void testExtractValueFromRegisters() {
+        if (expectedResult instanceof Class && Exception.class.isAssignableFrom((Class) expectedResult)) {
+            shouldThrow.expect((Class) expectedResult);
+        }
+
+        DecodedRegisterValue value = new DecodedRegisterValue();
+        assertThat(ModbusBitUtilities.extractValueFromRegisters(this.registers, this.index, this.type, value),
+                is(equalTo(true)));
+        DecimalType actualState = value.toDecimalType();
+        assertThat(String.format("registers=%s, index=%d, type=%s", registers, index, type), actualState,
+                is(equalTo(expectedResult)));
+
+        // Decoding the same data again should not change the value nor the state object
+        assertThat(ModbusBitUtilities.extractValueFromRegisters(this.registers, this.index, this.type, value),
+                is(equalTo(false)));
+        assertThat(value.toDecimalType(), is(sameInstance(actualState)));
+    }
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicBitArray;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.PollTaskCoalescer;
+import org.openhab.io.transport.modbus.internal.PollTaskCoalescer.CoalescedPollTask;
+
+public class PollTaskCoalescerTest {
+
+    private static class CapturingCallback implements ModbusReadCallback {
+        private final AtomicReference<Object> data = new AtomicReference<>();
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+            data.set(registers);
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+            data.set(bits);
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint request, Exception error) {
+            data.set(error);
+        }
+    }
+
+    private final ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("localhost", 502);
+
+    private PollTask task(int unitId, ModbusReadFunctionCode functionCode, int start, int length,
+            ModbusReadCallback callback) {
+        return new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(unitId, functionCode, start, length, 3), callback);
+    }
+
+    private PollTask task(int start, int length) {
+        return task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, new CapturingCallback());
+    }
+
+    @Test
+    public void testSingleTaskIsNotWrapped() {
+        PollTask task = task(0, 10);
+        List<PollTask> plan = new PollTaskCoalescer(0).plan(Arrays.asList(task));
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0), is(sameInstance(task)));
+    }
+
+    @Test
+    public void testAdjacentAndOverlappingAreMerged() {
+        List<PollTask> plan = new PollTaskCoalescer(0).plan(Arrays.asList(task(10, 5), task(0, 10), task(12, 8)));
+        assertThat(plan.size(), is(equalTo(1)));
+        ModbusReadRequestBlueprint request = plan.get(0).getRequest();
+        assertThat(request.getReference(), is(equalTo(0)));
+        assertThat(request.getDataLength(), is(equalTo(20)));
+        assertThat(((CoalescedPollTask) plan.get(0)).getTasks().size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testMaxGap() {
+        assertThat(new PollTaskCoalescer(0).plan(Arrays.asList(task(0, 10), task(15, 5))).size(), is(equalTo(2)));
+        assertThat(new PollTaskCoalescer(5).plan(Arrays.asList(task(0, 10), task(15, 5))).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testDifferentUnitOrFunctionCodeNotMerged() {
+        List<PollTask> plan = new PollTaskCoalescer(10).plan(Arrays.asList(task(0, 10),
+                task(2, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 10, 5, new CapturingCallback()),
+                task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 10, 5, new CapturingCallback())));
+        assertThat(plan.size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testRegisterLimit() {
+        List<PollTask> plan = new PollTaskCoalescer(0).plan(Arrays.asList(task(0, 100), task(100, 25), task(125, 1)));
+        assertThat(plan.size(), is(equalTo(2)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(125)));
+        assertThat(plan.get(1).getRequest().getReference(), is(equalTo(125)));
+    }
+
+    @Test
+    public void testCoilLimit() {
+        List<PollTask> plan = new PollTaskCoalescer(0)
+                .plan(Arrays.asList(task(1, ModbusReadFunctionCode.READ_COILS, 0, 1000, new CapturingCallback()),
+                        task(1, ModbusReadFunctionCode.READ_COILS, 1000, 1000, new CapturingCallback()),
+                        task(1, ModbusReadFunctionCode.READ_COILS, 2000, 8, new CapturingCallback())));
+        assertThat(plan.size(), is(equalTo(2)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(2000)));
+    }
+
+    @Test
+    public void testRegistersSlicedToCallbacks() {
+        CapturingCallback first = new CapturingCallback();
+        CapturingCallback second = new CapturingCallback();
+        List<PollTask> plan = new PollTaskCoalescer(2)
+                .plan(Arrays.asList(task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 5, 2, first),
+                        task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 8, 3, second)));
+        assertThat(plan.size(), is(equalTo(1)));
+        PollTask merged = plan.get(0);
+        merged.getCallback().onRegisters(merged.getRequest(), new BasicModbusRegisterArray(5, 6, 7, 8, 9, 10));
+
+        ModbusRegisterArray firstRegisters = (ModbusRegisterArray) first.data.get();
+        assertThat(firstRegisters.size(), is(equalTo(2)));
+        assertThat(firstRegisters.getRegister(0).getValue(), is(equalTo(5)));
+        assertThat(firstRegisters.getRegister(1).getValue(), is(equalTo(6)));
+
+        ModbusRegisterArray secondRegisters = (ModbusRegisterArray) second.data.get();
+        assertThat(secondRegisters.size(), is(equalTo(3)));
+        assertThat(secondRegisters.getRegister(0).getValue(), is(equalTo(8)));
+        assertThat(secondRegisters.getRegister(2).getValue(), is(equalTo(10)));
+    }
+
+    @Test
+    public void testBitsSlicedToCallbacks() {
+        CapturingCallback first = new CapturingCallback();
+        CapturingCallback second = new CapturingCallback();
+        List<PollTask> plan = new PollTaskCoalescer(0)
+                .plan(Arrays.asList(task(1, ModbusReadFunctionCode.READ_COILS, 0, 2, first),
+                        task(1, ModbusReadFunctionCode.READ_COILS, 1, 3, second)));
+        PollTask merged = plan.get(0);
+        merged.getCallback().onBits(merged.getRequest(), new BasicBitArray(true, false, true, true));
+
+        assertThat(first.data.get(), is(equalTo(new BasicBitArray(true, false))));
+        assertThat(second.data.get(), is(equalTo(new BasicBitArray(false, true, true))));
+    }
+
+    @Test
+    public void testErrorPropagatedToAllCallbacks() {
+        CapturingCallback first = new CapturingCallback();
+        CapturingCallback second = new CapturingCallback();
+        List<PollTask> plan = new PollTaskCoalescer(0)
+                .plan(Arrays.asList(task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 0, 2, first),
+                        task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 2, 2, second)));
+        PollTask merged = plan.get(0);
+        Exception error = new Exception();
+        merged.getCallback().onError(merged.getRequest(), error);
+
+        assertThat(first.data.get(), is(sameInstance(error)));
+        assertThat(second.data.get(), is(sameInstance(error)));
+    }
+
+}
@@ -21,6 +21,7 @@ import org.openhab.io.transport.modbus.BitArray;
 import org.openhab.io.transport.modbus.BasicBitArray;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
+import org.openhab.io.transport.modbus.ModbusPollCoalescingStatistics;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
@@ -704,6 +705,83 @@ public class SmokeTest extends IntegrationTestSupport {
         assertTrue(String.valueOf(averagePollPeriodMillis), averagePollPeriodMillis < 300);
     }
 
+    /**
+     * Two regular polls reading adjacent registers, with poll coalescing enabled. Both callbacks should receive their
+     * own slice of the data, and transactions should be saved
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testRegularReadCoalescedWithHolding() throws InterruptedException {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        modbusManager.setPollCoalescing(endpoint, 0);
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        CountDownLatch firstCalled = new CountDownLatch(3);
+        CountDownLatch secondCalled = new CountDownLatch(3);
+
+        BasicPollTaskImpl first = new BasicPollTaskImpl(endpoint, new BasicModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 1, 10, 1), new ModbusReadCallback() {
+
+                    @Override
+                    public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                        try {
+                            assertThat(registers.size(), is(equalTo(10)));
+                            testHoldingValues(registers, 1);
+                        } catch (AssertionError e) {
+                            unexpectedCount.incrementAndGet();
+                        }
+                        firstCalled.countDown();
+                    }
+
+                    @Override
+                    public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                        unexpectedCount.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                        unexpectedCount.incrementAndGet();
+                    }
+                });
+        BasicPollTaskImpl second = new BasicPollTaskImpl(endpoint, new BasicModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 11, 5, 1), new ModbusReadCallback() {
+
+                    @Override
+                    public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                        try {
+                            assertThat(registers.size(), is(equalTo(5)));
+                            testHoldingValues(registers, 11);
+                        } catch (AssertionError e) {
+                            unexpectedCount.incrementAndGet();
+                        }
+                        secondCalled.countDown();
+                    }
+
+                    @Override
+                    public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                        unexpectedCount.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                        unexpectedCount.incrementAndGet();
+                    }
+                });
+        modbusManager.registerRegularPoll(first, 150, 0);
+        modbusManager.registerRegularPoll(second, 150, 0);
+        assertTrue(firstCalled.await(5, TimeUnit.SECONDS));
+        assertTrue(secondCalled.await(5, TimeUnit.SECONDS));
+        modbusManager.unregisterRegularPoll(first);
+        modbusManager.unregisterRegularPoll(second);
+
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+        ModbusPollCoalescingStatistics statistics = modbusManager.getPollCoalescingStatistics(endpoint);
+        assertNotNull(statistics);
+        assertTrue(statistics.toString(), statistics.getSavedTransactionCount() > 0);
+    }
+
     @Test
     public void testRegularReadFirstErrorThenOK() throws InterruptedException {
         generateData();
@@ -890,6 +968,109 @@ public class SmokeTest extends IntegrationTestSupport {
 
     }
 
+    /**
+     * Submit one-off reads of holding registers, and wait for all of them to complete
+     *
+     * @return time taken by the reads, in milliseconds
+     */
+    private long timeOneOffHoldingReads(ModbusSlaveEndpoint endpoint, int count, AtomicInteger unexpectedCount)
+            throws InterruptedException {
+        CountDownLatch callbackCalled = new CountDownLatch(count);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            int offset = i % 50;
+            modbusManager.submitOneTimePoll(new BasicPollTaskImpl(endpoint, new BasicModbusReadRequestBlueprint(
+                    SLAVE_UNIT_ID, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, offset, 5, 1),
+                    new ModbusReadCallback() {
+
+                        @Override
+                        public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                            try {
+                                assertThat(registers.size(), is(equalTo(5)));
+                                testHoldingValues(registers, offset);
+                            } catch (AssertionError e) {
+                                unexpectedCount.incrementAndGet();
+                            }
+                            callbackCalled.countDown();
+                        }
+
+                        @Override
+                        public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                            unexpectedCount.incrementAndGet();
+                            callbackCalled.countDown();
+                        }
+
+                        @Override
+                        public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                            unexpectedCount.incrementAndGet();
+                            callbackCalled.countDown();
+                        }
+                    }));
+        }
+        assertTrue(callbackCalled.await(30, TimeUnit.SECONDS));
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Execute reads with single transaction at a time, and with pipelined transactions. Responses should be matched to
+     * correct requests in both cases. Both runs use the default configuration apart from the number of transactions
+     * in flight. The durations are only logged.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testPipelinedReads() throws InterruptedException {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        int count = 20;
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        EndpointPoolConfiguration defaultConfig = modbusManager.getEndpointPoolConfiguration(endpoint);
+        assertNotNull(defaultConfig);
+
+        long pooledMillis = timeOneOffHoldingReads(endpoint, count, unexpectedCount);
+
+        EndpointPoolConfiguration pipelinedConfig = new EndpointPoolConfiguration();
+        pipelinedConfig.setInterTransactionDelayMillis(defaultConfig.getInterTransactionDelayMillis());
+        pipelinedConfig.setInterConnectDelayMillis(defaultConfig.getInterConnectDelayMillis());
+        pipelinedConfig.setConnectMaxTries(defaultConfig.getConnectMaxTries());
+        pipelinedConfig.setReconnectAfterMillis(defaultConfig.getReconnectAfterMillis());
+        pipelinedConfig.setConnectTimeoutMillis(defaultConfig.getConnectTimeoutMillis());
+        pipelinedConfig.setMaxInFlightTransactions(4);
+        modbusManager.setEndpointPoolConfiguration(endpoint, pipelinedConfig);
+        long pipelinedMillis = timeOneOffHoldingReads(endpoint, count, unexpectedCount);
+        modbusManager.setEndpointPoolConfiguration(endpoint, null);
+
+        LoggerFactory.getLogger(this.getClass()).info(
+                "{} reads took {} ms with single transaction in flight, and {} ms with up to {} transactions in flight",
+                count, pooledMillis, pipelinedMillis, pipelinedConfig.getMaxInFlightTransactions());
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+    }
+
+    /**
+     * Pipelined requests should be sent at least the inter-transaction delay apart
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testPipelinedReadsInterTransactionDelay() throws InterruptedException {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        int count = 5;
+        AtomicInteger unexpectedCount = new AtomicInteger();
+
+        EndpointPoolConfiguration pipelinedConfig = new EndpointPoolConfiguration();
+        pipelinedConfig.setInterTransactionDelayMillis(100);
+        pipelinedConfig.setReconnectAfterMillis(-1);
+        pipelinedConfig.setMaxInFlightTransactions(4);
+        modbusManager.setEndpointPoolConfiguration(endpoint, pipelinedConfig);
+        long pipelinedMillis = timeOneOffHoldingReads(endpoint, count, unexpectedCount);
+        modbusManager.setEndpointPoolConfiguration(endpoint, null);
+
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+        assertTrue(String.format("%d reads took %d ms", count, pipelinedMillis),
+                pipelinedMillis >= (count - 1) * pipelinedConfig.getInterTransactionDelayMillis());
+    }
+
     @Test
     public void testGetRegisteredRegularPolls() {
         ModbusSlaveEndpoint endpoint = getEndpoint();
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+
+/**
+ * Mutable holder for a numeric value decoded from registers
+ *
+ * The holder is meant to be reused between polls to avoid allocating new objects for every decoded value. Integer
+ * value types are stored as <code>long</code>, floating point value types as <code>double</code>.
+ *
+ * This class is not thread-safe.
+ *
+ * @author agent - Initial contribution
+ *
+ * @see ModbusBitUtilities#extractValueFromRegisters
+ */
+@NonNullByDefault
+public class DecodedRegisterValue {
+
+    private boolean empty = true;
+    private boolean floatingPoint;
+    private long longValue;
+    private double doubleValue;
+    private @Nullable DecimalType state;
+
+    /**
+     * Whether the holder has received any value
+     *
+     * @return true if no value has been stored
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Whether the value was decoded from floating point value type
+     *
+     * @return true with floating point value types, false with integer value types
+     */
+    public boolean isFloatingPoint() {
+        return floatingPoint;
+    }
+
+    /**
+     * Get the value as long. Floating point values are truncated.
+     *
+     * @return value as long
+     */
+    public long getLongValue() {
+        return floatingPoint ? (long) doubleValue : longValue;
+    }
+
+    /**
+     * Get the value as double
+     *
+     * @return value as double
+     */
+    public double getDoubleValue() {
+        return floatingPoint ? doubleValue : longValue;
+    }
+
+    /**
+     * Get the value as {@link DecimalType}
+     *
+     * The state object is created lazily, and the same instance is returned until the value changes.
+     *
+     * @return value as {@link DecimalType}
+     * @throws IllegalStateException if the holder is empty
+     */
+    public DecimalType toDecimalType() {
+        if (empty) {
+            throw new IllegalStateException("No value");
+        }
+        DecimalType state = this.state;
+        if (state == null) {
+            state = floatingPoint ? new DecimalType(doubleValue) : new DecimalType(longValue);
+            this.state = state;
+        }
+        return state;
+    }
+
+    /**
+     * Store integer value
+     *
+     * @param value new value
+     * @return whether the value changed
+     */
+    boolean setLong(long value) {
+        if (!empty && !floatingPoint && longValue == value) {
+            return false;
+        }
+        empty = false;
+        floatingPoint = false;
+        longValue = value;
+        state = null;
+        return true;
+    }
+
+    /**
+     * Store floating point value
+     *
+     * @param value new value
+     * @return whether the value changed
+     */
+    boolean setDouble(double value) {
+        if (!empty && floatingPoint && Double.doubleToLongBits(doubleValue) == Double.doubleToLongBits(value)) {
+            return false;
+        }
+        empty = false;
+        floatingPoint = true;
+        doubleValue = value;
+        state = null;
+        return true;
+    }
+
+    /**
+     * Clear the value
+     */
+    public void clear() {
+        empty = true;
+        state = null;
+    }
+
+    @Override
+    public String toString() {
+        if (empty) {
+            return "DecodedRegisterValue(<empty>)";
+        }
+        return new StringBuilder("DecodedRegisterValue(").append(floatingPoint ? doubleValue : longValue).append(')')
+                .toString();
+    }
+
+}
@@ -9,8 +9,6 @@
 package org.openhab.io.transport.modbus;
 
 import java.math.BigDecimal;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Optional;
 
@@ -26,6 +24,7 @@ import org.eclipse.smarthome.core.types.Command;
  * Utilities for working with binary data.
  *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Allocation-free register decoding
  */
 @NonNullByDefault
 public class ModbusBitUtilities {
@@ -82,6 +81,30 @@ public class ModbusBitUtilities {
      */
     public static DecimalType extractStateFromRegisters(ModbusRegisterArray registers, int index,
             ModbusConstants.ValueType type) {
+        DecodedRegisterValue value = new DecodedRegisterValue();
+        extractValueFromRegisters(registers, index, type, value);
+        return value.toDecimalType();
+    }
+
+    /**
+     * Read data from registers into a caller-supplied holder, without intermediate objects
+     *
+     * Interpretation of <tt>index</tt> and <tt>type</tt> is the same as with
+     * {@link #extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}. Integer types are
+     * decoded as <code>long</code>, while floating point types are decoded as <code>double</code>.
+     *
+     * Reusing the same holder between polls allows the caller to skip the conversion to state objects when the value
+     * has not changed.
+     *
+     * @param registers list of registers, each register represent 16bit of data
+     * @param index zero based item index. Interpretation of this depends on type
+     * @param type item type, e.g. unsigned 16bit integer (<tt>ModbusBindingProvider.ValueType.UINT16</tt>)
+     * @param value holder for the decoded value
+     * @return whether the value in the holder changed
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers
+     */
+    public static boolean extractValueFromRegisters(ModbusRegisterArray registers, int index,
+            ModbusConstants.ValueType type, DecodedRegisterValue value) {
         int endBitIndex = (type.getBits() >= 16 ? 16 * index : type.getBits() * index) + type.getBits() - 1;
         // each register has 16 bits
         int lastValidIndex = registers.size() * 16 - 1;
@@ -92,62 +115,45 @@ public class ModbusBitUtilities {
         }
         switch (type) {
             case BIT:
-                return new DecimalType((registers.getRegister(index / 16).toUnsignedShort() >> (index % 16)) & 1);
+                return value.setLong((registers.getRegister(index / 16).toUnsignedShort() >> (index % 16)) & 1);
             case INT8:
-                return new DecimalType(registers.getRegister(index / 2).getBytes()[1 - (index % 2)]);
+                return value.setLong((byte) (registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))));
             case UINT8:
-                return new DecimalType(
-                        (registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))) & 0xff);
-            case INT16: {
-                ByteBuffer buff = ByteBuffer.allocate(2);
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getShort(0));
-            }
+                return value.setLong((registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))) & 0xff);
+            case INT16:
+                return value.setLong((short) registers.getRegister(index).toUnsignedShort());
             case UINT16:
-                return new DecimalType(registers.getRegister(index).toUnsignedShort());
-            case INT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0));
-            }
-            case UINT32: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0));
-            }
-            case FLOAT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0));
-            }
-            case INT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0));
-            }
-            case UINT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0));
-            }
-            case FLOAT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0));
-            }
+                return value.setLong(registers.getRegister(index).toUnsignedShort());
+            case INT32:
+                return value.setLong(int32(registers, index, index + 1));
+            case UINT32:
+                return value.setLong(int32(registers, index, index + 1) & 0xFFFFFFFFL);
+            case FLOAT32:
+                return value.setDouble(Float.intBitsToFloat(int32(registers, index, index + 1)));
+            case INT32_SWAP:
+                return value.setLong(int32(registers, index + 1, index));
+            case UINT32_SWAP:
+                return value.setLong(int32(registers, index + 1, index) & 0xFFFFFFFFL);
+            case FLOAT32_SWAP:
+                return value.setDouble(Float.intBitsToFloat(int32(registers, index + 1, index)));
             default:
                 throw new IllegalArgumentException(type.getConfigValue());
         }
     }
 
+    /**
+     * Combine two registers to 32 bit integer, in big endian order
+     *
+     * @param registers registers to read
+     * @param hiIndex index of the register containing the most significant 16 bits
+     * @param loIndex index of the register containing the least significant 16 bits
+     * @return 32 bit integer
+     */
+    private static int int32(ModbusRegisterArray registers, int hiIndex, int loIndex) {
+        return (registers.getRegister(hiIndex).toUnsignedShort() << 16)
+                | registers.getRegister(loIndex).toUnsignedShort();
+    }
+
     /**
      * Read data from registers and convert the result to StringType
      * Strings should start the the first byte of a register, but could
@@ -79,6 +79,30 @@ public interface ModbusManager {
      */
     public @Nullable EndpointPoolConfiguration getEndpointPoolConfiguration(ModbusSlaveEndpoint endpoint);
 
+    /**
+     * Enable or disable coalescing of regular polls with a given endpoint
+     *
+     * With coalescing enabled, regular polls of the endpoint that become due at the same time are merged into as few
+     * read requests as possible. Poll tasks are merged only if they share unit id and function code, and the merged
+     * request does not exceed the limits of the Modbus protocol. The data of the merged read is sliced back to the
+     * callbacks of the original poll tasks.
+     *
+     * Coalescing is disabled by default.
+     *
+     * @param endpoint endpoint to configure
+     * @param maxGap maximum number of unrequested registers (or coils/discrete inputs) between two poll tasks that
+     *            are still merged together. Use negative value to disable coalescing.
+     */
+    public void setPollCoalescing(ModbusSlaveEndpoint endpoint, int maxGap);
+
+    /**
+     * Get statistics of regular poll coalescing with a given endpoint
+     *
+     * @param endpoint endpoint to query
+     * @return statistics of the endpoint, or null if coalescing is not enabled with the endpoint
+     */
+    public @Nullable ModbusPollCoalescingStatistics getPollCoalescingStatistics(ModbusSlaveEndpoint endpoint);
+
     /**
      * Register listener for changes
      *
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Statistics of regular poll coalescing with a single endpoint
+ *
+ * @author agent - Initial contribution
+ *
+ * @see ModbusManager#setPollCoalescing
+ */
+@NonNullByDefault
+public interface ModbusPollCoalescingStatistics {
+
+    /**
+     * Get number of poll task executions that have been served by the coalescing planner
+     *
+     * @return number of poll task executions
+     */
+    public long getPollCount();
+
+    /**
+     * Get number of read transactions actually executed with the slave
+     *
+     * @return number of read transactions
+     */
+    public long getTransactionCount();
+
+    /**
+     * Get number of read transactions saved by coalescing, i.e. the difference between poll count and transaction
+     * count
+     *
+     * @return number of read transactions saved
+     */
+    public default long getSavedTransactionCount() {
+        return getPollCount() - getTransactionCount();
+    }
+
+}
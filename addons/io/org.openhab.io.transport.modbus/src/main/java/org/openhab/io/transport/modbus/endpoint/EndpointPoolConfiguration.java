@@ -29,6 +29,9 @@ public class EndpointPoolConfiguration {
      * How long should be the minimum duration between previous transaction end and the next transaction with the same
      * endpoint.
      *
+     * With more than one transaction in flight, this is the minimum duration between sending two consecutive
+     * requests.
+     *
      * In milliseconds.
      */
     private long interTransactionDelayMillis;
@@ -48,6 +51,8 @@ public class EndpointPoolConfiguration {
     /**
      * Re-connect connection every X milliseconds. Negative means that connection is not disconnected automatically.
      * One can use 0ms to denote reconnection after every transaction (default).
+     *
+     * With more than one transaction in flight, an expired connection is closed once no transaction is in flight.
      */
     private int reconnectAfterMillis;
 
@@ -57,6 +62,15 @@ public class EndpointPoolConfiguration {
      */
     private int connectTimeoutMillis;
 
+    /**
+     * How many transactions can be outstanding at the same time. Values larger than one enable pipelining of requests
+     * over single connection, and are applicable only with Modbus/TCP endpoints. Responses are matched to the requests
+     * using the transaction ID.
+     *
+     * Default of one means that next transaction is started only after the previous transaction has finished.
+     */
+    private int maxInFlightTransactions = 1;
+
     private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
 
     static {
@@ -103,10 +117,19 @@ public class EndpointPoolConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getMaxInFlightTransactions() {
+        return maxInFlightTransactions;
+    }
+
+    public void setMaxInFlightTransactions(int maxInFlightTransactions) {
+        this.maxInFlightTransactions = maxInFlightTransactions;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder(2149, 3117).append(interTransactionDelayMillis).append(interConnectDelayMillis)
-                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis).toHashCode();
+                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis)
+                .append(maxInFlightTransactions).toHashCode();
     }
 
     @Override
@@ -115,7 +138,8 @@ public class EndpointPoolConfiguration {
                 .append("interTransactionDelayMillis", interTransactionDelayMillis)
                 .append("interConnectDelayMillis", interConnectDelayMillis).append("connectMaxTries", connectMaxTries)
                 .append("reconnectAfterMillis", reconnectAfterMillis)
-                .append("connectTimeoutMillis", connectTimeoutMillis).toString();
+                .append("connectTimeoutMillis", connectTimeoutMillis)
+                .append("maxInFlightTransactions", maxInFlightTransactions).toString();
     }
 
     @Override
@@ -133,7 +157,8 @@ public class EndpointPoolConfiguration {
         return new EqualsBuilder().append(interTransactionDelayMillis, rhs.interTransactionDelayMillis)
                 .append(interConnectDelayMillis, rhs.interConnectDelayMillis)
                 .append(connectMaxTries, rhs.connectMaxTries).append(reconnectAfterMillis, rhs.reconnectAfterMillis)
-                .append(connectTimeoutMillis, rhs.connectTimeoutMillis).isEquals();
+                .append(connectTimeoutMillis, rhs.connectTimeoutMillis)
+                .append(maxInFlightTransactions, rhs.maxInFlightTransactions).isEquals();
     }
 
 }
@@ -9,7 +9,10 @@
 package org.openhab.io.transport.modbus.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -37,6 +40,7 @@ import org.openhab.io.transport.modbus.ModbusCallback;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
+import org.openhab.io.transport.modbus.ModbusPollCoalescingStatistics;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusRequestBlueprint;
@@ -64,6 +68,7 @@ import net.wimpi.modbus.ModbusException;
 import net.wimpi.modbus.ModbusIOException;
 import net.wimpi.modbus.ModbusSlaveException;
 import net.wimpi.modbus.io.ModbusTransaction;
+import net.wimpi.modbus.msg.ExceptionResponse;
 import net.wimpi.modbus.msg.ModbusRequest;
 import net.wimpi.modbus.msg.ModbusResponse;
 import net.wimpi.modbus.net.ModbusSlaveConnection;
@@ -76,6 +81,7 @@ import net.wimpi.modbus.net.ModbusSlaveConnection;
  * capability to handle many connections at the same time
  *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Poll coalescing and pipelined transactions
  */
 @Component(service = ModbusManager.class, immediate = true, configurationPid = "transport.modbus")
 @NonNullByDefault
@@ -89,7 +95,6 @@ public class ModbusManagerImpl implements ModbusManager {
         private static final long serialVersionUID = 6939730579178506885L;
     }
 
-    @FunctionalInterface
     private interface ModbusOperation<T> {
 
         /**
@@ -105,6 +110,31 @@ public class ModbusManagerImpl implements ModbusManager {
         public void accept(String operationId, T task, ModbusSlaveConnection connection)
                 throws ModbusException, IIOException, ModbusUnexpectedTransactionIdException;
 
+        /**
+         * Execute the operation using pipelined connection
+         *
+         * All errors should be raised. There should not be any retry mechanism implemented at this level
+         *
+         * @param task task to execute
+         * @param pipeline pipelined connection to use
+         * @throws Exception on IO errors (including timeouts), slave exception responses, and when transaction IDs
+         *             of the request and response do not match
+         */
+        public void acceptPipelined(String operationId, T task, PipelinedTCPConnection pipeline)
+                throws ModbusException, ModbusUnexpectedTransactionIdException, InterruptedException;
+
+    }
+
+    /**
+     * Raise slave exception in case of exception response, similar to the transactions of the modbus library
+     *
+     * @param response response to check
+     * @throws ModbusSlaveException when the response is an exception response
+     */
+    private static void checkExceptionResponse(ModbusResponse response) throws ModbusSlaveException {
+        if (response instanceof ExceptionResponse) {
+            throw new ModbusSlaveException(((ExceptionResponse) response).getExceptionCode());
+        }
     }
 
     /**
@@ -166,6 +196,27 @@ public class ModbusManagerImpl implements ModbusManager {
                 });
             }
         }
+
+        @Override
+        public void acceptPipelined(String operationId, PollTask task, PipelinedTCPConnection pipeline)
+                throws ModbusException, ModbusUnexpectedTransactionIdException, InterruptedException {
+            ModbusReadRequestBlueprint request = task.getRequest();
+            ModbusReadCallback callback = task.getCallback();
+
+            ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
+            logger.trace("Going execute pipelined read request (FC={}) [operation ID {}]", request.getFunctionCode(),
+                    operationId);
+            ModbusResponse response = pipeline.execute(libRequest);
+            logger.trace("Response for pipelined read request (FC={}, transaction ID={}): {} [operation ID {}]",
+                    response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
+            checkExceptionResponse(response);
+            checkTransactionId(response, libRequest, task, operationId);
+            if (callback != null && callbackThreadPool != null) {
+                callbackThreadPool.execute(() -> {
+                    ModbusLibraryWrapper.invokeCallbackWithResponse(request, callback, response);
+                });
+            }
+        }
     }
 
     /**
@@ -205,6 +256,48 @@ public class ModbusManagerImpl implements ModbusManager {
                 });
             }
         }
+
+        @Override
+        public void acceptPipelined(String operationId, WriteTask task, PipelinedTCPConnection pipeline)
+                throws ModbusException, ModbusUnexpectedTransactionIdException, InterruptedException {
+            ModbusWriteRequestBlueprint request = task.getRequest();
+            ModbusWriteCallback callback = task.getCallback();
+
+            ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
+            logger.trace("Going execute pipelined write request (FC={}) [operation ID {}]", request.getFunctionCode(),
+                    operationId);
+            ModbusResponse response = pipeline.execute(libRequest);
+            logger.trace("Response for pipelined write request (FC={}, transaction ID={}): {} [operation ID {}]",
+                    response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
+            checkExceptionResponse(response);
+            checkTransactionId(response, libRequest, task, operationId);
+            if (callback != null && callbackThreadPool != null) {
+                callbackThreadPool.execute(() -> {
+                    invokeCallbackWithResponse(request, callback, new ModbusResponseImpl(response));
+                });
+            }
+        }
+    }
+
+    /**
+     * State of regular poll coalescing with a single endpoint
+     *
+     * Poll tasks that become due are collected to pending set, and executed together after
+     * {@link ModbusManagerImpl#POLL_COALESCING_WINDOW_MILLIS}
+     *
+     * @author agent - Initial contribution
+     *
+     */
+    private static class PollCoalescingState {
+        private final PollTaskCoalescer coalescer;
+        private final PollCoalescingStatisticsImpl statistics = new PollCoalescingStatisticsImpl();
+        private final Set<PollTask> pendingTasks = new LinkedHashSet<>();
+        @Nullable
+        private ScheduledFuture<?> flushFuture;
+
+        private PollCoalescingState(int maxGap) {
+            this.coalescer = new PollTaskCoalescer(maxGap);
+        }
     }
 
     private final Logger logger = LoggerFactory.getLogger(ModbusManagerImpl.class);
@@ -248,6 +341,14 @@ public class ModbusManagerImpl implements ModbusManager {
      * Presumably slow callbacks can increase queue size with callbackThreadPool
      */
     private static final long WARN_QUEUE_SIZE = 500;
+    /**
+     * How long to collect due regular polls before executing them as merged reads, when poll coalescing is enabled
+     */
+    private static final long POLL_COALESCING_WINDOW_MILLIS = 10;
+    /**
+     * How long to wait for response of a single pipelined transaction
+     */
+    private static final long PIPELINED_TRANSACTION_TIMEOUT_MILLIS = Modbus.DEFAULT_TIMEOUT;
     private static final long MONITOR_QUEUE_INTERVAL_MILLIS = 10000;
 
     private final PollOperation pollOperation = new PollOperation();
@@ -269,6 +370,12 @@ public class ModbusManagerImpl implements ModbusManager {
     @Nullable
     private volatile ModbusSlaveConnectionFactoryImpl connectionFactory;
     private volatile Map<PollTask, ScheduledFuture<?>> scheduledPollTasks = new ConcurrentHashMap<>();
+    private final Map<ModbusSlaveEndpoint, PollCoalescingState> pollCoalescingStates = new ConcurrentHashMap<>();
+    /**
+     * Pipelined connections of endpoints configured with more than one transaction in flight. These connections
+     * bypass the connection pool.
+     */
+    private final Map<ModbusSlaveEndpoint, PipelinedTCPConnection> pipelinedConnections = new ConcurrentHashMap<>();
     /**
      * Executor for requests
      */
@@ -512,6 +619,12 @@ public class ModbusManagerImpl implements ModbusManager {
             throw new IllegalArgumentException("maxTries should be positive");
         }
 
+        PipelinedTCPConnection pipeline = getPipelinedConnection(endpoint, connectionFactory);
+        if (pipeline != null) {
+            executePipelinedOperation(task, oneOffTask, operation, pipeline, retryDelay);
+            return;
+        }
+
         String operationId = UUID.randomUUID().toString();
         Optional<ModbusSlaveConnection> connection = Optional.empty();
         try {
@@ -686,6 +799,103 @@ public class ModbusManagerImpl implements ModbusManager {
         }
     }
 
+    /**
+     * Get pipelined connection for the endpoint, if the endpoint is configured to allow more than one transaction in
+     * flight
+     *
+     * @param endpoint endpoint of the task
+     * @param connectionFactory connection factory holding the endpoint configuration
+     * @return pipelined connection, or null if the endpoint should use the connection pool
+     */
+    private @Nullable PipelinedTCPConnection getPipelinedConnection(ModbusSlaveEndpoint endpoint,
+            ModbusSlaveConnectionFactoryImpl connectionFactory) {
+        if (!(endpoint instanceof ModbusTCPSlaveEndpoint)) {
+            return null;
+        }
+        EndpointPoolConfiguration configuration = connectionFactory.getEndpointPoolConfiguration(endpoint);
+        if (configuration == null || configuration.getMaxInFlightTransactions() <= 1) {
+            return null;
+        }
+        return pipelinedConnections.computeIfAbsent(endpoint, e -> new PipelinedTCPConnection(
+                (ModbusTCPSlaveEndpoint) e, configuration, PIPELINED_TRANSACTION_TIMEOUT_MILLIS));
+    }
+
+    private void closePipelinedConnection(ModbusSlaveEndpoint endpoint) {
+        PipelinedTCPConnection pipeline = pipelinedConnections.remove(endpoint);
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Execute operation using pipelined connection, with a retry mechanism
+     *
+     * Unlike with pooled connections, other operations with the same endpoint are executed concurrently. Failure
+     * (e.g. timeout) of a single try affects only this operation.
+     *
+     * @param task task to execute
+     * @param oneOffTask whether this is one-off, or execution of previously scheduled poll
+     * @param operation operation to execute
+     * @param pipeline pipelined connection to use
+     * @param retryDelay minimum delay between tries
+     */
+    private <R extends ModbusRequestBlueprint, C extends ModbusCallback, T extends TaskWithEndpoint<R, C>> void
+            executePipelinedOperation(@NonNull T task, boolean oneOffTask, ModbusOperation<T> operation,
+                    PipelinedTCPConnection pipeline, long retryDelay) {
+        R request = task.getRequest();
+        @Nullable
+        C callback = task.getCallback();
+        int maxTries = task.getMaxTries();
+        String operationId = UUID.randomUUID().toString();
+        @Nullable
+        Exception lastError = null;
+        @Nullable
+        Long lastTryMillis = null;
+        try {
+            for (int tryIndex = 1; tryIndex <= maxTries; tryIndex++) {
+                if (!oneOffTask && task instanceof PollTask) {
+                    verifyTaskIsRegistered((PollTask) task);
+                }
+                ModbusSlaveConnectionFactoryImpl.waitAtleast(lastTryMillis, retryDelay);
+                Exception error;
+                try {
+                    operation.acceptPipelined(operationId, task, pipeline);
+                    lastError = null;
+                    break;
+                } catch (ModbusIOException e) {
+                    error = new ModbusSlaveIOExceptionImpl(e);
+                } catch (ModbusSlaveException e) {
+                    error = new ModbusSlaveErrorResponseExceptionImpl(e);
+                } catch (ModbusUnexpectedTransactionIdException e) {
+                    error = e;
+                } catch (ModbusException e) {
+                    error = e;
+                } finally {
+                    lastTryMillis = System.currentTimeMillis();
+                }
+                lastError = error;
+                logger.warn("Try {} out of {} failed when executing pipelined request ({}). "
+                        + "Error details: {} {} [operation ID {}]", tryIndex, maxTries, request,
+                        error.getClass().getName(), error.getMessage(), operationId);
+            }
+        } catch (PollTaskUnregistered e) {
+            logger.warn("Poll task was unregistered -- not executing/proceeding with the poll: {} [operation ID {}]",
+                    e.getMessage(), operationId);
+            return;
+        } catch (InterruptedException e) {
+            logger.warn("Poll task was canceled -- not executing/proceeding with the poll: {} [operation ID {}]",
+                    e.getMessage(), operationId);
+            return;
+        }
+        Exception exception = lastError;
+        ExecutorService callbackThreadPool = this.callbackThreadPool;
+        if (exception != null && callback != null && callbackThreadPool != null) {
+            callbackThreadPool.execute(() -> {
+                invokeCallbackWithError(request, callback, exception);
+            });
+        }
+    }
+
     @Override
     public ScheduledFuture<?> submitOneTimePoll(PollTask task) {
         ScheduledExecutorService executor = scheduledThreadPoolExecutor;
@@ -716,6 +926,10 @@ public class ModbusManagerImpl implements ModbusManager {
                 long started = System.currentTimeMillis();
                 logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
                         started);
+                if (submitForCoalescing(task)) {
+                    logger.debug("Scheduled ({}ms) poll task {} submitted for coalescing", pollPeriodMillis, task);
+                    return;
+                }
                 executeOperation(task, false, pollOperation);
                 long finished = System.currentTimeMillis();
                 logger.debug(
@@ -791,6 +1005,8 @@ public class ModbusManagerImpl implements ModbusManager {
             @Nullable EndpointPoolConfiguration configuration) {
         Objects.requireNonNull(connectionFactory, "Not activated!");
         connectionFactory.setEndpointPoolConfiguration(endpoint, configuration);
+        // Pipelined connection is re-created on next request with the updated configuration
+        closePipelinedConnection(endpoint);
         for (ModbusManagerListener listener : listeners) {
             listener.onEndpointPoolConfigurationSet(endpoint, configuration);
         }
@@ -802,6 +1018,81 @@ public class ModbusManagerImpl implements ModbusManager {
         return connectionFactory.getEndpointPoolConfiguration(endpoint);
     }
 
+    @Override
+    public void setPollCoalescing(ModbusSlaveEndpoint endpoint, int maxGap) {
+        // Note that polls already pending with the previous state are still executed by the scheduled flush
+        if (maxGap < 0) {
+            if (pollCoalescingStates.remove(endpoint) != null) {
+                logger.debug("Poll coalescing disabled with endpoint {}", endpoint);
+            }
+            return;
+        }
+        pollCoalescingStates.put(endpoint, new PollCoalescingState(maxGap));
+        logger.debug("Poll coalescing enabled with endpoint {} using max gap {}", endpoint, maxGap);
+    }
+
+    @Override
+    public @Nullable ModbusPollCoalescingStatistics getPollCoalescingStatistics(ModbusSlaveEndpoint endpoint) {
+        PollCoalescingState state = pollCoalescingStates.get(endpoint);
+        return state == null ? null : state.statistics;
+    }
+
+    /**
+     * Queue due regular poll for coalesced execution, if coalescing is enabled with the endpoint of the task
+     *
+     * @param task poll task that is due
+     * @return whether the task was queued. If false is returned, the caller should execute the task by itself.
+     */
+    private boolean submitForCoalescing(PollTask task) {
+        PollCoalescingState state = pollCoalescingStates.get(task.getEndpoint());
+        ScheduledExecutorService executor = scheduledThreadPoolExecutor;
+        if (state == null || executor == null) {
+            return false;
+        }
+        synchronized (state) {
+            state.pendingTasks.add(task);
+            if (state.flushFuture == null) {
+                state.flushFuture = executor.schedule(() -> flushCoalescedPolls(state), POLL_COALESCING_WINDOW_MILLIS,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Execute all pending regular polls of the coalescing state as merged reads
+     *
+     * @param state coalescing state of the endpoint
+     */
+    private void flushCoalescedPolls(PollCoalescingState state) {
+        List<PollTask> tasks;
+        synchronized (state) {
+            state.flushFuture = null;
+            tasks = new ArrayList<>(state.pendingTasks.size());
+            for (PollTask task : state.pendingTasks) {
+                // Poll task might have been unregistered while waiting
+                if (scheduledPollTasks.containsKey(task)) {
+                    tasks.add(task);
+                }
+            }
+            state.pendingTasks.clear();
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<PollTask> plan = state.coalescer.plan(tasks);
+        state.statistics.record(tasks.size(), plan.size());
+        logger.debug("Executing {} due regular polls using {} read requests", tasks.size(), plan.size());
+        for (PollTask task : plan) {
+            if (task instanceof PollTaskCoalescer.CoalescedPollTask) {
+                // merged task is never registered by itself, treat it as one-off task
+                executeOperation(task, true, pollOperation);
+            } else {
+                executeOperation(task, false, pollOperation);
+            }
+        }
+    }
+
     @Override
     public void addListener(ModbusManagerListener listener) {
         listeners.add(listener);
@@ -861,6 +1152,17 @@ public class ModbusManagerImpl implements ModbusManager {
                 monitorFuture.cancel(true);
                 monitorFuture = null;
             }
+            pipelinedConnections.keySet().forEach(this::closePipelinedConnection);
+            for (PollCoalescingState state : pollCoalescingStates.values()) {
+                synchronized (state) {
+                    ScheduledFuture<?> flushFuture = state.flushFuture;
+                    if (flushFuture != null) {
+                        flushFuture.cancel(true);
+                    }
+                    state.flushFuture = null;
+                    state.pendingTasks.clear();
+                }
+            }
             // Note that it is not allowed to shutdown the executor, since they will be reused when
             // when pool is received from ThreadPoolManager is called
             scheduledThreadPoolExecutor = null;
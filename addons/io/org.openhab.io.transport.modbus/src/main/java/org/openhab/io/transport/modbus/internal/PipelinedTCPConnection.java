@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.endpoint.EndpointPoolConfiguration;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.io.ModbusTransport;
+import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ModbusResponse;
+import net.wimpi.modbus.net.TCPMasterConnection;
+
+/**
+ * Modbus/TCP connection allowing many outstanding transactions at the same time
+ *
+ * Requests are written to the socket as they arrive (up to configured maximum number of transactions in flight), and
+ * a dedicated reader thread matches the responses back to the requests using the MBAP transaction ID.
+ *
+ * Timeout of a single request fails only that request. I/O errors fail all the requests in flight, and the connection
+ * is re-established on next request.
+ *
+ * The endpoint configuration is honoured as follows: consecutive requests are written at least
+ * {@link EndpointPoolConfiguration#getInterTransactionDelayMillis()} apart. Once the connection is older than
+ * {@link EndpointPoolConfiguration#getReconnectAfterMillis()}, it is closed as soon as no transaction is in flight, and
+ * re-established on next request. With zero, the connection is closed whenever the last transaction in flight has
+ * finished. Negative value keeps the connection open.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PipelinedTCPConnection {
+
+    /**
+     * Single established connection with the reader thread. A new link is created after I/O errors.
+     */
+    private class Link implements Runnable {
+        private final TCPMasterConnection connection;
+        private final ModbusTransport transport;
+        private final Map<Integer, CompletableFuture<ModbusResponse>> pending = new ConcurrentHashMap<>();
+        private final long connectedMillis = System.currentTimeMillis();
+        // Guarded by the transport
+        private long nextWriteNanos = System.nanoTime();
+        // Number of requests using the link, guarded by the PipelinedTCPConnection
+        private int users;
+        private volatile boolean closed;
+
+        private Link(TCPMasterConnection connection) {
+            this.connection = connection;
+            this.transport = connection.getModbusTransport();
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                ModbusResponse response;
+                try {
+                    response = transport.readResponse();
+                } catch (ModbusIOException e) {
+                    if (!closed) {
+                        logger.debug("I/O error reading response from endpoint {}: {}. Failing {} pending requests.",
+                                endpoint, e.getMessage(), pending.size());
+                    }
+                    close(e);
+                    return;
+                } catch (RuntimeException e) {
+                    close(new ModbusIOException(String.format("Unexpected error: %s", e)));
+                    throw e;
+                }
+                CompletableFuture<ModbusResponse> future = pending.remove(response.getTransactionID());
+                if (future == null) {
+                    // Most likely response to a request which has timed out already
+                    logger.debug("Ignoring response with unexpected transaction ID {} from endpoint {}",
+                            response.getTransactionID(), endpoint);
+                } else {
+                    future.complete(response);
+                }
+            }
+        }
+
+        private void write(ModbusRequest request) throws ModbusIOException, InterruptedException {
+            synchronized (transport) {
+                long delayNanos = nextWriteNanos - System.nanoTime();
+                if (delayNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                }
+                transport.writeMessage(request);
+                nextWriteNanos = System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(configuration.getInterTransactionDelayMillis());
+            }
+        }
+
+        private boolean isExpired() {
+            int reconnectAfterMillis = configuration.getReconnectAfterMillis();
+            return reconnectAfterMillis == 0
+                    || (reconnectAfterMillis > 0 && System.currentTimeMillis() - connectedMillis > reconnectAfterMillis);
+        }
+
+        private void close(ModbusIOException error) {
+            closed = true;
+            connection.close();
+            pending.values().forEach(future -> future.completeExceptionally(error));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Creates the daemon reader threads. Unexpected errors of a reader thread are logged.
+     */
+    private static class ReaderThreadFactory implements ThreadFactory {
+        private final Logger logger = LoggerFactory.getLogger(ReaderThreadFactory.class);
+        private final String name;
+
+        private ReaderThreadFactory(ModbusTCPSlaveEndpoint endpoint) {
+            this.name = "modbusPipelinedReader-" + endpoint.getAddress() + ":" + endpoint.getPort();
+        }
+
+        @Override
+        public Thread newThread(@Nullable Runnable runnable) {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> logger
+                    .error("Unexpected error in reader thread {}: {}", t.getName(), e.getMessage(), e));
+            return thread;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(PipelinedTCPConnection.class);
+
+    private final ModbusTCPSlaveEndpoint endpoint;
+    private final EndpointPoolConfiguration configuration;
+    private final long timeoutMillis;
+    private final Semaphore inFlight;
+    private final ThreadFactory readerThreadFactory;
+    private final AtomicInteger transactionId = new AtomicInteger();
+    private @Nullable Link link;
+    private volatile boolean closed;
+
+    /**
+     *
+     * @param endpoint endpoint to connect to
+     * @param configuration configuration of the endpoint, defining the maximum number of transactions in flight
+     * @param timeoutMillis how long to wait for the response of a single request
+     */
+    public PipelinedTCPConnection(ModbusTCPSlaveEndpoint endpoint, EndpointPoolConfiguration configuration,
+            long timeoutMillis) {
+        this.endpoint = endpoint;
+        this.configuration = configuration;
+        this.timeoutMillis = timeoutMillis;
+        this.inFlight = new Semaphore(Math.max(1, configuration.getMaxInFlightTransactions()), true);
+        this.readerThreadFactory = new ReaderThreadFactory(endpoint);
+    }
+
+    public ModbusTCPSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public EndpointPoolConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Get number of transactions currently in flight
+     *
+     * @return number of transactions waiting for response
+     */
+    public int getInFlightCount() {
+        Link link = this.link;
+        return link == null ? 0 : link.pending.size();
+    }
+
+    /**
+     * Execute request and wait for the response
+     *
+     * The request is assigned a new transaction ID.
+     *
+     * @param request request to execute
+     * @return response matching the request
+     * @throws ModbusIOException on I/O errors, connection errors and on timeout
+     * @throws InterruptedException when interrupted while waiting for the response
+     */
+    public ModbusResponse execute(ModbusRequest request) throws ModbusIOException, InterruptedException {
+        if (!inFlight.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new ModbusIOException(
+                    String.format("Timeout waiting for free transaction slot with endpoint %s", endpoint));
+        }
+        try {
+            Link link = getLink();
+            int id = nextTransactionId(link);
+            request.setTransactionID(id);
+            CompletableFuture<ModbusResponse> future = new CompletableFuture<>();
+            link.pending.put(id, future);
+            try {
+                link.write(request);
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ModbusIOException e) {
+                link.close(e);
+                throw e;
+            } catch (TimeoutException e) {
+                throw new ModbusIOException(String.format("Timeout (%d ms) waiting for response with transaction ID %d",
+                        timeoutMillis, id));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ModbusIOException) {
+                    throw (ModbusIOException) cause;
+                }
+                throw new ModbusIOException(String.format("Unexpected error: %s", cause));
+            } finally {
+                link.pending.remove(id);
+                releaseLink(link);
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Close the connection. Requests in flight are failed.
+     */
+    public synchronized void close() {
+        closed = true;
+        Link link = this.link;
+        if (link != null) {
+            link.close(new ModbusIOException("Connection closed"));
+            this.link = null;
+        }
+    }
+
+    private synchronized Link getLink() throws ModbusIOException {
+        if (closed) {
+            throw new ModbusIOException("Connection closed");
+        }
+        Link link = this.link;
+        if (link != null && !link.closed && link.connection.isConnected() && (link.users > 0 || !link.isExpired())) {
+            link.users++;
+            return link;
+        }
+        if (link != null) {
+            link.close(new ModbusIOException("Connection reset"));
+        }
+        TCPMasterConnection connection;
+        try {
+            connection = new TCPMasterConnection(InetAddress.getByName(endpoint.getAddress()), endpoint.getPort(),
+                    configuration.getConnectTimeoutMillis());
+            connection.connect();
+            // Reader thread blocks on the socket, timeouts are handled per request
+            connection.setTimeout(0);
+        } catch (Exception e) {
+            throw new ModbusIOException(String.format("Could not connect to endpoint %s: %s %s", endpoint,
+                    e.getClass().getSimpleName(), e.getMessage()));
+        }
+        link = new Link(connection);
+        link.users++;
+        readerThreadFactory.newThread(link).start();
+        this.link = link;
+        logger.debug("Established pipelined connection {} with endpoint {}", connection, endpoint);
+        return link;
+    }
+
+    /**
+     * Called when a request stops using the link. The link is closed when it has expired and no other request is
+     * using it.
+     */
+    private synchronized void releaseLink(Link link) {
+        if (--link.users == 0 && !link.closed && link.isExpired()) {
+            logger.trace("Closing pipelined connection {} with endpoint {} (reconnectAfterMillis={})",
+                    link.connection, endpoint, configuration.getReconnectAfterMillis());
+            link.close(new ModbusIOException("Connection closed after reconnectAfterMillis"));
+            if (this.link == link) {
+                this.link = null;
+            }
+        }
+    }
+
+    private int nextTransactionId(Link link) {
+        // MBAP transaction ID is 16 bits. Skip the IDs still waiting for a response
+        int id;
+        do {
+            id = transactionId.incrementAndGet() & 0xFFFF;
+        } while (link.pending.containsKey(id));
+        return id;
+    }
+
+}
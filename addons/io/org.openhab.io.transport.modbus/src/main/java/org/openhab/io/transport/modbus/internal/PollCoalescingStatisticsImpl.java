@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusPollCoalescingStatistics;
+
+/**
+ * Thread-safe implementation of {@link ModbusPollCoalescingStatistics}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PollCoalescingStatisticsImpl implements ModbusPollCoalescingStatistics {
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong transactionCount = new AtomicLong();
+
+    /**
+     * Record single execution of the planner
+     *
+     * @param polls number of poll tasks planned
+     * @param transactions number of transactions resulting from the plan
+     */
+    public void record(int polls, int transactions) {
+        pollCount.addAndGet(polls);
+        transactionCount.addAndGet(transactions);
+    }
+
+    @Override
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return transactionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("PollCoalescingStatistics(polls=").append(getPollCount()).append(", transactions=")
+                .append(getTransactionCount()).append(", saved=").append(getSavedTransactionCount()).append(')')
+                .toString();
+    }
+
+}
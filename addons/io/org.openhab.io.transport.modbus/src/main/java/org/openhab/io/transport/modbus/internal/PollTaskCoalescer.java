@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang.builder.StandardToStringStyle;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.BasicBitArray;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Planner merging poll tasks into as few read requests as possible
+ *
+ * Poll tasks are merged only if they share the endpoint, unit id and function code. Merged request never exceeds the
+ * maximum read size allowed by the Modbus protocol (125 registers, or 2000 coils/discrete inputs).
+ *
+ * The data of the merged request is sliced back to the callbacks of the original poll tasks.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PollTaskCoalescer {
+
+    /**
+     * Maximum number of registers in a single read request, as defined by the Modbus specification
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    /**
+     * Maximum number of coils or discrete inputs in a single read request, as defined by the Modbus specification
+     */
+    public static final int MAX_BITS_PER_READ = 2000;
+
+    private static class GroupKey {
+        private final ModbusSlaveEndpoint endpoint;
+        private final int unitId;
+        private final ModbusReadFunctionCode functionCode;
+
+        private GroupKey(PollTask task) {
+            this.endpoint = task.getEndpoint();
+            this.unitId = task.getRequest().getUnitID();
+            this.functionCode = task.getRequest().getFunctionCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoint, unitId, functionCode);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            GroupKey other = (GroupKey) obj;
+            return unitId == other.unitId && functionCode == other.functionCode && endpoint.equals(other.endpoint);
+        }
+    }
+
+    /**
+     * Poll task representing a merged read request. The callback slices the data for the original poll tasks.
+     *
+     * Note that equals and hashCode are not overridden on purpose: every plan produces new instances.
+     */
+    public static class CoalescedPollTask implements PollTask, ModbusReadCallback {
+
+        private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
+        static {
+            toStringStyle.setUseShortClassName(true);
+        }
+
+        private final ModbusSlaveEndpoint endpoint;
+        private final BasicModbusReadRequestBlueprint request;
+        private final List<PollTask> tasks;
+
+        private CoalescedPollTask(ModbusSlaveEndpoint endpoint, BasicModbusReadRequestBlueprint request,
+                List<PollTask> tasks) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.tasks = tasks;
+        }
+
+        @Override
+        public ModbusReadRequestBlueprint getRequest() {
+            return request;
+        }
+
+        @Override
+        public ModbusSlaveEndpoint getEndpoint() {
+            return endpoint;
+        }
+
+        @Override
+        public ModbusReadCallback getCallback() {
+            return this;
+        }
+
+        /**
+         * Get the original poll tasks served by this merged task
+         *
+         * @return poll tasks ordered by start address
+         */
+        public List<PollTask> getTasks() {
+            return Collections.unmodifiableList(tasks);
+        }
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint mergedRequest, ModbusRegisterArray registers) {
+            for (PollTask task : tasks) {
+                ModbusReadCallback callback = task.getCallback();
+                if (callback == null) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint taskRequest = task.getRequest();
+                int offset = taskRequest.getReference() - request.getReference();
+                int length = Math.max(0, Math.min(taskRequest.getDataLength(), registers.size() - offset));
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = registers.getRegister(offset + i).getValue();
+                }
+                callback.onRegisters(taskRequest, new BasicModbusRegisterArray(values));
+            }
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint mergedRequest, BitArray bits) {
+            for (PollTask task : tasks) {
+                ModbusReadCallback callback = task.getCallback();
+                if (callback == null) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint taskRequest = task.getRequest();
+                int offset = taskRequest.getReference() - request.getReference();
+                int length = Math.max(0, Math.min(taskRequest.getDataLength(), bits.size() - offset));
+                BasicBitArray slice = new BasicBitArray(length);
+                for (int i = 0; i < length; i++) {
+                    slice.setBit(i, bits.getBit(offset + i));
+                }
+                callback.onBits(taskRequest, slice);
+            }
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint mergedRequest, Exception error) {
+            for (PollTask task : tasks) {
+                ModbusReadCallback callback = task.getCallback();
+                if (callback != null) {
+                    callback.onError(task.getRequest(), error);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, toStringStyle).append("request", request).append("endpoint", endpoint)
+                    .append("tasks", tasks.size()).toString();
+        }
+    }
+
+    private final int maxGap;
+
+    /**
+     * Construct planner
+     *
+     * @param maxGap maximum number of unrequested registers (or bits) between two poll tasks that are still merged
+     *            together. Use zero to merge only adjacent or overlapping requests.
+     */
+    public PollTaskCoalescer(int maxGap) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("maxGap should be non-negative");
+        }
+        this.maxGap = maxGap;
+    }
+
+    public int getMaxGap() {
+        return maxGap;
+    }
+
+    /**
+     * Get maximum number of registers or bits that can be read with a single request
+     *
+     * @param functionCode function code of the read request
+     * @return maximum data length of the request
+     */
+    public static int getMaxReadLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return MAX_BITS_PER_READ;
+            case READ_MULTIPLE_REGISTERS:
+            case READ_INPUT_REGISTERS:
+                return MAX_REGISTERS_PER_READ;
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected function code %s", functionCode));
+        }
+    }
+
+    /**
+     * Plan the reads for the given poll tasks
+     *
+     * Poll tasks that cannot be merged with any other task are returned as-is. All other tasks are replaced by
+     * {@link CoalescedPollTask} instances.
+     *
+     * @param tasks poll tasks to plan
+     * @return poll tasks to execute, each resulting in single transaction with the slave
+     */
+    public List<PollTask> plan(Collection<PollTask> tasks) {
+        Map<GroupKey, List<PollTask>> groups = new LinkedHashMap<>();
+        for (PollTask task : tasks) {
+            groups.computeIfAbsent(new GroupKey(task), key -> new ArrayList<>()).add(task);
+        }
+
+        List<PollTask> planned = new ArrayList<>(tasks.size());
+        for (List<PollTask> group : groups.values()) {
+            planGroup(group, planned);
+        }
+        return planned;
+    }
+
+    private void planGroup(List<PollTask> group, List<PollTask> planned) {
+        if (group.size() == 1) {
+            planned.add(group.get(0));
+            return;
+        }
+        group.sort(Comparator.comparingInt((PollTask task) -> task.getRequest().getReference())
+                .thenComparingInt(task -> task.getRequest().getDataLength()));
+        int maxLength = getMaxReadLength(group.get(0).getRequest().getFunctionCode());
+
+        List<PollTask> block = new ArrayList<>();
+        int blockStart = 0;
+        int blockEnd = 0; // exclusive
+        for (PollTask task : group) {
+            int start = task.getRequest().getReference();
+            int end = start + task.getRequest().getDataLength();
+            if (!block.isEmpty() && start <= blockEnd + maxGap && Math.max(blockEnd, end) - blockStart <= maxLength) {
+                block.add(task);
+                blockEnd = Math.max(blockEnd, end);
+                continue;
+            }
+            flushBlock(block, blockStart, blockEnd, planned);
+            block = new ArrayList<>();
+            block.add(task);
+            blockStart = start;
+            blockEnd = end;
+        }
+        flushBlock(block, blockStart, blockEnd, planned);
+    }
+
+    private void flushBlock(List<PollTask> block, int blockStart, int blockEnd, List<PollTask> planned) {
+        if (block.isEmpty()) {
+            return;
+        } else if (block.size() == 1) {
+            planned.add(block.get(0));
+            return;
+        }
+        PollTask first = block.get(0);
+        ModbusReadRequestBlueprint firstRequest = first.getRequest();
+        int maxTries = block.stream().mapToInt(task -> task.getRequest().getMaxTries()).max().getAsInt();
+        BasicModbusReadRequestBlueprint mergedRequest = new BasicModbusReadRequestBlueprint(firstRequest.getUnitID(),
+                firstRequest.getFunctionCode(), blockStart, blockEnd - blockStart, maxTries);
+        planned.add(new CoalescedPollTask(first.getEndpoint(), mergedRequest, block));
+    }
+
+}
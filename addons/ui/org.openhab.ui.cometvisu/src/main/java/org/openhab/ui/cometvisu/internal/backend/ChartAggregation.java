@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import org.rrd4j.ConsolFun;
+
+/**
+ * the functions a chart series can be aggregated with to the requested resolution
+ *
+ * The names of the RRD consolidation functions are used, so that the 'ds' parameter
+ * of a chart request can be used for all persistence services. LTTB (Largest-Triangle-Three-Buckets)
+ * keeps one original value per interval, which preserves the visual shape of the series.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public enum ChartAggregation {
+    AVERAGE(ConsolFun.AVERAGE),
+    MIN(ConsolFun.MIN),
+    MAX(ConsolFun.MAX),
+    FIRST(ConsolFun.FIRST),
+    LAST(ConsolFun.LAST),
+    TOTAL(ConsolFun.TOTAL),
+    LTTB(ConsolFun.AVERAGE);
+
+    private final ConsolFun consolFun;
+
+    private ChartAggregation(ConsolFun consolFun) {
+        this.consolFun = consolFun;
+    }
+
+    /**
+     * @return the consolidation function to fetch RRD data with
+     */
+    public ConsolFun getConsolFun() {
+        return consolFun;
+    }
+
+    /**
+     * @param name
+     *            - name of the function, case insensitive
+     * @return the aggregation function, AVERAGE if no name is given
+     */
+    public static ChartAggregation parse(String name) {
+        if (name == null || name.isEmpty()) {
+            return AVERAGE;
+        }
+        return valueOf(name.toUpperCase());
+    }
+}
@@ -10,10 +10,10 @@ package org.openhab.ui.cometvisu.internal.backend;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,7 +21,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.Set;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -33,10 +33,14 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.events.ItemStateEvent;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
 import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
@@ -45,10 +49,6 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.openhab.ui.cometvisu.internal.Config;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.FetchData;
-import org.rrd4j.core.FetchRequest;
-import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,11 +57,16 @@ import org.slf4j.LoggerFactory;
  * handles requests for chart series data from the CometVisu client
  * used by the diagram plugin
  *
+ * Series read from a persistence service are aggregated to the requested resolution while they are read.
+ * Finished series are cached until new data of their items arrives, and RRD files are kept open
+ * between requests.
+ *
  * @author Tobias Bräutigam
+ * @author agent - Downsample and cache chart series
  *
  */
 @Path(Config.COMETVISU_BACKEND_ALIAS + "/" + Config.COMETVISU_BACKEND_CHART_ALIAS)
-public class ChartResource implements RESTResource {
+public class ChartResource implements RESTResource, EventSubscriber {
     private final Logger logger = LoggerFactory.getLogger(ChartResource.class);
 
     // pattern RRDTool uses to format doubles in XML files
@@ -69,6 +74,12 @@ public class ChartResource implements RESTResource {
 
     static final DecimalFormat df;
 
+    // maximum number of cached series
+    private static final int MAX_CACHED_SERIES = 64;
+
+    // maximum number of RRD files kept open
+    private static final int MAX_OPEN_RRD_FILES = 32;
+
     protected static final String RRD_FOLDER = org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder()
             + File.separator + "persistence" + File.separator + "rrd4j";
 
@@ -82,6 +93,10 @@ public class ChartResource implements RESTResource {
 
     private ItemRegistry itemRegistry;
 
+    private final ChartSeriesCache seriesCache = new ChartSeriesCache(MAX_CACHED_SERIES);
+
+    private final RrdDbCache rrdDbCache = new RrdDbCache(MAX_OPEN_RRD_FILES);
+
     @Context
     private UriInfo uriInfo;
 
@@ -107,6 +122,26 @@ public class ChartResource implements RESTResource {
         this.itemRegistry = null;
     }
 
+    protected void deactivate() {
+        seriesCache.clear();
+        rrdDbCache.clear();
+    }
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return Collections.singleton(ItemStateEvent.TYPE);
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        seriesCache.itemUpdated(((ItemStateEvent) event).getItemName(), System.currentTimeMillis());
+    }
+
     @GET
     @Produces({ MediaType.APPLICATION_JSON })
     public Response getChartSeries(@Context HttpHeaders headers, @QueryParam("rrd") String itemName,
@@ -117,8 +152,8 @@ public class ChartResource implements RESTResource {
         }
         String responseType = MediaType.APPLICATION_JSON;
 
-        // RRD specific: no equivalent in PersistenceService known
-        ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
+        // the RRD consolidation functions, used for all persistence services
+        ChartAggregation aggregation = ChartAggregation.parse(consFunction);
 
         // read the start/end time as they are provided in the RRD-way, we use
         // the RRD4j to read them
@@ -160,13 +195,9 @@ public class ChartResource implements RESTResource {
             } else {
                 logger.debug("using {} persistence for item {}", persistenceService.getId(), itemName);
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
-            }
-            return Response.ok(data, responseType).build();
+            ChartSeries data = getCachedSeries(persistenceService, item, aggregation, startTime, endTime,
+                    resolution);
+            return Response.ok(data.toRrd(), responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
 
@@ -174,10 +205,68 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * returns the series from the cache, or reads it and adds it to the cache.
+     * The time range is extended to full intervals of the resolution, so that
+     * the series does not depend on the exact time of the request.
+     */
+    private ChartSeries getCachedSeries(QueryablePersistenceService persistenceService, Item item,
+            ChartAggregation aggregation, Date timeBegin, Date timeEnd, long resolution) {
+        if (resolution <= 0) {
+            return getSeries(persistenceService, item, aggregation, timeBegin, timeEnd, resolution);
+        }
+        long interval = resolution * 1000;
+        long beginInterval = Math.floorDiv(timeBegin.getTime(), interval);
+        long endInterval = Math.floorDiv(timeEnd.getTime(), interval);
+        String key = ChartSeriesCache.key(persistenceService.getId(), item.getName(), aggregation, resolution,
+                beginInterval, endInterval);
+        long now = System.currentTimeMillis();
+        ChartSeries series = seriesCache.get(key, now);
+        if (series == null) {
+            long rangeEnd = (endInterval + 1) * interval - 1;
+            series = getSeries(persistenceService, item, aggregation, new Date(beginInterval * interval),
+                    new Date(rangeEnd), resolution);
+            seriesCache.put(key, series, getItemNames(item), now, rangeEnd, interval);
+            logger.debug("chart series cache: {} hits, {} misses, {} series cached", seriesCache.getHits(),
+                    seriesCache.getMisses(), seriesCache.size());
+        }
+        return series;
+    }
+
+    private ChartSeries getSeries(QueryablePersistenceService persistenceService, Item item,
+            ChartAggregation aggregation, Date timeBegin, Date timeEnd, long resolution) {
+        if (persistenceService.getId().equals("rrd4j")) {
+            return getRrdSeries(persistenceService, item, aggregation, timeBegin, timeEnd, resolution);
+        } else {
+            return getPersistenceSeries(persistenceService, item, aggregation, timeBegin, timeEnd, resolution);
+        }
+    }
 
+    private List<String> getItemNames(Item item) {
+        List<String> itemNames = new ArrayList<String>();
+        itemNames.add(item.getName());
+        if (item instanceof GroupItem) {
+            for (Item member : ((GroupItem) item).getMembers()) {
+                itemNames.add(member.getName());
+            }
+        }
+        return itemNames;
+    }
+
+    /**
+     * returns a series read from a persistence service, aggregated to the resolution while reading
+     *
+     * @param persistenceService
+     * @param item
+     * @param aggregation
+     * @param timeBegin
+     * @param timeEnd
+     * @param resolution
+     *            - resolution in seconds, all values are returned if it is not positive
+     * @return
+     */
+    ChartSeries getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            ChartAggregation aggregation, Date timeBegin, Date timeEnd, long resolution) {
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
         filter.setBeginDate(timeBegin);
@@ -185,6 +274,12 @@ public class ChartResource implements RESTResource {
         filter.setItemName(item.getName());
         filter.setOrdering(Ordering.ASCENDING);
 
+        int capacity = 64;
+        if (resolution > 0) {
+            capacity = (int) Math.min((timeEnd.getTime() - timeBegin.getTime()) / (resolution * 1000) + 2, 4096);
+        }
+        ChartSeriesAggregator aggregator = new ChartSeriesAggregator(aggregation, resolution * 1000, capacity);
+
         // Get the data from the persistence store
         Iterable<HistoricItem> result = persistenceService.query(filter);
         Iterator<HistoricItem> it = result.iterator();
@@ -196,30 +291,30 @@ public class ChartResource implements RESTResource {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                aggregator.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
-        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
-                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        ChartSeries series = aggregator.finish();
+        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results, '{}' after aggregation",
+                persistenceService.getId(), filter.getItemName(), filter.getBeginDate(), filter.getEndDate(),
+                dataCounter, series.size());
+        return series;
     }
 
     /**
-     * returns a rrd series data, an array of [[timestamp,data1,data2,...]]
+     * returns a rrd series data, one column per data source of each item
      *
      * @param persistenceService
      * @param item
-     * @param consilidationFunction
+     * @param aggregation
      * @param timeBegin
      * @param timeEnd
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+    ChartSeries getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+            ChartAggregation aggregation, Date timeBegin, Date timeEnd, long resolution) {
+        ChartSeries data = null;
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -232,62 +327,21 @@ public class ChartResource implements RESTResource {
                 itemNames.add(item.getName());
             }
             for (String itemName : itemNames) {
-                addRrdData(data, itemName, consilidationFunction, timeBegin, timeEnd, resolution);
+                ChartSeries itemData = rrdDbCache.fetch(RRD_FOLDER + File.separator + itemName + ".rrd",
+                        aggregation.getConsolFun(), Util.getTimestamp(timeBegin), Util.getTimestamp(timeEnd),
+                        resolution);
+                data = data == null ? itemData : ChartSeries.join(data, itemData);
             }
 
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, aggregation, timeBegin, timeEnd, resolution);
         } catch (Exception e) {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
-        }
-        return convertToRrd(data);
-    }
-
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
+            return getPersistenceSeries(persistenceService, item, aggregation, timeBegin, timeEnd, resolution);
         }
-        return rrd;
-    }
-
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
-        RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
-
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
-            // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
-            for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
-            }
-        }
-        rrdDb.close();
-
-        return data;
+        return data == null ? new ChartSeries(0, 0) : data.trim();
     }
 
     static String formatDouble(double x, String nanString, boolean forceExponents) {
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * chart series data held in primitive arrays, ordered by timestamp
+ *
+ * Each row consists of a timestamp and a fixed number of values (columns), a missing value is NaN.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class ChartSeries {
+    private final int columns;
+
+    private long[] timestamps;
+
+    private double[] values;
+
+    private int size;
+
+    /**
+     * @param columns
+     *            - number of values per row
+     * @param capacity
+     *            - expected number of rows
+     */
+    ChartSeries(int columns, int capacity) {
+        this.columns = columns;
+        this.timestamps = new long[Math.max(capacity, 1)];
+        this.values = new double[timestamps.length * columns];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    double getValue(int row, int column) {
+        return values[row * columns + column];
+    }
+
+    /**
+     * adds a row to a series with a single column
+     */
+    void add(long timestamp, double value) {
+        ensureCapacity();
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * adds a row taken from data organized by column, as delivered by RRD fetch requests
+     *
+     * @param timestamp
+     *            - timestamp of the row
+     * @param data
+     *            - values by column and row
+     * @param row
+     *            - the row to take the values from
+     */
+    void add(long timestamp, double[][] data, int row) {
+        ensureCapacity();
+        timestamps[size] = timestamp;
+        for (int column = 0; column < columns; column++) {
+            values[size * columns + column] = data[column][row];
+        }
+        size++;
+    }
+
+    private void ensureCapacity() {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, timestamps.length * columns);
+        }
+    }
+
+    /**
+     * releases unused capacity, should be called before the series is kept for later use
+     */
+    ChartSeries trim() {
+        if (size < timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size);
+            values = Arrays.copyOf(values, size * columns);
+        }
+        return this;
+    }
+
+    /**
+     * joins two series by timestamp, the columns of the second series are appended to the columns of
+     * the first one. Rows which are only present in one series are filled up with NaN.
+     */
+    static ChartSeries join(ChartSeries first, ChartSeries second) {
+        ChartSeries joined = new ChartSeries(first.columns + second.columns, Math.max(first.size, second.size));
+        int i = 0;
+        int j = 0;
+        while (i < first.size || j < second.size) {
+            long timestamp;
+            if (j >= second.size || (i < first.size && first.timestamps[i] < second.timestamps[j])) {
+                timestamp = first.timestamps[i];
+            } else {
+                timestamp = second.timestamps[j];
+            }
+            joined.ensureCapacity();
+            int offset = joined.size * joined.columns;
+            if (i < first.size && first.timestamps[i] == timestamp) {
+                System.arraycopy(first.values, i * first.columns, joined.values, offset, first.columns);
+                i++;
+            } else {
+                Arrays.fill(joined.values, offset, offset + first.columns, Double.NaN);
+            }
+            offset += first.columns;
+            if (j < second.size && second.timestamps[j] == timestamp) {
+                System.arraycopy(second.values, j * second.columns, joined.values, offset, second.columns);
+                j++;
+            } else {
+                Arrays.fill(joined.values, offset, offset + second.columns, Double.NaN);
+            }
+            joined.timestamps[joined.size++] = timestamp;
+        }
+        return joined;
+    }
+
+    /**
+     * converts the series to the format expected by the CometVisu client, an array of
+     * [[timestamp,[data1,data2,...]],...]
+     */
+    ArrayList<Object> toRrd() {
+        ArrayList<Object> rrd = new ArrayList<Object>(size);
+        for (int row = 0; row < size; row++) {
+            ArrayList<String> vals = new ArrayList<String>(columns);
+            for (int column = 0; column < columns; column++) {
+                vals.add(ChartResource.formatDouble(values[row * columns + column], "null", true));
+            }
+            Object[] entry = new Object[2];
+            entry[0] = timestamps[row];
+            entry[1] = vals;
+            rrd.add(entry);
+        }
+        return rrd;
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.util.Arrays;
+
+/**
+ * aggregates values to the requested resolution while they are read from a persistence service
+ *
+ * Values must be added in ascending order of their timestamps. They are collected in intervals which are
+ * aligned to multiples of the resolution. For all functions but LTTB one row per interval is written,
+ * timestamped with the start of the interval. LTTB keeps the first and the last value and selects the
+ * value of each interval in between that forms the largest triangle with the previously selected value
+ * and the average of the following interval. Only the values of two intervals are held at a time.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class ChartSeriesAggregator {
+    private final ChartAggregation aggregation;
+
+    private final long resolution;
+
+    private final ChartSeries series;
+
+    // state of the current interval
+    private long interval;
+    private int count;
+    private double first;
+    private double last;
+    private double min;
+    private double max;
+    private double sum;
+
+    // LTTB state: the interval to select a value from and the following interval
+    private boolean selected;
+    private long selectedTime;
+    private double selectedValue;
+    private long[] previousTimes = new long[16];
+    private double[] previousValues = new double[16];
+    private int previousSize;
+    private long[] currentTimes = new long[16];
+    private double[] currentValues = new double[16];
+    private int currentSize;
+    private double currentTimeSum;
+
+    /**
+     * @param aggregation
+     *            - the function to aggregate the values of an interval with
+     * @param resolution
+     *            - length of an interval in milliseconds, if it is not positive, all values are kept
+     * @param capacity
+     *            - expected number of rows
+     */
+    ChartSeriesAggregator(ChartAggregation aggregation, long resolution, int capacity) {
+        this.aggregation = aggregation;
+        this.resolution = resolution;
+        this.series = new ChartSeries(1, capacity);
+    }
+
+    /**
+     * adds a value, NaN values are ignored
+     */
+    void add(long timestamp, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (resolution <= 0) {
+            series.add(timestamp, value);
+        } else if (aggregation == ChartAggregation.LTTB) {
+            addLttb(timestamp, value);
+        } else {
+            long valueInterval = Math.floorDiv(timestamp, resolution);
+            if (count > 0 && valueInterval != interval) {
+                writeInterval();
+            }
+            if (count == 0) {
+                interval = valueInterval;
+                first = value;
+                min = value;
+                max = value;
+                sum = 0;
+            }
+            count++;
+            sum += value;
+            last = value;
+            if (value < min) {
+                min = value;
+            } else if (value > max) {
+                max = value;
+            }
+        }
+    }
+
+    /**
+     * writes the pending values
+     *
+     * @return the aggregated series
+     */
+    ChartSeries finish() {
+        if (aggregation == ChartAggregation.LTTB) {
+            if (currentSize > 0) {
+                if (previousSize > 0) {
+                    selectLttb(previousTimes, previousValues, previousSize, currentTimeSum / currentSize,
+                            sum / currentSize);
+                }
+                // the last value is always kept, the rest of the last interval is reduced towards it
+                int lastIndex = currentSize - 1;
+                if (lastIndex > 0) {
+                    selectLttb(currentTimes, currentValues, lastIndex, currentTimes[lastIndex] - selectedTime,
+                            currentValues[lastIndex]);
+                }
+                series.add(currentTimes[lastIndex], currentValues[lastIndex]);
+                previousSize = 0;
+                currentSize = 0;
+            }
+        } else if (count > 0) {
+            writeInterval();
+        }
+        return series.trim();
+    }
+
+    private void writeInterval() {
+        double value;
+        switch (aggregation) {
+            case MIN:
+                value = min;
+                break;
+            case MAX:
+                value = max;
+                break;
+            case FIRST:
+                value = first;
+                break;
+            case LAST:
+                value = last;
+                break;
+            case TOTAL:
+                value = sum;
+                break;
+            default:
+                value = sum / count;
+                break;
+        }
+        series.add(interval * resolution, value);
+        count = 0;
+    }
+
+    private void addLttb(long timestamp, double value) {
+        if (!selected) {
+            // the first value is always kept
+            series.add(timestamp, value);
+            selected = true;
+            selectedTime = timestamp;
+            selectedValue = value;
+            return;
+        }
+        long valueInterval = Math.floorDiv(timestamp, resolution);
+        if (currentSize > 0 && valueInterval != interval) {
+            if (previousSize > 0) {
+                selectLttb(previousTimes, previousValues, previousSize, currentTimeSum / currentSize,
+                        sum / currentSize);
+            }
+            long[] times = previousTimes;
+            double[] values = previousValues;
+            previousTimes = currentTimes;
+            previousValues = currentValues;
+            previousSize = currentSize;
+            currentTimes = times;
+            currentValues = values;
+            currentSize = 0;
+        }
+        if (currentSize == 0) {
+            interval = valueInterval;
+            currentTimeSum = 0;
+            sum = 0;
+        }
+        if (currentSize == currentTimes.length) {
+            currentTimes = Arrays.copyOf(currentTimes, currentSize * 2);
+            currentValues = Arrays.copyOf(currentValues, currentSize * 2);
+        }
+        currentTimes[currentSize] = timestamp;
+        currentValues[currentSize] = value;
+        currentSize++;
+        // relative to the selected value, to keep the precision of the sum
+        currentTimeSum += timestamp - selectedTime;
+        sum += value;
+    }
+
+    /**
+     * selects the value forming the largest triangle with the previously selected value and the given point
+     *
+     * @param nextTime
+     *            - time of the point, relative to the previously selected value
+     */
+    private void selectLttb(long[] times, double[] values, int size, double nextTime, double nextValue) {
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < size; i++) {
+            double time = times[i] - selectedTime;
+            double area = Math.abs(time * (nextValue - selectedValue) - nextTime * (values[i] - selectedValue));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        long time = times[best];
+        double value = values[best];
+        series.add(time, value);
+        // the sums of the following interval are relative to the selected value
+        currentTimeSum -= (double) (time - selectedTime) * currentSize;
+        selectedTime = time;
+        selectedValue = value;
+    }
+}
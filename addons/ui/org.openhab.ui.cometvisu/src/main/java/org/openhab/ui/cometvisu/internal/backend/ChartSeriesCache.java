@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * a bounded cache of finished chart series, the least recently used series is evicted first
+ *
+ * A series becomes invalid when one of its items is updated within the time range of the series after it
+ * has been computed. As persistence services may store values without an update of the item, e.g. by a cron
+ * strategy, a series whose time range reaches the time it has been computed at expires after one interval
+ * of its resolution. Updates are only recorded for items which belong to a cached series.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class ChartSeriesCache {
+    private static class CachedSeries {
+        private final ChartSeries series;
+        private final Collection<String> itemNames;
+        private final long computedAt;
+        private final long rangeEnd;
+        private final long resolution;
+
+        private CachedSeries(ChartSeries series, Collection<String> itemNames, long computedAt, long rangeEnd,
+                long resolution) {
+            this.series = series;
+            this.itemNames = itemNames;
+            this.computedAt = computedAt;
+            this.rangeEnd = rangeEnd;
+            this.resolution = resolution;
+        }
+    }
+
+    private final Map<String, CachedSeries> entries;
+
+    // number of cached series by item name
+    private final Map<String, Integer> cachedItems = new HashMap<String, Integer>();
+
+    // time of the last update by item name, only for items with cached series
+    private final Map<String, Long> updates = new HashMap<String, Long>();
+
+    // time of the last update of an item without cached series
+    private long lastIgnoredUpdate = Long.MIN_VALUE;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * @param capacity
+     *            - maximum number of cached series
+     */
+    ChartSeriesCache(final int capacity) {
+        entries = new LinkedHashMap<String, CachedSeries>(capacity, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSeries> eldest) {
+                if (size() > capacity) {
+                    release(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * builds the key of a series
+     *
+     * @param beginInterval
+     *            - the first interval of the series, the begin of the time range divided by the resolution
+     * @param endInterval
+     *            - the last interval of the series, the end of the time range divided by the resolution
+     */
+    static String key(String serviceId, String itemName, ChartAggregation aggregation, long resolution,
+            long beginInterval, long endInterval) {
+        return serviceId + ":" + itemName + ":" + aggregation + ":" + resolution + ":" + beginInterval + ":"
+                + endInterval;
+    }
+
+    /**
+     * @param key
+     *            - the key of the series
+     * @param now
+     *            - the current time in milliseconds
+     * @return the cached series, or null if there is no valid one
+     */
+    synchronized ChartSeries get(String key, long now) {
+        CachedSeries entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        boolean valid = entry.rangeEnd < entry.computedAt || now - entry.computedAt < entry.resolution;
+        for (String itemName : entry.itemNames) {
+            Long update = updates.get(itemName);
+            if (update != null && update >= entry.computedAt && update <= entry.rangeEnd) {
+                valid = false;
+            }
+        }
+        if (!valid) {
+            entries.remove(key);
+            release(entry);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.series;
+    }
+
+    /**
+     * adds a series
+     *
+     * @param key
+     *            - the key of the series
+     * @param series
+     *            - the series, must not be modified afterwards
+     * @param itemNames
+     *            - the names of the items whose updates invalidate the series
+     * @param computedAt
+     *            - the time the series has been read from the persistence service at
+     * @param rangeEnd
+     *            - the end of the time range of the series
+     * @param resolution
+     *            - the resolution of the series in milliseconds
+     */
+    synchronized void put(String key, ChartSeries series, Collection<String> itemNames, long computedAt,
+            long rangeEnd, long resolution) {
+        for (String itemName : itemNames) {
+            Integer count = cachedItems.get(itemName);
+            if (count == null) {
+                // the item may have been updated while the series has been read
+                if (lastIgnoredUpdate >= computedAt) {
+                    updates.put(itemName, lastIgnoredUpdate);
+                }
+                count = 0;
+            }
+            cachedItems.put(itemName, count + 1);
+        }
+        CachedSeries previous = entries.put(key, new CachedSeries(series, itemNames, computedAt, rangeEnd,
+                resolution));
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    /**
+     * records the update of an item, which invalidates all series of the item whose time range covers the update
+     */
+    synchronized void itemUpdated(String itemName, long time) {
+        if (cachedItems.containsKey(itemName)) {
+            updates.put(itemName, time);
+        } else {
+            lastIgnoredUpdate = time;
+        }
+    }
+
+    private void release(CachedSeries entry) {
+        for (String itemName : entry.itemNames) {
+            Integer count = cachedItems.get(itemName);
+            if (count == null || count <= 1) {
+                cachedItems.remove(itemName);
+                updates.remove(itemName);
+            } else {
+                cachedItems.put(itemName, count - 1);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        cachedItems.clear();
+        updates.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+}
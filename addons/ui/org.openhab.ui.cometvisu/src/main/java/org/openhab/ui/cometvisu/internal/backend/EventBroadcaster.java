@@ -20,8 +20,9 @@ import org.eclipse.smarthome.core.types.State;
  */
 public interface EventBroadcaster {
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Broadcasts an event described by the given parameters to the currently
+     * listening clients. State updates are only sent to the clients which
+     * have subscribed to the item.
      *
      * @param item
      *            - the item that should be broadcasted
@@ -11,12 +11,18 @@ package org.openhab.ui.cometvisu.internal.backend;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,7 +41,7 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
+import org.glassfish.jersey.media.sse.OutboundEvent;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
@@ -48,22 +54,47 @@ import org.slf4j.LoggerFactory;
  * handles read request from the CometVisu client every request initializes a
  * SSE communication
  *
+ * Every connection subscribes to its own set of items. State changes are
+ * serialized once and only sent to the connections which subscribed to the
+ * changed item.
+ *
  * @author Tobias Bräutigam
+ * @author agent - Send state updates to subscribed clients only
  */
 @Path(Config.COMETVISU_BACKEND_ALIAS + "/" + Config.COMETVISU_BACKEND_READ_ALIAS)
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    /**
+     * keys of events in the write queue of a client, which do not belong to a single client item
+     */
+    private static final String INITIAL_STATES_KEY = "";
+    private static final String BROADCAST_KEY = "*";
+
+    /**
+     * writing to a client blocks while the client does not read, so every connected client gets a writer thread of
+     * its own, idle writers are released after this time
+     */
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 60;
 
-    private final ExecutorService executorService;
+    private final ThreadPoolExecutor writers;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    private final Set<SseClient> clients = new CopyOnWriteArraySet<SseClient>();
+
+    /**
+     * connected clients by their subscribed client item names
+     */
+    private final Map<String, Set<SseClient>> clientsByCvItemName = new ConcurrentHashMap<String, Set<SseClient>>();
+
+    /**
+     * subscribed client item names and their state types by the openHAB item name, the
+     * maps of client item names are replaced on every change
+     */
+    private final Map<String, Map<String, Class<? extends State>>> clientItemsByItemName = new ConcurrentHashMap<>();
 
     @Context
     private UriInfo uriInfo;
@@ -77,11 +108,25 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(1, 1, WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread thread = new Thread(r, "cometvisu-sse-" + writerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.writers.allowCoreThreadTimeOut(true);
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
 
+    protected void deactivate() {
+        for (SseClient client : clients) {
+            client.close();
+        }
+        writers.shutdownNow();
+    }
+
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
@@ -114,68 +159,171 @@ public class ReadResource implements EventBroadcaster, RESTResource {
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
 
-        this.itemNames = itemNames;
+        // release clients whose connection has been closed in the meantime
+        for (SseClient client : clients) {
+            client.isClosed();
+        }
 
-        broadcaster.add(eventOutput);
+        // get all requested items with their state types
+        Map<String, Class<? extends State>> cvItems = new HashMap<String, Class<? extends State>>();
+        Map<String, Item> items = new HashMap<String, Item>();
+        for (String cvItemName : itemNames) {
+            String[] parts = cvItemName.split(":");
+            String ohItemName = cvItemName;
+            Class<? extends State> stateClass = null;
+            if (parts.length == 2) {
+                String classPrefix = parts[0].toLowerCase();
+                if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                    stateClass = Config.itemTypeMapper.get(classPrefix);
+                } else {
+                    logger.debug("no type found for '{}'", classPrefix);
+                }
+                ohItemName = parts[1];
+            }
+            cvItems.put(cvItemName, stateClass);
+            if (this.itemRegistry != null) {
+                try {
+                    items.put(cvItemName, this.itemRegistry.getItem(ohItemName));
+                } catch (ItemNotFoundException e) {
+                    logger.error("{}", e.getLocalizedMessage());
+                }
+            }
+        }
+        SseClient client = new SseClient(eventOutput, cvItems, writers, this::unsubscribe);
+        subscribe(client);
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
         // send the current states of all items to the client
         if (this.itemRegistry != null) {
             List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
-                try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
-                        } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
-                        }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
-                    }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
-                    }
-                    states.add(itemState);
-                } catch (ItemNotFoundException e) {
-                    logger.error("{}", e.getLocalizedMessage());
+            for (Map.Entry<String, Item> entry : items.entrySet()) {
+                Item item = entry.getValue();
+                Class<? extends State> stateClass = cvItems.get(entry.getKey());
+                StateBean itemState = new StateBean();
+                itemState.name = entry.getKey();
+                if (stateClass != null) {
+                    itemState.state = item.getStateAs(stateClass).toString();
+                    logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
+                } else {
+                    itemState.state = item.getState().toString();
                 }
+                states.add(itemState);
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
+            logger.debug("initially sending {}/{} item states", states.size(), itemNames.size());
+            client.send(INITIAL_STATES_KEY, SseUtil.buildEvent(states));
         }
         // listen to state changes of the requested items
-        registerItems();
+        for (Item item : items.values()) {
+            registerItem(item);
+        }
 
         return eventOutput;
     }
 
+    /**
+     * adds a client to the subscriptions of its items
+     */
+    private synchronized void subscribe(SseClient client) {
+        clients.add(client);
+        for (Map.Entry<String, Class<? extends State>> cvItem : client.getItems().entrySet()) {
+            String cvItemName = cvItem.getKey();
+            Set<SseClient> subscribers = clientsByCvItemName.get(cvItemName);
+            if (subscribers == null) {
+                subscribers = new CopyOnWriteArraySet<SseClient>();
+                clientsByCvItemName.put(cvItemName, subscribers);
+            }
+            subscribers.add(client);
+            String ohItemName = getItemName(cvItemName);
+            Map<String, Class<? extends State>> clientItems = clientItemsByItemName.get(ohItemName);
+            if (clientItems == null || !clientItems.containsKey(cvItemName)) {
+                clientItems = clientItems == null ? new HashMap<String, Class<? extends State>>()
+                        : new HashMap<String, Class<? extends State>>(clientItems);
+                clientItems.put(cvItemName, cvItem.getValue());
+                clientItemsByItemName.put(ohItemName, Collections.unmodifiableMap(clientItems));
+            }
+        }
+        resizeWriters();
+        logger.debug("client connected, {} clients subscribed to {} items", clients.size(),
+                clientItemsByItemName.size());
+    }
+
+    /**
+     * removes a client from the subscriptions of its items and stops listening to
+     * items which are not subscribed anymore
+     */
+    private synchronized void unsubscribe(SseClient client) {
+        if (!clients.remove(client)) {
+            return;
+        }
+        for (String cvItemName : client.getItems().keySet()) {
+            Set<SseClient> subscribers = clientsByCvItemName.get(cvItemName);
+            if (subscribers == null) {
+                continue;
+            }
+            subscribers.remove(client);
+            if (!subscribers.isEmpty()) {
+                continue;
+            }
+            clientsByCvItemName.remove(cvItemName);
+            String ohItemName = getItemName(cvItemName);
+            Map<String, Class<? extends State>> clientItems = clientItemsByItemName.get(ohItemName);
+            if (clientItems != null) {
+                clientItems = new HashMap<String, Class<? extends State>>(clientItems);
+                clientItems.remove(cvItemName);
+                if (clientItems.isEmpty()) {
+                    clientItemsByItemName.remove(ohItemName);
+                    removeStateChangeListener(ohItemName);
+                } else {
+                    clientItemsByItemName.put(ohItemName, Collections.unmodifiableMap(clientItems));
+                }
+            }
+        }
+        resizeWriters();
+        logger.debug("client disconnected, {} clients subscribed to {} items", clients.size(),
+                clientItemsByItemName.size());
+    }
+
+    /**
+     * sizes the writer pool for one writer per connected client, so that a client which does not read its events
+     * cannot hold up the events of the other clients
+     */
+    private void resizeWriters() {
+        int size = Math.max(1, clients.size());
+        if (size > writers.getMaximumPoolSize()) {
+            writers.setMaximumPoolSize(size);
+            writers.setCorePoolSize(size);
+        } else {
+            writers.setCorePoolSize(size);
+            writers.setMaximumPoolSize(size);
+        }
+    }
+
+    private void removeStateChangeListener(String ohItemName) {
+        if (this.itemRegistry != null) {
+            Item item = this.itemRegistry.get(ohItemName);
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).removeStateChangeListener(stateEventListener);
+            }
+        }
+    }
+
+    /**
+     * returns the openHAB item name of a client item name
+     */
+    private static String getItemName(String cvItemName) {
+        String[] parts = cvItemName.split(":");
+        return parts.length == 2 ? parts[1] : cvItemName;
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        if (this.itemRegistry == null) {
+            return;
+        }
+        for (String ohItemName : clientItemsByItemName.keySet()) {
+            registerItem(this.itemRegistry.get(ohItemName));
         }
     }
 
@@ -188,7 +336,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !clientItemsByItemName.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -197,41 +345,47 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Sends an event described by the given parameters to all clients which
+     * subscribed to the client item of the event.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
      *            - bean that can be converted to a JSON object.
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
-        executorService.execute(() -> {
-            broadcaster.broadcast(SseUtil.buildEvent(eventObject));
-        });
+        if (eventObject instanceof StateBean) {
+            String cvItemName = ((StateBean) eventObject).name;
+            Set<SseClient> subscribers = clientsByCvItemName.get(cvItemName);
+            if (subscribers == null || subscribers.isEmpty()) {
+                return;
+            }
+            OutboundEvent event = SseUtil.buildEvent(eventObject);
+            for (SseClient client : subscribers) {
+                client.send(cvItemName, event);
+            }
+        } else {
+            OutboundEvent event = SseUtil.buildEvent(eventObject);
+            for (SseClient client : clients) {
+                client.send(BROADCAST_KEY, event);
+            }
+        }
     }
 
     @Override
     public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+        return clientItemsByItemName.get(item.getName());
     }
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rrd4j.ConsolFun;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * keeps RRD files open for reading, so that they do not have to be opened for every chart request
+ *
+ * The files are written by the rrd4j persistence service. As an open RRD caches parts of its header, a file
+ * is reopened when it has been modified since it was opened. The least recently used file is closed when the
+ * number of open files exceeds the capacity.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class RrdDbCache {
+    private final Logger logger = LoggerFactory.getLogger(RrdDbCache.class);
+
+    // a file may be reopened by a concurrent request between opening and fetching
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+
+    private static class Handle {
+        private final RrdDb rrdDb;
+        private final long lastModified;
+        private final long length;
+
+        private Handle(RrdDb rrdDb, long lastModified, long length) {
+            this.rrdDb = rrdDb;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    private final Map<String, Handle> handles;
+
+    /**
+     * @param capacity
+     *            - maximum number of open files
+     */
+    RrdDbCache(final int capacity) {
+        handles = new LinkedHashMap<String, Handle>(capacity, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Handle> eldest) {
+                if (size() > capacity) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * fetches data from a RRD file
+     *
+     * @param path
+     *            - path of the RRD file
+     * @param consolFun
+     *            - consolidation function of the archive to fetch from
+     * @param start
+     *            - start of the time range in seconds
+     * @param end
+     *            - end of the time range in seconds
+     * @param resolution
+     *            - requested resolution in seconds
+     * @return the fetched rows, timestamped in milliseconds, with one column per data source
+     * @throws FileNotFoundException
+     *             if the file does not exist
+     * @throws IOException
+     *             if the file could not be read
+     */
+    ChartSeries fetch(String path, ConsolFun consolFun, long start, long end, long resolution) throws IOException {
+        for (int attempt = 0; attempt < MAX_FETCH_ATTEMPTS; attempt++) {
+            RrdDb rrdDb = open(path);
+            // closing the RRD synchronizes on it as well, so it can not be closed while fetching
+            synchronized (rrdDb) {
+                if (!rrdDb.isClosed()) {
+                    return fetch(rrdDb, consolFun, start, end, resolution);
+                }
+            }
+            logger.debug("RRD file '{}' has been reopened while fetching, retrying", path);
+        }
+        throw new IOException(
+                "RRD file '" + path + "' has been reopened " + MAX_FETCH_ATTEMPTS + " times while fetching");
+    }
+
+    private ChartSeries fetch(RrdDb rrdDb, ConsolFun consolFun, long start, long end, long resolution)
+            throws IOException {
+        FetchRequest fetchRequest = rrdDb.createFetchRequest(consolFun, start, end, resolution);
+        FetchData fetchData = fetchRequest.fetchData();
+        long[] timestamps = fetchData.getTimestamps();
+        double[][] values = fetchData.getValues();
+
+        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                fetchData.getColumnCount());
+
+        ChartSeries series = new ChartSeries(fetchData.getColumnCount(), fetchData.getRowCount());
+        for (int row = 0; row < fetchData.getRowCount(); row++) {
+            // change to milliseconds
+            series.add(timestamps[row] * 1000, values, row);
+        }
+        return series;
+    }
+
+    private synchronized RrdDb open(String path) throws IOException {
+        File file = new File(path);
+        if (!file.isFile()) {
+            Handle handle = handles.remove(path);
+            if (handle != null) {
+                close(handle);
+            }
+            throw new FileNotFoundException(path);
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Handle handle = handles.get(path);
+        if (handle != null && (handle.lastModified != lastModified || handle.length != length)) {
+            handles.remove(path);
+            close(handle);
+            handle = null;
+        }
+        if (handle == null) {
+            handle = new Handle(new RrdDb(path, true), lastModified, length);
+            handles.put(path, handle);
+        }
+        return handle.rrdDb;
+    }
+
+    private void close(Handle handle) {
+        try {
+            handle.rrdDb.close();
+        } catch (IOException e) {
+            logger.debug("error closing RRD file '{}': {}", handle.rrdDb.getPath(), e.getMessage());
+        }
+    }
+
+    /**
+     * closes all open files
+     */
+    synchronized void clear() {
+        Iterator<Handle> iterator = handles.values().iterator();
+        while (iterator.hasNext()) {
+            close(iterator.next());
+            iterator.remove();
+        }
+    }
+}
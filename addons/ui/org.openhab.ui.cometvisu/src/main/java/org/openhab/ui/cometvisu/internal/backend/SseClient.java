@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.eclipse.smarthome.core.types.State;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A connected CometVisu client with the items it has subscribed to.
+ *
+ * Events are written to the client by a queue. Events waiting for the same client item replace each other,
+ * so a slow client only receives the latest state of an item instead of all changes in between.
+ *
+ * @author agent - Initial contribution
+ */
+class SseClient implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(SseClient.class);
+
+    private final EventOutput eventOutput;
+
+    private final Map<String, Class<? extends State>> items;
+
+    private final Executor executor;
+
+    private final Consumer<SseClient> closeHandler;
+
+    private Map<String, OutboundEvent> pending = new LinkedHashMap<String, OutboundEvent>();
+
+    private boolean scheduled = false;
+
+    private boolean closed = false;
+
+    private long coalescedCount = 0;
+
+    /**
+     * @param eventOutput
+     *            - the output of the client connection
+     * @param items
+     *            - the client item names and the associated state types
+     * @param executor
+     *            - the executor writing to the client
+     * @param closeHandler
+     *            - called once when the connection is closed
+     */
+    SseClient(EventOutput eventOutput, Map<String, Class<? extends State>> items, Executor executor,
+            Consumer<SseClient> closeHandler) {
+        this.eventOutput = eventOutput;
+        this.items = Collections.unmodifiableMap(items);
+        this.executor = executor;
+        this.closeHandler = closeHandler;
+    }
+
+    /**
+     * lists the client item names and the associated state types of this client
+     */
+    Map<String, Class<? extends State>> getItems() {
+        return items;
+    }
+
+    /**
+     * queues an event for the client, a client whose connection has been closed is released instead
+     *
+     * @param key
+     *            - the client item name the event belongs to, a waiting event with the same key is replaced
+     * @param event
+     *            - the event to send
+     */
+    void send(String key, OutboundEvent event) {
+        if (isClosed()) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending.put(key, event) != null) {
+                coalescedCount++;
+                if (coalescedCount % 1000 == 1) {
+                    logger.debug("client is slow, {} state updates have been coalesced", coalescedCount);
+                }
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    /**
+     * checks if the client connection has been closed and releases the client if so
+     *
+     * @return true if the client connection is closed
+     */
+    boolean isClosed() {
+        if (eventOutput.isClosed()) {
+            close();
+        }
+        synchronized (this) {
+            return closed;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            OutboundEvent event;
+            synchronized (this) {
+                Iterator<OutboundEvent> iterator = pending.values().iterator();
+                if (closed || !iterator.hasNext()) {
+                    scheduled = false;
+                    return;
+                }
+                event = iterator.next();
+                iterator.remove();
+            }
+            try {
+                eventOutput.write(event);
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("client connection closed: {}", e.getMessage());
+                close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * closes the client connection and releases the client
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = new LinkedHashMap<String, OutboundEvent>();
+        }
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            logger.debug("error closing client connection: {}", e.getMessage());
+        }
+        closeHandler.accept(this);
+    }
+}
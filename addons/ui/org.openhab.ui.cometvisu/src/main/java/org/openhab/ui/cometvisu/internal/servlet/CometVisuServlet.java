@@ -72,6 +72,7 @@ import org.openhab.ui.cometvisu.internal.config.VisuConfig;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.DataBean;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.ItemBean;
 import org.openhab.ui.cometvisu.internal.rss.beans.Feed;
+import org.openhab.ui.cometvisu.internal.servlet.StaticResourceCache.StaticResource;
 import org.openhab.ui.cometvisu.internal.util.ClientInstaller;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.slf4j.Logger;
@@ -87,6 +88,7 @@ import com.google.gson.Gson;
  * Servlet for CometVisu files
  *
  * @author Tobias Bräutigam
+ * @author agent - Serve static files from a cache
  */
 public class CometVisuServlet extends HttpServlet {
     private static final long serialVersionUID = 4448918908615003303L;
@@ -97,6 +99,16 @@ public class CometVisuServlet extends HttpServlet {
                                                                 // week.
     private static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
 
+    private static final long STATIC_CACHE_SIZE = 16 * 1024 * 1024; // ..bytes = 16MB.
+    private static final long STATIC_CACHE_MAX_FILE_SIZE = 1024 * 1024; // ..bytes = 1MB.
+
+    private static final FilenameFilter INDEX_FILE_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.startsWith("index.") && (name.endsWith(".php") || name.endsWith(".html"));
+        }
+    };
+
     private Pattern sitemapPattern = Pattern.compile(".*/visu_config_?(oh_)?([^\\.]+)?\\.xml");
     private Pattern configStorePattern = Pattern.compile("config/visu_config_oh_([a-z0-9_]+)\\.xml");
 
@@ -117,6 +129,9 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private final StaticResourceCache staticResourceCache = new StaticResourceCache(STATIC_CACHE_SIZE,
+            STATIC_CACHE_MAX_FILE_SIZE);
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -179,6 +194,12 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    @Override
+    public void destroy() {
+        staticResourceCache.close();
+        super.destroy();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -289,17 +310,7 @@ public class CometVisuServlet extends HttpServlet {
         }
         if (file.isDirectory()) {
             // search for an index file
-            FilenameFilter filter = new FilenameFilter() {
-                @Override
-                public boolean accept(File dir, String name) {
-                    return name.startsWith("index.") && (name.endsWith(".php") || name.endsWith(".html"));
-                }
-            };
-            for (String dirFile : file.list(filter)) {
-                // take the first one found
-                file = new File(file, dirFile);
-                break;
-            }
+            file = staticResourceCache.getIndexFile(file, INDEX_FILE_FILTER);
         }
         return file;
     }
@@ -572,9 +583,28 @@ public class CometVisuServlet extends HttpServlet {
 
         // Prepare some variables. The ETag is an unique identifier of the file.
         String fileName = file.getName();
-        long length = file.length();
-        long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+        String contentType = getServletContext().getMimeType(fileName);
+        StaticResource resource = staticResourceCache.get(file, contentType);
+        long length;
+        long lastModified;
+        String eTag;
+        String encoding = null;
+        if (resource != null) {
+            // cached files are served compressed, if the client accepts it and no range is requested
+            length = resource.getLength();
+            lastModified = resource.getLastModified();
+            if (request.getHeader("Range") == null) {
+                encoding = resource.selectEncoding(request.getHeader("Accept-Encoding"));
+            }
+            eTag = resource.getETag(encoding);
+            if (resource.hasEncodings()) {
+                response.setHeader("Vary", "Accept-Encoding");
+            }
+        } else {
+            length = file.length();
+            lastModified = file.lastModified();
+            eTag = fileName + "_" + length + "_" + lastModified;
+        }
         long expires = System.currentTimeMillis() + DEFAULT_EXPIRE_TIME;
 
         // Validate request headers for caching
@@ -697,9 +727,7 @@ public class CometVisuServlet extends HttpServlet {
         // Prepare and initialize response
         // --------------------------------------------------------
 
-        // Get content type by file name and set default GZIP support and
-        // content disposition.
-        String contentType = getServletContext().getMimeType(fileName);
+        // Set default GZIP support and content disposition.
         boolean acceptsGzip = false;
         String disposition = "inline";
 
@@ -716,7 +744,7 @@ public class CometVisuServlet extends HttpServlet {
         // the browser and expand content type with the one and right character
         // encoding.
         if (contentType.startsWith("text")) {
-            String acceptEncoding = request.getHeader("Accept-Encoding");
+            String acceptEncoding = resource == null ? request.getHeader("Accept-Encoding") : null;
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
             contentType += ";charset=UTF-8";
         }
@@ -745,8 +773,10 @@ public class CometVisuServlet extends HttpServlet {
         OutputStream output = null;
 
         try {
-            // Open streams.
-            input = new RandomAccessFile(file, "r");
+            // Open streams, cached files are written from memory.
+            if (resource == null) {
+                input = new RandomAccessFile(file, "r");
+            }
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -757,20 +787,30 @@ public class CometVisuServlet extends HttpServlet {
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (content) {
-                    if (acceptsGzip) {
-                        // The browser accepts GZIP, so GZIP the content.
-                        response.setHeader("Content-Encoding", "gzip");
-                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                    if (resource != null) {
+                        // The cache holds the content in the selected encoding.
+                        byte[] body = resource.getContent(encoding);
+                        if (encoding != null) {
+                            response.setHeader("Content-Encoding", encoding);
+                        }
+                        response.setHeader("Content-Length", String.valueOf(body.length));
+                        output.write(body);
                     } else {
-                        // Content length is not directly predictable in case of
-                        // GZIP.
-                        // So only add it if there is no means of GZIP, else
-                        // browser will hang.
-                        response.setHeader("Content-Length", String.valueOf(r.length));
-                    }
+                        if (acceptsGzip) {
+                            // The browser accepts GZIP, so GZIP the content.
+                            response.setHeader("Content-Encoding", "gzip");
+                            output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        } else {
+                            // Content length is not directly predictable in case of
+                            // GZIP.
+                            // So only add it if there is no means of GZIP, else
+                            // browser will hang.
+                            response.setHeader("Content-Length", String.valueOf(r.length));
+                        }
 
-                    // Copy full range.
-                    copy(input, output, r.start, r.length);
+                        // Copy full range.
+                        copy(input, output, r.start, r.length);
+                    }
                 }
 
             } else if (ranges.size() == 1) {
@@ -784,7 +824,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
-                    copy(input, output, r.start, r.length);
+                    copy(resource, input, output, r.start, r.length);
                 }
 
             } else {
@@ -808,7 +848,7 @@ public class CometVisuServlet extends HttpServlet {
                         sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 
                         // Copy single part range of multi part range.
-                        copy(input, output, r.start, r.length);
+                        copy(resource, input, output, r.start, r.length);
                     }
 
                     // End with multipart boundary.
@@ -1161,6 +1201,33 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Copy the given byte range of the given cached file, or of the given
+     * input if the file is not cached, to the given output.
+     *
+     * @param resource
+     *            The cached file, or null.
+     * @param input
+     *            The input to copy the given range from, if the file is not
+     *            cached.
+     * @param output
+     *            The output to copy the given range to.
+     * @param start
+     *            Start of the byte range.
+     * @param length
+     *            Length of the byte range.
+     * @throws IOException
+     *             If something fails at I/O level.
+     */
+    private static void copy(StaticResource resource, RandomAccessFile input, OutputStream output, long start,
+            long length) throws IOException {
+        if (resource != null) {
+            output.write(resource.getContent(null), (int) start, (int) length);
+        } else {
+            copy(input, output, start, length);
+        }
+    }
+
     /**
      * Close the given resource.
      *
@@ -0,0 +1,474 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.servlet;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the content of static files of the CometVisu client in memory, so that they do not have to
+ * be read from disk for every request.
+ *
+ * Files are cached by their resolved path, together with a compressed variant for compressible content types,
+ * which is built once when the file is cached. A precompressed file next to it (e.g. index.js.br or
+ * index.js.gz) is used instead, if it is not older. Each cached file gets a strong ETag computed from its
+ * content. The size of the cache is bounded, the least recently used files are evicted first.
+ *
+ * The index file found in a directory is cached as well. The directories of all cached files are watched,
+ * a change of a file invalidates its cache entry.
+ *
+ * @author agent - Initial contribution
+ */
+public class StaticResourceCache {
+    private final Logger logger = LoggerFactory.getLogger(StaticResourceCache.class);
+
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    // files smaller than this are not worth compressing
+    private static final int MIN_COMPRESS_SIZE = 256;
+
+    private static final int MAX_INDEX_ENTRIES = 256;
+
+    private static final int STATISTICS_INTERVAL = 1000;
+
+    /**
+     * a cached file
+     */
+    public static class StaticResource {
+        private final long lastModified;
+        private final byte[] content;
+        private final byte[] gzip;
+        private final byte[] brotli;
+        private final String hash;
+
+        private StaticResource(long lastModified, byte[] content, byte[] gzip, byte[] brotli, String hash) {
+            this.lastModified = lastModified;
+            this.content = content;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.hash = hash;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getLength() {
+            return content.length;
+        }
+
+        /**
+         * selects the best content encoding accepted by the client
+         *
+         * @param acceptEncoding
+         *            - the Accept-Encoding header of the request, may be null
+         * @return the content encoding or null if the content is sent unencoded
+         */
+        public String selectEncoding(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return null;
+            }
+            if (brotli != null && accepts(acceptEncoding, BROTLI)) {
+                return BROTLI;
+            }
+            if (gzip != null && accepts(acceptEncoding, GZIP)) {
+                return GZIP;
+            }
+            return null;
+        }
+
+        /**
+         * @return true if the content is available in another encoding
+         */
+        public boolean hasEncodings() {
+            return gzip != null || brotli != null;
+        }
+
+        /**
+         * @param encoding
+         *            - the content encoding, or null
+         * @return the content in the given encoding
+         */
+        public byte[] getContent(String encoding) {
+            if (GZIP.equals(encoding)) {
+                return gzip;
+            } else if (BROTLI.equals(encoding)) {
+                return brotli;
+            }
+            return content;
+        }
+
+        /**
+         * @param encoding
+         *            - the content encoding, or null
+         * @return the strong ETag of the content in the given encoding
+         */
+        public String getETag(String encoding) {
+            return encoding == null ? "\"" + hash + "\"" : "\"" + hash + "-" + encoding + "\"";
+        }
+
+        private int size() {
+            return content.length + (gzip != null ? gzip.length : 0) + (brotli != null ? brotli.length : 0);
+        }
+
+        private static boolean accepts(String acceptEncoding, String encoding) {
+            for (String value : acceptEncoding.split(",")) {
+                String[] parts = value.split(";");
+                if (parts[0].trim().equals(encoding)) {
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+            return false;
+        }
+    }
+
+    private final long maxSize;
+
+    private final long maxFileSize;
+
+    private final Map<String, StaticResource> resources = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Map<String, File> indexFiles = new LinkedHashMap<String, File>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+            return size() > MAX_INDEX_ENTRIES;
+        }
+    };
+
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    private WatchService watchService;
+
+    private long size;
+
+    private long generation;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    /**
+     * @param maxSize
+     *            - maximum number of bytes held by the cache, including the compressed variants
+     * @param maxFileSize
+     *            - files larger than this are not cached
+     */
+    public StaticResourceCache(long maxSize, long maxFileSize) {
+        this.maxSize = maxSize;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * returns a file from the cache, or reads it into the cache
+     *
+     * @param file
+     *            - the existing file
+     * @param contentType
+     *            - the content type of the file, may be null
+     * @return the cached file, or null if the file can not be cached
+     */
+    public StaticResource get(File file, String contentType) {
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        String key = path.toString();
+        long loadGeneration;
+        synchronized (this) {
+            StaticResource resource = resources.get(key);
+            if (resource != null) {
+                hits++;
+                logStatistics();
+                return resource;
+            }
+            misses++;
+            logStatistics();
+            if (!watch(path.getParent())) {
+                return null;
+            }
+            loadGeneration = generation;
+        }
+        StaticResource resource = load(file, contentType);
+        if (resource == null) {
+            return null;
+        }
+        synchronized (this) {
+            // the file has been changed while it was loaded
+            if (generation != loadGeneration || watchService == null) {
+                return resource;
+            }
+            StaticResource previous = resources.put(key, resource);
+            if (previous != null) {
+                size -= previous.size();
+            }
+            size += resource.size();
+            Iterator<StaticResource> iterator = resources.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                size -= iterator.next().size();
+                iterator.remove();
+                evictions++;
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * returns the index file of a directory
+     *
+     * @param directory
+     *            - the existing directory
+     * @param filter
+     *            - filter matching the index files
+     * @return the first matching file, or the directory itself if there is no index file
+     */
+    public File getIndexFile(File directory, FilenameFilter filter) {
+        Path path = directory.getAbsoluteFile().toPath().normalize();
+        String key = path.toString();
+        synchronized (this) {
+            File indexFile = indexFiles.get(key);
+            if (indexFile != null) {
+                return indexFile;
+            }
+        }
+        File indexFile = directory;
+        String[] files = directory.list(filter);
+        if (files != null && files.length > 0) {
+            // take the first one found
+            indexFile = new File(directory, files[0]);
+        }
+        synchronized (this) {
+            if (watch(path)) {
+                indexFiles.put(key, indexFile);
+            }
+        }
+        return indexFile;
+    }
+
+    private StaticResource load(File file, String contentType) {
+        try {
+            long lastModified = file.lastModified();
+            if (file.length() > maxFileSize) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(file.toPath());
+            if (content.length > maxFileSize) {
+                return null;
+            }
+            byte[] gzip = readPrecompressed(file, ".gz", lastModified);
+            byte[] brotli = readPrecompressed(file, ".br", lastModified);
+            if (gzip == null && content.length >= MIN_COMPRESS_SIZE && isCompressible(contentType)) {
+                gzip = compress(content);
+            }
+            return new StaticResource(lastModified, content, gzip, brotli, hash(content));
+        } catch (IOException e) {
+            logger.debug("error reading '{}' into the cache: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] readPrecompressed(File file, String extension, long lastModified) throws IOException {
+        File compressed = new File(file.getPath() + extension);
+        if (compressed.isFile() && compressed.lastModified() >= lastModified && compressed.length() < file.length()) {
+            return Files.readAllBytes(compressed.toPath());
+        }
+        return null;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType != null && (contentType.startsWith("text") || contentType.endsWith("javascript")
+                || contentType.endsWith("json") || contentType.endsWith("xml"));
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        // only keep the compressed variant if it is worth it
+        return bytes.size() < content.length ? bytes.toByteArray() : null;
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * watches the given directory for changes, must be called while holding the lock
+     *
+     * @return true if the directory is watched
+     */
+    private boolean watch(Path directory) {
+        if (directory == null) {
+            return false;
+        }
+        if (watchedDirectories.contains(directory)) {
+            return true;
+        }
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                Thread thread = new Thread(this::processEvents, "CometVisu static resource watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watchedDirectories.add(directory);
+            return true;
+        } catch (IOException e) {
+            logger.debug("cannot watch directory '{}', files in it are not cached: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    private void processEvents() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        invalidateAll();
+                    } else {
+                        invalidate(directory, directory.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    synchronized (this) {
+                        watchedDirectories.remove(directory);
+                    }
+                    invalidateAll();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the cache has been closed
+        }
+    }
+
+    private synchronized void invalidate(Path directory, Path path) {
+        generation++;
+        indexFiles.remove(directory.toString());
+        String key = path.toString();
+        // a precompressed variant belongs to the file without the extension
+        if (key.endsWith(".gz") || key.endsWith(".br")) {
+            remove(key.substring(0, key.length() - 3));
+        }
+        remove(key);
+        // the path may be a directory
+        String prefix = key + File.separator;
+        Iterator<Map.Entry<String, StaticResource>> iterator = resources.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, StaticResource> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                size -= entry.getValue().size();
+                iterator.remove();
+                invalidations++;
+            }
+        }
+        indexFiles.keySet().removeIf(indexKey -> indexKey.equals(key) || indexKey.startsWith(prefix));
+    }
+
+    private void remove(String key) {
+        StaticResource resource = resources.remove(key);
+        if (resource != null) {
+            size -= resource.size();
+            invalidations++;
+        }
+    }
+
+    private synchronized void invalidateAll() {
+        generation++;
+        invalidations += resources.size();
+        resources.clear();
+        indexFiles.clear();
+        size = 0;
+    }
+
+    private void logStatistics() {
+        if ((hits + misses) % STATISTICS_INTERVAL == 0) {
+            logger.debug("static resource cache: {} hits, {} misses, {} evictions, {} invalidations, {} files, {} bytes",
+                    hits, misses, evictions, invalidations, resources.size(), size);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * stops watching the directories and releases all cached files
+     */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("error closing the watch service: {}", e.getMessage());
+            }
+            watchService = null;
+        }
+        watchedDirectories.clear();
+        invalidateAll();
+        logger.debug("static resource cache closed after {} hits and {} misses", hits, misses);
+    }
+}
@@ -11,10 +11,8 @@ package org.openhab.voice.googletts.internal;
 import com.google.cloud.texttospeech.v1beta1.AudioEncoding;
 import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.config.core.ConfigurableService;
-import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
-import org.eclipse.smarthome.core.audio.FileAudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
 import org.eclipse.smarthome.core.voice.Voice;
@@ -26,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
@@ -309,13 +308,9 @@ public class GoogleTTSService implements TTSService {
         // now create the input stream for given text, locale, format. There is
         // only a default voice
         try {
-            File audioFile = apiImpl.synthesizeSpeech(text, (GoogleTTSVoice) voice, requestedFormat.getCodec());
-            if (audioFile == null) {
-                throw new TTSException("Could not read from Google Cloud TTS Service");
-            }
-            return new FileAudioStream(audioFile, requestedFormat);
-        } catch (AudioException ex) {
-            throw new TTSException("Could not create AudioStream", ex);
+            return apiImpl.synthesizeSpeech(text, (GoogleTTSVoice) voice, requestedFormat);
+        } catch (IOException ex) {
+            throw new TTSException("Could not read from Google Cloud TTS Service: " + ex.getMessage(), ex);
         }
     }
 }
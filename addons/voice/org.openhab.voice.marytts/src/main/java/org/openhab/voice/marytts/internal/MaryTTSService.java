@@ -10,15 +10,18 @@ package org.openhab.voice.marytts.internal;
 
 import static javax.sound.sampled.AudioSystem.NOT_SPECIFIED;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
 
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
+import org.openhab.voice.ttscache.TTSCache;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,10 +37,14 @@ import marytts.modules.synthesis.Voice;
  *
  * @author Kelly Davis - Initial contribution and API
  * @author Kai Kreuzer - Refactored to updated APIs and moved to openHAB
+ * @author agent - Use the shared TTS cache
  */
 @Component
 public class MaryTTSService implements TTSService {
 
+    /** Cache folder name is below userdata/cache */
+    private static final String CACHE_FOLDER_NAME = "cache";
+
     private final Logger logger = LoggerFactory.getLogger(MaryTTSService.class);
 
     private MaryInterface marytts;
@@ -52,7 +59,14 @@ public class MaryTTSService implements TTSService {
      */
     private Set<AudioFormat> audioFormats;
 
+    /**
+     * Cache of the generated audio
+     */
+    private TTSCache cache;
+
     protected void activate() {
+        File cacheFolder = new File(ConfigConstants.getUserDataFolder(), CACHE_FOLDER_NAME);
+        cache = new TTSCache(new File(cacheFolder, "org.openhab.voice.marytts"));
         try {
             marytts = new LocalMaryInterface();
             voices = initVoices();
@@ -110,17 +124,23 @@ public class MaryTTSService implements TTSService {
         Voice maryTTSVoice = Voice.getVoice(voice.getLabel());
         AudioFormat maryTTSVoiceAudioFormat = getAudioFormat(maryTTSVoice.dbAudioFormat());
 
-        // Synchronize on marytts
-        synchronized (marytts) {
-            // Set voice (Each voice supports only a single AudioFormat)
-            marytts.setLocale(voice.getLocale());
-            marytts.setVoice(voice.getLabel());
-
-            try {
-                return new MaryTTSAudioStream(marytts.generateAudio(text), maryTTSVoiceAudioFormat);
-            } catch (SynthesisException | IOException e) {
-                throw new TTSException("Error generating an AudioStream", e);
-            }
+        try {
+            return cache.get(voice.getLabel(), text, "wav", maryTTSVoiceAudioFormat, () -> {
+                // Synchronize on marytts
+                synchronized (marytts) {
+                    // Set voice (Each voice supports only a single AudioFormat)
+                    marytts.setLocale(voice.getLocale());
+                    marytts.setVoice(voice.getLabel());
+
+                    try {
+                        return new MaryTTSAudioStream(marytts.generateAudio(text), maryTTSVoiceAudioFormat);
+                    } catch (SynthesisException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
         }
     }
 
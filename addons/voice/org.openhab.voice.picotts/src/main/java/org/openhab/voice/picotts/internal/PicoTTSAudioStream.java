@@ -108,6 +108,19 @@ class PicoTTSAudioStream extends FixedLengthAudioStream {
         return inputStream.read();
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return inputStream.read(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
     @Override
     public long length() {
         return length;
@@ -8,25 +8,37 @@
  */
 package org.openhab.voice.picotts.internal;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
 import org.eclipse.smarthome.core.voice.Voice;
+import org.openhab.voice.ttscache.TTSCache;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 
 /**
  * @author Florian Schmidt - Initial Contribution
+ * @author agent - Use the shared TTS cache
  */
 @Component
 public class PicoTTSService implements TTSService {
+
+    /** Cache folder name is below userdata/cache */
+    private static final String CACHE_FOLDER_NAME = "cache";
+
+    private TTSCache cache;
+
     private final Set<Voice> voices = Stream
             .of(new PicoTTSVoice("de-DE"), new PicoTTSVoice("en-US"), new PicoTTSVoice("en-GB"),
                     new PicoTTSVoice("es-ES"), new PicoTTSVoice("fr-FR"), new PicoTTSVoice("it-IT"))
@@ -35,6 +47,12 @@ public class PicoTTSService implements TTSService {
     private final Set<AudioFormat> audioFormats = Collections.singleton(
             new AudioFormat(AudioFormat.CONTAINER_WAVE, AudioFormat.CODEC_PCM_SIGNED, false, 16, null, 16000L));
 
+    @Activate
+    protected void activate() {
+        File cacheFolder = new File(ConfigConstants.getUserDataFolder(), CACHE_FOLDER_NAME);
+        cache = new TTSCache(new File(cacheFolder, "org.openhab.voice.picotts"));
+    }
+
     @Override
     public Set<Voice> getAvailableVoices() {
         return this.voices;
@@ -64,8 +82,14 @@ public class PicoTTSService implements TTSService {
         }
 
         try {
-            return new PicoTTSAudioStream(text, voice, requestedFormat);
-        } catch (AudioException e) {
+            return cache.get(voice.getLabel(), text, "wav", requestedFormat, () -> {
+                try {
+                    return new PicoTTSAudioStream(text, voice, requestedFormat);
+                } catch (AudioException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            });
+        } catch (IOException e) {
             throw new TTSException(e);
         }
     }
@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.ttscache;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the {@link TTSCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TTSCacheTest {
+
+    private static final String VOICE = "en-US";
+    private static final AudioFormat FORMAT = new AudioFormat(AudioFormat.CONTAINER_NONE, AudioFormat.CODEC_MP3, null,
+            null, null, null);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheFolder;
+    private final AtomicInteger synthesized = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFolder = folder.newFolder("tts");
+    }
+
+    /**
+     * The audio of a text, its size is the length of the text times the given factor
+     */
+    private static byte[] audio(String text, int factor) {
+        byte[] audio = new byte[text.length() * factor];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) text.charAt(i % text.length());
+        }
+        return audio;
+    }
+
+    private TTSAudioSupplier supplier(byte[] audio) {
+        return () -> {
+            synthesized.incrementAndGet();
+            return new ByteArrayInputStream(audio);
+        };
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        try (InputStream is = stream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private byte[] get(TTSCache cache, String text, int factor) throws IOException {
+        FixedLengthAudioStream stream = cache.get(VOICE, text, "mp3", FORMAT, supplier(audio(text, factor)));
+        assertThat(stream.length(), is((long) text.length() * factor));
+        return read(stream);
+    }
+
+    /**
+     * Deletes the cached audio files, so that only the clips kept in memory can be served without synthesis
+     */
+    private void deleteFiles() {
+        for (File file : cacheFolder.listFiles()) {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testAudioIsCached() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder);
+
+        assertThat(get(cache, "hello", 100), is(audio("hello", 100)));
+        assertThat(get(cache, "hello", 100), is(audio("hello", 100)));
+        assertThat(synthesized.get(), is(1));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(1L));
+
+        // the same text of another voice is another audio
+        cache.get("de-DE", "hello", "mp3", FORMAT, supplier(audio("hello", 100))).close();
+        assertThat(synthesized.get(), is(2));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getSize(), is(2 * (500L + "hello".length())));
+    }
+
+    @Test
+    public void testFilesAreIndexedOnStart() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder);
+        get(cache, "one", 100);
+        get(cache, "two", 100);
+
+        cache = new TTSCache(cacheFolder);
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getSize(), is(2 * 303L));
+        assertThat(get(cache, "one", 100), is(audio("one", 100)));
+        assertThat(synthesized.get(), is(2));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreSynthesizedOnce() throws Exception {
+        TTSCache cache = new TTSCache(cacheFolder);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TTSAudioSupplier slowSupplier = () -> {
+            synthesized.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ByteArrayInputStream(audio("hello", 100));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> read(cache.get(VOICE, "hello", "mp3", FORMAT, slowSupplier))));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < 8; i++) {
+                results.add(executor.submit(() -> read(cache.get(VOICE, "hello", "mp3", FORMAT, slowSupplier))));
+            }
+            // give the other requests time to wait for the running synthesis
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<byte[]> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS), is(audio("hello", 100)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(synthesized.get(), is(1));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testFailedSynthesisIsNotCached() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder);
+        try {
+            cache.get(VOICE, "hello", "mp3", FORMAT, () -> {
+                throw new IOException("service unavailable");
+            });
+            fail("Expected the synthesis to fail");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("service unavailable"));
+        }
+        assertThat(cache.size(), is(0));
+        assertThat(cacheFolder.list().length, is(0));
+
+        assertThat(get(cache, "hello", 100), is(audio("hello", 100)));
+        assertThat(synthesized.get(), is(1));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreEvicted() throws IOException {
+        // room for two files of 1000 bytes with their text files
+        TTSCache cache = new TTSCache(cacheFolder, 2500, 0, 0);
+        get(cache, "a", 1000);
+        get(cache, "b", 1000);
+        get(cache, "a", 1000);
+        get(cache, "c", 1000);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getSize(), is(2 * 1001L));
+        assertThat(cacheFolder.list().length, is(4));
+        assertThat(synthesized.get(), is(3));
+
+        // b was evicted, a and c are still cached
+        get(cache, "a", 1000);
+        get(cache, "c", 1000);
+        assertThat(synthesized.get(), is(3));
+        get(cache, "b", 1000);
+        assertThat(synthesized.get(), is(4));
+    }
+
+    @Test
+    public void testAudioLargerThanTheCacheIsKeptUntilTheNextAudio() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder, 500, 0, 0);
+        assertThat(get(cache, "a", 1000), is(audio("a", 1000)));
+        assertThat(cache.size(), is(1));
+
+        get(cache, "b", 100);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getSize(), is(101L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedClipsAreEvictedFromMemory() throws IOException {
+        // room for two clips of 1000 bytes in memory
+        TTSCache cache = new TTSCache(cacheFolder, TTSCache.DEFAULT_MAX_SIZE, 2500, 1000);
+        get(cache, "a", 1000);
+        get(cache, "b", 1000);
+        get(cache, "a", 1000);
+        get(cache, "c", 1000);
+        assertThat(cache.getMemorySize(), is(2000L));
+        assertThat(synthesized.get(), is(3));
+
+        // a and c are served from memory, b is synthesized again
+        deleteFiles();
+        for (String text : Arrays.asList("a", "c")) {
+            assertThat(get(cache, text, 1000), is(audio(text, 1000)));
+        }
+        assertThat(synthesized.get(), is(3));
+        assertThat(get(cache, "b", 1000), is(audio("b", 1000)));
+        assertThat(synthesized.get(), is(4));
+        assertThat(cache.getMemorySize(), is(2000L));
+    }
+
+    @Test
+    public void testClipsLargerThanTheLimitAreNotKeptInMemory() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder, TTSCache.DEFAULT_MAX_SIZE, 2500, 1000);
+        assertThat(get(cache, "large", 300), is(audio("large", 300)));
+        assertThat(get(cache, "large", 300), is(audio("large", 300)));
+        assertThat(cache.getMemorySize(), is(0L));
+        assertThat(cache.getSize(), is(1505L));
+
+        // served from the file, so it is synthesized again once the file is gone
+        deleteFiles();
+        assertThat(get(cache, "large", 300), is(audio("large", 300)));
+        assertThat(synthesized.get(), is(2));
+        assertThat(cache.getMemorySize(), is(0L));
+
+        // a clip within the limit but larger than the memory is not kept either
+        cache = new TTSCache(cacheFolder, TTSCache.DEFAULT_MAX_SIZE, 500, 1000);
+        get(cache, "small", 200);
+        assertThat(cache.getMemorySize(), is(0L));
+    }
+
+    @Test
+    public void testDeletedFileIsSynthesizedAgain() throws IOException {
+        TTSCache cache = new TTSCache(cacheFolder, TTSCache.DEFAULT_MAX_SIZE, 0, 1000);
+        get(cache, "hello", 100);
+        deleteFiles();
+
+        // too small to be kept in memory, so it is read from the missing file
+        assertThat(get(cache, "hello", 100), is(audio("hello", 100)));
+        assertThat(synthesized.get(), is(2));
+
+        File file = cache.getFile(VOICE, "hello", "mp3", supplier(audio("hello", 100)));
+        assertTrue(file.delete());
+        file = cache.getFile(VOICE, "hello", "mp3", supplier(audio("hello", 100)));
+        assertTrue(file.exists());
+        assertThat(synthesized.get(), is(3));
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.ttscache;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Synthesizes the audio of a text for the {@link TTSCache}, called only if the audio is not cached yet.
+ *
+ * @author agent - Initial contribution
+ */
+@FunctionalInterface
+public interface TTSAudioSupplier {
+
+    /**
+     * Synthesizes the audio
+     *
+     * @return the audio data, closed by the cache once it has been read
+     * @throws IOException if the audio could not be synthesized
+     */
+    InputStream synthesize() throws IOException;
+}
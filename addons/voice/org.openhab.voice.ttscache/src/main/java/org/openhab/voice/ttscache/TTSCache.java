@@ -0,0 +1,440 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.ttscache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class implements a cache for synthesized audio data shared by the TTS services. The audio files are preserved
+ * in a folder of the file system, with an additional .txt file to indicate what content is in the audio file.
+ *
+ * The cached files are indexed in memory, so a lookup does not touch the file system. The total size of the files is
+ * bounded, the least recently used files are deleted when it is exceeded. Short clips are additionally kept in
+ * memory, also bounded in total size. Concurrent requests for the same audio are synthesized only once.
+ *
+ * @author agent - Initial contribution
+ */
+public class TTSCache {
+
+    /** Default maximum size of the cached files in bytes */
+    public static final long DEFAULT_MAX_SIZE = 50L * 1024 * 1024;
+
+    /** Default maximum size of the clips kept in memory in bytes */
+    public static final long DEFAULT_MAX_MEMORY_SIZE = 4L * 1024 * 1024;
+
+    /** Default maximum size of a single clip kept in memory in bytes */
+    public static final int DEFAULT_MAX_CLIP_SIZE = 256 * 1024;
+
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * Stream buffer size
+     */
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final Logger logger = LoggerFactory.getLogger(TTSCache.class);
+
+    private final File cacheFolder;
+    private final long maxSize;
+    private final long maxMemorySize;
+    private final int maxClipSize;
+
+    // the cached files by name, in access order (guarded by this)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    // the clips kept in memory by name, in access order (guarded by this)
+    private final LinkedHashMap<String, byte[]> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+
+    private long hits;
+    private long misses;
+
+    // the audio being synthesized by name
+    private final Map<String, CompletableFuture<Entry>> pending = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        private final File file;
+        private final long length;
+
+        Entry(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates a cache with the default sizes.
+     *
+     * @param cacheFolder the folder to keep the audio files in, created if needed
+     */
+    public TTSCache(File cacheFolder) {
+        this(cacheFolder, DEFAULT_MAX_SIZE, DEFAULT_MAX_MEMORY_SIZE, DEFAULT_MAX_CLIP_SIZE);
+    }
+
+    /**
+     * Creates a cache, indexing the audio files already in the folder.
+     *
+     * @param cacheFolder the folder to keep the audio files in, created if needed
+     * @param maxSize the maximum size of the cached files in bytes
+     * @param maxMemorySize the maximum size of the clips kept in memory in bytes
+     * @param maxClipSize the maximum size in bytes of a single clip kept in memory
+     */
+    public TTSCache(File cacheFolder, long maxSize, long maxMemorySize, int maxClipSize) {
+        if (cacheFolder == null) {
+            throw new IllegalStateException("Folder for cache must be defined");
+        }
+        this.cacheFolder = cacheFolder;
+        this.maxSize = maxSize;
+        this.maxMemorySize = maxMemorySize;
+        this.maxClipSize = maxClipSize;
+
+        if (!cacheFolder.exists()) {
+            cacheFolder.mkdirs();
+        }
+        index();
+    }
+
+    /**
+     * Indexes the audio files in the cache folder, the least recently modified first
+     */
+    private synchronized void index() {
+        File[] files = cacheFolder.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String name = file.getName();
+            if (!file.isFile() || name.endsWith(TEXT_EXTENSION)) {
+                continue;
+            }
+            if (name.endsWith(TEMP_EXTENSION)) {
+                // left over from an interrupted synthesis
+                file.delete();
+                continue;
+            }
+            Entry entry = new Entry(file, file.length() + getTextFile(file).length());
+            entries.put(name, entry);
+            size += entry.length;
+        }
+        evict(null);
+        logger.debug("Indexed {} cached audio files with {} bytes in {}", entries.size(), size, cacheFolder);
+    }
+
+    /**
+     * Gets the audio of a text, synthesizing it if it is not cached yet.
+     *
+     * @param voiceKey identifies the voice and all other settings the audio depends on, besides the text
+     * @param text the text
+     * @param extension the file extension of the audio format, e.g. "mp3"
+     * @param audioFormat the format of the returned stream
+     * @param supplier synthesizes the audio if it is not cached
+     * @return the audio
+     * @throws IOException if the audio could not be synthesized or cached
+     */
+    public FixedLengthAudioStream get(String voiceKey, String text, String extension, AudioFormat audioFormat,
+            TTSAudioSupplier supplier) throws IOException {
+        String name = getFileName(voiceKey, text, extension);
+        try {
+            return open(name, lookup(name, text, supplier), audioFormat);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // deleted behind our back, synthesize it again
+            remove(name);
+            return open(name, lookup(name, text, supplier), audioFormat);
+        }
+    }
+
+    /**
+     * Gets the file with the audio of a text, synthesizing it if it is not cached yet.
+     *
+     * @param voiceKey identifies the voice and all other settings the audio depends on, besides the text
+     * @param text the text
+     * @param extension the file extension of the audio format, e.g. "mp3"
+     * @param supplier synthesizes the audio if it is not cached
+     * @return the audio file, which may be deleted once the cache exceeds its size
+     * @throws IOException if the audio could not be synthesized or cached
+     */
+    public File getFile(String voiceKey, String text, String extension, TTSAudioSupplier supplier)
+            throws IOException {
+        String name = getFileName(voiceKey, text, extension);
+        Entry entry = lookup(name, text, supplier);
+        if (!entry.file.exists()) {
+            remove(name);
+            entry = lookup(name, text, supplier);
+        }
+        return entry.file;
+    }
+
+    private Entry lookup(String name, String text, TTSAudioSupplier supplier) throws IOException {
+        synchronized (this) {
+            Entry entry = entries.get(name);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+        }
+
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> running = pending.putIfAbsent(name, future);
+        if (running != null) {
+            // the same audio is being synthesized already
+            return await(running);
+        }
+        try {
+            Entry entry;
+            synchronized (this) {
+                // may have been added since the lookup above
+                entry = entries.get(name);
+            }
+            if (entry == null) {
+                entry = synthesize(name, text, supplier);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            pending.remove(name, future);
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the audio");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    private Entry synthesize(String name, String text, TTSAudioSupplier supplier) throws IOException {
+        long start = System.currentTimeMillis();
+        File audioFile = new File(cacheFolder, name);
+        File tempFile = new File(cacheFolder, name + TEMP_EXTENSION);
+        ByteArrayOutputStream clip = new ByteArrayOutputStream();
+        long length = 0;
+        try (InputStream is = supplier.synthesize(); OutputStream fos = new FileOutputStream(tempFile)) {
+            if (is == null) {
+                throw new IOException("No audio for '" + text + "'");
+            }
+            byte[] bytes = new byte[READ_BUFFER_SIZE];
+            int read = is.read(bytes, 0, READ_BUFFER_SIZE);
+            while (read > 0) {
+                fos.write(bytes, 0, read);
+                length += read;
+                if (length <= maxClipSize) {
+                    clip.write(bytes, 0, read);
+                }
+                read = is.read(bytes, 0, READ_BUFFER_SIZE);
+            }
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (length == 0) {
+            tempFile.delete();
+            throw new IOException("No audio for '" + text + "'");
+        }
+        Files.move(tempFile.toPath(), audioFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // write text to file for transparency too
+        // this allows to know which contents is in which audio file
+        File textFile = getTextFile(audioFile);
+        try {
+            Files.write(textFile.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.debug("Could not write {} to cache: {}", textFile, e.getMessage());
+        }
+
+        Entry entry = new Entry(audioFile, length + textFile.length());
+        synchronized (this) {
+            misses++;
+            Entry previous = entries.put(name, entry);
+            if (previous != null) {
+                size -= previous.length;
+            }
+            size += entry.length;
+            if (length <= maxClipSize) {
+                addClip(name, clip.toByteArray());
+            }
+            evict(name);
+            logger.debug("Cached {} ({} bytes) in {}ms, {} files with {} bytes, {} hits, {} misses", name, length,
+                    System.currentTimeMillis() - start, entries.size(), size, hits, misses);
+        }
+        return entry;
+    }
+
+    private FixedLengthAudioStream open(String name, Entry entry, AudioFormat audioFormat) throws IOException {
+        byte[] clip;
+        synchronized (this) {
+            clip = clips.get(name);
+        }
+        if (clip != null) {
+            return new TTSCacheAudioStream(clip, audioFormat);
+        }
+
+        // keep the order of use across restarts
+        entry.file.setLastModified(System.currentTimeMillis());
+        if (entry.file.length() <= maxClipSize) {
+            clip = Files.readAllBytes(entry.file.toPath());
+            synchronized (this) {
+                if (entries.get(name) == entry) {
+                    addClip(name, clip);
+                }
+            }
+            return new TTSCacheAudioStream(clip, audioFormat);
+        }
+        return new TTSCacheAudioStream(entry.file, audioFormat);
+    }
+
+    private void addClip(String name, byte[] clip) {
+        byte[] previous = clips.put(name, clip);
+        if (previous != null) {
+            memorySize -= previous.length;
+        }
+        memorySize += clip.length;
+        Iterator<Map.Entry<String, byte[]>> iterator = clips.entrySet().iterator();
+        while (memorySize > maxMemorySize && iterator.hasNext()) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            memorySize -= eldest.getValue().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the size of the cache is not exceeded
+     *
+     * @param keep the name of the file not to delete, or null
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            delete(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private synchronized void remove(String name) {
+        Entry entry = entries.remove(name);
+        if (entry != null) {
+            delete(name, entry);
+        }
+    }
+
+    private void delete(String name, Entry entry) {
+        size -= entry.length;
+        byte[] clip = clips.remove(name);
+        if (clip != null) {
+            memorySize -= clip.length;
+        }
+        entry.file.delete();
+        getTextFile(entry.file).delete();
+        logger.trace("Deleted {} from cache", name);
+    }
+
+    private File getTextFile(File audioFile) {
+        String name = audioFile.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(cacheFolder, (dot < 0 ? name : name.substring(0, dot)) + TEXT_EXTENSION);
+    }
+
+    /**
+     * Gets a unique filename for a given text, by creating a MD5 hash of it. It
+     * will be preceded by the voice key.
+     *
+     * Sample: "en-US_00a2653ac5f77063bc4ea2fee87318d3.mp3"
+     */
+    private String getFileName(String voiceKey, String text, String extension) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] md5Hash = md.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hashText = new StringBuilder(new BigInteger(1, md5Hash).toString(16));
+            // zero pad it to the full 32 chars
+            while (hashText.length() < 32) {
+                hashText.insert(0, '0');
+            }
+            return voiceKey.replaceAll("[^A-Za-z0-9_-]", "-") + "_" + hashText + "." + extension.toLowerCase();
+        } catch (NoSuchAlgorithmException e) {
+            // should not happen
+            throw new IllegalStateException("Could not create MD5 hash", e);
+        }
+    }
+
+    /**
+     * @return the number of cached audio files
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size of the cached files in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the total size of the clips kept in memory in bytes
+     */
+    public synchronized long getMemorySize() {
+        return memorySize;
+    }
+
+    /**
+     * @return the number of requests served from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of requests that had to be synthesized
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.ttscache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.smarthome.core.audio.AudioException;
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+
+/**
+ * Implementation of the {@link FixedLengthAudioStream} for the audio of the {@link TTSCache}, either held in memory
+ * or read from the cached file.
+ *
+ * @author agent - Initial contribution
+ */
+class TTSCacheAudioStream extends FixedLengthAudioStream {
+
+    private final AudioFormat audioFormat;
+    private final byte[] audio;
+    private final File file;
+    private final long length;
+
+    private InputStream inputStream;
+
+    TTSCacheAudioStream(byte[] audio, AudioFormat audioFormat) {
+        this.audioFormat = audioFormat;
+        this.audio = audio;
+        this.file = null;
+        this.length = audio.length;
+        this.inputStream = new ByteArrayInputStream(audio);
+    }
+
+    TTSCacheAudioStream(File file, AudioFormat audioFormat) throws FileNotFoundException {
+        this.audioFormat = audioFormat;
+        this.audio = null;
+        this.file = file;
+        this.length = file.length();
+        this.inputStream = new FileInputStream(file);
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return audioFormat;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return inputStream.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return inputStream.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return inputStream.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return inputStream.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        inputStream.close();
+        inputStream = open();
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public InputStream getClonedStream() throws AudioException {
+        try {
+            return open();
+        } catch (FileNotFoundException e) {
+            throw new AudioException("Cached audio file '" + file.getName() + "' not found!", e);
+        }
+    }
+
+    private InputStream open() throws FileNotFoundException {
+        return audio != null ? new ByteArrayInputStream(audio) : new FileInputStream(file);
+    }
+}
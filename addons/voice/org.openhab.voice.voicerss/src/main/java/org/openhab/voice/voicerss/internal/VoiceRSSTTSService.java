@@ -18,7 +18,6 @@ import java.util.Set;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.config.core.ConfigurableService;
-import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
@@ -133,14 +132,8 @@ public class VoiceRSSTTSService implements TTSService {
         // now create the input stream for given text, locale, format. There is
         // only a default voice
         try {
-            File cacheAudioFile = voiceRssImpl.getTextToSpeechAsFile(apiKey, trimmedText,
-                    voice.getLocale().toLanguageTag(), getApiAudioFormat(requestedFormat));
-            if (cacheAudioFile == null) {
-                throw new TTSException("Could not read from VoiceRSS service");
-            }
-            return new VoiceRSSAudioStream(cacheAudioFile, requestedFormat);
-        } catch (AudioException ex) {
-            throw new TTSException("Could not create AudioStream: " + ex.getMessage(), ex);
+            return voiceRssImpl.getTextToSpeechAsStream(apiKey, trimmedText, voice.getLocale().toLanguageTag(),
+                    getApiAudioFormat(requestedFormat), requestedFormat);
         } catch (IOException ex) {
             throw new TTSException("Could not read from VoiceRSS service: " + ex.getMessage(), ex);
         }